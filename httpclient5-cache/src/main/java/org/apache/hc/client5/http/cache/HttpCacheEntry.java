@@ -283,6 +283,9 @@ public boolean hasVariants() {
      * the "parent" entry to hold this index of the other variants.
      */
     public Map<String, String> getVariantMap() {
+        if (variantMap == null) {
+            return Collections.emptyMap();
+        }
         return Collections.unmodifiableMap(variantMap);
     }
 
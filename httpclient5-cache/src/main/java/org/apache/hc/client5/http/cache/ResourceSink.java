@@ -0,0 +1,69 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.cache;
+
+/**
+ * Receives the content of a response body incrementally and turns it
+ * into a {@link Resource} once the body has been fully received.
+ * <p>
+ * Content written to the sink is not visible to the cache until
+ * {@link #commit()} is called. A sink that is not going to be committed
+ * must be {@link #abort() aborted} in order to release its resources.
+ * </p>
+ *
+ * @see StreamingResourceFactory
+ * @since 5.0
+ */
+public interface ResourceSink {
+
+    /**
+     * Appends a chunk of content.
+     * @param content byte array containing the content chunk.
+     * @param off the start offset in the array.
+     * @param len the number of bytes to write.
+     * @throws ResourceIOException
+     */
+    void write(byte[] content, int off, int len) throws ResourceIOException;
+
+    /**
+     * Returns the number of bytes written so far.
+     */
+    long length();
+
+    /**
+     * Completes the sink and returns a {@link Resource} representing
+     * all the content written to it.
+     * @throws ResourceIOException
+     */
+    Resource commit() throws ResourceIOException;
+
+    /**
+     * Discards the content written so far.
+     */
+    void abort();
+
+}
@@ -29,6 +29,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -141,8 +142,9 @@ public final Map<String, HttpCacheEntry> getEntries(final Collection<String> key
         }
         final Map<String, T> storageObjectMap = bulkRestore(storageKeys);
         final Map<String, HttpCacheEntry> resultMap = new HashMap<>();
+        final Iterator<String> storageKeyIterator = storageKeys.iterator();
         for (final String key: keys) {
-            final String storageKey = digestToStorageKey(key);
+            final String storageKey = storageKeyIterator.next();
             final T storageObject = storageObjectMap.get(storageKey);
             if (storageObject != null) {
                 final HttpCacheStorageEntry entry = serializer.deserialize(storageObject);
@@ -46,8 +46,10 @@
 import org.apache.hc.client5.http.cache.HeaderConstants;
 import org.apache.hc.client5.http.cache.HttpAsyncCacheStorage;
 import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.Resource;
 import org.apache.hc.client5.http.cache.ResourceFactory;
 import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
 import org.apache.hc.client5.http.impl.ExecSupport;
 import org.apache.hc.client5.http.impl.RequestCopier;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
@@ -93,12 +95,22 @@ class AsyncCachingExec extends CachingExecBase implements AsyncExecChainHandler
     private final HttpAsyncCache responseCache;
     private final DefaultAsyncCacheRevalidator cacheRevalidator;
     private final ConditionalRequestBuilder<HttpRequest> conditionalRequestBuilder;
+    private final RequestCollapser requestCollapser;
 
-    AsyncCachingExec(final HttpAsyncCache cache, final DefaultAsyncCacheRevalidator cacheRevalidator, final CacheConfig config) {
+    AsyncCachingExec(
+            final HttpAsyncCache cache,
+            final DefaultAsyncCacheRevalidator cacheRevalidator,
+            final RequestCollapser requestCollapser,
+            final CacheConfig config) {
         super(config);
         this.responseCache = Args.notNull(cache, "Response cache");
         this.cacheRevalidator = cacheRevalidator;
         this.conditionalRequestBuilder = new ConditionalRequestBuilder<>(RequestCopier.INSTANCE);
+        this.requestCollapser = requestCollapser;
+    }
+
+    AsyncCachingExec(final HttpAsyncCache cache, final DefaultAsyncCacheRevalidator cacheRevalidator, final CacheConfig config) {
+        this(cache, cacheRevalidator, createRequestCollapser(config), config);
     }
 
     AsyncCachingExec(
@@ -118,6 +130,12 @@ class AsyncCachingExec extends CachingExecBase implements AsyncExecChainHandler
         this.responseCache = responseCache;
         this.cacheRevalidator = cacheRevalidator;
         this.conditionalRequestBuilder = conditionalRequestBuilder;
+        this.requestCollapser = createRequestCollapser(this.cacheConfig);
+    }
+
+    private static RequestCollapser createRequestCollapser(final CacheConfig config) {
+        return config != null && config.isRequestCollapsingEnabled()
+                ? new RequestCollapser(config.getRequestCollapsingTimeout()) : null;
     }
 
     AsyncCachingExec(
@@ -260,11 +278,10 @@ public void cancelled() {
 
                 @Override
                 public void completed(final HttpCacheEntry entry) {
-                    if (entry == null) {
-                        log.debug("Cache miss");
-                        handleCacheMiss(target, request, entityProducer, scope, chain, asyncExecCallback);
+                    if (requestCollapser != null && isCollapsible(target, request, entry, getCurrentDate())) {
+                        handleCollapsibleRequest(target, request, entityProducer, scope, chain, asyncExecCallback, entry);
                     } else {
-                        handleCacheHit(target, request, entityProducer, scope, chain, asyncExecCallback, entry);
+                        handleRequest(target, request, entityProducer, scope, chain, asyncExecCallback, entry);
                     }
                 }
 
@@ -283,6 +300,115 @@ public void cancelled() {
         }
     }
 
+    private void handleRequest(
+            final HttpHost target,
+            final HttpRequest request,
+            final AsyncEntityProducer entityProducer,
+            final AsyncExecChain.Scope scope,
+            final AsyncExecChain chain,
+            final AsyncExecCallback asyncExecCallback,
+            final HttpCacheEntry entry) {
+        if (entry == null) {
+            log.debug("Cache miss");
+            handleCacheMiss(target, request, entityProducer, scope, chain, asyncExecCallback);
+        } else {
+            handleCacheHit(target, request, entityProducer, scope, chain, asyncExecCallback, entry);
+        }
+    }
+
+    private void handleCollapsibleRequest(
+            final HttpHost target,
+            final HttpRequest request,
+            final AsyncEntityProducer entityProducer,
+            final AsyncExecChain.Scope scope,
+            final AsyncExecChain chain,
+            final AsyncExecCallback asyncExecCallback,
+            final HttpCacheEntry entry) {
+        final String cacheKey = responseCache.generateKey(target, request, null);
+        final RequestCollapser.Flight flight = requestCollapser.lead(cacheKey);
+        if (flight != null) {
+            handleRequest(target, request, entityProducer, scope, chain,
+                    new CollapsingExecCallback(asyncExecCallback, flight), entry);
+            return;
+        }
+        log.debug("Waiting for request in progress");
+        requestCollapser.await(cacheKey, new Runnable() {
+
+            @Override
+            public void run() {
+                final CancellableDependency operation = scope.cancellableDependency;
+                operation.setDependency(responseCache.getCacheEntry(target, request, new FutureCallback<HttpCacheEntry>() {
+
+                    @Override
+                    public void completed(final HttpCacheEntry updatedEntry) {
+                        if (!isCollapsible(target, request, updatedEntry, getCurrentDate())) {
+                            recordCollapsedRequest(target, request);
+                        }
+                        handleRequest(target, request, entityProducer, scope, chain, asyncExecCallback, updatedEntry);
+                    }
+
+                    @Override
+                    public void failed(final Exception cause) {
+                        asyncExecCallback.failed(cause);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        asyncExecCallback.failed(new InterruptedIOException());
+                    }
+
+                }));
+            }
+
+        });
+    }
+
+    /**
+     * Completes the flight of a collapsed request once the response has been
+     * fully processed, that is, once it has been stored in the cache if cacheable.
+     */
+    class CollapsingExecCallback implements AsyncExecCallback {
+
+        private final AsyncExecCallback asyncExecCallback;
+        private final RequestCollapser.Flight flight;
+
+        CollapsingExecCallback(final AsyncExecCallback asyncExecCallback, final RequestCollapser.Flight flight) {
+            this.asyncExecCallback = asyncExecCallback;
+            this.flight = flight;
+        }
+
+        @Override
+        public AsyncDataConsumer handleResponse(
+                final HttpResponse response,
+                final EntityDetails entityDetails) throws HttpException, IOException {
+            return asyncExecCallback.handleResponse(response, entityDetails);
+        }
+
+        @Override
+        public void handleInformationResponse(final HttpResponse response) throws HttpException, IOException {
+            asyncExecCallback.handleInformationResponse(response);
+        }
+
+        @Override
+        public void completed() {
+            try {
+                asyncExecCallback.completed();
+            } finally {
+                requestCollapser.complete(flight);
+            }
+        }
+
+        @Override
+        public void failed(final Exception cause) {
+            try {
+                asyncExecCallback.failed(cause);
+            } finally {
+                requestCollapser.complete(flight);
+            }
+        }
+
+    }
+
     void chainProceed(
             final HttpRequest request,
             final AsyncEntityProducer entityProducer,
@@ -355,23 +481,77 @@ public void failed(final Exception cause) {
 
     class CachingAsyncDataConsumer implements AsyncDataConsumer {
 
+        private final HttpHost target;
+        private final HttpRequest request;
         private final AsyncExecCallback fallback;
         private final HttpResponse backendResponse;
         private final EntityDetails entityDetails;
         private final AtomicBoolean writtenThrough;
         private final AtomicReference<ByteArrayBuffer> bufferRef;
         private final AtomicReference<AsyncDataConsumer> dataConsumerRef;
+        private final AtomicReference<ResourceSink> sinkRef;
+        private final AtomicReference<Resource> resourceRef;
+        private final AtomicBoolean streamingChecked;
 
         CachingAsyncDataConsumer(
+                final HttpHost target,
+                final HttpRequest request,
                 final AsyncExecCallback fallback,
                 final HttpResponse backendResponse,
                 final EntityDetails entityDetails) {
+            this.target = target;
+            this.request = request;
             this.fallback = fallback;
             this.backendResponse = backendResponse;
             this.entityDetails = entityDetails;
             this.writtenThrough = new AtomicBoolean(false);
             this.bufferRef = new AtomicReference<>(entityDetails != null ? new ByteArrayBuffer(1024) : null);
             this.dataConsumerRef = new AtomicReference<>();
+            this.sinkRef = new AtomicReference<>();
+            this.resourceRef = new AtomicReference<>();
+            this.streamingChecked = new AtomicBoolean(false);
+        }
+
+        private void writeThrough(final ByteArrayBuffer buffer) throws IOException {
+            try {
+                final AsyncDataConsumer dataConsumer = fallback.handleResponse(backendResponse, entityDetails);
+                if (dataConsumer != null) {
+                    dataConsumerRef.set(dataConsumer);
+                    writtenThrough.set(true);
+                    dataConsumer.consume(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+                }
+            } catch (final HttpException ex) {
+                fallback.failed(ex);
+            }
+        }
+
+        private void abortSink() {
+            final ResourceSink sink = sinkRef.getAndSet(null);
+            if (sink != null) {
+                sink.abort();
+            }
+        }
+
+        private void writeToSink(final ByteBuffer src) {
+            final ResourceSink sink = sinkRef.get();
+            if (sink != null) {
+                try {
+                    if (src.hasArray()) {
+                        sink.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+                    } else {
+                        final byte[] tmp = new byte[src.remaining()];
+                        src.duplicate().get(tmp);
+                        sink.write(tmp, 0, tmp.length);
+                    }
+                    if (sink.length() > cacheConfig.getMaxObjectSize()) {
+                        log.debug("Backend response content length exceeds maximum");
+                        abortSink();
+                    }
+                } catch (final ResourceIOException ex) {
+                    log.debug("Unable to stream backend response into cache", ex);
+                    abortSink();
+                }
+            }
         }
 
         @Override
@@ -400,18 +580,21 @@ public final void consume(final ByteBuffer src) throws IOException {
                     // Over the max limit. Stop buffering and forward the response
                     // along with all the data buffered so far to the caller.
                     bufferRef.set(null);
-                    try {
-                        final AsyncDataConsumer dataConsumer = fallback.handleResponse(backendResponse, entityDetails);
-                        if (dataConsumer != null) {
-                            dataConsumerRef.set(dataConsumer);
-                            writtenThrough.set(true);
-                            dataConsumer.consume(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
-                        }
-                    } catch (final HttpException ex) {
-                        fallback.failed(ex);
+                    writeThrough(buffer);
+                } else if (buffer.length() > STREAMING_THRESHOLD && streamingChecked.compareAndSet(false, true)) {
+                    final ResourceSink sink = responseCache.createResourceSink(target, request);
+                    if (sink != null) {
+                        // Stop buffering and stream the response to the caller
+                        // and into the cache at the same time.
+                        log.debug("Streaming backend response into cache");
+                        bufferRef.set(null);
+                        sinkRef.set(sink);
+                        writeToSink(ByteBuffer.wrap(buffer.array(), 0, buffer.length()));
+                        writeThrough(buffer);
                     }
                 }
             } else {
+                writeToSink(src);
                 final AsyncDataConsumer dataConsumer = dataConsumerRef.get();
                 if (dataConsumer != null) {
                     dataConsumer.consume(src);
@@ -421,6 +604,14 @@ public final void consume(final ByteBuffer src) throws IOException {
 
         @Override
         public final void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+            final ResourceSink sink = sinkRef.getAndSet(null);
+            if (sink != null) {
+                try {
+                    resourceRef.set(sink.commit());
+                } catch (final ResourceIOException ex) {
+                    log.debug("Unable to stream backend response into cache", ex);
+                }
+            }
             final AsyncDataConsumer dataConsumer = dataConsumerRef.getAndSet(null);
             if (dataConsumer != null) {
                 dataConsumer.streamEnd(trailers);
@@ -429,6 +620,7 @@ public final void streamEnd(final List<? extends Header> trailers) throws HttpEx
 
         @Override
         public void releaseResources() {
+            abortSink();
             final AsyncDataConsumer dataConsumer = dataConsumerRef.getAndSet(null);
             if (dataConsumer != null) {
                 dataConsumer.releaseResources();
@@ -486,7 +678,8 @@ public void cancelled() {
             });
             final boolean cacheable = responseCachingPolicy.isResponseCacheable(request, backendResponse);
             if (cacheable) {
-                cachingConsumerRef.set(new CachingAsyncDataConsumer(asyncExecCallback, backendResponse, entityDetails));
+                cachingConsumerRef.set(new CachingAsyncDataConsumer(
+                        target, request, asyncExecCallback, backendResponse, entityDetails));
                 storeRequestIfModifiedSinceFor304Response(request, backendResponse);
             } else {
                 log.debug("Backend response is not cacheable");
@@ -556,10 +749,80 @@ public void cancelled() {
 
         }
 
+        void triggerStreamedCacheEntryCompletion(final HttpResponse backendResponse, final Resource resource) {
+            final CancellableDependency operation = scope.cancellableDependency;
+            operation.setDependency(responseCache.createStreamedCacheEntry(
+                    target,
+                    request,
+                    backendResponse,
+                    resource,
+                    requestDate,
+                    responseDate,
+                    new FutureCallback<HttpCacheEntry>() {
+
+                        @Override
+                        public void completed(final HttpCacheEntry newEntry) {
+                            log.debug("Backend response successfully cached");
+                            asyncExecCallback.completed();
+                        }
+
+                        @Override
+                        public void failed(final Exception ex) {
+                            log.warn("Unable to store streamed response in cache", ex);
+                            asyncExecCallback.completed();
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            asyncExecCallback.completed();
+                        }
+
+                    }));
+        }
+
+        void handleStreamedCacheEntry(final HttpResponse backendResponse, final Resource resource) {
+            if (cacheConfig.isFreshnessCheckEnabled()) {
+                final CancellableDependency operation = scope.cancellableDependency;
+                operation.setDependency(responseCache.getCacheEntry(target, request, new FutureCallback<HttpCacheEntry>() {
+
+                    @Override
+                    public void completed(final HttpCacheEntry existingEntry) {
+                        if (DateUtils.isAfter(existingEntry, backendResponse, HttpHeaders.DATE)) {
+                            log.debug("Backend already contains fresher cache entry");
+                            resource.dispose();
+                            asyncExecCallback.completed();
+                        } else {
+                            triggerStreamedCacheEntryCompletion(backendResponse, resource);
+                        }
+                    }
+
+                    @Override
+                    public void failed(final Exception cause) {
+                        resource.dispose();
+                        asyncExecCallback.completed();
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        resource.dispose();
+                        asyncExecCallback.completed();
+                    }
+
+                }));
+            } else {
+                triggerStreamedCacheEntryCompletion(backendResponse, resource);
+            }
+        }
+
         @Override
         public void completed() {
             final CachingAsyncDataConsumer cachingDataConsumer = cachingConsumerRef.getAndSet(null);
-            if (cachingDataConsumer != null && !cachingDataConsumer.writtenThrough.get()) {
+            final Resource streamedResource = cachingDataConsumer != null
+                    ? cachingDataConsumer.resourceRef.getAndSet(null) : null;
+            if (streamedResource != null) {
+                // The response has already been streamed to the caller
+                handleStreamedCacheEntry(cachingDataConsumer.backendResponse, streamedResource);
+            } else if (cachingDataConsumer != null && !cachingDataConsumer.writtenThrough.get()) {
                 final ByteArrayBuffer buffer = cachingDataConsumer.bufferRef.getAndSet(null);
                 final HttpResponse backendResponse = cachingDataConsumer.backendResponse;
                 if (cacheConfig.isFreshnessCheckEnabled()) {
@@ -602,6 +865,14 @@ public void cancelled() {
 
         @Override
         public void failed(final Exception cause) {
+            final CachingAsyncDataConsumer cachingDataConsumer = cachingConsumerRef.getAndSet(null);
+            if (cachingDataConsumer != null) {
+                cachingDataConsumer.abortSink();
+                final Resource streamedResource = cachingDataConsumer.resourceRef.getAndSet(null);
+                if (streamedResource != null) {
+                    streamedResource.dispose();
+                }
+            }
             asyncExecCallback.failed(cause);
         }
 
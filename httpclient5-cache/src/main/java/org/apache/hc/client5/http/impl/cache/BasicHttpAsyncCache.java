@@ -26,10 +26,10 @@
  */
 package org.apache.hc.client5.http.impl.cache;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
 
 import org.apache.hc.client5.http.cache.HeaderConstants;
 import org.apache.hc.client5.http.cache.HttpAsyncCacheInvalidator;
@@ -38,7 +38,9 @@
 import org.apache.hc.client5.http.cache.HttpCacheEntry;
 import org.apache.hc.client5.http.cache.HttpCacheUpdateException;
 import org.apache.hc.client5.http.cache.ResourceFactory;
+import org.apache.hc.client5.http.cache.Resource;
 import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
 import org.apache.hc.client5.http.impl.Operations;
 import org.apache.hc.core5.concurrent.Cancellable;
 import org.apache.hc.core5.concurrent.ComplexCancellable;
@@ -413,6 +415,53 @@ public void cancelled() {
         }
     }
 
+    @Override
+    public ResourceSink createResourceSink(final HttpHost host, final HttpRequest request) {
+        try {
+            return cacheUpdateHandler.createResourceSink(request);
+        } catch (final ResourceIOException ex) {
+            if (log.isWarnEnabled()) {
+                log.warn("I/O error creating resource sink: " + ex.getMessage());
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public Cancellable createStreamedCacheEntry(
+            final HttpHost host,
+            final HttpRequest request,
+            final HttpResponse originResponse,
+            final Resource resource,
+            final Date requestSent,
+            final Date responseReceived,
+            final FutureCallback<HttpCacheEntry> callback) {
+        if (log.isDebugEnabled()) {
+            log.debug("Create streamed cache entry: " + host + "; " + new RequestLine(request));
+        }
+        final String cacheKey = cacheKeyGenerator.generateKey(host, request);
+        final HttpCacheEntry entry = cacheUpdateHandler.createCacheEntry(
+                request, originResponse, resource, requestSent, responseReceived);
+        return storeInCache(cacheKey, host, request, entry, new FutureCallback<Boolean>() {
+
+            @Override
+            public void completed(final Boolean result) {
+                callback.completed(entry);
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                callback.failed(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                callback.cancelled();
+            }
+
+        });
+    }
+
     @Override
     public Cancellable createCacheEntry(
             final HttpHost host,
@@ -545,7 +594,7 @@ public Cancellable getVariantCacheEntriesWithEtags(
             @Override
             public void completed(final HttpCacheEntry rootEntry) {
                 if (rootEntry != null && rootEntry.hasVariants()) {
-                    final Set<String> variantCacheKeys = rootEntry.getVariantMap().keySet();
+                    final Collection<String> variantCacheKeys = rootEntry.getVariantMap().values();
                     complexCancellable.setDependency(storage.getEntries(
                             variantCacheKeys,
                             new FutureCallback<Map<String, HttpCacheEntry>>() {
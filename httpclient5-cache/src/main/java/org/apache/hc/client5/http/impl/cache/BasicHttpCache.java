@@ -26,6 +26,7 @@
  */
 package org.apache.hc.client5.http.impl.cache;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,7 +38,9 @@
 import org.apache.hc.client5.http.cache.HttpCacheStorage;
 import org.apache.hc.client5.http.cache.HttpCacheUpdateException;
 import org.apache.hc.client5.http.cache.ResourceFactory;
+import org.apache.hc.client5.http.cache.Resource;
 import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.HttpRequest;
@@ -301,6 +304,36 @@ public HttpCacheEntry createCacheEntry(
         }
     }
 
+    @Override
+    public ResourceSink createResourceSink(final HttpHost host, final HttpRequest request) {
+        try {
+            return cacheUpdateHandler.createResourceSink(request);
+        } catch (final ResourceIOException ex) {
+            if (log.isWarnEnabled()) {
+                log.warn("I/O error creating resource sink: " + ex.getMessage());
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public HttpCacheEntry createStreamedCacheEntry(
+            final HttpHost host,
+            final HttpRequest request,
+            final HttpResponse originResponse,
+            final Resource resource,
+            final Date requestSent,
+            final Date responseReceived) {
+        if (log.isDebugEnabled()) {
+            log.debug("Create streamed cache entry: " + host + "; " + new RequestLine(request));
+        }
+        final String cacheKey = cacheKeyGenerator.generateKey(host, request);
+        final HttpCacheEntry entry = cacheUpdateHandler.createCacheEntry(
+                request, originResponse, resource, requestSent, responseReceived);
+        storeInCache(cacheKey, host, request, entry);
+        return entry;
+    }
+
     @Override
     public HttpCacheEntry getCacheEntry(final HttpHost host, final HttpRequest request) {
         if (log.isDebugEnabled()) {
@@ -354,21 +387,21 @@ public Map<String, Variant> getVariantCacheEntriesWithEtags(final HttpHost host,
             return variants;
         }
         if (root != null && root.hasVariants()) {
-            for(final Map.Entry<String, String> variant : root.getVariantMap().entrySet()) {
-                final String variantCacheKey = variant.getValue();
-                try {
-                    final HttpCacheEntry entry = storage.getEntry(variantCacheKey);
-                    if (entry != null) {
-                        final Header etagHeader = entry.getFirstHeader(HeaderConstants.ETAG);
-                        if (etagHeader != null) {
-                            variants.put(etagHeader.getValue(), new Variant(variantCacheKey, entry));
-                        }
-                    }
-                } catch (final ResourceIOException ex) {
-                    if (log.isWarnEnabled()) {
-                        log.warn("I/O error retrieving cache entry with key " + variantCacheKey);
-                    }
-                    return variants;
+            final Collection<String> variantCacheKeys = root.getVariantMap().values();
+            final Map<String, HttpCacheEntry> resultMap;
+            try {
+                resultMap = storage.getEntries(variantCacheKeys);
+            } catch (final ResourceIOException ex) {
+                if (log.isWarnEnabled()) {
+                    log.warn("I/O error retrieving cache entry with keys " + variantCacheKeys);
+                }
+                return variants;
+            }
+            for (final Map.Entry<String, HttpCacheEntry> resultMapEntry : resultMap.entrySet()) {
+                final HttpCacheEntry entry = resultMapEntry.getValue();
+                final Header etagHeader = entry.getFirstHeader(HeaderConstants.ETAG);
+                if (etagHeader != null) {
+                    variants.put(etagHeader.getValue(), new Variant(resultMapEntry.getKey(), entry));
                 }
             }
         }
@@ -55,7 +55,7 @@ public class BasicHttpCacheStorage implements HttpCacheStorage {
 
     public BasicHttpCacheStorage(final CacheConfig config) {
         super();
-        this.entries = new CacheMap(config.getMaxCacheEntries());
+        this.entries = new CacheMap(config);
     }
 
     /**
@@ -81,7 +81,7 @@ public synchronized void putEntry(
      */
     @Override
     public synchronized HttpCacheEntry getEntry(final String url) throws ResourceIOException {
-        return entries.get(url);
+        return entries.lookup(url);
     }
 
     /**
@@ -115,4 +115,55 @@ public Map<String, HttpCacheEntry> getEntries(final Collection<String> keys) thr
         return resultMap;
     }
 
+    /**
+     * Returns the current total size of all cache entries in bytes as
+     * estimated by their header size and response body length.
+     *
+     * @since 5.0
+     */
+    public synchronized long getTotalBytes() {
+        return entries.getTotalBytes();
+    }
+
+    /**
+     * Returns the number of cache entries evicted due to the cache
+     * entry limit or the cache size limit.
+     *
+     * @since 5.0
+     */
+    public synchronized long getEvictionCount() {
+        return entries.getEvictionCount();
+    }
+
+    /**
+     * Returns the number of cache entries that were not admitted to the cache,
+     * either because they exceed the {@link CacheConfig#getMaxCacheSize() maximum
+     * cache size} on their own or because
+     * {@link CacheConfig#isFrequencyBasedAdmissionEnabled() frequency-based admission}
+     * favoured the entry they would have displaced.
+     *
+     * @since 5.0
+     */
+    public synchronized long getRejectionCount() {
+        return entries.getRejectionCount();
+    }
+
+    /**
+     * Returns the number of cache lookups that found an entry.
+     *
+     * @since 5.0
+     */
+    public synchronized long getHitCount() {
+        return entries.getHitCount();
+    }
+
+    /**
+     * Returns the number of cache lookups that found no entry.
+     *
+     * @since 5.0
+     */
+    public synchronized long getMissCount() {
+        return entries.getMissCount();
+    }
+
 }
@@ -0,0 +1,326 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.HttpCacheEntrySerializer;
+import org.apache.hc.client5.http.cache.HttpCacheStorageEntry;
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+
+/**
+ * {@link HttpCacheEntrySerializer} implementation that uses a compact, versioned
+ * binary representation of cache entries.
+ * <p>
+ * Unlike {@link ByteArrayCacheEntrySerializer} this serializer does not rely on
+ * Java serialization. It writes the storage key, the request and response dates,
+ * the status code, the response headers, the variant map and the response body
+ * as length prefixed fields, which results in considerably smaller payloads and
+ * faster serialization. Response bodies are always restored as {@link HeapResource}s.
+ * </p>
+ * <p>
+ * The format starts with the {@code HCE} signature followed by a format version.
+ * Content serialized with an unknown version is rejected with
+ * a {@link ResourceIOException}.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+public final class BinaryCacheEntrySerializer implements HttpCacheEntrySerializer<byte[]> {
+
+    public static final BinaryCacheEntrySerializer INSTANCE = new BinaryCacheEntrySerializer();
+
+    static final int VERSION = 1;
+
+    private static final byte[] SIGNATURE = new byte[] { 'H', 'C', 'E' };
+
+    @Override
+    public byte[] serialize(final HttpCacheStorageEntry cacheEntry) throws ResourceIOException {
+        if (cacheEntry == null) {
+            return null;
+        }
+        final HttpCacheEntry entry = cacheEntry.getContent();
+        final byte[] body = entry.getResource() != null ? entry.getResource().get() : null;
+        final List<Header> headers = new ArrayList<>();
+        for (final Iterator<Header> it = entry.headerIterator(); it.hasNext(); ) {
+            headers.add(it.next());
+        }
+        final Map<String, String> variantMap = entry.getVariantMap();
+
+        // Compute the exact size first, so that the content is written into a single array
+        int size = SIGNATURE.length + 1 + sizeOf(cacheEntry.getKey());
+        size += 8 + 8 + sizeOfVarint(entry.getStatus()) + sizeOfVarint(headers.size());
+        for (final Header header: headers) {
+            size += sizeOf(header.getName()) + sizeOf(header.getValue());
+        }
+        size += sizeOfVarint(variantMap.size());
+        for (final Map.Entry<String, String> variant: variantMap.entrySet()) {
+            size += sizeOf(variant.getKey()) + sizeOf(variant.getValue());
+        }
+        size += sizeOfVarint(body != null ? body.length + 1 : 0) + (body != null ? body.length : 0);
+
+        final Writer writer = new Writer(new byte[size]);
+        writer.writeBytes(SIGNATURE);
+        writer.writeByte(VERSION);
+        writer.writeString(cacheEntry.getKey());
+        writer.writeLong(entry.getRequestDate().getTime());
+        writer.writeLong(entry.getResponseDate().getTime());
+        writer.writeVarint(entry.getStatus());
+        writer.writeVarint(headers.size());
+        for (final Header header: headers) {
+            writer.writeString(header.getName());
+            writer.writeString(header.getValue());
+        }
+        writer.writeVarint(variantMap.size());
+        for (final Map.Entry<String, String> variant: variantMap.entrySet()) {
+            writer.writeString(variant.getKey());
+            writer.writeString(variant.getValue());
+        }
+        writer.writeVarint(body != null ? body.length + 1 : 0);
+        if (body != null) {
+            writer.writeBytes(body);
+        }
+        return writer.buf;
+    }
+
+    @Override
+    public HttpCacheStorageEntry deserialize(final byte[] serializedObject) throws ResourceIOException {
+        if (serializedObject == null) {
+            return null;
+        }
+        final Reader reader = new Reader(serializedObject);
+        try {
+            for (final byte b: SIGNATURE) {
+                if (reader.readByte() != b) {
+                    throw new ResourceIOException("Invalid serialized cache entry");
+                }
+            }
+            final int version = reader.readByte();
+            if (version != VERSION) {
+                throw new ResourceIOException("Unsupported cache entry format version: " + version);
+            }
+            final String key = reader.readString();
+            final Date requestDate = new Date(reader.readLong());
+            final Date responseDate = new Date(reader.readLong());
+            final int status = reader.readVarint();
+            // Every header and variant takes at least two bytes
+            final Header[] headers = new Header[reader.readCount(2)];
+            for (int i = 0; i < headers.length; i++) {
+                final String name = reader.readString();
+                final String value = reader.readString();
+                headers[i] = new BasicHeader(name, value);
+            }
+            final int variantCount = reader.readCount(2);
+            final Map<String, String> variantMap = new HashMap<>(variantCount * 2);
+            for (int i = 0; i < variantCount; i++) {
+                final String variantKey = reader.readString();
+                final String variantValue = reader.readString();
+                variantMap.put(variantKey, variantValue);
+            }
+            final int bodyLength = reader.readLength();
+            final Resource resource = bodyLength >= 0 ? new HeapResource(reader.readBytes(bodyLength)) : null;
+            if (reader.pos != serializedObject.length) {
+                throw new ResourceIOException("Invalid serialized cache entry");
+            }
+            return new HttpCacheStorageEntry(key,
+                    new HttpCacheEntry(requestDate, responseDate, status, headers, resource, variantMap));
+        } catch (final IllegalArgumentException ex) {
+            throw new ResourceIOException("Invalid serialized cache entry", ex);
+        }
+    }
+
+    private static int sizeOfVarint(final int value) {
+        int n = 1;
+        int v = value >>> 7;
+        while (v != 0) {
+            n++;
+            v >>>= 7;
+        }
+        return n;
+    }
+
+    private static boolean isAscii(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int sizeOf(final String s) {
+        if (s == null) {
+            return 1;
+        }
+        final int len = isAscii(s) ? s.length() : s.getBytes(StandardCharsets.UTF_8).length;
+        return sizeOfVarint(len + 1) + len;
+    }
+
+    static final class Writer {
+
+        final byte[] buf;
+        int pos;
+
+        Writer(final byte[] buf) {
+            this.buf = buf;
+        }
+
+        void writeByte(final int b) {
+            buf[pos++] = (byte) b;
+        }
+
+        void writeBytes(final byte[] b) {
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+        }
+
+        void writeVarint(final int value) {
+            int v = value;
+            while ((v & ~0x7f) != 0) {
+                buf[pos++] = (byte) ((v & 0x7f) | 0x80);
+                v >>>= 7;
+            }
+            buf[pos++] = (byte) v;
+        }
+
+        void writeLong(final long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeString(final String s) {
+            if (s == null) {
+                writeVarint(0);
+            } else if (isAscii(s)) {
+                final int len = s.length();
+                writeVarint(len + 1);
+                for (int i = 0; i < len; i++) {
+                    buf[pos++] = (byte) s.charAt(i);
+                }
+            } else {
+                final byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                writeVarint(b.length + 1);
+                writeBytes(b);
+            }
+        }
+
+    }
+
+    static final class Reader {
+
+        final byte[] buf;
+        int pos;
+
+        Reader(final byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() throws ResourceIOException {
+            if (pos >= buf.length) {
+                throw new ResourceIOException("Truncated serialized cache entry");
+            }
+            return buf[pos++] & 0xff;
+        }
+
+        byte[] readBytes(final int len) {
+            final byte[] b = new byte[len];
+            System.arraycopy(buf, pos, b, 0, len);
+            pos += len;
+            return b;
+        }
+
+        int readVarint() throws ResourceIOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final int b = readByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new ResourceIOException("Malformed varint in serialized cache entry");
+        }
+
+        /**
+         * Reads a number of elements, each of which takes at least
+         * {@code minSize} bytes of the remaining content.
+         */
+        int readCount(final int minSize) throws ResourceIOException {
+            final int count = readVarint();
+            if (count < 0 || (long) count * minSize > buf.length - pos) {
+                throw new ResourceIOException("Invalid element count in serialized cache entry: " + count);
+            }
+            return count;
+        }
+
+        /**
+         * Reads the length of a nullable field, returning {@code -1} for {@code null}.
+         */
+        int readLength() throws ResourceIOException {
+            final int value = readVarint();
+            final int len = value - 1;
+            if (value < 0 || len > buf.length - pos) {
+                throw new ResourceIOException("Invalid field length in serialized cache entry: " + len);
+            }
+            return len;
+        }
+
+        long readLong() throws ResourceIOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        String readString() throws ResourceIOException {
+            final int len = readLength();
+            if (len < 0) {
+                return null;
+            }
+            final String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+
+    }
+
+}
@@ -45,8 +45,19 @@
  *
  * <p><b>Cache size.</b> If the backend storage supports these limits, you
  * can specify the {@link CacheConfig#getMaxCacheEntries maximum number of
- * cache entries} as well as the {@link CacheConfig#getMaxObjectSize()}
- * maximum cacheable response body size}.</p>
+ * cache entries}, the {@link CacheConfig#getMaxObjectSize()}
+ * maximum cacheable response body size} as well as the
+ * {@link CacheConfig#getMaxCacheSize() maximum total size} of all cache
+ * entries.</p>
+ *
+ * <p><b>Frequency-based admission.</b> By default new cache entries always
+ * displace the least recently used ones once the cache is full. With
+ * {@link Builder#setFrequencyBasedAdmissionEnabled(boolean) frequency-based
+ * admission} enabled, in-memory storage backends keep a compact estimate of
+ * how often each cache key has been requested (TinyLFU) and admit a new entry
+ * only if its key is requested more often than that of the entry it would
+ * displace. This protects frequently requested entries from being flushed out
+ * by responses that are requested only once.</p>
  *
  * <p><b>Public/private caching.</b> By default, the caching module considers
  * itself to be a shared (public) cache, and will not, for example, cache
@@ -107,6 +118,11 @@ public class CacheConfig implements Cloneable {
      */
     public final static int DEFAULT_MAX_CACHE_ENTRIES = 1000;
 
+    /** Default setting for the maximum total size of all cache entries,
+     * in bytes. A value of {@code 0} means no limit.
+     */
+    public final static long DEFAULT_MAX_CACHE_SIZE_BYTES = 0;
+
     /** Default setting for the number of retries on a failed
      * cache processChallenge
      */
@@ -139,10 +155,24 @@ public class CacheConfig implements Cloneable {
      */
     public static final int DEFAULT_ASYNCHRONOUS_WORKERS = 1;
 
+    /** Default setting for frequency-based admission of cache entries
+     */
+    public static final boolean DEFAULT_FREQUENCY_BASED_ADMISSION_ENABLED = false;
+
+    /** Default setting for collapsing of concurrent requests for the same cache entry
+     */
+    public static final boolean DEFAULT_REQUEST_COLLAPSING_ENABLED = false;
+
+    /** Default maximum time in milliseconds a collapsed request waits for
+     * the request it has been collapsed into.
+     */
+    public static final long DEFAULT_REQUEST_COLLAPSING_TIMEOUT = 10000;
+
     public static final CacheConfig DEFAULT = new Builder().build();
 
     private final long maxObjectSize;
     private final int maxCacheEntries;
+    private final long maxCacheSize;
     private final int maxUpdateRetries;
     private final boolean allow303Caching;
     private final boolean weakETagOnPutDeleteAllowed;
@@ -153,10 +183,14 @@ public class CacheConfig implements Cloneable {
     private final boolean freshnessCheckEnabled;
     private final int asynchronousWorkers;
     private final boolean neverCacheHTTP10ResponsesWithQuery;
+    private final boolean frequencyBasedAdmissionEnabled;
+    private final boolean requestCollapsingEnabled;
+    private final long requestCollapsingTimeout;
 
     CacheConfig(
             final long maxObjectSize,
             final int maxCacheEntries,
+            final long maxCacheSize,
             final int maxUpdateRetries,
             final boolean allow303Caching,
             final boolean weakETagOnPutDeleteAllowed,
@@ -166,10 +200,14 @@ public class CacheConfig implements Cloneable {
             final boolean sharedCache,
             final boolean freshnessCheckEnabled,
             final int asynchronousWorkers,
-            final boolean neverCacheHTTP10ResponsesWithQuery) {
+            final boolean neverCacheHTTP10ResponsesWithQuery,
+            final boolean frequencyBasedAdmissionEnabled,
+            final boolean requestCollapsingEnabled,
+            final long requestCollapsingTimeout) {
         super();
         this.maxObjectSize = maxObjectSize;
         this.maxCacheEntries = maxCacheEntries;
+        this.maxCacheSize = maxCacheSize;
         this.maxUpdateRetries = maxUpdateRetries;
         this.allow303Caching = allow303Caching;
         this.weakETagOnPutDeleteAllowed = weakETagOnPutDeleteAllowed;
@@ -180,6 +218,9 @@ public class CacheConfig implements Cloneable {
         this.freshnessCheckEnabled = freshnessCheckEnabled;
         this.asynchronousWorkers = asynchronousWorkers;
         this.neverCacheHTTP10ResponsesWithQuery = neverCacheHTTP10ResponsesWithQuery;
+        this.frequencyBasedAdmissionEnabled = frequencyBasedAdmissionEnabled;
+        this.requestCollapsingEnabled = requestCollapsingEnabled;
+        this.requestCollapsingTimeout = requestCollapsingTimeout;
     }
 
     /**
@@ -208,6 +249,18 @@ public int getMaxCacheEntries() {
         return maxCacheEntries;
     }
 
+    /**
+     * Returns the maximum total size of all cache entries the cache will retain.
+     * The size of an entry is the length of its response body plus the size
+     * of its headers. A value of {@code 0} or less means no limit.
+     * @return size in bytes
+     *
+     * @since 5.0
+     */
+    public long getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
     /**
      * Returns the number of times to retry a cache processChallenge on failure
      */
@@ -282,6 +335,37 @@ public int getAsynchronousWorkers() {
         return asynchronousWorkers;
     }
 
+    /**
+     * Returns whether in-memory storage backends admit new cache entries
+     * based on how frequently their keys are requested.
+     *
+     * @since 5.0
+     */
+    public boolean isFrequencyBasedAdmissionEnabled() {
+        return frequencyBasedAdmissionEnabled;
+    }
+
+    /**
+     * Returns whether concurrent cache misses and revalidations of the same
+     * cache entry are collapsed into a single request to the origin server.
+     *
+     * @since 5.0
+     */
+    public boolean isRequestCollapsingEnabled() {
+        return requestCollapsingEnabled;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds a collapsed request waits for
+     * the request it has been collapsed into before going to the origin
+     * server on its own.
+     *
+     * @since 5.0
+     */
+    public long getRequestCollapsingTimeout() {
+        return requestCollapsingTimeout;
+    }
+
     @Override
     protected CacheConfig clone() throws CloneNotSupportedException {
         return (CacheConfig) super.clone();
@@ -296,13 +380,17 @@ public static Builder copy(final CacheConfig config) {
         return new Builder()
             .setMaxObjectSize(config.getMaxObjectSize())
             .setMaxCacheEntries(config.getMaxCacheEntries())
+            .setMaxCacheSize(config.getMaxCacheSize())
             .setMaxUpdateRetries(config.getMaxUpdateRetries())
             .setHeuristicCachingEnabled(config.isHeuristicCachingEnabled())
             .setHeuristicCoefficient(config.getHeuristicCoefficient())
             .setHeuristicDefaultLifetime(config.getHeuristicDefaultLifetime())
             .setSharedCache(config.isSharedCache())
             .setAsynchronousWorkers(config.getAsynchronousWorkers())
-            .setNeverCacheHTTP10ResponsesWithQueryString(config.isNeverCacheHTTP10ResponsesWithQuery());
+            .setNeverCacheHTTP10ResponsesWithQueryString(config.isNeverCacheHTTP10ResponsesWithQuery())
+            .setFrequencyBasedAdmissionEnabled(config.isFrequencyBasedAdmissionEnabled())
+            .setRequestCollapsingEnabled(config.isRequestCollapsingEnabled())
+            .setRequestCollapsingTimeout(config.getRequestCollapsingTimeout());
     }
 
 
@@ -310,6 +398,7 @@ public static class Builder {
 
         private long maxObjectSize;
         private int maxCacheEntries;
+        private long maxCacheSize;
         private int maxUpdateRetries;
         private boolean allow303Caching;
         private boolean weakETagOnPutDeleteAllowed;
@@ -320,10 +409,14 @@ public static class Builder {
         private boolean freshnessCheckEnabled;
         private int asynchronousWorkers;
         private boolean neverCacheHTTP10ResponsesWithQuery;
+        private boolean frequencyBasedAdmissionEnabled;
+        private boolean requestCollapsingEnabled;
+        private long requestCollapsingTimeout;
 
         Builder() {
             this.maxObjectSize = DEFAULT_MAX_OBJECT_SIZE_BYTES;
             this.maxCacheEntries = DEFAULT_MAX_CACHE_ENTRIES;
+            this.maxCacheSize = DEFAULT_MAX_CACHE_SIZE_BYTES;
             this.maxUpdateRetries = DEFAULT_MAX_UPDATE_RETRIES;
             this.allow303Caching = DEFAULT_303_CACHING_ENABLED;
             this.weakETagOnPutDeleteAllowed = DEFAULT_WEAK_ETAG_ON_PUTDELETE_ALLOWED;
@@ -333,6 +426,9 @@ public static class Builder {
             this.sharedCache = true;
             this.freshnessCheckEnabled = true;
             this.asynchronousWorkers = DEFAULT_ASYNCHRONOUS_WORKERS;
+            this.frequencyBasedAdmissionEnabled = DEFAULT_FREQUENCY_BASED_ADMISSION_ENABLED;
+            this.requestCollapsingEnabled = DEFAULT_REQUEST_COLLAPSING_ENABLED;
+            this.requestCollapsingTimeout = DEFAULT_REQUEST_COLLAPSING_TIMEOUT;
         }
 
         /**
@@ -352,6 +448,18 @@ public Builder setMaxCacheEntries(final int maxCacheEntries) {
             return this;
         }
 
+        /**
+         * Sets the maximum total size of all cache entries the cache will retain.
+         * Entries larger than this limit will not be admitted to the cache.
+         * @param maxCacheSize size in bytes; a value of {@code 0} or less means no limit.
+         *
+         * @since 5.0
+         */
+        public Builder setMaxCacheSize(final long maxCacheSize) {
+            this.maxCacheSize = maxCacheSize;
+            return this;
+        }
+
         /**
          * Sets the number of times to retry a cache processChallenge on failure
          */
@@ -459,10 +567,54 @@ public Builder setFreshnessCheckEnabled(final boolean freshnessCheckEnabled) {
             return this;
         }
 
+        /**
+         * Enables or disables frequency-based (TinyLFU) admission of new cache
+         * entries by in-memory storage backends.
+         * @param frequencyBasedAdmissionEnabled should be {@code true} to admit
+         *   a new entry only if its key is requested at least as frequently as that
+         *   of the entry it would displace, {@code false} to always admit new entries.
+         *
+         * @since 5.0
+         */
+        public Builder setFrequencyBasedAdmissionEnabled(final boolean frequencyBasedAdmissionEnabled) {
+            this.frequencyBasedAdmissionEnabled = frequencyBasedAdmissionEnabled;
+            return this;
+        }
+
+        /**
+         * Enables or disables collapsing of concurrent requests for the same
+         * cache entry. If enabled, only one of several concurrent requests that
+         * miss the cache or find a stale entry goes to the origin server. The
+         * others wait for it to complete and are then served from the cache entry
+         * it produced.
+         * @param requestCollapsingEnabled should be {@code true} to collapse
+         *   concurrent requests, {@code false} to send each of them to the origin server.
+         *
+         * @since 5.0
+         */
+        public Builder setRequestCollapsingEnabled(final boolean requestCollapsingEnabled) {
+            this.requestCollapsingEnabled = requestCollapsingEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time a collapsed request waits for the request it has been
+         * collapsed into. Once the timeout expires, the request goes to the origin
+         * server on its own.
+         * @param requestCollapsingTimeout timeout in milliseconds
+         *
+         * @since 5.0
+         */
+        public Builder setRequestCollapsingTimeout(final long requestCollapsingTimeout) {
+            this.requestCollapsingTimeout = requestCollapsingTimeout;
+            return this;
+        }
+
         public CacheConfig build() {
             return new CacheConfig(
                     maxObjectSize,
                     maxCacheEntries,
+                    maxCacheSize,
                     maxUpdateRetries,
                     allow303Caching,
                     weakETagOnPutDeleteAllowed,
@@ -472,7 +624,10 @@ public CacheConfig build() {
                     sharedCache,
                     freshnessCheckEnabled,
                     asynchronousWorkers,
-                    neverCacheHTTP10ResponsesWithQuery);
+                    neverCacheHTTP10ResponsesWithQuery,
+                    frequencyBasedAdmissionEnabled,
+                    requestCollapsingEnabled,
+                    requestCollapsingTimeout);
         }
 
     }
@@ -482,6 +637,7 @@ public String toString() {
         final StringBuilder builder = new StringBuilder();
         builder.append("[maxObjectSize=").append(this.maxObjectSize)
                 .append(", maxCacheEntries=").append(this.maxCacheEntries)
+                .append(", maxCacheSize=").append(this.maxCacheSize)
                 .append(", maxUpdateRetries=").append(this.maxUpdateRetries)
                 .append(", 303CachingEnabled=").append(this.allow303Caching)
                 .append(", weakETagOnPutDeleteAllowed=").append(this.weakETagOnPutDeleteAllowed)
@@ -492,6 +648,9 @@ public String toString() {
                 .append(", freshnessCheckEnabled=").append(this.freshnessCheckEnabled)
                 .append(", asynchronousWorkers=").append(this.asynchronousWorkers)
                 .append(", neverCacheHTTP10ResponsesWithQuery=").append(this.neverCacheHTTP10ResponsesWithQuery)
+                .append(", frequencyBasedAdmissionEnabled=").append(this.frequencyBasedAdmissionEnabled)
+                .append(", requestCollapsingEnabled=").append(this.requestCollapsingEnabled)
+                .append(", requestCollapsingTimeout=").append(this.requestCollapsingTimeout)
                 .append("]");
         return builder.toString();
     }
@@ -0,0 +1,73 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.Map;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Estimates the memory footprint of cache entries in bytes. The weight
+ * of an entry is the length of its response body plus the size of its
+ * headers and variant map, counting one byte per character.
+ */
+final class CacheEntryWeigher {
+
+    // Approximate fixed cost of the status line, dates and request method
+    private static final int ENTRY_OVERHEAD = 64;
+    // ": " and CRLF
+    private static final int HEADER_OVERHEAD = 4;
+
+    private CacheEntryWeigher() {
+    }
+
+    static long weigh(final HttpCacheEntry entry) {
+        if (entry == null) {
+            return 0;
+        }
+        long weight = ENTRY_OVERHEAD;
+        for (final Header header: entry.getHeaders()) {
+            weight += header.getName().length() + HEADER_OVERHEAD;
+            final String value = header.getValue();
+            if (value != null) {
+                weight += value.length();
+            }
+        }
+        final Map<String, String> variantMap = entry.getVariantMap();
+        for (final Map.Entry<String, String> variant: variantMap.entrySet()) {
+            weight += variant.getKey().length() + variant.getValue().length();
+        }
+        final Resource resource = entry.getResource();
+        if (resource != null) {
+            weight += resource.length();
+        }
+        return weight;
+    }
+
+}
@@ -26,6 +26,7 @@
  */
 package org.apache.hc.client5.http.impl.cache;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -36,15 +37,126 @@ final class CacheMap extends LinkedHashMap<String, HttpCacheEntry> {
     private static final long serialVersionUID = -7750025207539768511L;
 
     private final int maxEntries;
+    private final long maxBytes;
+    private final FrequencySketch sketch;
 
-    CacheMap(final int maxEntries) {
+    private long totalBytes;
+    private long evictionCount;
+    private long rejectionCount;
+    private long hitCount;
+    private long missCount;
+
+    CacheMap(final int maxEntries, final long maxBytes, final boolean frequencyBasedAdmission) {
         super(20, 0.75f, true);
         this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.sketch = frequencyBasedAdmission ? new FrequencySketch(maxEntries) : null;
+    }
+
+    CacheMap(final CacheConfig config) {
+        this(config.getMaxCacheEntries(), config.getMaxCacheSize(), config.isFrequencyBasedAdmissionEnabled());
+    }
+
+    /**
+     * Looks up a cache entry on behalf of a cache request, recording
+     * the request with the admission policy and hit statistics.
+     */
+    HttpCacheEntry lookup(final String key) {
+        if (this.sketch != null) {
+            this.sketch.increment(key);
+        }
+        final HttpCacheEntry entry = get(key);
+        if (entry != null) {
+            this.hitCount++;
+        } else {
+            this.missCount++;
+        }
+        return entry;
+    }
+
+    @Override
+    public HttpCacheEntry put(final String key, final HttpCacheEntry value) {
+        final long weight = CacheEntryWeigher.weigh(value);
+        if (this.maxBytes > 0 && weight > this.maxBytes) {
+            // The entry can never fit; drop any older version as well
+            this.rejectionCount++;
+            return remove(key);
+        }
+        if (this.sketch != null && !containsKey(key)) {
+            // Storing a new entry counts as a request for it, otherwise an entry
+            // that was never looked up under this key could never be admitted
+            this.sketch.increment(key);
+            if (!admit(key, weight)) {
+                this.rejectionCount++;
+                return null;
+            }
+        }
+        final HttpCacheEntry previous = super.put(key, value);
+        this.totalBytes += weight - CacheEntryWeigher.weigh(previous);
+        if (this.maxBytes > 0) {
+            final Iterator<Map.Entry<String, HttpCacheEntry>> it = entrySet().iterator();
+            while (this.totalBytes > this.maxBytes && it.hasNext()) {
+                final Map.Entry<String, HttpCacheEntry> eldest = it.next();
+                this.totalBytes -= CacheEntryWeigher.weigh(eldest.getValue());
+                this.evictionCount++;
+                it.remove();
+            }
+        }
+        return previous;
+    }
+
+    private boolean admit(final String key, final long weight) {
+        final boolean full = size() >= this.maxEntries
+                || (this.maxBytes > 0 && this.totalBytes + weight > this.maxBytes);
+        if (!full || isEmpty()) {
+            return true;
+        }
+        // Iteration does not count as access and leaves the LRU order intact
+        final String victim = keySet().iterator().next();
+        return this.sketch.frequency(key) >= this.sketch.frequency(victim);
+    }
+
+    @Override
+    public HttpCacheEntry remove(final Object key) {
+        final HttpCacheEntry removed = super.remove(key);
+        this.totalBytes -= CacheEntryWeigher.weigh(removed);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.totalBytes = 0;
     }
 
     @Override
     protected boolean removeEldestEntry(final Map.Entry<String, HttpCacheEntry> eldest) {
-        return size() > this.maxEntries;
+        if (size() > this.maxEntries) {
+            this.totalBytes -= CacheEntryWeigher.weigh(eldest.getValue());
+            this.evictionCount++;
+            return true;
+        }
+        return false;
+    }
+
+    long getTotalBytes() {
+        return this.totalBytes;
+    }
+
+    long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    long getRejectionCount() {
+        return this.rejectionCount;
+    }
+
+    long getHitCount() {
+        return this.hitCount;
+    }
+
+    long getMissCount() {
+        return this.missCount;
     }
 
 }
@@ -36,6 +36,8 @@
 import org.apache.hc.client5.http.cache.Resource;
 import org.apache.hc.client5.http.cache.ResourceFactory;
 import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.apache.hc.client5.http.cache.StreamingResourceFactory;
 import org.apache.hc.client5.http.utils.DateUtils;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpHeaders;
@@ -80,6 +82,35 @@ public HttpCacheEntry createtCacheEntry(
                 content != null ? resourceFactory.generate(request.getRequestUri(), content.array(), 0, content.length()) : null);
     }
 
+    /**
+     * Creates a cache entry for the given request, origin response message and response content
+     * already stored in a {@link Resource}.
+     */
+    public HttpCacheEntry createCacheEntry(
+            final HttpRequest request,
+            final HttpResponse originResponse,
+            final Resource resource,
+            final Date requestSent,
+            final Date responseReceived) {
+        return new HttpCacheEntry(
+                requestSent,
+                responseReceived,
+                originResponse.getCode(),
+                originResponse.getHeaders(),
+                resource);
+    }
+
+    /**
+     * Creates a sink for incremental population of response content or returns {@code null}
+     * if the resource factory does not support it.
+     */
+    public ResourceSink createResourceSink(final HttpRequest request) throws ResourceIOException {
+        if (resourceFactory instanceof StreamingResourceFactory) {
+            return ((StreamingResourceFactory) resourceFactory).createSink(request.getRequestUri());
+        }
+        return null;
+    }
+
     /**
      * Update the entry with the new information from the response.  Should only be used for
      * 304 responses.
@@ -0,0 +1,288 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * Entity that streams the origin response content to the caller while writing it
+ * into a {@link ResourceSink}. The sink is committed once the content has been
+ * fully read and aborted if the content is closed prematurely, exceeds the maximum
+ * object size or cannot be written to the sink.
+ */
+class CachingEntity implements HttpEntity {
+
+    private final HttpEntity entity;
+    private final CachingInputStream cachingStream;
+
+    /**
+     * @param entity origin response entity.
+     * @param inStream content stream of the origin entity.
+     * @param buf content already read from the stream and written into the sink.
+     * @param sink the sink.
+     * @param maxObjectSize max size of content that can be cached.
+     * @param callback callback receiving the resource once the sink has been committed.
+     */
+    CachingEntity(
+            final HttpEntity entity,
+            final InputStream inStream,
+            final ByteArrayBuffer buf,
+            final ResourceSink sink,
+            final long maxObjectSize,
+            final FutureCallback<Resource> callback) {
+        super();
+        this.entity = entity;
+        this.cachingStream = new CachingInputStream(
+                new ByteArrayInputStream(buf.array(), 0, buf.length()),
+                inStream, entity.getContentLength(), sink, maxObjectSize, callback);
+    }
+
+    /**
+     * Sets a callback to be executed once the sink has been either committed
+     * and passed to the resource callback or aborted. The callback is executed
+     * immediately if that has already happened.
+     */
+    void setReleaseCallback(final Runnable releaseCallback) {
+        cachingStream.setReleaseCallback(releaseCallback);
+    }
+
+    @Override
+    public long getContentLength() {
+        return entity.getContentLength();
+    }
+
+    @Override
+    public String getContentType() {
+        return entity.getContentType();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return entity.getContentEncoding();
+    }
+
+    @Override
+    public boolean isChunked() {
+        return entity.isChunked();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return false;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return true;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException, IllegalStateException {
+        return this.cachingStream;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return entity.getTrailerNames();
+    }
+
+    @Override
+    public Supplier<List<? extends Header>> getTrailers() {
+        return entity.getTrailers();
+    }
+
+    @Override
+    public void writeTo(final OutputStream outStream) throws IOException {
+        Args.notNull(outStream, "Output stream");
+        try (InputStream inStream = getContent()) {
+            int l;
+            final byte[] tmp = new byte[2048];
+            while ((l = inStream.read(tmp)) != -1) {
+                outStream.write(tmp, 0, l);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            cachingStream.close();
+        } finally {
+            entity.close();
+        }
+    }
+
+    static class CachingInputStream extends InputStream {
+
+        private final InputStream buffered;
+        private final InputStream inStream;
+        private final long contentLength;
+        private final long maxObjectSize;
+        private final FutureCallback<Resource> callback;
+
+        private ResourceSink sink;
+        private boolean eof;
+        private boolean released;
+        private Runnable releaseCallback;
+
+        CachingInputStream(
+                final InputStream buffered,
+                final InputStream inStream,
+                final long contentLength,
+                final ResourceSink sink,
+                final long maxObjectSize,
+                final FutureCallback<Resource> callback) {
+            super();
+            this.buffered = buffered;
+            this.inStream = inStream;
+            this.contentLength = contentLength;
+            this.sink = sink;
+            this.maxObjectSize = maxObjectSize;
+            this.callback = callback;
+        }
+
+        void setReleaseCallback(final Runnable releaseCallback) {
+            synchronized (this) {
+                if (!released) {
+                    this.releaseCallback = releaseCallback;
+                    return;
+                }
+            }
+            releaseCallback.run();
+        }
+
+        private void release() {
+            final Runnable command;
+            synchronized (this) {
+                released = true;
+                command = releaseCallback;
+                releaseCallback = null;
+            }
+            if (command != null) {
+                command.run();
+            }
+        }
+
+        private void abort(final Exception cause) {
+            if (sink != null) {
+                sink.abort();
+                sink = null;
+                try {
+                    callback.failed(cause);
+                } finally {
+                    release();
+                }
+            }
+        }
+
+        private void complete() {
+            eof = true;
+            if (sink != null) {
+                final ResourceSink completedSink = sink;
+                sink = null;
+                try {
+                    callback.completed(completedSink.commit());
+                } catch (final ResourceIOException ex) {
+                    callback.failed(ex);
+                } finally {
+                    release();
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            final int l = read(b, 0, 1);
+            return l == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            final int n = buffered.read(b, off, len);
+            if (n != -1) {
+                return n;
+            }
+            final int l = inStream.read(b, off, len);
+            if (l == -1) {
+                complete();
+                return -1;
+            }
+            if (sink != null) {
+                try {
+                    sink.write(b, off, l);
+                    if (sink.length() > maxObjectSize) {
+                        abort(new ResourceIOException("Response content length exceeds maximum"));
+                    }
+                } catch (final ResourceIOException ex) {
+                    abort(ex);
+                }
+            }
+            return l;
+        }
+
+        @Override
+        public int available() throws IOException {
+            final int n = buffered.available();
+            return n > 0 ? n : inStream.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!eof && sink != null && contentLength >= 0 && sink.length() == contentLength) {
+                    // All content has been read even though end of stream has not been signalled
+                    complete();
+                } else if (!eof) {
+                    abort(new ResourceIOException("Response content not fully consumed"));
+                }
+            } finally {
+                inStream.close();
+            }
+        }
+
+    }
+
+}
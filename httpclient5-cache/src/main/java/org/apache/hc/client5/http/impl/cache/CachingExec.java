@@ -27,6 +27,7 @@
 package org.apache.hc.client5.http.impl.cache;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.InputStream;
 import java.util.Date;
 import java.util.Iterator;
@@ -40,8 +41,10 @@
 import org.apache.hc.client5.http.cache.HeaderConstants;
 import org.apache.hc.client5.http.cache.HttpCacheEntry;
 import org.apache.hc.client5.http.cache.HttpCacheStorage;
+import org.apache.hc.client5.http.cache.Resource;
 import org.apache.hc.client5.http.cache.ResourceFactory;
 import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
 import org.apache.hc.client5.http.classic.ExecChain;
 import org.apache.hc.client5.http.classic.ExecChainHandler;
 import org.apache.hc.client5.http.impl.ExecSupport;
@@ -49,6 +52,7 @@
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.schedule.SchedulingStrategy;
 import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.Header;
@@ -103,6 +107,7 @@ class CachingExec extends CachingExecBase implements ExecChainHandler {
     private final HttpCache responseCache;
     private final DefaultCacheRevalidator cacheRevalidator;
     private final ConditionalRequestBuilder<ClassicHttpRequest> conditionalRequestBuilder;
+    private final RequestCollapser requestCollapser;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -111,6 +116,7 @@ class CachingExec extends CachingExecBase implements ExecChainHandler {
         this.responseCache = Args.notNull(cache, "Response cache");
         this.cacheRevalidator = cacheRevalidator;
         this.conditionalRequestBuilder = new ConditionalRequestBuilder<>(ClassicRequestCopier.INSTANCE);
+        this.requestCollapser = createRequestCollapser(this.cacheConfig);
     }
 
     CachingExec(
@@ -130,6 +136,11 @@ class CachingExec extends CachingExecBase implements ExecChainHandler {
         this.responseCache = responseCache;
         this.cacheRevalidator = cacheRevalidator;
         this.conditionalRequestBuilder = conditionalRequestBuilder;
+        this.requestCollapser = createRequestCollapser(this.cacheConfig);
+    }
+
+    private static RequestCollapser createRequestCollapser(final CacheConfig config) {
+        return config.isRequestCollapsingEnabled() ? new RequestCollapser(config.getRequestCollapsingTimeout()) : null;
     }
 
     CachingExec(
@@ -191,7 +202,36 @@ public ClassicHttpResponse execute(
             return callBackend(target, request, scope, chain);
         }
 
-        final HttpCacheEntry entry = responseCache.getCacheEntry(target, request);
+        HttpCacheEntry entry = responseCache.getCacheEntry(target, request);
+        if (requestCollapser != null && isCollapsible(target, request, entry, getCurrentDate())) {
+            final String cacheKey = responseCache.generateKey(target, request, null);
+            final RequestCollapser.Flight flight = requestCollapser.lead(cacheKey);
+            if (flight != null) {
+                return executeAndCompleteFlight(target, request, scope, chain, entry, flight);
+            }
+            log.debug("Waiting for request in progress");
+            try {
+                if (!requestCollapser.await(cacheKey)) {
+                    log.debug("Timed out waiting for request in progress");
+                }
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            entry = responseCache.getCacheEntry(target, request);
+            if (!isCollapsible(target, request, entry, getCurrentDate())) {
+                recordCollapsedRequest(target, request);
+            }
+        }
+        return handleRequest(target, request, scope, chain, entry);
+    }
+
+    private ClassicHttpResponse handleRequest(
+            final HttpHost target,
+            final ClassicHttpRequest request,
+            final ExecChain.Scope scope,
+            final ExecChain chain,
+            final HttpCacheEntry entry) throws IOException, HttpException {
         if (entry == null) {
             log.debug("Cache miss");
             return handleCacheMiss(target, request, scope, chain);
@@ -200,6 +240,35 @@ public ClassicHttpResponse execute(
         }
     }
 
+    private ClassicHttpResponse executeAndCompleteFlight(
+            final HttpHost target,
+            final ClassicHttpRequest request,
+            final ExecChain.Scope scope,
+            final ExecChain chain,
+            final HttpCacheEntry entry,
+            final RequestCollapser.Flight flight) throws IOException, HttpException {
+        ClassicHttpResponse response = null;
+        try {
+            response = handleRequest(target, request, scope, chain, entry);
+            return response;
+        } finally {
+            final HttpEntity entity = response != null ? response.getEntity() : null;
+            if (entity instanceof CachingEntity) {
+                // The cache entry gets stored once the response content has been consumed
+                ((CachingEntity) entity).setReleaseCallback(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        requestCollapser.complete(flight);
+                    }
+
+                });
+            } else {
+                requestCollapser.complete(flight);
+            }
+        }
+    }
+
     private static ClassicHttpResponse convert(final SimpleHttpResponse cacheResponse, final ExecChain.Scope scope) {
         if (cacheResponse == null) {
             return null;
@@ -396,6 +465,7 @@ ClassicHttpResponse cacheAndReturnResponse(
             final InputStream inStream = entity.getContent();
             final byte[] tmp = new byte[2048];
             long total = 0;
+            boolean streamingChecked = false;
             int l;
             while ((l = inStream.read(tmp)) != -1) {
                 buf.append(tmp, 0, l);
@@ -405,6 +475,14 @@ ClassicHttpResponse cacheAndReturnResponse(
                     backendResponse.setEntity(new CombinedEntity(entity, buf));
                     return backendResponse;
                 }
+                if (total > STREAMING_THRESHOLD && !streamingChecked) {
+                    streamingChecked = true;
+                    final ResourceSink sink = responseCache.createResourceSink(target, request);
+                    if (sink != null) {
+                        return streamAndCacheResponse(
+                                target, request, backendResponse, entity, inStream, buf, sink, requestSent, responseReceived);
+                    }
+                }
             }
         } else {
             buf = null;
@@ -428,6 +506,56 @@ ClassicHttpResponse cacheAndReturnResponse(
         return convert(responseGenerator.generateResponse(request, cacheEntry), scope);
     }
 
+    private ClassicHttpResponse streamAndCacheResponse(
+            final HttpHost target,
+            final HttpRequest request,
+            final ClassicHttpResponse backendResponse,
+            final HttpEntity entity,
+            final InputStream inStream,
+            final ByteArrayBuffer buf,
+            final ResourceSink sink,
+            final Date requestSent,
+            final Date responseReceived) throws IOException {
+        try {
+            sink.write(buf.array(), 0, buf.length());
+        } catch (final ResourceIOException ex) {
+            log.debug("Unable to stream backend response into cache", ex);
+            sink.abort();
+            backendResponse.setEntity(new CombinedEntity(entity, buf));
+            return backendResponse;
+        }
+        log.debug("Streaming backend response into cache");
+        backendResponse.setEntity(new CachingEntity(entity, inStream, buf, sink, cacheConfig.getMaxObjectSize(),
+                new FutureCallback<Resource>() {
+
+                    @Override
+                    public void completed(final Resource resource) {
+                        if (cacheConfig.isFreshnessCheckEnabled()) {
+                            final HttpCacheEntry existingEntry = responseCache.getCacheEntry(target, request);
+                            if (DateUtils.isAfter(existingEntry, backendResponse, HttpHeaders.DATE)) {
+                                log.debug("Backend already contains fresher cache entry");
+                                resource.dispose();
+                                return;
+                            }
+                        }
+                        responseCache.createStreamedCacheEntry(
+                                target, request, backendResponse, resource, requestSent, responseReceived);
+                        log.debug("Backend response successfully cached");
+                    }
+
+                    @Override
+                    public void failed(final Exception ex) {
+                        log.debug("Backend response not cached: " + ex.getMessage());
+                    }
+
+                    @Override
+                    public void cancelled() {
+                    }
+
+                }));
+        return backendResponse;
+    }
+
     private ClassicHttpResponse handleCacheMiss(
             final HttpHost target,
             final ClassicHttpRequest request,
@@ -62,9 +62,17 @@ public class CachingExecBase {
 
     final static boolean SUPPORTS_RANGE_AND_CONTENT_RANGE_HEADERS = false;
 
+    /**
+     * Response content larger than this is streamed into the cache by a resource sink
+     * while being passed to the caller rather than buffered in memory, provided
+     * the resource factory supports it.
+     */
+    final static int STREAMING_THRESHOLD = 64 * 1024;
+
     final AtomicLong cacheHits = new AtomicLong();
     final AtomicLong cacheMisses = new AtomicLong();
     final AtomicLong cacheUpdates = new AtomicLong();
+    final AtomicLong collapsedRequests = new AtomicLong();
 
     final Map<ProtocolVersion, String> viaHeaders = new ConcurrentHashMap<>(4);
 
@@ -139,6 +147,16 @@ public long getCacheUpdates() {
         return cacheUpdates.get();
     }
 
+    /**
+     * Reports the number of times that the cache was able to satisfy
+     * a request with a cache entry produced by another concurrent request
+     * the request had been collapsed into.
+     * @return the number of collapsed requests
+     */
+    public long getCollapsedRequests() {
+        return collapsedRequests.get();
+    }
+
     SimpleHttpResponse getFatallyNoncompliantResponse(
             final HttpRequest request,
             final HttpContext context) {
@@ -171,6 +189,23 @@ void recordCacheFailure(final HttpHost target, final HttpRequest request) {
         }
     }
 
+    void recordCollapsedRequest(final HttpHost target, final HttpRequest request) {
+        collapsedRequests.getAndIncrement();
+        if (log.isTraceEnabled()) {
+            log.debug("Collapsed request [host: " + target + "; uri: " + request.getRequestUri() + "]");
+        }
+    }
+
+    /**
+     * Determines whether the request would have to go to the origin server
+     * and may therefore be collapsed with concurrent requests for the same entry.
+     */
+    boolean isCollapsible(
+            final HttpHost target, final HttpRequest request, final HttpCacheEntry entry, final Date now) {
+        return mayCallBackend(request)
+                && (entry == null || !suitabilityChecker.canCachedResponseBeUsed(target, request, entry, now));
+    }
+
     void recordCacheUpdate(final HttpContext context) {
         cacheUpdates.getAndIncrement();
         setResponseStatus(context, CacheResponseStatus.VALIDATED);
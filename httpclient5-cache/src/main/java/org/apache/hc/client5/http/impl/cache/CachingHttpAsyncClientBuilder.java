@@ -42,6 +42,7 @@
 import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
 import org.apache.hc.client5.http.impl.schedule.ImmediateSchedulingStrategy;
 import org.apache.hc.client5.http.schedule.SchedulingStrategy;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
 import org.apache.hc.core5.http.config.NamedElementChain;
 
 /**
@@ -123,7 +124,8 @@ protected void customizeExecChain(final NamedElementChain<AsyncExecChainHandler>
         }
         HttpAsyncCacheStorage storageCopy = this.storage;
         if (storageCopy == null) {
-            if (this.cacheDir == null) {
+            // Off-heap resources must be explicitly deallocated by a managed storage
+            if (this.cacheDir == null && !(resourceFactoryCopy instanceof OffHeapResourceFactory)) {
                 storageCopy = new HttpAsyncCacheStorageAdaptor(new BasicHttpCacheStorage(config));
             } else {
                 final ManagedHttpCacheStorage managedStorage = new ManagedHttpCacheStorage(config);
@@ -164,9 +166,26 @@ public void close() throws IOException {
                     this.schedulingStrategy != null ? this.schedulingStrategy : ImmediateSchedulingStrategy.INSTANCE);
         }
 
+        RequestCollapser requestCollapser = null;
+        if (config.isRequestCollapsingEnabled()) {
+            final ScheduledThreadPoolExecutor timeoutExecutor = new ScheduledThreadPoolExecutor(
+                    1, new DefaultThreadFactory("cache-request-collapser", true));
+            timeoutExecutor.setRemoveOnCancelPolicy(true);
+            addCloseable(new Closeable() {
+
+                @Override
+                public void close() throws IOException {
+                    timeoutExecutor.shutdownNow();
+                }
+
+            });
+            requestCollapser = new RequestCollapser(config.getRequestCollapsingTimeout(), timeoutExecutor);
+        }
+
         final AsyncCachingExec cachingExec = new AsyncCachingExec(
                 httpCache,
                 cacheRevalidator,
+                requestCollapser,
                 config);
         execChainDefinition.addBefore(ChainElements.PROTOCOL.name(), cachingExec, ChainElements.CACHING.name());
     }
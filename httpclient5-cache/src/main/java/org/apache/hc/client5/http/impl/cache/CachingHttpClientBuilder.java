@@ -117,7 +117,8 @@ protected void customizeExecChain(final NamedElementChain<ExecChainHandler> exec
         }
         HttpCacheStorage storageCopy = this.storage;
         if (storageCopy == null) {
-            if (this.cacheDir == null) {
+            // Off-heap resources must be explicitly deallocated by a managed storage
+            if (this.cacheDir == null && !(resourceFactoryCopy instanceof OffHeapResourceFactory)) {
                 storageCopy = new BasicHttpCacheStorage(config);
             } else {
                 final ManagedHttpCacheStorage managedStorage = new ManagedHttpCacheStorage(config);
@@ -0,0 +1,391 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.client5.http.cache.HttpCacheCASOperation;
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.HttpCacheStorage;
+import org.apache.hc.client5.http.cache.HttpCacheUpdateException;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Concurrent in-memory {@link HttpCacheStorage} implementation backed by
+ * a {@link ConcurrentHashMap}. Unlike {@link BasicHttpCacheStorage} this
+ * storage does not serialize access on a single monitor: cache reads never
+ * block each other and {@link #updateEntry(String, HttpCacheCASOperation)}
+ * contends only with concurrent updates of the same key.
+ * <p>
+ * Entries are evicted using the CLOCK (second chance) algorithm, which
+ * approximates LRU ordering without having to re-order a shared list
+ * upon every cache hit. Eviction respects both the
+ * {@link CacheConfig#getMaxCacheEntries() maximum number of entries}
+ * and the {@link CacheConfig#getMaxCacheSize() maximum cache size}.
+ * Optionally new entries can be subject to
+ * {@link CacheConfig#isFrequencyBasedAdmissionEnabled() frequency-based admission}.
+ * </p>
+ * <p>
+ * Like {@link BasicHttpCacheStorage} this cache does NOT deallocate
+ * resources associated with the cache entries; it is intended for use
+ * with {@link HeapResource} and similar.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class ConcurrentHttpCacheStorage implements HttpCacheStorage {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int maxUpdateRetries;
+    private final ConcurrentMap<String, CacheNode> entries;
+    private final Queue<CacheNode> clock;
+    private final AtomicInteger clockSize;
+    private final FrequencySketch sketch;
+    private final AtomicLong totalBytes;
+    private final AtomicLong evictionCount;
+    private final AtomicLong rejectionCount;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    public ConcurrentHttpCacheStorage(final CacheConfig config) {
+        super();
+        Args.notNull(config, "Cache config");
+        this.maxEntries = config.getMaxCacheEntries();
+        this.maxBytes = config.getMaxCacheSize();
+        this.maxUpdateRetries = Math.max(1, config.getMaxUpdateRetries());
+        this.entries = new ConcurrentHashMap<>(Math.min(this.maxEntries, 1024));
+        this.clock = new ConcurrentLinkedQueue<>();
+        this.clockSize = new AtomicInteger(0);
+        this.sketch = config.isFrequencyBasedAdmissionEnabled() ? new FrequencySketch(this.maxEntries) : null;
+        this.totalBytes = new AtomicLong(0);
+        this.evictionCount = new AtomicLong(0);
+        this.rejectionCount = new AtomicLong(0);
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+    }
+
+    @Override
+    public void putEntry(final String key, final HttpCacheEntry entry) throws ResourceIOException {
+        Args.notNull(key, "Key");
+        Args.notNull(entry, "Cache entry");
+        final long weight = CacheEntryWeigher.weigh(entry);
+        if (!admit(key, weight)) {
+            return;
+        }
+        for (;;) {
+            final CacheNode node = this.entries.get(key);
+            if (node == null) {
+                if (insert(key, entry, weight)) {
+                    return;
+                }
+            } else {
+                final HttpCacheEntry current = node.getEntry();
+                if (current != null) {
+                    if (node.compareAndSet(current, entry)) {
+                        replaced(current, weight);
+                        return;
+                    }
+                } else {
+                    this.entries.remove(key, node);
+                }
+            }
+        }
+    }
+
+    @Override
+    public HttpCacheEntry getEntry(final String key) throws ResourceIOException {
+        Args.notNull(key, "Key");
+        if (this.sketch != null) {
+            this.sketch.increment(key);
+        }
+        final CacheNode node = this.entries.get(key);
+        final HttpCacheEntry entry = node != null ? node.getEntry() : null;
+        if (entry != null) {
+            node.markReferenced();
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+        }
+        return entry;
+    }
+
+    @Override
+    public void removeEntry(final String key) throws ResourceIOException {
+        Args.notNull(key, "Key");
+        final CacheNode node = this.entries.remove(key);
+        if (node != null) {
+            this.totalBytes.addAndGet(-CacheEntryWeigher.weigh(node.kill()));
+        }
+    }
+
+    @Override
+    public void updateEntry(
+            final String key,
+            final HttpCacheCASOperation casOperation) throws ResourceIOException, HttpCacheUpdateException {
+        Args.notNull(key, "Key");
+        Args.notNull(casOperation, "CAS operation");
+        int numRetries = 0;
+        for (;;) {
+            final CacheNode node = this.entries.get(key);
+            final HttpCacheEntry existing = node != null ? node.getEntry() : null;
+            final HttpCacheEntry updated = casOperation.execute(existing);
+            final long weight = CacheEntryWeigher.weigh(updated);
+            if (updated != null && !admit(key, weight)) {
+                return;
+            }
+            if (existing == null) {
+                if (node != null) {
+                    this.entries.remove(key, node);
+                }
+                if (updated == null || insert(key, updated, weight)) {
+                    return;
+                }
+            } else if (updated == null) {
+                if (node.compareAndSet(existing, null)) {
+                    this.entries.remove(key, node);
+                    this.totalBytes.addAndGet(-CacheEntryWeigher.weigh(existing));
+                    return;
+                }
+            } else if (node.compareAndSet(existing, updated)) {
+                replaced(existing, weight);
+                return;
+            }
+            numRetries++;
+            if (numRetries >= this.maxUpdateRetries) {
+                throw new HttpCacheUpdateException("Cache update failed after " + numRetries + " retries");
+            }
+        }
+    }
+
+    @Override
+    public Map<String, HttpCacheEntry> getEntries(final Collection<String> keys) throws ResourceIOException {
+        Args.notNull(keys, "Key");
+        final Map<String, HttpCacheEntry> resultMap = new HashMap<>(keys.size());
+        for (final String key: keys) {
+            final HttpCacheEntry entry = getEntry(key);
+            if (entry != null) {
+                resultMap.put(key, entry);
+            }
+        }
+        return resultMap;
+    }
+
+    /**
+     * Returns the current number of entries held by the storage.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Returns the current total size of all cache entries in bytes as
+     * estimated by their header size and response body length.
+     */
+    public long getTotalBytes() {
+        return this.totalBytes.get();
+    }
+
+    /**
+     * Returns the number of cache entries evicted due to the cache
+     * entry limit or the cache size limit.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * Returns the number of cache entries that were not admitted to the cache,
+     * either because they exceed the {@link CacheConfig#getMaxCacheSize() maximum
+     * cache size} on their own or because
+     * {@link CacheConfig#isFrequencyBasedAdmissionEnabled() frequency-based admission}
+     * favoured the entry they would have displaced.
+     */
+    public long getRejectionCount() {
+        return this.rejectionCount.get();
+    }
+
+    /**
+     * Returns the number of cache lookups that found an entry.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * Returns the number of cache lookups that found no entry.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    private boolean admit(final String key, final long weight) throws ResourceIOException {
+        if (this.maxBytes > 0 && weight > this.maxBytes) {
+            // The entry can never fit; drop any older version as well
+            this.rejectionCount.incrementAndGet();
+            removeEntry(key);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean insert(final String key, final HttpCacheEntry entry, final long weight) {
+        if (this.sketch != null) {
+            // Storing a new entry counts as a request for it, otherwise an entry
+            // that was never looked up under this key could never be admitted
+            this.sketch.increment(key);
+            if (!isAdmitted(key, weight)) {
+                this.rejectionCount.incrementAndGet();
+                return true;
+            }
+        }
+        final CacheNode node = new CacheNode(key, entry);
+        if (this.sketch != null) {
+            // The entry has been admitted in favour of the head of the clock;
+            // do not let the eviction sweep discard it straight away instead
+            node.markReferenced();
+        }
+        if (this.entries.putIfAbsent(key, node) != null) {
+            return false;
+        }
+        this.totalBytes.addAndGet(weight);
+        this.clock.offer(node);
+        this.clockSize.incrementAndGet();
+        evictIfNecessary();
+        return true;
+    }
+
+    private void replaced(final HttpCacheEntry previous, final long weight) {
+        this.totalBytes.addAndGet(weight - CacheEntryWeigher.weigh(previous));
+        if (this.maxBytes > 0) {
+            evictIfNecessary();
+        }
+    }
+
+    private boolean isAdmitted(final String key, final long weight) {
+        final boolean full = this.entries.size() >= this.maxEntries
+                || (this.maxBytes > 0 && this.totalBytes.get() + weight > this.maxBytes);
+        if (!full) {
+            return true;
+        }
+        // The head of the clock is the most likely eviction candidate
+        final CacheNode victim = this.clock.peek();
+        return victim == null || this.sketch.frequency(key) >= this.sketch.frequency(victim.key);
+    }
+
+    private boolean isOverCapacity() {
+        return this.entries.size() > this.maxEntries
+                || (this.maxBytes > 0 && this.totalBytes.get() > this.maxBytes);
+    }
+
+    private void evictIfNecessary() {
+        // Give up after two full sweeps of the clock. This prevents
+        // concurrent cache hits from keeping eviction spinning forever.
+        int budget = 2 * this.clockSize.get();
+        while (budget-- > 0) {
+            final boolean overCapacity = isOverCapacity();
+            // Dead nodes are normally discarded as they come round the clock.
+            // Sweep them out explicitly if they start to dominate the queue
+            // due to frequent removals.
+            final boolean tooManyDead = this.clockSize.get() > 2 * Math.max(this.maxEntries, 16);
+            if (!overCapacity && !tooManyDead) {
+                return;
+            }
+            final CacheNode node = this.clock.poll();
+            if (node == null) {
+                return;
+            }
+            if (node.getEntry() == null || this.entries.get(node.key) != node) {
+                this.clockSize.decrementAndGet();
+                continue;
+            }
+            if (overCapacity && !node.clearReferenced()) {
+                if (this.entries.remove(node.key, node)) {
+                    this.totalBytes.addAndGet(-CacheEntryWeigher.weigh(node.kill()));
+                    this.evictionCount.incrementAndGet();
+                }
+                this.clockSize.decrementAndGet();
+                continue;
+            }
+            this.clock.offer(node);
+        }
+    }
+
+    static final class CacheNode {
+
+        final String key;
+        private final AtomicReference<HttpCacheEntry> entryRef;
+        private volatile boolean referenced;
+
+        CacheNode(final String key, final HttpCacheEntry entry) {
+            this.key = key;
+            this.entryRef = new AtomicReference<>(entry);
+        }
+
+        HttpCacheEntry getEntry() {
+            return this.entryRef.get();
+        }
+
+        boolean compareAndSet(final HttpCacheEntry expected, final HttpCacheEntry entry) {
+            return this.entryRef.compareAndSet(expected, entry);
+        }
+
+        HttpCacheEntry kill() {
+            return this.entryRef.getAndSet(null);
+        }
+
+        void markReferenced() {
+            // Avoid a volatile write (and cache line invalidation) on every hit
+            if (!this.referenced) {
+                this.referenced = true;
+            }
+        }
+
+        boolean clearReferenced() {
+            if (this.referenced) {
+                this.referenced = false;
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
@@ -34,27 +34,58 @@
 import java.nio.channels.FileChannel;
 
 import org.apache.hc.client5.http.cache.Resource;
-import org.apache.hc.client5.http.cache.ResourceFactory;
 import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.apache.hc.client5.http.cache.StreamingResourceFactory;
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
 import org.apache.hc.core5.util.Args;
 
 /**
  * Generates {@link Resource} instances whose body is stored in a temporary file.
+ * <p>
+ * Optionally the factory can produce {@link MappedFileResource}s that serve
+ * content from a read-only memory mapping of the file rather than re-reading
+ * the file on every cache hit. This is primarily useful for large cached
+ * bodies that are frequently served.
+ * </p>
  *
  * @since 4.1
  */
 @Contract(threading = ThreadingBehavior.STATELESS)
-public class FileResourceFactory implements ResourceFactory {
+public class FileResourceFactory implements StreamingResourceFactory {
 
     private final File cacheDir;
     private final BasicIdGenerator idgen;
+    private final boolean memoryMapped;
 
-    public FileResourceFactory(final File cacheDir) {
+    /**
+     * @param cacheDir directory to store cached content in.
+     * @param memoryMapped whether or not generated resources should be
+     *   backed by a memory mapping of the file.
+     *
+     * @since 5.0
+     */
+    public FileResourceFactory(final File cacheDir, final boolean memoryMapped) {
         super();
         this.cacheDir = cacheDir;
         this.idgen = new BasicIdGenerator();
+        this.memoryMapped = memoryMapped;
+    }
+
+    public FileResourceFactory(final File cacheDir) {
+        this(cacheDir, false);
+    }
+
+    /**
+     * @since 5.0
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    private Resource createResource(final File file) {
+        return memoryMapped ? new MappedFileResource(file) : new FileResource(file);
     }
 
     private File generateUniqueCacheFile(final String requestId) {
@@ -86,7 +117,7 @@ public Resource generate(
         } catch (final IOException ex) {
             throw new ResourceIOException(ex.getMessage(), ex);
         }
-        return new FileResource(file);
+        return createResource(file);
     }
 
     @Override
@@ -121,7 +152,78 @@ public Resource copy(
         } catch (final IOException ex) {
             throw new ResourceIOException(ex.getMessage(), ex);
         }
-        return new FileResource(file);
+        return createResource(file);
+    }
+
+    @Override
+    public ResourceSink createSink(final String requestId) throws ResourceIOException {
+        Args.notNull(requestId, "Request id");
+        final File file = generateUniqueCacheFile(requestId);
+        try {
+            return new FileResourceSink(file);
+        } catch (final IOException ex) {
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+    }
+
+    class FileResourceSink implements ResourceSink {
+
+        private final File file;
+        private final FileOutputStream outStream;
+        private long len;
+        private boolean completed;
+
+        FileResourceSink(final File file) throws IOException {
+            super();
+            this.file = file;
+            this.outStream = new FileOutputStream(file);
+        }
+
+        @Override
+        public void write(final byte[] content, final int off, final int len) throws ResourceIOException {
+            if (completed) {
+                throw new ResourceIOException("Sink already completed");
+            }
+            try {
+                outStream.write(content, off, len);
+            } catch (final IOException ex) {
+                throw new ResourceIOException(ex.getMessage(), ex);
+            }
+            this.len += len;
+        }
+
+        @Override
+        public long length() {
+            return len;
+        }
+
+        @Override
+        public Resource commit() throws ResourceIOException {
+            if (completed) {
+                throw new ResourceIOException("Sink already completed");
+            }
+            completed = true;
+            try {
+                outStream.close();
+            } catch (final IOException ex) {
+                file.delete();
+                throw new ResourceIOException(ex.getMessage(), ex);
+            }
+            return createResource(file);
+        }
+
+        @Override
+        public void abort() {
+            if (!completed) {
+                completed = true;
+                try {
+                    outStream.close();
+                } catch (final IOException ignore) {
+                }
+                file.delete();
+            }
+        }
+
     }
 
 }
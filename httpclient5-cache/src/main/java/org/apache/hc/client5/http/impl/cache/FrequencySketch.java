@@ -0,0 +1,139 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compact probabilistic estimate of how often cache keys have been requested,
+ * as used by the TinyLFU admission policy. This is a Count-Min sketch with four
+ * hash functions and 4-bit counters packed sixteen to a {@code long}. Once the
+ * number of recorded requests reaches the sample size all counters are halved
+ * so that the estimate favours recent popularity.
+ * <p>
+ * Counter updates are lock-free and lossy: an increment that loses a race with
+ * a concurrent update of the same word is simply dropped.
+ * </p>
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final AtomicLongArray table;
+    private final int tableMask;
+    private final int sampleSize;
+    private final AtomicInteger size;
+
+    FrequencySketch(final int maxEntries) {
+        int capacity = 16;
+        while (capacity < maxEntries && capacity < MAX_CAPACITY) {
+            capacity <<= 1;
+        }
+        this.table = new AtomicLongArray(capacity);
+        this.tableMask = capacity - 1;
+        this.sampleSize = capacity <= Integer.MAX_VALUE / 10 ? capacity * 10 : Integer.MAX_VALUE;
+        this.size = new AtomicInteger(0);
+    }
+
+    /**
+     * Returns the estimated number of times the key has been recorded, up to 15.
+     */
+    int frequency(final String key) {
+        final int item = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final long hash = hash(item, i);
+            final int shift = counterShift(hash);
+            final int count = (int) ((this.table.get(indexOf(hash)) >>> shift) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records a request for the key.
+     */
+    void increment(final String key) {
+        final int item = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final long hash = hash(item, i);
+            added |= incrementAt(indexOf(hash), counterShift(hash));
+        }
+        if (added && this.size.incrementAndGet() == this.sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(final int index, final int shift) {
+        final long mask = 0xfL << shift;
+        final long value = this.table.get(index);
+        if ((value & mask) != mask) {
+            return this.table.compareAndSet(index, value, value + (1L << shift));
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length(); i++) {
+            for (;;) {
+                final long value = this.table.get(i);
+                if (this.table.compareAndSet(i, value, (value >>> 1) & RESET_MASK)) {
+                    break;
+                }
+            }
+        }
+        this.size.addAndGet(-this.sampleSize / 2);
+    }
+
+    private int indexOf(final long hash) {
+        return (int) hash & this.tableMask;
+    }
+
+    private static int counterShift(final long hash) {
+        return ((int) (hash >>> 48) & 0xf) << 2;
+    }
+
+    private static long hash(final int item, final int i) {
+        long hash = (item + SEEDS[i]) * SEEDS[i];
+        hash += hash >>> 32;
+        return hash;
+    }
+
+    private static int spread(final int hashCode) {
+        int h = hashCode;
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h;
+    }
+
+}
@@ -30,6 +30,8 @@
 import java.util.Map;
 
 import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceSink;
 import org.apache.hc.core5.concurrent.Cancellable;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.HttpHost;
@@ -83,6 +85,25 @@ Cancellable createCacheEntry(
             Date responseReceived,
             FutureCallback<HttpCacheEntry> callback);
 
+    /**
+     * Creates a {@link ResourceSink} for incremental population of response content,
+     * or returns {@code null} if the cache does not support it.
+     */
+    ResourceSink createResourceSink(HttpHost host, HttpRequest request);
+
+    /**
+     * Store a {@link HttpResponse} whose content has been streamed into
+     * a {@link Resource} in the cache if possible, and return
+     */
+    Cancellable createStreamedCacheEntry(
+            HttpHost host,
+            HttpRequest request,
+            HttpResponse originResponse,
+            Resource resource,
+            Date requestSent,
+            Date responseReceived,
+            FutureCallback<HttpCacheEntry> callback);
+
     /**
      * Update a {@link HttpCacheEntry} using a 304 {@link HttpResponse}.
      */
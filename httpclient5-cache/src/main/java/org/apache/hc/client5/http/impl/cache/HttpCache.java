@@ -30,6 +30,8 @@
 import java.util.Map;
 
 import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceSink;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.HttpRequest;
 import org.apache.hc.core5.http.HttpResponse;
@@ -76,6 +78,24 @@ HttpCacheEntry createCacheEntry(
             Date requestSent,
             Date responseReceived);
 
+    /**
+     * Creates a {@link ResourceSink} for incremental population of response content,
+     * or returns {@code null} if the cache does not support it.
+     */
+    ResourceSink createResourceSink(HttpHost host, HttpRequest request);
+
+    /**
+     * Store a {@link HttpResponse} whose content has been streamed into
+     * a {@link Resource} in the cache if possible, and return
+     */
+    HttpCacheEntry createStreamedCacheEntry(
+            HttpHost host,
+            HttpRequest request,
+            HttpResponse originResponse,
+            Resource resource,
+            Date requestSent,
+            Date responseReceived);
+
     /**
      * Update a {@link HttpCacheEntry} using a 304 {@link HttpResponse}.
      */
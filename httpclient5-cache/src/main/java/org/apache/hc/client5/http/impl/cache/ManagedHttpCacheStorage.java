@@ -51,15 +51,16 @@
  * <p>
  * This cache keeps track of cache entries using
  * {@link java.lang.ref.PhantomReference} and maintains a collection of all resources that
- * are no longer in use. The cache, however, does not automatically deallocates associated
- * resources by invoking {@link Resource#dispose()} method. The consumer MUST periodically
- * call {@link #cleanResources()} method to trigger resource deallocation. The cache can be
+ * are no longer in use. The cache deallocates such resources by invoking
+ * {@link Resource#dispose()} method whenever a new entry is stored. The consumer SHOULD also
+ * periodically call {@link #cleanResources()} method to trigger resource deallocation
+ * when the cache sees few updates. The cache can be
  * permanently shut down using {@link #shutdown()} method. All resources associated with
  * the entries used by the cache will be deallocated.
  * </p>
  * <p>
- * This {@link HttpCacheStorage} implementation is intended for use with {@link FileResource}
- * and similar.
+ * This {@link HttpCacheStorage} implementation is intended for use with {@link FileResource},
+ * {@link OffHeapResource} and similar.
  * </p>
  * <p>
  * Compatibility note. Prior to version 4.4 this storage implementation used to dispose of
@@ -84,7 +85,7 @@ public class ManagedHttpCacheStorage implements HttpCacheStorage, Closeable {
 
     public ManagedHttpCacheStorage(final CacheConfig config) {
         super();
-        this.entries = new CacheMap(config.getMaxCacheEntries());
+        this.entries = new CacheMap(config);
         this.morque = new ReferenceQueue<>();
         this.resources = new HashSet<>();
         this.active = new AtomicBoolean(true);
@@ -110,6 +111,8 @@ public void putEntry(final String url, final HttpCacheEntry entry) throws Resour
         Args.notNull(url, "URL");
         Args.notNull(entry, "Cache entry");
         ensureValidState();
+        // Opportunistically reclaim resources of entries no longer in use
+        cleanResources();
         synchronized (this) {
             this.entries.put(url, entry);
             keepResourceReference(entry);
@@ -121,7 +124,7 @@ public HttpCacheEntry getEntry(final String url) throws ResourceIOException {
         Args.notNull(url, "URL");
         ensureValidState();
         synchronized (this) {
-            return this.entries.get(url);
+            return this.entries.lookup(url);
         }
     }
 
@@ -166,6 +169,67 @@ public Map<String, HttpCacheEntry> getEntries(final Collection<String> keys) thr
         return resultMap;
     }
 
+    /**
+     * Returns the current total size of all cache entries in bytes as
+     * estimated by their header size and response body length.
+     *
+     * @since 5.0
+     */
+    public long getTotalBytes() {
+        synchronized (this) {
+            return this.entries.getTotalBytes();
+        }
+    }
+
+    /**
+     * Returns the number of cache entries evicted due to the cache
+     * entry limit or the cache size limit.
+     *
+     * @since 5.0
+     */
+    public long getEvictionCount() {
+        synchronized (this) {
+            return this.entries.getEvictionCount();
+        }
+    }
+
+    /**
+     * Returns the number of cache entries that were not admitted to the cache,
+     * either because they exceed the {@link CacheConfig#getMaxCacheSize() maximum
+     * cache size} on their own or because
+     * {@link CacheConfig#isFrequencyBasedAdmissionEnabled() frequency-based admission}
+     * favoured the entry they would have displaced.
+     *
+     * @since 5.0
+     */
+    public long getRejectionCount() {
+        synchronized (this) {
+            return this.entries.getRejectionCount();
+        }
+    }
+
+    /**
+     * Returns the number of cache lookups that found an entry.
+     *
+     * @since 5.0
+     */
+    public long getHitCount() {
+        synchronized (this) {
+            return this.entries.getHitCount();
+        }
+    }
+
+    /**
+     * Returns the number of cache lookups that found no entry.
+     *
+     * @since 5.0
+     */
+    public long getMissCount() {
+        synchronized (this) {
+            return this.entries.getMissCount();
+        }
+    }
+
     public void cleanResources() {
         if (this.active.get()) {
             ResourceReference ref;
@@ -0,0 +1,174 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+
+/**
+ * Cache resource backed by a memory-mapped file.
+ * <p>
+ * The file is mapped read-only on first access and the mapping is shared by
+ * all subsequent reads, so that cache hits are served from the OS page cache
+ * without going through {@link java.io.FileInputStream} on every request.
+ * </p>
+ * <p>
+ * Please note that the mapping is released by the garbage collector only
+ * once the resource becomes unreachable. Disposing of the resource deletes
+ * the file immediately; on platforms that do not allow deletion of mapped
+ * files the file may outlive the resource until the mapping is reclaimed.
+ * Files larger than {@link Integer#MAX_VALUE} bytes are read without mapping.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class MappedFileResource extends FileResource {
+
+    private static final long serialVersionUID = 2389507211419364283L;
+
+    private transient volatile MappedByteBuffer mapped;
+
+    public MappedFileResource(final File file) {
+        super(file);
+    }
+
+    private ByteBuffer map() throws ResourceIOException {
+        final File file = getFile();
+        if (file == null) {
+            throw new ResourceIOException("Resouce already dispoased");
+        }
+        MappedByteBuffer buffer = this.mapped;
+        if (buffer == null) {
+            try (final RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 final FileChannel channel = raf.getChannel()) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (final IOException ex) {
+                throw new ResourceIOException(ex.getMessage(), ex);
+            }
+            this.mapped = buffer;
+        }
+        return buffer.duplicate();
+    }
+
+    /**
+     * Returns a read-only view of the mapped file content. The returned buffer
+     * is independent of buffers returned by other calls.
+     *
+     * @return read-only buffer positioned at the start of the content.
+     * @throws ResourceIOException if the file cannot be mapped or the resource
+     *   has been disposed of.
+     */
+    public ByteBuffer getByteBuffer() throws ResourceIOException {
+        if (length() > Integer.MAX_VALUE) {
+            throw new ResourceIOException("Resource too large to be mapped");
+        }
+        return map().asReadOnlyBuffer();
+    }
+
+    @Override
+    public byte[] get() throws ResourceIOException {
+        if (length() > Integer.MAX_VALUE) {
+            return super.get();
+        }
+        final ByteBuffer buffer = map();
+        final byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() throws ResourceIOException {
+        if (length() > Integer.MAX_VALUE) {
+            return super.getInputStream();
+        }
+        return new MappedInputStream(map());
+    }
+
+    @Override
+    public void dispose() {
+        this.mapped = null;
+        super.dispose();
+    }
+
+    static class MappedInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        MappedInputStream(final ByteBuffer buffer) {
+            super();
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int chunk = Math.min(len, buffer.remaining());
+            buffer.get(b, off, chunk);
+            return chunk;
+        }
+
+        @Override
+        public long skip(final long n) {
+            if (n <= 0) {
+                return 0;
+            }
+            final int chunk = (int) Math.min(n, buffer.remaining());
+            buffer.position(buffer.position() + chunk);
+            return chunk;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+    }
+
+}
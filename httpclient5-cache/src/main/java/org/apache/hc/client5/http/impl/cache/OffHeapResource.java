@@ -0,0 +1,168 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+
+/**
+ * Cache resource backed by pages of direct memory managed by
+ * {@link OffHeapResourceFactory}. Serialized instances are written out
+ * as {@link HeapResource}s.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class OffHeapResource extends Resource {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient OffHeapResourceFactory factory;
+    private final transient AtomicReference<int[]> pagesRef;
+    private final long len;
+
+    OffHeapResource(final OffHeapResourceFactory factory, final int[] pages, final long len) {
+        super();
+        this.factory = factory;
+        this.pagesRef = new AtomicReference<>(pages);
+        this.len = len;
+    }
+
+    private int[] getPages() throws ResourceIOException {
+        final int[] pages = this.pagesRef.get();
+        if (pages == null) {
+            throw new ResourceIOException("Resource already disposed");
+        }
+        return pages;
+    }
+
+    @Override
+    public byte[] get() throws ResourceIOException {
+        final int[] pages = getPages();
+        final byte[] content = new byte[(int) this.len];
+        final int pageSize = this.factory.getPageSize();
+        int pos = 0;
+        for (final int page : pages) {
+            final int chunk = Math.min(content.length - pos, pageSize);
+            this.factory.page(page).get(content, pos, chunk);
+            pos += chunk;
+        }
+        return content;
+    }
+
+    @Override
+    public InputStream getInputStream() throws ResourceIOException {
+        return new PageInputStream(getPages());
+    }
+
+    @Override
+    public long length() {
+        return this.len;
+    }
+
+    @Override
+    public void dispose() {
+        final int[] pages = this.pagesRef.getAndSet(null);
+        if (pages != null) {
+            this.factory.release(pages);
+        }
+    }
+
+    private Object writeReplace() throws ObjectStreamException {
+        try {
+            return new HeapResource(get());
+        } catch (final ResourceIOException ex) {
+            return new HeapResource(null);
+        }
+    }
+
+    class PageInputStream extends InputStream {
+
+        private final int[] pages;
+        private long remaining;
+        private int pageIndex;
+        private ByteBuffer current;
+
+        PageInputStream(final int[] pages) {
+            super();
+            this.pages = pages;
+            this.remaining = len;
+        }
+
+        private ByteBuffer currentPage() {
+            if (this.remaining <= 0) {
+                return null;
+            }
+            if (this.current == null || !this.current.hasRemaining()) {
+                this.current = factory.page(this.pages[this.pageIndex++]);
+                if (this.remaining < this.current.remaining()) {
+                    this.current.limit((int) this.remaining);
+                }
+            }
+            return this.current;
+        }
+
+        @Override
+        public int read() {
+            final ByteBuffer page = currentPage();
+            if (page == null) {
+                return -1;
+            }
+            this.remaining--;
+            return page.get() & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            if (len == 0) {
+                return 0;
+            }
+            final ByteBuffer page = currentPage();
+            if (page == null) {
+                return -1;
+            }
+            final int chunk = Math.min(len, page.remaining());
+            page.get(b, off, chunk);
+            this.remaining -= chunk;
+            return chunk;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(this.remaining, Integer.MAX_VALUE);
+        }
+
+    }
+
+}
@@ -0,0 +1,286 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.apache.hc.client5.http.cache.StreamingResourceFactory;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Generates {@link Resource} instances whose body is stored outside of the Java heap
+ * in direct {@link ByteBuffer}s.
+ * <p>
+ * The factory manages a memory arena of bounded capacity. The arena is allocated
+ * lazily in slabs of direct memory which are divided into pages of fixed size.
+ * Each resource occupies as many pages as needed to hold its content. Pages are
+ * returned to the arena only when the resource is explicitly disposed of with
+ * {@link Resource#dispose()}, which makes this factory suitable for use with
+ * {@link ManagedHttpCacheStorage} only. Once the arena is exhausted the factory
+ * refuses to generate new resources by throwing {@link ResourceIOException},
+ * in which case the response will not be cached.
+ * </p>
+ * <p>
+ * Please note that {@link ManagedHttpCacheStorage} disposes of resources only
+ * after the garbage collector has found their cache entries unreachable, which
+ * for long-lived entries may require a collection of the old generation. The
+ * capacity of the arena should therefore leave sufficient headroom above the
+ * expected total size of the cache content.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class OffHeapResourceFactory implements StreamingResourceFactory {
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private static final int SLAB_SIZE = 1024 * 1024;
+
+    private final int pageSize;
+    private final int pagesPerSlab;
+    private final int maxPages;
+    private final ByteBuffer[] pageBuffers;
+    private final int[] freePages;
+
+    private int freePageCount;
+    private int nextPage;
+
+    /**
+     * @param capacity the maximum total size of direct memory in bytes used
+     *  to store resource content.
+     * @param pageSize the size of memory pages in bytes.
+     */
+    public OffHeapResourceFactory(final long capacity, final int pageSize) {
+        super();
+        Args.positive(capacity, "Capacity");
+        Args.positive(pageSize, "Page size");
+        this.pageSize = pageSize;
+        this.pagesPerSlab = Math.max(1, SLAB_SIZE / pageSize);
+        this.maxPages = (int) Math.min(capacity / pageSize, Integer.MAX_VALUE - 8);
+        this.pageBuffers = new ByteBuffer[this.maxPages];
+        this.freePages = new int[this.maxPages];
+    }
+
+    /**
+     * @param capacity the maximum total size of direct memory in bytes used
+     *  to store resource content.
+     */
+    public OffHeapResourceFactory(final long capacity) {
+        this(capacity, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Returns the maximum total size of direct memory in bytes used to store
+     * resource content.
+     */
+    public long getCapacity() {
+        return (long) this.maxPages * this.pageSize;
+    }
+
+    /**
+     * Returns the total size in bytes of memory pages currently occupied by resources.
+     */
+    public synchronized long getUsedBytes() {
+        return (long) (this.nextPage - this.freePageCount) * this.pageSize;
+    }
+
+    int getPageSize() {
+        return this.pageSize;
+    }
+
+    ByteBuffer page(final int page) {
+        return this.pageBuffers[page].duplicate();
+    }
+
+    private synchronized int[] allocate(final long len) throws ResourceIOException {
+        final long pageCount = (len + this.pageSize - 1) / this.pageSize;
+        if (pageCount > this.freePageCount + (this.maxPages - this.nextPage)) {
+            throw new ResourceIOException("Insufficient off-heap capacity to store " + len + " bytes");
+        }
+        final int[] pages = new int[(int) pageCount];
+        for (int i = 0; i < pages.length; i++) {
+            if (this.freePageCount > 0) {
+                this.freePageCount--;
+                pages[i] = this.freePages[this.freePageCount];
+            } else {
+                final int page = this.nextPage++;
+                if (this.pageBuffers[page] == null) {
+                    allocateSlab(page);
+                }
+                pages[i] = page;
+            }
+        }
+        return pages;
+    }
+
+    private void allocateSlab(final int firstPage) {
+        final int pageCount = Math.min(this.pagesPerSlab, this.maxPages - firstPage);
+        final ByteBuffer slab = ByteBuffer.allocateDirect(pageCount * this.pageSize);
+        for (int i = 0; i < pageCount; i++) {
+            slab.limit((i + 1) * this.pageSize);
+            slab.position(i * this.pageSize);
+            this.pageBuffers[firstPage + i] = slab.slice();
+        }
+    }
+
+    synchronized void release(final int[] pages) {
+        for (final int page : pages) {
+            this.freePages[this.freePageCount++] = page;
+        }
+    }
+
+    @Override
+    public Resource generate(
+            final String requestId,
+            final byte[] content, final int off, final int len) throws ResourceIOException {
+        final int[] pages = allocate(len);
+        int remaining = len;
+        int pos = off;
+        for (final int page : pages) {
+            final int chunk = Math.min(remaining, this.pageSize);
+            page(page).put(content, pos, chunk);
+            pos += chunk;
+            remaining -= chunk;
+        }
+        return new OffHeapResource(this, pages, len);
+    }
+
+    @Override
+    public Resource generate(final String requestId, final byte[] content) throws ResourceIOException {
+        Args.notNull(content, "Content");
+        return generate(requestId, content, 0, content.length);
+    }
+
+    @Override
+    public Resource copy(
+            final String requestId,
+            final Resource resource) throws ResourceIOException {
+        Args.notNull(resource, "Resource");
+        final long len = resource.length();
+        final int[] pages = allocate(len);
+        try (final InputStream in = resource.getInputStream()) {
+            final byte[] buf = new byte[Math.min(this.pageSize, 2048)];
+            long remaining = len;
+            for (final int page : pages) {
+                final ByteBuffer dst = page(page);
+                int chunk = (int) Math.min(remaining, this.pageSize);
+                remaining -= chunk;
+                while (chunk > 0) {
+                    final int l = in.read(buf, 0, Math.min(buf.length, chunk));
+                    if (l == -1) {
+                        throw new ResourceIOException("Unexpected end of resource content");
+                    }
+                    dst.put(buf, 0, l);
+                    chunk -= l;
+                }
+            }
+        } catch (final ResourceIOException ex) {
+            release(pages);
+            throw ex;
+        } catch (final IOException ex) {
+            release(pages);
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+        return new OffHeapResource(this, pages, len);
+    }
+
+    @Override
+    public ResourceSink createSink(final String requestId) throws ResourceIOException {
+        return new OffHeapResourceSink();
+    }
+
+    class OffHeapResourceSink implements ResourceSink {
+
+        private int[] pages;
+        private int pageCount;
+        private long len;
+        private boolean completed;
+
+        OffHeapResourceSink() {
+            super();
+            this.pages = new int[8];
+        }
+
+        @Override
+        public void write(final byte[] content, final int off, final int len) throws ResourceIOException {
+            if (completed) {
+                throw new ResourceIOException("Sink already completed");
+            }
+            int remaining = len;
+            int pos = off;
+            while (remaining > 0) {
+                final int used = (int) (this.len % pageSize);
+                if (used == 0) {
+                    if (pageCount == pages.length) {
+                        pages = Arrays.copyOf(pages, pages.length * 2);
+                    }
+                    pages[pageCount++] = allocate(pageSize)[0];
+                }
+                final ByteBuffer dst = page(pages[pageCount - 1]);
+                dst.position(used);
+                final int chunk = Math.min(remaining, pageSize - used);
+                dst.put(content, pos, chunk);
+                pos += chunk;
+                remaining -= chunk;
+                this.len += chunk;
+            }
+        }
+
+        @Override
+        public long length() {
+            return len;
+        }
+
+        @Override
+        public Resource commit() throws ResourceIOException {
+            if (completed) {
+                throw new ResourceIOException("Sink already completed");
+            }
+            completed = true;
+            return new OffHeapResource(OffHeapResourceFactory.this, Arrays.copyOf(pages, pageCount), len);
+        }
+
+        @Override
+        public void abort() {
+            if (!completed) {
+                completed = true;
+                release(Arrays.copyOf(pages, pageCount));
+            }
+        }
+
+    }
+
+}
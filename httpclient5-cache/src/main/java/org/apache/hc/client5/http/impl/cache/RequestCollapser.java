@@ -0,0 +1,219 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Keeps track of requests to the origin server in progress by cache key, so that
+ * concurrent requests for the same cache entry can wait for a single request
+ * to complete instead of each of them going to the origin server.
+ * <p>
+ * The first request for a key becomes its leader and must {@link #complete(Flight)}
+ * the flight once the response has been stored in the cache. Other requests
+ * wait for completion or until the timeout expires, whichever comes first.
+ * A flight not completed within the timeout is taken over by the next request
+ * for the same key, so an abandoned leader does not hold up later requests.
+ * </p>
+ */
+class RequestCollapser {
+
+    private final ConcurrentMap<String, Flight> flights;
+    private final long timeout;
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * @param timeout maximum time in milliseconds to wait for a request in progress.
+     * @param scheduler executor used to time out asynchronous waiters. If {@code null},
+     *   asynchronous waiters are only released upon completion of the flight.
+     */
+    RequestCollapser(final long timeout, final ScheduledExecutorService scheduler) {
+        super();
+        this.flights = new ConcurrentHashMap<>();
+        this.timeout = Args.notNegative(timeout, "Timeout");
+        this.scheduler = scheduler;
+    }
+
+    RequestCollapser(final long timeout) {
+        this(timeout, null);
+    }
+
+    /**
+     * Attempts to become the leader for the given key.
+     *
+     * @return the flight to be completed by the caller or {@code null}
+     *   if another request for the key is already in progress.
+     */
+    Flight lead(final String key) {
+        final Flight flight = new Flight(key, System.currentTimeMillis() + timeout);
+        for (;;) {
+            final Flight existing = flights.putIfAbsent(key, flight);
+            if (existing == null) {
+                return flight;
+            }
+            if (!existing.isExpired()) {
+                return null;
+            }
+            if (flights.replace(key, existing, flight)) {
+                existing.complete();
+                return flight;
+            }
+        }
+    }
+
+    /**
+     * Completes the flight and releases all requests waiting for it.
+     */
+    void complete(final Flight flight) {
+        flights.remove(flight.key, flight);
+        flight.complete();
+    }
+
+    /**
+     * Blocks until the request in progress for the given key completes or
+     * the timeout expires. Returns immediately if there is no such request.
+     *
+     * @return {@code false} if the timeout has expired, {@code true} otherwise.
+     */
+    boolean await(final String key) throws InterruptedException {
+        final Flight flight = flights.get(key);
+        if (flight == null) {
+            return true;
+        }
+        return flight.latch.await(flight.expiry - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executes the command once the request in progress for the given key
+     * completes or the timeout expires. Executes the command immediately if
+     * there is no such request.
+     */
+    void await(final String key, final Runnable command) {
+        final Flight flight = flights.get(key);
+        final Waiter waiter = new Waiter(command);
+        if (flight == null || !flight.addWaiter(waiter)) {
+            waiter.run();
+            return;
+        }
+        if (scheduler != null) {
+            try {
+                waiter.timeoutFuture = scheduler.schedule(
+                        waiter, flight.expiry - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException ex) {
+                waiter.run();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests in progress.
+     */
+    int size() {
+        return flights.size();
+    }
+
+    static final class Flight {
+
+        private final String key;
+        private final long expiry;
+        private final CountDownLatch latch;
+        private final List<Waiter> waiters;
+        private boolean completed;
+
+        Flight(final String key, final long expiry) {
+            this.key = key;
+            this.expiry = expiry;
+            this.latch = new CountDownLatch(1);
+            this.waiters = new ArrayList<>();
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expiry;
+        }
+
+        synchronized boolean addWaiter(final Waiter waiter) {
+            if (completed) {
+                return false;
+            }
+            waiters.add(waiter);
+            return true;
+        }
+
+        void complete() {
+            final List<Waiter> released;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                completed = true;
+                released = new ArrayList<>(waiters);
+                waiters.clear();
+            }
+            latch.countDown();
+            for (final Waiter waiter: released) {
+                final Future<?> timeoutFuture = waiter.timeoutFuture;
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+                waiter.run();
+            }
+        }
+
+    }
+
+    static final class Waiter implements Runnable {
+
+        private final Runnable command;
+        private final AtomicBoolean executed;
+        volatile Future<?> timeoutFuture;
+
+        Waiter(final Runnable command) {
+            this.command = command;
+            this.executed = new AtomicBoolean(false);
+        }
+
+        @Override
+        public void run() {
+            if (executed.compareAndSet(false, true)) {
+                command.run();
+            }
+        }
+
+    }
+
+}
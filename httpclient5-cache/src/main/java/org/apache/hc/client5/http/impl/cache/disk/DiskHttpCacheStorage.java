@@ -0,0 +1,765 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache.disk;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntrySerializer;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.impl.cache.AbstractBinaryCacheStorage;
+import org.apache.hc.client5.http.impl.cache.BinaryCacheEntrySerializer;
+import org.apache.hc.client5.http.impl.cache.CacheConfig;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * <p>
+ * Storage backend for cache entries that persists serialized entries in a journaled
+ * directory layout, so that the content of the cache survives restarts of the JVM.
+ * </p>
+ * <p>
+ * Cache entries are appended to segment files ({@code NNNNNNNNNN.log}); removal of
+ * an entry appends a tombstone record. Once a segment reaches its maximum size it gets
+ * sealed and a compact index of its records is written alongside it ({@code NNNNNNNNNN.idx}).
+ * On start-up the in-memory key index is rebuilt from these index files without reading
+ * the segments themselves. Segments without a valid index file, such as the segment that
+ * was active when the process terminated, are recovered by scanning their records.
+ * A partially written record at the end of a segment is discarded.
+ * </p>
+ * <p>
+ * The total size of segment files is bound by the maximum disk size. Once it is exceeded
+ * the oldest segments are evicted as a whole. Sealed segments that consist mostly of
+ * superseded records are compacted by copying their live records to the active segment.
+ * </p>
+ * <p>
+ * Resource bodies are persisted as a part of serialized cache entries. With the default
+ * {@link BinaryCacheEntrySerializer} they are restored as heap resources regardless of
+ * the resource factory used to create them.
+ * </p>
+ * <p>
+ * The cache directory may not be shared by multiple storage instances. The storage holds
+ * an exclusive lock on the directory until it is {@link #close() closed}.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class DiskHttpCacheStorage extends AbstractBinaryCacheStorage<DiskHttpCacheStorage.Location>
+        implements Closeable {
+
+    public static final int DEFAULT_MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final String LOCK_FILE = "lock";
+    private static final Pattern SEGMENT_FILE = Pattern.compile("^(\\d{10})\\.log$");
+
+    private static final int RECORD_MAGIC = 0x48435231;
+    private static final int INDEX_MAGIC = 0x48434931;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    // magic, type, key length, value length
+    private static final int RECORD_HEADER = 4 + 1 + 4 + 4;
+    // CRC32 of the record
+    private static final int RECORD_TRAILER = 4;
+    private static final double COMPACTION_THRESHOLD = 0.5;
+
+    private final File directory;
+    private final long maxDiskSize;
+    private final int maxSegmentSize;
+    private final Map<String, Location> index;
+    private final TreeMap<Integer, Segment> segments;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    private Segment active;
+    private long totalBytes;
+    private boolean compacting;
+    private boolean closed;
+
+    /**
+     * Opens the cache storage in the given directory, recovering the entries
+     * persisted by a previous instance.
+     *
+     * @param directory the cache directory. Created if it does not exist.
+     * @param maxDiskSize maximum total size of segment files in bytes.
+     * @param maxSegmentSize maximum size of a single segment file in bytes. Entries
+     *   whose serialized form is larger than this value are not stored.
+     * @param config cache configuration. May be {@code null}.
+     * @param serializer cache entry serializer. May be {@code null}, in which case
+     *   {@link BinaryCacheEntrySerializer} is used.
+     * @throws IOException in case of an I/O error or if the directory is in use
+     *   by another storage instance.
+     */
+    public DiskHttpCacheStorage(
+            final File directory,
+            final long maxDiskSize,
+            final int maxSegmentSize,
+            final CacheConfig config,
+            final HttpCacheEntrySerializer<byte[]> serializer) throws IOException {
+        super((config != null ? config : CacheConfig.DEFAULT).getMaxUpdateRetries(),
+                serializer != null ? serializer : BinaryCacheEntrySerializer.INSTANCE);
+        this.directory = Args.notNull(directory, "Cache directory");
+        this.maxDiskSize = Args.positive(maxDiskSize, "Max disk size");
+        this.maxSegmentSize = Args.positive(maxSegmentSize, "Max segment size");
+        this.index = new HashMap<>();
+        this.segments = new TreeMap<>();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create cache directory " + directory);
+        }
+        this.lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw").getChannel();
+        FileLock fileLock;
+        try {
+            fileLock = this.lockChannel.tryLock();
+        } catch (final OverlappingFileLockException ex) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            this.lockChannel.close();
+            throw new IOException("Cache directory " + directory + " is in use");
+        }
+        this.lock = fileLock;
+        try {
+            recover();
+        } catch (final IOException ex) {
+            closeChannels();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens the cache storage in the given directory using the default segment
+     * size and serializer.
+     *
+     * @param directory the cache directory. Created if it does not exist.
+     * @param maxDiskSize maximum total size of segment files in bytes.
+     * @param config cache configuration. May be {@code null}.
+     * @throws IOException in case of an I/O error or if the directory is in use
+     *   by another storage instance.
+     */
+    public DiskHttpCacheStorage(
+            final File directory,
+            final long maxDiskSize,
+            final CacheConfig config) throws IOException {
+        this(directory, maxDiskSize, defaultSegmentSize(maxDiskSize), config, null);
+    }
+
+    static int defaultSegmentSize(final long maxDiskSize) {
+        return (int) Math.max(MIN_SEGMENT_SIZE, Math.min(DEFAULT_MAX_SEGMENT_SIZE, maxDiskSize / 8));
+    }
+
+    private static File logFile(final File directory, final int id) {
+        return new File(directory, String.format("%010d.log", id));
+    }
+
+    private static File indexFile(final File directory, final int id) {
+        return new File(directory, String.format("%010d.idx", id));
+    }
+
+    private Segment openSegment(final int id) throws IOException {
+        final File file = logFile(directory, id);
+        final FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+        return new Segment(id, file, indexFile(directory, id), channel);
+    }
+
+    private void recover() throws IOException {
+        final List<Integer> ids = new ArrayList<>();
+        final String[] names = directory.list();
+        if (names != null) {
+            for (final String name: names) {
+                final Matcher matcher = SEGMENT_FILE.matcher(name);
+                if (matcher.matches()) {
+                    ids.add(Integer.valueOf(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(ids);
+        int nextId = 1;
+        for (final Integer id: ids) {
+            nextId = id.intValue() + 1;
+            final Segment segment = openSegment(id.intValue());
+            segment.size = segment.channel.size();
+            List<Record> records = readIndex(segment);
+            if (records == null) {
+                records = scan(segment);
+                if (segment.size > 0) {
+                    writeIndex(segment, records);
+                }
+            }
+            if (segment.size == 0) {
+                segment.channel.close();
+                segment.logFile.delete();
+                segment.indexFile.delete();
+                continue;
+            }
+            segments.put(id, segment);
+            totalBytes += segment.size;
+            for (final Record record: records) {
+                if (record.type == PUT) {
+                    link(record.key, new Location(segment, record.offset, record.length, record.keyLength));
+                } else {
+                    unlink(record.key);
+                }
+            }
+        }
+        active = openSegment(nextId);
+        active.channel.truncate(0);
+        active.records = new ArrayList<>();
+        segments.put(nextId, active);
+        evictIfNecessary();
+    }
+
+    private static void readFully(
+            final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        final int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            final int n = channel.read(buffer, position + buffer.position() - start);
+            if (n < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static void writeFully(
+            final FileChannel channel, final ByteBuffer buffer, final long position) throws IOException {
+        final int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position() - start);
+        }
+    }
+
+    private static boolean isValid(final ByteBuffer record) {
+        final int limit = record.limit();
+        if (limit < RECORD_HEADER + RECORD_TRAILER || record.getInt(0) != RECORD_MAGIC) {
+            return false;
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, limit - RECORD_TRAILER);
+        return (int) crc.getValue() == record.getInt(limit - RECORD_TRAILER);
+    }
+
+    private static ByteBuffer encode(final byte type, final byte[] key, final byte[] value) {
+        final int valueLen = value != null ? value.length : 0;
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + key.length + valueLen + RECORD_TRAILER);
+        buffer.putInt(RECORD_MAGIC);
+        buffer.put(type);
+        buffer.putInt(key.length);
+        buffer.putInt(valueLen);
+        buffer.put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads all intact records of the segment, truncating the segment file
+     * at the first incomplete or corrupt record.
+     */
+    private List<Record> scan(final Segment segment) throws IOException {
+        final List<Record> records = new ArrayList<>();
+        final FileChannel channel = segment.channel;
+        final long fileSize = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER);
+        long offset = 0;
+        while (offset + RECORD_HEADER + RECORD_TRAILER <= fileSize) {
+            header.clear();
+            readFully(channel, header, offset);
+            final int magic = header.getInt(0);
+            final byte type = header.get(4);
+            final int keyLen = header.getInt(5);
+            final int valueLen = header.getInt(9);
+            if (magic != RECORD_MAGIC || (type != PUT && type != DELETE) || keyLen < 0 || valueLen < 0) {
+                break;
+            }
+            final long length = (long) RECORD_HEADER + keyLen + valueLen + RECORD_TRAILER;
+            if (length > Integer.MAX_VALUE || offset + length > fileSize) {
+                break;
+            }
+            final ByteBuffer record = ByteBuffer.allocate((int) length);
+            readFully(channel, record, offset);
+            if (!isValid(record)) {
+                break;
+            }
+            final String key = new String(record.array(), RECORD_HEADER, keyLen, StandardCharsets.UTF_8);
+            records.add(new Record(type, key, keyLen, offset, (int) length));
+            offset += length;
+        }
+        if (offset < fileSize) {
+            channel.truncate(offset);
+        }
+        segment.size = offset;
+        return records;
+    }
+
+    private void writeIndex(final Segment segment, final List<Record> records) throws IOException {
+        final File tmp = new File(directory, segment.indexFile.getName() + ".tmp");
+        final CRC32 crc = new CRC32();
+        try (final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp)), crc))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeLong(segment.size);
+            out.writeInt(records.size());
+            for (final Record record: records) {
+                final byte[] key = record.key.getBytes(StandardCharsets.UTF_8);
+                out.writeByte(record.type);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeLong(record.offset);
+                out.writeInt(record.length);
+            }
+            out.writeLong(crc.getValue());
+        }
+        Files.move(tmp.toPath(), segment.indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads the index file of the segment. Returns {@code null} if the index
+     * does not exist or does not match the segment.
+     */
+    private List<Record> readIndex(final Segment segment) {
+        if (!segment.indexFile.isFile()) {
+            return null;
+        }
+        final CRC32 crc = new CRC32();
+        try (final DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(new FileInputStream(segment.indexFile)), crc))) {
+            if (in.readInt() != INDEX_MAGIC || in.readLong() != segment.size) {
+                return null;
+            }
+            final int count = in.readInt();
+            if (count < 0) {
+                return null;
+            }
+            final List<Record> records = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                final byte type = in.readByte();
+                final int keyLen = in.readInt();
+                if (keyLen < 0 || keyLen > segment.size) {
+                    return null;
+                }
+                final byte[] key = new byte[keyLen];
+                in.readFully(key);
+                final long offset = in.readLong();
+                final int length = in.readInt();
+                records.add(new Record(type, new String(key, StandardCharsets.UTF_8), keyLen, offset, length));
+            }
+            final long checksum = crc.getValue();
+            if (in.readLong() != checksum) {
+                return null;
+            }
+            return records;
+        } catch (final IOException ex) {
+            return null;
+        }
+    }
+
+    private void link(final String key, final Location location) {
+        final Location previous = index.put(key, location);
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.length;
+        }
+        location.segment.liveBytes += location.length;
+    }
+
+    private void unlink(final String key) {
+        final Location previous = index.remove(key);
+        if (previous != null) {
+            previous.segment.liveBytes -= previous.length;
+        }
+    }
+
+    private Location append(final ByteBuffer record, final byte type, final String key, final int keyLength)
+            throws IOException {
+        final int length = record.remaining();
+        if (active.size > 0 && active.size + length > maxSegmentSize) {
+            roll();
+        }
+        final Segment segment = active;
+        final long offset = segment.size;
+        writeFully(segment.channel, record, offset);
+        segment.size += length;
+        totalBytes += length;
+        segment.records.add(new Record(type, key, keyLength, offset, length));
+        return new Location(segment, offset, length, keyLength);
+    }
+
+    private void roll() throws IOException {
+        final Segment sealed = active;
+        sealed.channel.force(false);
+        writeIndex(sealed, sealed.records);
+        sealed.records = null;
+        final int id = sealed.id + 1;
+        active = openSegment(id);
+        active.channel.truncate(0);
+        active.records = new ArrayList<>();
+        segments.put(id, active);
+        compactIfNecessary();
+    }
+
+    private void compactIfNecessary() throws IOException {
+        if (compacting) {
+            return;
+        }
+        compacting = true;
+        try {
+            for (final Segment segment: new ArrayList<>(segments.values())) {
+                if (segment != active && segments.containsKey(segment.id)
+                        && segment.liveBytes < segment.size * COMPACTION_THRESHOLD) {
+                    compact(segment);
+                }
+            }
+        } finally {
+            compacting = false;
+        }
+    }
+
+    private void compact(final Segment segment) throws IOException {
+        final boolean hasOlder = segments.firstKey().intValue() < segment.id;
+        final long size = segment.size;
+        final List<Record> records = scan(segment);
+        segment.size = size;
+        for (final Record record: records) {
+            final Location current = index.get(record.key);
+            final boolean live;
+            if (record.type == PUT) {
+                live = current != null && current.segment == segment && current.offset == record.offset;
+            } else {
+                // Tombstones must be retained as long as older segments may contain the entry
+                live = hasOlder && current == null;
+            }
+            if (live) {
+                final ByteBuffer buffer = ByteBuffer.allocate(record.length);
+                readFully(segment.channel, buffer, record.offset);
+                buffer.flip();
+                final Location location = append(buffer, record.type, record.key, record.keyLength);
+                if (record.type == PUT) {
+                    link(record.key, location);
+                }
+            }
+        }
+        drop(segment);
+    }
+
+    private void evictIfNecessary() throws IOException {
+        while (totalBytes > maxDiskSize && segments.size() > 1) {
+            final Segment eldest = segments.firstEntry().getValue();
+            if (eldest == active) {
+                break;
+            }
+            final Iterator<Location> it = index.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().segment == eldest) {
+                    it.remove();
+                }
+            }
+            drop(eldest);
+        }
+    }
+
+    private void drop(final Segment segment) throws IOException {
+        segments.remove(segment.id);
+        totalBytes -= segment.size;
+        segment.channel.close();
+        segment.indexFile.delete();
+        if (!segment.logFile.delete() && segment.logFile.exists()) {
+            throw new IOException("Unable to delete cache segment " + segment.logFile);
+        }
+    }
+
+    private void ensureOpen() throws ResourceIOException {
+        if (closed) {
+            throw new ResourceIOException("Cache storage has been closed");
+        }
+    }
+
+    private byte[] read(final Location location) throws IOException {
+        if (segments.get(location.segment.id) != location.segment) {
+            return null;
+        }
+        final ByteBuffer record = ByteBuffer.allocate(location.length);
+        readFully(location.segment.channel, record, location.offset);
+        if (!isValid(record)) {
+            return null;
+        }
+        return Arrays.copyOfRange(record.array(),
+                RECORD_HEADER + location.keyLength, location.length - RECORD_TRAILER);
+    }
+
+    private void put(final String key, final byte[] value) throws IOException {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if ((long) RECORD_HEADER + keyBytes.length + value.length + RECORD_TRAILER > maxSegmentSize) {
+            remove(key);
+            return;
+        }
+        final Location location = append(encode(PUT, keyBytes, value), PUT, key, keyBytes.length);
+        link(key, location);
+        evictIfNecessary();
+    }
+
+    private void remove(final String key) throws IOException {
+        if (index.containsKey(key)) {
+            final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            append(encode(DELETE, keyBytes, null), DELETE, key, keyBytes.length);
+            unlink(key);
+            evictIfNecessary();
+        }
+    }
+
+    @Override
+    protected String digestToStorageKey(final String key) {
+        return key;
+    }
+
+    @Override
+    protected synchronized void store(final String storageKey, final byte[] storageObject) throws ResourceIOException {
+        ensureOpen();
+        try {
+            put(storageKey, storageObject);
+        } catch (final IOException ex) {
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    protected synchronized byte[] restore(final String storageKey) throws ResourceIOException {
+        ensureOpen();
+        final Location location = index.get(storageKey);
+        if (location == null) {
+            return null;
+        }
+        try {
+            final byte[] value = read(location);
+            if (value == null) {
+                unlink(storageKey);
+            }
+            return value;
+        } catch (final IOException ex) {
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    protected synchronized Location getForUpdateCAS(final String storageKey) throws ResourceIOException {
+        ensureOpen();
+        return index.get(storageKey);
+    }
+
+    @Override
+    protected synchronized byte[] getStorageObject(final Location location) throws ResourceIOException {
+        ensureOpen();
+        try {
+            return read(location);
+        } catch (final IOException ex) {
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    protected synchronized boolean updateCAS(
+            final String storageKey, final Location location, final byte[] storageObject) throws ResourceIOException {
+        ensureOpen();
+        if (index.get(storageKey) != location) {
+            return false;
+        }
+        try {
+            put(storageKey, storageObject);
+        } catch (final IOException ex) {
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+        return true;
+    }
+
+    @Override
+    protected synchronized void delete(final String storageKey) throws ResourceIOException {
+        ensureOpen();
+        try {
+            remove(storageKey);
+        } catch (final IOException ex) {
+            throw new ResourceIOException(ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    protected synchronized Map<String, byte[]> bulkRestore(
+            final Collection<String> storageKeys) throws ResourceIOException {
+        final Map<String, byte[]> resultMap = new HashMap<>();
+        for (final String storageKey: storageKeys) {
+            final byte[] storageObject = restore(storageKey);
+            if (storageObject != null) {
+                resultMap.put(storageKey, storageObject);
+            }
+        }
+        return resultMap;
+    }
+
+    /**
+     * Returns the number of entries currently stored.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the total size of segment files in bytes.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    private void closeChannels() {
+        for (final Segment segment: segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (final IOException ignore) {
+            }
+        }
+        try {
+            lock.release();
+            lockChannel.close();
+        } catch (final IOException ignore) {
+        }
+    }
+
+    /**
+     * Seals the active segment, so that the next instance can rebuild its index
+     * without scanning segment files, and releases the lock on the cache directory.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (active.size > 0) {
+                active.channel.force(false);
+                writeIndex(active, active.records);
+            } else {
+                drop(active);
+            }
+            active.records = null;
+        } finally {
+            closeChannels();
+        }
+    }
+
+    static final class Location {
+
+        final Segment segment;
+        final long offset;
+        final int length;
+        final int keyLength;
+
+        Location(final Segment segment, final long offset, final int length, final int keyLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.keyLength = keyLength;
+        }
+
+    }
+
+    static final class Segment {
+
+        final int id;
+        final File logFile;
+        final File indexFile;
+        final FileChannel channel;
+
+        long size;
+        long liveBytes;
+        // records of the active segment, written to the index file once sealed
+        List<Record> records;
+
+        Segment(final int id, final File logFile, final File indexFile, final FileChannel channel) {
+            this.id = id;
+            this.logFile = logFile;
+            this.indexFile = indexFile;
+            this.channel = channel;
+        }
+
+    }
+
+    static final class Record {
+
+        final byte type;
+        final String key;
+        final int keyLength;
+        final long offset;
+        final int length;
+
+        Record(final byte type, final String key, final int keyLength, final long offset, final int length) {
+            this.type = type;
+            this.key = key;
+            this.keyLength = keyLength;
+            this.offset = offset;
+            this.length = length;
+        }
+
+    }
+
+}
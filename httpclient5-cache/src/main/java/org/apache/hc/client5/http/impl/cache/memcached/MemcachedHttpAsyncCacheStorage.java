@@ -246,13 +246,27 @@ protected Cancellable bulkRestore(final Collection<String> storageKeys, final Fu
 
             @Override
             public void onComplete(final BulkGetFuture<?> future) throws Exception {
-                final Map<String, ?> storageObjectMap = future.get();
-                final Map<String, byte[]> resultMap = new HashMap<>(storageObjectMap.size());
-                for (final Map.Entry<String, ?> resultEntry: storageObjectMap.entrySet()) {
-                    resultMap.put(resultEntry.getKey(), castAsByteArray(resultEntry.getValue()));
+                final Map<String, byte[]> resultMap;
+                try {
+                    final Map<String, ?> storageObjectMap = future.get();
+                    resultMap = new HashMap<>(storageObjectMap.size());
+                    for (final Map.Entry<String, ?> resultEntry: storageObjectMap.entrySet()) {
+                        resultMap.put(resultEntry.getKey(), castAsByteArray(resultEntry.getValue()));
+                    }
+                } catch (final ExecutionException ex) {
+                    if (ex.getCause() instanceof Exception) {
+                        callback.failed((Exception) ex.getCause());
+                    } else {
+                        callback.failed(ex);
+                    }
+                    return;
+                } catch (final ResourceIOException ex) {
+                    callback.failed(ex);
+                    return;
                 }
                 callback.completed(resultMap);
             }
+
         });
         return Operations.cancellable(future);
     }
@@ -175,8 +175,12 @@ protected byte[] getStorageObject(final CASValue<Object> casValue) throws Resour
     @Override
     protected boolean updateCAS(
             final String storageKey, final CASValue<Object> casValue, final byte[] storageObject) throws ResourceIOException {
-        final CASResponse casResult = client.cas(storageKey, casValue.getCas(), storageObject);
-        return casResult == CASResponse.OK;
+        try {
+            final CASResponse casResult = client.cas(storageKey, casValue.getCas(), storageObject);
+            return casResult == CASResponse.OK;
+        } catch (final OperationTimeoutException ex) {
+            throw new MemcachedOperationTimeoutException(ex);
+        }
     }
 
     @Override
@@ -186,7 +190,12 @@ protected void delete(final String storageKey) throws ResourceIOException {
 
     @Override
     protected Map<String, byte[]> bulkRestore(final Collection<String> storageKeys) throws ResourceIOException {
-        final Map<String, ?> storageObjectMap = client.getBulk(storageKeys);
+        final Map<String, ?> storageObjectMap;
+        try {
+            storageObjectMap = client.getBulk(storageKeys);
+        } catch (final OperationTimeoutException ex) {
+            throw new MemcachedOperationTimeoutException(ex);
+        }
         final Map<String, byte[]> resultMap = new HashMap<>(storageObjectMap.size());
         for (final Map.Entry<String, ?> resultEntry: storageObjectMap.entrySet()) {
             resultMap.put(resultEntry.getKey(), castAsByteArray(resultEntry.getValue()));
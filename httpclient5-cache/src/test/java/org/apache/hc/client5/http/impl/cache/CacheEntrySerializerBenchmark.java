@@ -0,0 +1,95 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.Date;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.HttpCacheEntrySerializer;
+import org.apache.hc.client5.http.cache.HttpCacheStorageEntry;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+
+/**
+ * Simple comparison of serialized size and serialization / deserialization throughput
+ * of {@link HttpCacheEntrySerializer} implementations. This is not a unit test; run it
+ * manually with {@code [body size] [iterations]} arguments.
+ */
+public class CacheEntrySerializerBenchmark {
+
+    public static void main(final String[] args) throws Exception {
+        final int bodySize = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+
+        final Header[] headers = new Header[] {
+                new BasicHeader("Date", "Tue, 15 Nov 1994 08:12:31 GMT"),
+                new BasicHeader("Server", "Apache/2.4.29 (Unix)"),
+                new BasicHeader("Cache-Control", "public, max-age=3600"),
+                new BasicHeader("ETag", "\"5a0c1ab7-2a3f\""),
+                new BasicHeader("Last-Modified", "Wed, 15 Nov 2017 10:42:31 GMT"),
+                new BasicHeader("Content-Type", "text/html; charset=UTF-8"),
+                new BasicHeader("Content-Length", Integer.toString(bodySize)),
+                new BasicHeader("Vary", "Accept-Encoding")
+        };
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(), new Date(), HttpStatus.SC_OK,
+                headers, new HeapResource(HttpTestUtils.getRandomBytes(bodySize)));
+        final HttpCacheStorageEntry storageEntry = new HttpCacheStorageEntry(
+                "http://www.example.com/some/resource?query=value", entry);
+
+        for (int round = 0; round < 3; round++) {
+            run("ByteArrayCacheEntrySerializer", ByteArrayCacheEntrySerializer.INSTANCE, storageEntry, iterations);
+            run("BinaryCacheEntrySerializer", BinaryCacheEntrySerializer.INSTANCE, storageEntry, iterations);
+        }
+    }
+
+    private static void run(
+            final String name,
+            final HttpCacheEntrySerializer<byte[]> serializer,
+            final HttpCacheStorageEntry storageEntry,
+            final int iterations) throws Exception {
+        final byte[] serialized = serializer.serialize(storageEntry);
+        long sink = 0;
+
+        final long serStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.serialize(storageEntry).length;
+        }
+        final long serTime = System.nanoTime() - serStart;
+
+        final long deserStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += serializer.deserialize(serialized).getKey().length();
+        }
+        final long deserTime = System.nanoTime() - deserStart;
+
+        System.out.printf("%-30s size: %6d bytes, serialize: %8.0f ops/s, deserialize: %8.0f ops/s (%d)%n",
+                name, serialized.length,
+                iterations / (serTime / 1e9), iterations / (deserTime / 1e9), sink & 1);
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+
+/**
+ * Replays a request trace against in-memory cache storages with and without
+ * frequency-based admission and reports their hit ratios. This is not a unit
+ * test; run it manually with {@code [max entries] [trace file]} arguments where
+ * the trace file contains one cache key per line. Without a trace file a
+ * synthetic trace of a skewed hot set interleaved with one-off scans is used.
+ */
+public class CacheHitRatioSimulator {
+
+    public static void main(final String[] args) throws Exception {
+        final int maxEntries = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final List<String> trace = args.length > 1 ? readTrace(new File(args[1])) : syntheticTrace(maxEntries);
+
+        simulate("LRU", CacheConfig.custom()
+                .setMaxCacheEntries(maxEntries)
+                .build(), trace);
+        simulate("TinyLFU", CacheConfig.custom()
+                .setMaxCacheEntries(maxEntries)
+                .setFrequencyBasedAdmissionEnabled(true)
+                .build(), trace);
+    }
+
+    static void simulate(final String name, final CacheConfig config, final List<String> trace) throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        final BasicHttpCacheStorage basicStorage = new BasicHttpCacheStorage(config);
+        final ConcurrentHttpCacheStorage concurrentStorage = new ConcurrentHttpCacheStorage(config);
+        for (final String key: trace) {
+            if (basicStorage.getEntry(key) == null) {
+                basicStorage.putEntry(key, entry);
+            }
+            if (concurrentStorage.getEntry(key) == null) {
+                concurrentStorage.putEntry(key, entry);
+            }
+        }
+        System.out.printf("%-8s BasicHttpCacheStorage hit ratio=%.4f; ConcurrentHttpCacheStorage hit ratio=%.4f%n",
+                name,
+                ratio(basicStorage.getHitCount(), basicStorage.getMissCount()),
+                ratio(concurrentStorage.getHitCount(), concurrentStorage.getMissCount()));
+    }
+
+    static double ratio(final long hits, final long misses) {
+        return hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+    }
+
+    static List<String> readTrace(final File file) throws Exception {
+        final List<String> trace = new ArrayList<>();
+        try (final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    trace.add(line);
+                }
+            }
+        }
+        return trace;
+    }
+
+    static List<String> syntheticTrace(final int maxEntries) {
+        final Random random = new Random(42);
+        final int hotKeys = maxEntries * 2;
+        final List<String> trace = new ArrayList<>();
+        int scan = 0;
+        for (int i = 0; i < maxEntries * 500; i++) {
+            if (random.nextInt(10) < 3) {
+                trace.add("http://localhost/crawl/" + scan++);
+            } else {
+                final int n = (int) (hotKeys * Math.pow(random.nextDouble(), 3));
+                trace.add("http://localhost/api/" + n);
+            }
+        }
+        return trace;
+    }
+
+}
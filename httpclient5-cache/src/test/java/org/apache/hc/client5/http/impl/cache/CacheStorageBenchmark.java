@@ -0,0 +1,122 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.HttpCacheStorage;
+
+/**
+ * Simple throughput comparison of in-memory {@link HttpCacheStorage} implementations
+ * under a read-mostly workload. This is not a unit test; run it manually with
+ * {@code [threads] [seconds]} arguments.
+ */
+public class CacheStorageBenchmark {
+
+    private static final int KEYS = 2000;
+    private static final int MAX_ENTRIES = 1000;
+
+    public static void main(final String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final CacheConfig config = CacheConfig.custom().setMaxCacheEntries(MAX_ENTRIES).build();
+
+        for (int round = 0; round < 2; round++) {
+            run("BasicHttpCacheStorage", new BasicHttpCacheStorage(config), threads, seconds);
+            run("ConcurrentHttpCacheStorage", new ConcurrentHttpCacheStorage(config), threads, seconds);
+        }
+    }
+
+    static void run(
+            final String name,
+            final HttpCacheStorage storage,
+            final int threads,
+            final int seconds) throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        for (int i = 0; i < MAX_ENTRIES; i++) {
+            storage.putEntry(key(i), entry);
+        }
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch startGate = new CountDownLatch(1);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            final List<Future<long[]>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                final long seed = i;
+                futures.add(executorService.submit(new Callable<long[]>() {
+
+                    @Override
+                    public long[] call() throws Exception {
+                        final Random random = new Random(seed);
+                        long ops = 0;
+                        long hits = 0;
+                        startGate.await();
+                        while ((ops & 0xff) != 0 || System.nanoTime() < deadline) {
+                            // Skewed key distribution: most requests go to a small hot set
+                            final int n = (int) (Math.abs(random.nextGaussian()) * KEYS / 4) % KEYS;
+                            final String key = key(n);
+                            if (storage.getEntry(key) != null) {
+                                hits++;
+                            } else {
+                                storage.putEntry(key, entry);
+                            }
+                            ops++;
+                        }
+                        return new long[] { ops, hits };
+                    }
+
+                }));
+            }
+            startGate.countDown();
+            long totalOps = 0;
+            long totalHits = 0;
+            for (final Future<long[]> future: futures) {
+                final long[] result = future.get();
+                totalOps += result[0];
+                totalHits += result[1];
+            }
+            System.out.printf("%-28s threads=%d ops/s=%,d hit ratio=%.3f%n",
+                    name, threads, totalOps / seconds, (double) totalHits / totalOps);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    static String key(final int n) {
+        return "http://localhost/resource/" + n;
+    }
+
+}
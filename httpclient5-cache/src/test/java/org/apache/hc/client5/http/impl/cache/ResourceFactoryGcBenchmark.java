@@ -0,0 +1,119 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceFactory;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+
+/**
+ * Compares garbage collection overhead of a cache holding its response bodies
+ * in {@link HeapResource}s with one holding them in {@link OffHeapResource}s.
+ * This is not a unit test; run it manually, preferably once per factory in a
+ * fresh JVM, with {@code [heap|offheap] [entries] [body size] [seconds]} arguments.
+ */
+public class ResourceFactoryGcBenchmark {
+
+    public static void main(final String[] args) throws Exception {
+        final String mode = args.length > 0 ? args[0] : "offheap";
+        final int entries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        final int bodySize = args.length > 2 ? Integer.parseInt(args[2]) : 16 * 1024;
+        final int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        final ResourceFactory resourceFactory = "heap".equals(mode)
+                ? new HeapResourceFactory()
+                : new OffHeapResourceFactory((long) entries * bodySize * 2);
+        final ManagedHttpCacheStorage storage = new ManagedHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(entries)
+                .build());
+        final Random random = new Random(1);
+        final byte[] body = new byte[bodySize];
+        random.nextBytes(body);
+
+        for (int i = 0; i < entries; i++) {
+            storage.putEntry("key-" + i, makeEntry(resourceFactory.generate("id", body)));
+        }
+
+        final long startCount = gcCount();
+        final long startTime = gcTime();
+        final long deadline = System.currentTimeMillis() + seconds * 1000L;
+        long requests = 0;
+        long rejected = 0;
+        long checksum = 0;
+        while (System.currentTimeMillis() < deadline) {
+            // Mostly cache hits plus some replacements and short-lived garbage
+            final String key = "key-" + random.nextInt(entries);
+            final HttpCacheEntry entry = storage.getEntry(key);
+            if (entry != null) {
+                checksum += entry.getResource().get()[0];
+            }
+            if (random.nextInt(10) == 0) {
+                try {
+                    storage.putEntry(key, makeEntry(resourceFactory.generate("id", body)));
+                } catch (final ResourceIOException ex) {
+                    // Arena exhausted until replaced entries have been garbage collected
+                    rejected++;
+                }
+            }
+            requests++;
+        }
+        storage.shutdown();
+        System.out.printf("%s: requests=%,d not cached=%,d gc count=%d gc time=%dms (checksum %d)%n",
+                mode, requests, rejected, gcCount() - startCount, gcTime() - startTime, checksum);
+    }
+
+    static HttpCacheEntry makeEntry(final Resource resource) {
+        final Date now = new Date();
+        return new HttpCacheEntry(now, now, 200, HttpTestUtils.getStockHeaders(now), resource);
+    }
+
+    static long gcCount() {
+        long count = 0;
+        final List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (final GarbageCollectorMXBean bean: beans) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    static long gcTime() {
+        long time = 0;
+        final List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+        for (final GarbageCollectorMXBean bean: beans) {
+            time += Math.max(0, bean.getCollectionTime());
+        }
+        return time;
+    }
+
+}
@@ -499,8 +499,8 @@ public Cancellable answer(final InvocationOnMock invocation) throws Throwable {
         Assert.assertThat(entryMap.get(key1), HttpCacheEntryMatcher.equivalent(value1));
         Assert.assertThat(entryMap.get(key2), HttpCacheEntryMatcher.equivalent(value2));
 
-        verify(impl, Mockito.times(2)).digestToStorageKey(key1);
-        verify(impl, Mockito.times(2)).digestToStorageKey(key2);
+        verify(impl).digestToStorageKey(key1);
+        verify(impl).digestToStorageKey(key2);
         verify(impl).bulkRestore(
                 ArgumentMatchers.eq(Arrays.asList(storageKey1, storageKey2)),
                 ArgumentMatchers.<FutureCallback<Map<String, byte[]>>>any());
@@ -548,8 +548,8 @@ public Cancellable answer(final InvocationOnMock invocation) throws Throwable {
         Assert.assertThat(entryMap.get(key1), HttpCacheEntryMatcher.equivalent(value1));
         Assert.assertThat(entryMap.get(key2), CoreMatchers.nullValue());
 
-        verify(impl, Mockito.times(2)).digestToStorageKey(key1);
-        verify(impl, Mockito.times(2)).digestToStorageKey(key2);
+        verify(impl).digestToStorageKey(key1);
+        verify(impl).digestToStorageKey(key2);
         verify(impl).bulkRestore(
                 ArgumentMatchers.eq(Arrays.asList(storageKey1, storageKey2)),
                 ArgumentMatchers.<FutureCallback<Map<String, byte[]>>>any());
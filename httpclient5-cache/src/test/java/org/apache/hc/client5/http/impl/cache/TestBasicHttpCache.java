@@ -32,11 +32,15 @@
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.client5.http.cache.HeaderConstants;
 import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.ResourceIOException;
 import org.apache.hc.client5.http.classic.methods.HttpDelete;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpHead;
@@ -306,4 +310,54 @@ public void testGetVariantCacheEntriesReturnsAllVariants() throws Exception {
 
     }
 
+    @Test
+    public void testGetVariantCacheEntriesFetchesVariantsInOneBatch() throws Exception {
+        final AtomicInteger singleGets = new AtomicInteger();
+        final AtomicInteger bulkGets = new AtomicInteger();
+        backing = new SimpleHttpCacheStorage() {
+
+            @Override
+            public HttpCacheEntry getEntry(final String key) throws ResourceIOException {
+                singleGets.incrementAndGet();
+                return super.getEntry(key);
+            }
+
+            @Override
+            public Map<String, HttpCacheEntry> getEntries(final Collection<String> keys) throws ResourceIOException {
+                bulkGets.incrementAndGet();
+                final Map<String, HttpCacheEntry> resultMap = new HashMap<>(keys.size());
+                for (final String key: keys) {
+                    final HttpCacheEntry entry = map.get(key);
+                    if (entry != null) {
+                        resultMap.put(key, entry);
+                    }
+                }
+                return resultMap;
+            }
+
+        };
+        impl = new BasicHttpCache(new HeapResourceFactory(), backing);
+
+        final HttpHost host = new HttpHost("foo.example.com");
+        final String[] encodings = { "gzip", "identity", "br" };
+        for (int i = 0; i < encodings.length; i++) {
+            final HttpRequest req = new HttpGet("http://foo.example.com/bar");
+            req.setHeader("Accept-Encoding", encodings[i]);
+            final HttpResponse resp = HttpTestUtils.make200Response();
+            resp.setHeader("Date", DateUtils.formatDate(new Date()));
+            resp.setHeader("Cache-Control", "max-age=3600, public");
+            resp.setHeader("ETag", "\"etag" + i + "\"");
+            resp.setHeader("Vary", "Accept-Encoding");
+            impl.createCacheEntry(host, req, resp, null, new Date(), new Date());
+        }
+        singleGets.set(0);
+
+        final HttpRequest request = new HttpGet("http://foo.example.com/bar");
+        final Map<String,Variant> variants = impl.getVariantCacheEntriesWithEtags(host, request);
+
+        assertEquals(3, variants.size());
+        assertEquals(1, singleGets.get());
+        assertEquals(1, bulkGets.get());
+    }
+
 }
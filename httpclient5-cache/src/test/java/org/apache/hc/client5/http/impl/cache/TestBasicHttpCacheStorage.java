@@ -0,0 +1,147 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBasicHttpCacheStorage {
+
+    @Test
+    public void testMaxEntriesEviction() throws Exception {
+        final BasicHttpCacheStorage impl = new BasicHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(2)
+                .build());
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("b", HttpTestUtils.makeCacheEntry());
+        impl.getEntry("a");
+        impl.putEntry("c", HttpTestUtils.makeCacheEntry());
+
+        Assert.assertNotNull(impl.getEntry("a"));
+        Assert.assertNull(impl.getEntry("b"));
+        Assert.assertNotNull(impl.getEntry("c"));
+        Assert.assertEquals(1, impl.getEvictionCount());
+    }
+
+    @Test
+    public void testMaxCacheSizeEviction() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry(new byte[1000]);
+        final long weight = CacheEntryWeigher.weigh(entry);
+        final BasicHttpCacheStorage impl = new BasicHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheSize(weight * 2 + weight / 2)
+                .build());
+        impl.putEntry("a", entry);
+        impl.putEntry("b", HttpTestUtils.makeCacheEntry(new byte[1000]));
+        Assert.assertEquals(weight * 2, impl.getTotalBytes());
+        impl.getEntry("a");
+        impl.putEntry("c", HttpTestUtils.makeCacheEntry(new byte[1000]));
+
+        Assert.assertNotNull(impl.getEntry("a"));
+        Assert.assertNull(impl.getEntry("b"));
+        Assert.assertNotNull(impl.getEntry("c"));
+        Assert.assertEquals(weight * 2, impl.getTotalBytes());
+        Assert.assertEquals(1, impl.getEvictionCount());
+
+        impl.removeEntry("a");
+        impl.removeEntry("c");
+        Assert.assertEquals(0, impl.getTotalBytes());
+    }
+
+    @Test
+    public void testFrequencyBasedAdmission() throws Exception {
+        final BasicHttpCacheStorage impl = new BasicHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(2)
+                .setFrequencyBasedAdmissionEnabled(true)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            impl.getEntry("a");
+            impl.getEntry("b");
+        }
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("b", HttpTestUtils.makeCacheEntry());
+
+        // One-off request must not displace frequently requested entries
+        Assert.assertNull(impl.getEntry("c"));
+        impl.putEntry("c", HttpTestUtils.makeCacheEntry());
+        Assert.assertNull(impl.getEntry("c"));
+        Assert.assertNotNull(impl.getEntry("a"));
+        Assert.assertNotNull(impl.getEntry("b"));
+        Assert.assertEquals(1, impl.getRejectionCount());
+
+        for (int i = 0; i < 10; i++) {
+            impl.getEntry("d");
+        }
+        impl.putEntry("d", HttpTestUtils.makeCacheEntry());
+        Assert.assertNotNull(impl.getEntry("d"));
+        Assert.assertEquals(1, impl.getEvictionCount());
+    }
+
+    @Test
+    public void testFrequencyBasedAdmissionOfNewEntry() throws Exception {
+        final BasicHttpCacheStorage impl = new BasicHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(2)
+                .setFrequencyBasedAdmissionEnabled(true)
+                .build());
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("b", HttpTestUtils.makeCacheEntry());
+        Assert.assertNotNull(impl.getEntry("a"));
+        Assert.assertNotNull(impl.getEntry("b"));
+
+        // A cache miss must be able to displace an entry that was read once
+        Assert.assertNull(impl.getEntry("c"));
+        impl.putEntry("c", HttpTestUtils.makeCacheEntry());
+        Assert.assertNotNull(impl.getEntry("c"));
+        Assert.assertEquals(0, impl.getRejectionCount());
+        Assert.assertEquals(1, impl.getEvictionCount());
+    }
+
+    @Test
+    public void testHitMissCounts() throws Exception {
+        final BasicHttpCacheStorage impl = new BasicHttpCacheStorage(CacheConfig.DEFAULT);
+        impl.getEntry("a");
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry());
+        impl.getEntry("a");
+        impl.getEntry("a");
+        Assert.assertEquals(2, impl.getHitCount());
+        Assert.assertEquals(1, impl.getMissCount());
+    }
+
+    @Test
+    public void testEntryLargerThanMaxCacheSizeRejected() throws Exception {
+        final BasicHttpCacheStorage impl = new BasicHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheSize(1024)
+                .build());
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry(new byte[100]));
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry(new byte[2048]));
+
+        Assert.assertNull(impl.getEntry("a"));
+        Assert.assertEquals(0, impl.getTotalBytes());
+        Assert.assertEquals(1, impl.getRejectionCount());
+    }
+
+}
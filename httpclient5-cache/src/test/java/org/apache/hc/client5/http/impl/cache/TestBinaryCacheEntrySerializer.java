@@ -0,0 +1,186 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.HttpCacheStorageEntry;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestBinaryCacheEntrySerializer {
+
+    private BinaryCacheEntrySerializer impl;
+
+    @Before
+    public void setUp() {
+        impl = new BinaryCacheEntrySerializer();
+    }
+
+    private HttpCacheStorageEntry readWriteVerify(final HttpCacheStorageEntry writeEntry) throws Exception {
+        final byte[] bytes = impl.serialize(writeEntry);
+        final HttpCacheStorageEntry readEntry = impl.deserialize(bytes);
+        assertEquals(writeEntry.getKey(), readEntry.getKey());
+        assertThat(readEntry.getContent(), HttpCacheEntryMatcher.equivalent(writeEntry.getContent()));
+        return readEntry;
+    }
+
+    @Test
+    public void testEntryWithVariantMap() throws Exception {
+        final Header[] headers = new Header[] {
+                new BasicHeader("Date", "Tue, 15 Nov 1994 08:12:31 GMT"),
+                new BasicHeader("Vary", "Accept-Encoding"),
+                new BasicHeader("X-Empty", null)
+        };
+        final Map<String, String> variantMap = new HashMap<>();
+        variantMap.put("{Accept-Encoding=gzip}", "gzip-key");
+        variantMap.put("{Accept-Encoding=}", "identity-key");
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(1000L), new Date(2000L), HttpStatus.SC_OK,
+                headers, new HeapResource("Lorem ipsum".getBytes(StandardCharsets.US_ASCII)), variantMap);
+
+        final HttpCacheStorageEntry readEntry = readWriteVerify(new HttpCacheStorageEntry("key", entry));
+        assertEquals(variantMap, readEntry.getContent().getVariantMap());
+        Assert.assertNull(readEntry.getContent().getFirstHeader("X-Empty").getValue());
+    }
+
+    @Test
+    public void testEntryWithNonAsciiContent() throws Exception {
+        final Header[] headers = new Header[] { new BasicHeader("Content-Disposition", "attachment; filename=\u00fcber\u20ac.txt") };
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(), new Date(), HttpStatus.SC_OK,
+                headers, new HeapResource(HttpTestUtils.getRandomBytes(70000)));
+        readWriteVerify(new HttpCacheStorageEntry("http://example.com/\u00e9t\u00e9", entry));
+    }
+
+    @Test
+    public void testEntryWithoutBody() throws Exception {
+        final HttpCacheEntry entry = new HttpCacheEntry(new Date(), new Date(), HttpStatus.SC_NOT_MODIFIED,
+                new Header[0], null);
+        final HttpCacheStorageEntry readEntry = readWriteVerify(new HttpCacheStorageEntry("key", entry));
+        Assert.assertNull(readEntry.getContent().getResource());
+    }
+
+    @Test
+    public void testRequestMethodPreserved() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry head = new HttpCacheEntry(entry.getRequestDate(), entry.getResponseDate(),
+                entry.getStatus(), new Header[] { new BasicHeader("Hc-Request-Method", "HEAD") }, null);
+        final HttpCacheStorageEntry readEntry = readWriteVerify(new HttpCacheStorageEntry("key", head));
+        assertEquals("HEAD", readEntry.getContent().getRequestMethod());
+    }
+
+    @Test
+    public void testMoreCompactThanJavaSerialization() throws Exception {
+        final HttpCacheStorageEntry entry = new HttpCacheStorageEntry("key", HttpTestUtils.makeCacheEntry());
+        Assert.assertTrue(impl.serialize(entry).length
+                < ByteArrayCacheEntrySerializer.INSTANCE.serialize(entry).length / 2);
+    }
+
+    @Test(expected = ResourceIOException.class)
+    public void testRejectsUnknownVersion() throws Exception {
+        final byte[] bytes = impl.serialize(new HttpCacheStorageEntry("key", HttpTestUtils.makeCacheEntry()));
+        bytes[3] = (byte) (BinaryCacheEntrySerializer.VERSION + 1);
+        impl.deserialize(bytes);
+    }
+
+    @Test(expected = ResourceIOException.class)
+    public void testRejectsTruncatedContent() throws Exception {
+        final byte[] bytes = impl.serialize(new HttpCacheStorageEntry("key", HttpTestUtils.makeCacheEntry()));
+        impl.deserialize(Arrays.copyOf(bytes, bytes.length - 3));
+    }
+
+    @Test(expected = ResourceIOException.class)
+    public void testRejectsJavaSerializedContent() throws Exception {
+        impl.deserialize(ByteArrayCacheEntrySerializer.INSTANCE.serialize(
+                new HttpCacheStorageEntry("key", HttpTestUtils.makeCacheEntry())));
+    }
+
+    private static byte[] headerCountOf(final int... count) {
+        final byte[] prefix = new byte[] {
+                'H', 'C', 'E', BinaryCacheEntrySerializer.VERSION, 2, 'k',
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                (byte) 0xc8, 0x01 };
+        final byte[] bytes = Arrays.copyOf(prefix, prefix.length + count.length + 8);
+        for (int i = 0; i < count.length; i++) {
+            bytes[prefix.length + i] = (byte) count[i];
+        }
+        return bytes;
+    }
+
+    @Test(expected = ResourceIOException.class)
+    public void testRejectsNegativeHeaderCount() throws Exception {
+        impl.deserialize(headerCountOf(0xff, 0xff, 0xff, 0xff, 0x0f));
+    }
+
+    @Test(expected = ResourceIOException.class)
+    public void testRejectsHeaderCountExceedingContent() throws Exception {
+        impl.deserialize(headerCountOf(0xff, 0xff, 0xff, 0xff, 0x07));
+    }
+
+    @Test
+    public void testRejectsCorruptContent() throws Exception {
+        final Map<String, String> variantMap = new HashMap<>();
+        variantMap.put("{Accept-Encoding=gzip}", "key-gzip");
+        final byte[] bytes = impl.serialize(new HttpCacheStorageEntry("key", new HttpCacheEntry(
+                new Date(), new Date(), HttpStatus.SC_OK,
+                new Header[] { new BasicHeader("Vary", "Accept-Encoding") },
+                new HeapResource("body".getBytes(StandardCharsets.US_ASCII)), variantMap)));
+        // Corrupt every byte in turn with values that produce negative,
+        // oversized and truncated lengths and counts
+        final byte[] corruptions = new byte[] { (byte) 0xff, (byte) 0x80, 0x7f, 0x00 };
+        for (int i = 0; i < bytes.length; i++) {
+            for (final byte corruption: corruptions) {
+                final byte[] corrupt = bytes.clone();
+                corrupt[i] = corruption;
+                try {
+                    impl.deserialize(corrupt);
+                } catch (final ResourceIOException expected) {
+                    // acceptable outcome
+                }
+            }
+            try {
+                impl.deserialize(Arrays.copyOf(bytes, i));
+                Assert.fail("ResourceIOException expected");
+            } catch (final ResourceIOException expected) {
+                // expected
+            }
+        }
+    }
+
+}
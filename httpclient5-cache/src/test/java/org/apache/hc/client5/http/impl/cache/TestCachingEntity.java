@@ -0,0 +1,126 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCachingEntity {
+
+    private byte[] content;
+    private ByteArrayBuffer buf;
+    private ResourceSink sink;
+    private AtomicReference<Resource> resourceRef;
+    private AtomicReference<Exception> failureRef;
+    private FutureCallback<Resource> callback;
+
+    @Before
+    public void setUp() throws Exception {
+        content = HttpTestUtils.getRandomBytes(10000);
+        buf = new ByteArrayBuffer(1024);
+        buf.append(content, 0, 1000);
+        sink = new OffHeapResourceFactory(64 * 1024, 1024).createSink("id");
+        sink.write(content, 0, 1000);
+        resourceRef = new AtomicReference<>();
+        failureRef = new AtomicReference<>();
+        callback = new FutureCallback<Resource>() {
+
+            @Override
+            public void completed(final Resource result) {
+                resourceRef.set(result);
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                failureRef.set(ex);
+            }
+
+            @Override
+            public void cancelled() {
+            }
+
+        };
+    }
+
+    private CachingEntity createEntity(final long maxObjectSize) throws Exception {
+        final ByteArrayEntity entity = new ByteArrayEntity(content, 1000, content.length - 1000, null);
+        return new CachingEntity(entity, entity.getContent(), buf, sink, maxObjectSize, callback);
+    }
+
+    private static byte[] readAll(final InputStream in) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] tmp = new byte[333];
+        int l;
+        while ((l = in.read(tmp)) != -1) {
+            out.write(tmp, 0, l);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testContentCommittedAtEndOfStream() throws Exception {
+        final CachingEntity entity = createEntity(100000);
+        try (final InputStream in = entity.getContent()) {
+            Assert.assertArrayEquals(content, readAll(in));
+            Assert.assertNotNull(resourceRef.get());
+        }
+        Assert.assertArrayEquals(content, resourceRef.get().get());
+        Assert.assertNull(failureRef.get());
+    }
+
+    @Test
+    public void testContentAbortedIfClosedEarly() throws Exception {
+        final CachingEntity entity = createEntity(100000);
+        try (final InputStream in = entity.getContent()) {
+            Assert.assertEquals(1000, in.read(new byte[2000]));
+            Assert.assertEquals(2000, in.read(new byte[2000]));
+        }
+        Assert.assertNull(resourceRef.get());
+        Assert.assertNotNull(failureRef.get());
+    }
+
+    @Test
+    public void testContentAbortedIfTooLarge() throws Exception {
+        final CachingEntity entity = createEntity(5000);
+        try (final InputStream in = entity.getContent()) {
+            Assert.assertArrayEquals(content, readAll(in));
+        }
+        Assert.assertNull(resourceRef.get());
+        Assert.assertNotNull(failureRef.get());
+    }
+
+}
@@ -42,11 +42,16 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
@@ -71,6 +76,7 @@
 import org.apache.hc.core5.http.HttpStatus;
 import org.apache.hc.core5.http.HttpVersion;
 import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.InputStreamEntity;
 import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
@@ -1240,6 +1246,127 @@ public void testIsSharedCache() {
         Assert.assertTrue(config.isSharedCache());
     }
 
+    @Test
+    public void testLargeResponsesAreStreamedIntoCache() throws Exception {
+        final CacheConfig streamingConfig = CacheConfig.custom().setMaxObjectSize(1024 * 1024).build();
+        impl = createCachingExecChain(new BasicHttpCache(
+                new OffHeapResourceFactory(4 * 1024 * 1024),
+                new ManagedHttpCacheStorage(streamingConfig)), streamingConfig);
+
+        final byte[] body = HttpTestUtils.getRandomBytes(CachingExecBase.STREAMING_THRESHOLD * 3);
+        final ClassicHttpRequest req1 = HttpTestUtils.makeDefaultRequest();
+        final ClassicHttpResponse resp1 = HttpTestUtils.make200Response();
+        resp1.setHeader("Cache-Control", "max-age=3600");
+        resp1.setHeader("Content-Length", Integer.toString(body.length));
+        resp1.setEntity(new ByteArrayEntity(body, null));
+        backendExpectsAnyRequestAndReturn(resp1);
+
+        final ClassicHttpRequest req2 = HttpTestUtils.makeDefaultRequest();
+
+        replayMocks();
+        final ClassicHttpResponse result1 = execute(req1);
+        Assert.assertArrayEquals(body, EntityUtils.toByteArray(result1.getEntity()));
+        final ClassicHttpResponse result2 = execute(req2);
+        verifyMocks();
+
+        Assert.assertArrayEquals(body, EntityUtils.toByteArray(result2.getEntity()));
+    }
+
+    @Test
+    public void testPartiallyConsumedStreamedResponsesAreNotCached() throws Exception {
+        final CacheConfig streamingConfig = CacheConfig.custom().setMaxObjectSize(1024 * 1024).build();
+        impl = createCachingExecChain(new BasicHttpCache(
+                new OffHeapResourceFactory(4 * 1024 * 1024),
+                new ManagedHttpCacheStorage(streamingConfig)), streamingConfig);
+
+        final byte[] body = HttpTestUtils.getRandomBytes(CachingExecBase.STREAMING_THRESHOLD * 3);
+        final ClassicHttpRequest req1 = HttpTestUtils.makeDefaultRequest();
+        final ClassicHttpResponse resp1 = HttpTestUtils.make200Response();
+        resp1.setHeader("Cache-Control", "max-age=3600");
+        resp1.setHeader("Content-Length", Integer.toString(body.length));
+        resp1.setEntity(new ByteArrayEntity(body, null));
+        backendExpectsAnyRequestAndReturn(resp1);
+
+        final ClassicHttpRequest req2 = HttpTestUtils.makeDefaultRequest();
+        final ClassicHttpResponse resp2 = HttpTestUtils.make200Response();
+        resp2.setHeader("Cache-Control", "max-age=3600");
+        backendExpectsAnyRequestAndReturn(resp2);
+
+        replayMocks();
+        final ClassicHttpResponse result1 = execute(req1);
+        result1.getEntity().getContent().read(new byte[1024]);
+        result1.close();
+        execute(req2);
+        verifyMocks();
+    }
+
+    @Test
+    public void testConcurrentCacheMissesAreCollapsed() throws Exception {
+        final CacheConfig collapsingConfig = CacheConfig.custom().setRequestCollapsingEnabled(true).build();
+        impl = createCachingExecChain(new BasicHttpCache(), collapsingConfig);
+
+        final CountDownLatch backendCalled = new CountDownLatch(1);
+        final CountDownLatch backendReleased = new CountDownLatch(1);
+        final AtomicInteger backendCalls = new AtomicInteger();
+        final ExecChain backend = new ExecChain() {
+
+            @Override
+            public ClassicHttpResponse proceed(
+                    final ClassicHttpRequest request, final ExecChain.Scope scope) throws IOException {
+                backendCalls.incrementAndGet();
+                backendCalled.countDown();
+                try {
+                    backendReleased.await();
+                } catch (final InterruptedException ex) {
+                    throw new InterruptedIOException();
+                }
+                final ClassicHttpResponse response = HttpTestUtils.make200Response();
+                response.setHeader("Cache-Control", "max-age=3600");
+                return response;
+            }
+
+        };
+
+        final List<ClassicHttpResponse> responses = Collections.synchronizedList(new ArrayList<ClassicHttpResponse>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final Thread thread = new Thread() {
+
+                @Override
+                public void run() {
+                    try {
+                        final ClassicHttpRequest req = HttpTestUtils.makeDefaultRequest();
+                        responses.add(impl.execute(req, new ExecChain.Scope(
+                                "test", route, req, mockEndpoint, HttpCacheContext.create()), backend));
+                    } catch (final Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+
+            };
+            threads.add(thread);
+            thread.start();
+            if (i == 0) {
+                Assert.assertTrue(backendCalled.await(5, TimeUnit.SECONDS));
+            } else {
+                while (thread.getState() != Thread.State.TIMED_WAITING) {
+                    Thread.sleep(1);
+                }
+            }
+        }
+        backendReleased.countDown();
+        for (final Thread thread: threads) {
+            thread.join(5000);
+        }
+
+        Assert.assertEquals(1, backendCalls.get());
+        Assert.assertEquals(3, responses.size());
+        for (final ClassicHttpResponse response: responses) {
+            Assert.assertEquals(HttpStatus.SC_OK, response.getCode());
+        }
+        Assert.assertEquals(2, impl.getCollapsedRequests());
+    }
+
     @Test
     public void testTooLargeResponsesAreNotCached() throws Exception {
         mockCache = EasyMock.createStrictMock(HttpCache.class);
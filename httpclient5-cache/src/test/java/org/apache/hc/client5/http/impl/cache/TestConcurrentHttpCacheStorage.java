@@ -0,0 +1,272 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.cache.HttpCacheCASOperation;
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.HttpCacheUpdateException;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestConcurrentHttpCacheStorage {
+
+    private ConcurrentHttpCacheStorage impl;
+
+    @Before
+    public void setUp() {
+        impl = new ConcurrentHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(3)
+                .setMaxUpdateRetries(3)
+                .build());
+    }
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        Assert.assertNull(impl.getEntry("foo"));
+        impl.putEntry("foo", entry);
+        Assert.assertSame(entry, impl.getEntry("foo"));
+        final HttpCacheEntry anotherEntry = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("foo", anotherEntry);
+        Assert.assertSame(anotherEntry, impl.getEntry("foo"));
+        Assert.assertEquals(1, impl.size());
+        impl.removeEntry("foo");
+        Assert.assertNull(impl.getEntry("foo"));
+        Assert.assertEquals(0, impl.size());
+    }
+
+    @Test
+    public void testGetEntries() throws Exception {
+        final HttpCacheEntry entry1 = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry entry2 = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("foo", entry1);
+        impl.putEntry("bar", entry2);
+        final Map<String, HttpCacheEntry> entries = impl.getEntries(Arrays.asList("foo", "bar", "baz"));
+        Assert.assertEquals(2, entries.size());
+        Assert.assertSame(entry1, entries.get("foo"));
+        Assert.assertSame(entry2, entries.get("bar"));
+    }
+
+    @Test
+    public void testEvictionKeepsRecentlyReferencedEntries() throws Exception {
+        impl.putEntry("a", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("b", HttpTestUtils.makeCacheEntry());
+        impl.putEntry("c", HttpTestUtils.makeCacheEntry());
+        Assert.assertNotNull(impl.getEntry("a"));
+        impl.putEntry("d", HttpTestUtils.makeCacheEntry());
+
+        Assert.assertEquals(3, impl.size());
+        Assert.assertNotNull(impl.getEntry("a"));
+        Assert.assertNull(impl.getEntry("b"));
+        Assert.assertNotNull(impl.getEntry("c"));
+        Assert.assertNotNull(impl.getEntry("d"));
+    }
+
+    @Test
+    public void testMaxCacheSizeEviction() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry(new byte[1000]);
+        final long weight = CacheEntryWeigher.weigh(entry);
+        final ConcurrentHttpCacheStorage storage = new ConcurrentHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheSize(weight * 2 + weight / 2)
+                .build());
+        storage.putEntry("a", entry);
+        storage.putEntry("b", HttpTestUtils.makeCacheEntry(new byte[1000]));
+        Assert.assertEquals(weight * 2, storage.getTotalBytes());
+        storage.getEntry("a");
+        storage.putEntry("c", HttpTestUtils.makeCacheEntry(new byte[1000]));
+
+        Assert.assertNotNull(storage.getEntry("a"));
+        Assert.assertNull(storage.getEntry("b"));
+        Assert.assertNotNull(storage.getEntry("c"));
+        Assert.assertEquals(weight * 2, storage.getTotalBytes());
+        Assert.assertEquals(1, storage.getEvictionCount());
+
+        storage.removeEntry("a");
+        storage.removeEntry("c");
+        Assert.assertEquals(0, storage.getTotalBytes());
+    }
+
+    @Test
+    public void testEntryLargerThanMaxCacheSizeRejected() throws Exception {
+        final ConcurrentHttpCacheStorage storage = new ConcurrentHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheSize(1024)
+                .build());
+        storage.putEntry("a", HttpTestUtils.makeCacheEntry(new byte[100]));
+        storage.putEntry("a", HttpTestUtils.makeCacheEntry(new byte[2048]));
+
+        Assert.assertNull(storage.getEntry("a"));
+        Assert.assertEquals(0, storage.getTotalBytes());
+        Assert.assertEquals(1, storage.getRejectionCount());
+    }
+
+    @Test
+    public void testFrequencyBasedAdmission() throws Exception {
+        final ConcurrentHttpCacheStorage storage = new ConcurrentHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(2)
+                .setFrequencyBasedAdmissionEnabled(true)
+                .build());
+        for (int i = 0; i < 3; i++) {
+            storage.getEntry("a");
+            storage.getEntry("b");
+        }
+        storage.putEntry("a", HttpTestUtils.makeCacheEntry());
+        storage.putEntry("b", HttpTestUtils.makeCacheEntry());
+
+        // One-off request must not displace frequently requested entries
+        Assert.assertNull(storage.getEntry("c"));
+        storage.putEntry("c", HttpTestUtils.makeCacheEntry());
+        Assert.assertNull(storage.getEntry("c"));
+        Assert.assertNotNull(storage.getEntry("a"));
+        Assert.assertNotNull(storage.getEntry("b"));
+        Assert.assertEquals(1, storage.getRejectionCount());
+        Assert.assertEquals(2, storage.getHitCount());
+        Assert.assertEquals(8, storage.getMissCount());
+    }
+
+    @Test
+    public void testFrequencyBasedAdmissionOfNewEntry() throws Exception {
+        final ConcurrentHttpCacheStorage storage = new ConcurrentHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(2)
+                .setFrequencyBasedAdmissionEnabled(true)
+                .build());
+        storage.putEntry("a", HttpTestUtils.makeCacheEntry());
+        storage.putEntry("b", HttpTestUtils.makeCacheEntry());
+        Assert.assertNotNull(storage.getEntry("a"));
+        Assert.assertNotNull(storage.getEntry("b"));
+
+        // A cache miss must be able to displace an entry that was read once
+        Assert.assertNull(storage.getEntry("c"));
+        storage.putEntry("c", HttpTestUtils.makeCacheEntry());
+        Assert.assertNotNull(storage.getEntry("c"));
+        Assert.assertEquals(0, storage.getRejectionCount());
+        Assert.assertEquals(1, storage.getEvictionCount());
+    }
+
+    @Test
+    public void testUpdateEntry() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        final HttpCacheEntry updatedEntry = HttpTestUtils.makeCacheEntry();
+        impl.updateEntry("foo", new HttpCacheCASOperation() {
+
+            @Override
+            public HttpCacheEntry execute(final HttpCacheEntry existing) throws ResourceIOException {
+                Assert.assertNull(existing);
+                return entry;
+            }
+
+        });
+        Assert.assertSame(entry, impl.getEntry("foo"));
+        impl.updateEntry("foo", new HttpCacheCASOperation() {
+
+            @Override
+            public HttpCacheEntry execute(final HttpCacheEntry existing) throws ResourceIOException {
+                Assert.assertSame(entry, existing);
+                return updatedEntry;
+            }
+
+        });
+        Assert.assertSame(updatedEntry, impl.getEntry("foo"));
+        impl.updateEntry("foo", new HttpCacheCASOperation() {
+
+            @Override
+            public HttpCacheEntry execute(final HttpCacheEntry existing) throws ResourceIOException {
+                return null;
+            }
+
+        });
+        Assert.assertNull(impl.getEntry("foo"));
+        Assert.assertEquals(0, impl.size());
+    }
+
+    @Test(expected = HttpCacheUpdateException.class)
+    public void testUpdateEntryFailsAfterMaxRetries() throws Exception {
+        impl.putEntry("foo", HttpTestUtils.makeCacheEntry());
+        impl.updateEntry("foo", new HttpCacheCASOperation() {
+
+            @Override
+            public HttpCacheEntry execute(final HttpCacheEntry existing) throws ResourceIOException {
+                // Simulate a concurrent update of the same key
+                impl.putEntry("foo", HttpTestUtils.makeCacheEntry());
+                return HttpTestUtils.makeCacheEntry();
+            }
+
+        });
+    }
+
+    @Test
+    public void testConcurrentAccessRespectsMaxEntries() throws Exception {
+        final ConcurrentHttpCacheStorage storage = new ConcurrentHttpCacheStorage(CacheConfig.custom()
+                .setMaxCacheEntries(100)
+                .build());
+        final int threads = 8;
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch startGate = new CountDownLatch(1);
+            final Future<?>[] futures = new Future<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                final int n = i;
+                futures[i] = executorService.submit(new Callable<Void>() {
+
+                    @Override
+                    public Void call() throws Exception {
+                        startGate.await();
+                        for (int j = 0; j < 10000; j++) {
+                            final String key = "key-" + ((j * 31 + n) % 500);
+                            if (storage.getEntry(key) == null) {
+                                storage.putEntry(key, HttpTestUtils.makeCacheEntry());
+                            }
+                            if (j % 10 == 0) {
+                                storage.removeEntry(key);
+                            }
+                        }
+                        return null;
+                    }
+
+                });
+            }
+            startGate.countDown();
+            for (final Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertTrue(storage.size() <= 100);
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFrequencySketch {
+
+    @Test
+    public void testIncrement() {
+        final FrequencySketch sketch = new FrequencySketch(64);
+        Assert.assertEquals(0, sketch.frequency("foo"));
+        sketch.increment("foo");
+        sketch.increment("foo");
+        sketch.increment("foo");
+        sketch.increment("bar");
+        Assert.assertEquals(3, sketch.frequency("foo"));
+        Assert.assertEquals(1, sketch.frequency("bar"));
+    }
+
+    @Test
+    public void testCountersSaturate() {
+        final FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("foo");
+        }
+        Assert.assertEquals(15, sketch.frequency("foo"));
+    }
+
+    @Test
+    public void testResetHalvesCounters() {
+        final FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("foo");
+        }
+        // Sample size of a 16 slot sketch is 160 increments
+        for (int i = 0; i < 200; i++) {
+            sketch.increment("key-" + i);
+        }
+        Assert.assertTrue(sketch.frequency("foo") <= 5);
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestMappedFileResource {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private File dir;
+    private FileResourceFactory impl;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = tmpFolder.newFolder();
+        impl = new FileResourceFactory(dir, true);
+    }
+
+    private static byte[] readAll(final Resource resource) throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (final InputStream in = resource.getInputStream()) {
+            final byte[] tmp = new byte[333];
+            int l;
+            while ((l = in.read(tmp)) != -1) {
+                buf.write(tmp, 0, l);
+            }
+        }
+        return buf.toByteArray();
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(50000);
+        final Resource resource = impl.generate("id", content);
+        Assert.assertTrue(resource instanceof MappedFileResource);
+        Assert.assertEquals(50000, resource.length());
+        Assert.assertArrayEquals(content, resource.get());
+        Assert.assertArrayEquals(content, readAll(resource));
+
+        final ByteBuffer buffer = ((MappedFileResource) resource).getByteBuffer();
+        Assert.assertTrue(buffer.isReadOnly());
+        Assert.assertEquals(50000, buffer.remaining());
+        Assert.assertEquals(content[100], buffer.get(100));
+    }
+
+    @Test
+    public void testGenerateEmpty() throws Exception {
+        final Resource resource = impl.generate("id", new byte[0]);
+        Assert.assertEquals(0, resource.length());
+        Assert.assertArrayEquals(new byte[0], resource.get());
+        Assert.assertEquals(-1, resource.getInputStream().read());
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(10000);
+        final Resource resource = impl.generate("id", content);
+        final Resource copy = impl.copy("id", resource);
+        Assert.assertTrue(copy instanceof MappedFileResource);
+        resource.dispose();
+        Assert.assertArrayEquals(content, copy.get());
+    }
+
+    @Test
+    public void testDispose() throws Exception {
+        final Resource resource = impl.generate("id", new byte[1000]);
+        final File file = ((MappedFileResource) resource).getFile();
+        Assert.assertArrayEquals(new byte[1000], resource.get());
+        resource.dispose();
+        Assert.assertFalse(file.exists());
+        try {
+            resource.get();
+            Assert.fail("ResourceIOException expected");
+        } catch (final ResourceIOException expected) {
+        }
+    }
+
+    @Test
+    public void testNotMappedByDefault() throws Exception {
+        final FileResourceFactory factory = new FileResourceFactory(tmpFolder.newFolder());
+        final Resource resource = factory.generate("id", new byte[10]);
+        Assert.assertFalse(resource instanceof MappedFileResource);
+    }
+
+    @Test
+    public void testSink() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(5000);
+        final ResourceSink sink = impl.createSink("id");
+        sink.write(content, 0, 1000);
+        sink.write(content, 1000, 4000);
+        Assert.assertEquals(5000, sink.length());
+        final Resource resource = sink.commit();
+        Assert.assertTrue(resource instanceof MappedFileResource);
+        Assert.assertArrayEquals(content, resource.get());
+    }
+
+    @Test
+    public void testSinkAbortDeletesFile() throws Exception {
+        final ResourceSink sink = impl.createSink("id");
+        sink.write(new byte[100], 0, 100);
+        sink.abort();
+        Assert.assertEquals(0, dir.list().length);
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.apache.hc.client5.http.cache.Resource;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.cache.ResourceSink;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestOffHeapResourceFactory {
+
+    private OffHeapResourceFactory impl;
+
+    @Before
+    public void setUp() {
+        impl = new OffHeapResourceFactory(64 * 1024, 1024);
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(5000);
+        final Resource resource = impl.generate("id", content);
+        Assert.assertEquals(5000, resource.length());
+        Assert.assertArrayEquals(content, resource.get());
+        Assert.assertEquals(5 * 1024, impl.getUsedBytes());
+
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (final InputStream in = resource.getInputStream()) {
+            final byte[] tmp = new byte[333];
+            int l;
+            while ((l = in.read(tmp)) != -1) {
+                buf.write(tmp, 0, l);
+            }
+        }
+        Assert.assertArrayEquals(content, buf.toByteArray());
+    }
+
+    @Test
+    public void testGenerateEmpty() throws Exception {
+        final Resource resource = impl.generate("id", new byte[0]);
+        Assert.assertEquals(0, resource.length());
+        Assert.assertArrayEquals(new byte[0], resource.get());
+        Assert.assertEquals(-1, resource.getInputStream().read());
+    }
+
+    @Test
+    public void testDisposeReleasesPages() throws Exception {
+        final Resource resource = impl.generate("id", new byte[3000]);
+        Assert.assertEquals(3 * 1024, impl.getUsedBytes());
+        resource.dispose();
+        Assert.assertEquals(0, impl.getUsedBytes());
+        resource.dispose();
+        Assert.assertEquals(0, impl.getUsedBytes());
+        try {
+            resource.get();
+            Assert.fail("ResourceIOException expected");
+        } catch (final ResourceIOException expected) {
+        }
+    }
+
+    @Test
+    public void testCapacityBound() throws Exception {
+        final Resource resource = impl.generate("id", new byte[60 * 1024]);
+        try {
+            impl.generate("id", new byte[5 * 1024]);
+            Assert.fail("ResourceIOException expected");
+        } catch (final ResourceIOException expected) {
+        }
+        resource.dispose();
+        final byte[] content = HttpTestUtils.getRandomBytes(5 * 1024);
+        Assert.assertArrayEquals(content, impl.generate("id", content).get());
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(2500);
+        final Resource copy1 = impl.copy("id", impl.generate("id", content));
+        Assert.assertArrayEquals(content, copy1.get());
+        final Resource copy2 = impl.copy("id", new HeapResource(content));
+        Assert.assertArrayEquals(content, copy2.get());
+    }
+
+    @Test
+    public void testSerializedAsHeapResource() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(1500);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(buf)) {
+            out.writeObject(impl.generate("id", content));
+        }
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+            final Object obj = in.readObject();
+            Assert.assertTrue(obj instanceof HeapResource);
+            Assert.assertArrayEquals(content, ((Resource) obj).get());
+        }
+    }
+
+    @Test
+    public void testSink() throws Exception {
+        final byte[] content = HttpTestUtils.getRandomBytes(5000);
+        final ResourceSink sink = impl.createSink("id");
+        sink.write(content, 0, 100);
+        sink.write(content, 100, 2900);
+        sink.write(content, 3000, 2000);
+        Assert.assertEquals(5000, sink.length());
+        Assert.assertEquals(5 * 1024, impl.getUsedBytes());
+        final Resource resource = sink.commit();
+        Assert.assertArrayEquals(content, resource.get());
+        resource.dispose();
+        Assert.assertEquals(0, impl.getUsedBytes());
+    }
+
+    @Test
+    public void testSinkAbortReleasesPages() throws Exception {
+        final ResourceSink sink = impl.createSink("id");
+        sink.write(new byte[3000], 0, 3000);
+        Assert.assertEquals(3 * 1024, impl.getUsedBytes());
+        sink.abort();
+        Assert.assertEquals(0, impl.getUsedBytes());
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRequestCollapser {
+
+    @Test
+    public void testOnlyFirstRequestLeads() throws Exception {
+        final RequestCollapser collapser = new RequestCollapser(10000);
+        final RequestCollapser.Flight flight = collapser.lead("key");
+        Assert.assertNotNull(flight);
+        Assert.assertNull(collapser.lead("key"));
+        Assert.assertNotNull(collapser.lead("other-key"));
+        Assert.assertEquals(2, collapser.size());
+
+        collapser.complete(flight);
+        Assert.assertEquals(1, collapser.size());
+        Assert.assertNotNull(collapser.lead("key"));
+    }
+
+    @Test
+    public void testAwaitReturnsImmediatelyWithoutRequestInProgress() throws Exception {
+        final RequestCollapser collapser = new RequestCollapser(10000);
+        Assert.assertTrue(collapser.await("key"));
+
+        final AtomicInteger count = new AtomicInteger();
+        collapser.await("key", new Runnable() {
+
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+
+        });
+        Assert.assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testAwaitBlocksUntilCompletion() throws Exception {
+        final RequestCollapser collapser = new RequestCollapser(10000);
+        final RequestCollapser.Flight flight = collapser.lead("key");
+        final CountDownLatch released = new CountDownLatch(1);
+        final Thread waiter = new Thread() {
+
+            @Override
+            public void run() {
+                try {
+                    if (collapser.await("key")) {
+                        released.countDown();
+                    }
+                } catch (final InterruptedException ignore) {
+                }
+            }
+
+        };
+        waiter.start();
+        Assert.assertFalse(released.await(100, TimeUnit.MILLISECONDS));
+        collapser.complete(flight);
+        Assert.assertTrue(released.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAwaitTimesOut() throws Exception {
+        final RequestCollapser collapser = new RequestCollapser(50);
+        Assert.assertNotNull(collapser.lead("key"));
+        Assert.assertFalse(collapser.await("key"));
+    }
+
+    @Test
+    public void testExpiredFlightIsTakenOver() throws Exception {
+        final RequestCollapser collapser = new RequestCollapser(0);
+        final RequestCollapser.Flight flight1 = collapser.lead("key");
+        final RequestCollapser.Flight flight2 = collapser.lead("key");
+        Assert.assertNotNull(flight1);
+        Assert.assertNotNull(flight2);
+        Assert.assertNotSame(flight1, flight2);
+        Assert.assertEquals(1, collapser.size());
+
+        // completion of the expired flight does not affect its successor
+        collapser.complete(flight1);
+        Assert.assertEquals(1, collapser.size());
+        collapser.complete(flight2);
+        Assert.assertEquals(0, collapser.size());
+    }
+
+    @Test
+    public void testAsyncWaitersAreReleasedOnceUponCompletion() throws Exception {
+        final RequestCollapser collapser = new RequestCollapser(10000);
+        final RequestCollapser.Flight flight = collapser.lead("key");
+        final AtomicInteger count = new AtomicInteger();
+        final Runnable command = new Runnable() {
+
+            @Override
+            public void run() {
+                count.incrementAndGet();
+            }
+
+        };
+        collapser.await("key", command);
+        collapser.await("key", command);
+        Assert.assertEquals(0, count.get());
+
+        collapser.complete(flight);
+        Assert.assertEquals(2, count.get());
+        collapser.complete(flight);
+        Assert.assertEquals(2, count.get());
+    }
+
+    @Test
+    public void testAsyncWaitersAreReleasedUponTimeout() throws Exception {
+        final ScheduledExecutorService scheduler = new ScheduledThreadPoolExecutor(1);
+        try {
+            final RequestCollapser collapser = new RequestCollapser(50, scheduler);
+            final RequestCollapser.Flight flight = collapser.lead("key");
+            final CountDownLatch released = new CountDownLatch(1);
+            final AtomicInteger count = new AtomicInteger();
+            collapser.await("key", new Runnable() {
+
+                @Override
+                public void run() {
+                    count.incrementAndGet();
+                    released.countDown();
+                }
+
+            });
+            Assert.assertTrue(released.await(5, TimeUnit.SECONDS));
+
+            collapser.complete(flight);
+            Assert.assertEquals(1, count.get());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache.disk;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.apache.hc.client5.http.cache.HttpCacheCASOperation;
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.impl.cache.CacheConfig;
+import org.apache.hc.client5.http.impl.cache.HttpTestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestDiskHttpCacheStorage {
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private File dir;
+    private DiskHttpCacheStorage impl;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = tmpFolder.newFolder();
+        impl = new DiskHttpCacheStorage(dir, 1024 * 1024, 16 * 1024, CacheConfig.DEFAULT, null);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        impl.close();
+    }
+
+    private DiskHttpCacheStorage reopen() throws IOException {
+        impl.close();
+        impl = new DiskHttpCacheStorage(dir, 1024 * 1024, 16 * 1024, CacheConfig.DEFAULT, null);
+        return impl;
+    }
+
+    private static void assertBody(final byte[] expected, final HttpCacheEntry entry) throws Exception {
+        Assert.assertNotNull(entry);
+        Assert.assertArrayEquals(expected, entry.getResource().get());
+    }
+
+    @Test
+    public void testPutGetRemove() throws Exception {
+        final byte[] body = HttpTestUtils.getRandomBytes(128);
+        impl.putEntry("foo", HttpTestUtils.makeCacheEntry(body));
+        assertBody(body, impl.getEntry("foo"));
+        Assert.assertNull(impl.getEntry("bar"));
+        Assert.assertEquals(1, impl.size());
+
+        impl.removeEntry("foo");
+        Assert.assertNull(impl.getEntry("foo"));
+        Assert.assertEquals(0, impl.size());
+    }
+
+    @Test
+    public void testEntriesSurviveRestart() throws Exception {
+        final byte[] body1 = HttpTestUtils.getRandomBytes(128);
+        final byte[] body2 = HttpTestUtils.getRandomBytes(128);
+        impl.putEntry("foo", HttpTestUtils.makeCacheEntry(body1));
+        impl.putEntry("bar", HttpTestUtils.makeCacheEntry(body1));
+        impl.putEntry("bar", HttpTestUtils.makeCacheEntry(body2));
+        impl.putEntry("baz", HttpTestUtils.makeCacheEntry(body1));
+        impl.removeEntry("baz");
+
+        reopen();
+        Assert.assertEquals(2, impl.size());
+        assertBody(body1, impl.getEntry("foo"));
+        assertBody(body2, impl.getEntry("bar"));
+        Assert.assertNull(impl.getEntry("baz"));
+    }
+
+    @Test
+    public void testRecoveryWithoutIndexAndTornRecord() throws Exception {
+        final byte[] body = HttpTestUtils.getRandomBytes(128);
+        for (int i = 0; i < 100; i++) {
+            impl.putEntry("key" + i, HttpTestUtils.makeCacheEntry(body));
+        }
+        impl.close();
+
+        File last = null;
+        for (final File file: dir.listFiles()) {
+            if (file.getName().endsWith(".idx")) {
+                Assert.assertTrue(file.delete());
+            } else if (file.getName().endsWith(".log") && (last == null || file.getName().compareTo(last.getName()) > 0)) {
+                last = file;
+            }
+        }
+        Assert.assertNotNull(last);
+        final long length = last.length();
+        try (final FileOutputStream out = new FileOutputStream(last, true)) {
+            out.write(new byte[] { 0x48, 0x43, 0x52, 0x31, 1, 0, 0 });
+        }
+
+        reopen();
+        Assert.assertEquals(100, impl.size());
+        for (int i = 0; i < 100; i++) {
+            assertBody(body, impl.getEntry("key" + i));
+        }
+        Assert.assertEquals(length, last.length());
+    }
+
+    @Test
+    public void testEvictsOldestSegmentsBeyondMaxDiskSize() throws Exception {
+        impl.close();
+        impl = new DiskHttpCacheStorage(dir, 64 * 1024, 16 * 1024, CacheConfig.DEFAULT, null);
+        final byte[] body = HttpTestUtils.getRandomBytes(1024);
+        for (int i = 0; i < 200; i++) {
+            impl.putEntry("key" + i, HttpTestUtils.makeCacheEntry(body));
+        }
+        Assert.assertTrue(impl.getTotalBytes() <= 64 * 1024);
+        Assert.assertTrue(impl.size() < 200);
+        Assert.assertNull(impl.getEntry("key0"));
+        assertBody(body, impl.getEntry("key199"));
+    }
+
+    @Test
+    public void testCompactsSupersededRecords() throws Exception {
+        final byte[] body = HttpTestUtils.getRandomBytes(1024);
+        for (int i = 0; i < 500; i++) {
+            impl.putEntry("key" + (i % 5), HttpTestUtils.makeCacheEntry(body));
+        }
+        Assert.assertEquals(5, impl.size());
+        Assert.assertTrue(impl.getSegmentCount() <= 3);
+        for (int i = 0; i < 5; i++) {
+            assertBody(body, impl.getEntry("key" + i));
+        }
+        reopen();
+        Assert.assertEquals(5, impl.size());
+    }
+
+    @Test
+    public void testDeletedEntryNotResurrectedByCompaction() throws Exception {
+        final byte[] body = HttpTestUtils.getRandomBytes(1024);
+        impl.putEntry("gone", HttpTestUtils.makeCacheEntry(body));
+        impl.putEntry("kept", HttpTestUtils.makeCacheEntry(body));
+        impl.removeEntry("gone");
+        for (int i = 0; i < 100; i++) {
+            impl.putEntry("churn", HttpTestUtils.makeCacheEntry(body));
+        }
+        reopen();
+        Assert.assertNull(impl.getEntry("gone"));
+        assertBody(body, impl.getEntry("kept"));
+    }
+
+    @Test
+    public void testEntryLargerThanSegmentNotStored() throws Exception {
+        impl.putEntry("foo", HttpTestUtils.makeCacheEntry(new byte[10]));
+        impl.putEntry("foo", HttpTestUtils.makeCacheEntry(new byte[32 * 1024]));
+        Assert.assertNull(impl.getEntry("foo"));
+    }
+
+    @Test
+    public void testUpdateEntry() throws Exception {
+        final byte[] body = HttpTestUtils.getRandomBytes(128);
+        impl.putEntry("foo", HttpTestUtils.makeCacheEntry(new byte[1]));
+        impl.updateEntry("foo", new HttpCacheCASOperation() {
+
+            @Override
+            public HttpCacheEntry execute(final HttpCacheEntry existing) throws ResourceIOException {
+                Assert.assertNotNull(existing);
+                return HttpTestUtils.makeCacheEntry(body);
+            }
+
+        });
+        assertBody(body, impl.getEntry("foo"));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDirectoryLocked() throws Exception {
+        new DiskHttpCacheStorage(dir, 1024 * 1024, CacheConfig.DEFAULT);
+    }
+
+    @Test(expected = ResourceIOException.class)
+    public void testClosed() throws Exception {
+        impl.close();
+        impl.getEntry("foo");
+    }
+
+}
@@ -0,0 +1,320 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.cache.memcached;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.hc.client5.http.cache.HttpCacheCASOperation;
+import org.apache.hc.client5.http.cache.HttpCacheEntry;
+import org.apache.hc.client5.http.cache.ResourceIOException;
+import org.apache.hc.client5.http.impl.cache.CacheConfig;
+import org.apache.hc.client5.http.impl.cache.HttpTestUtils;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import net.spy.memcached.MemcachedClient;
+
+public class TestMemcachedHttpCacheStorage {
+
+    private FakeMemcachedServer server;
+    private MemcachedClient client;
+    private MemcachedHttpCacheStorage impl;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeMemcachedServer();
+        client = new MemcachedClient(server.getAddress());
+        impl = new MemcachedHttpCacheStorage(
+                client, CacheConfig.DEFAULT, null, SHA256KeyHashingScheme.INSTANCE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testPutAndGetEntry() throws Exception {
+        final HttpCacheEntry entry = HttpTestUtils.makeCacheEntry();
+        impl.putEntry("key", entry);
+
+        final HttpCacheEntry result = impl.getEntry("key");
+        Assert.assertNotNull(result);
+        Assert.assertEquals(entry.getStatus(), result.getStatus());
+        Assert.assertEquals(entry.getRequestDate(), result.getRequestDate());
+        Assert.assertNull(impl.getEntry("other-key"));
+    }
+
+    @Test
+    public void testGetEntriesIssuesSingleBulkGet() throws Exception {
+        final List<String> keys = Arrays.asList("key1", "key2", "key3", "key4");
+        for (final String key: keys.subList(0, 3)) {
+            impl.putEntry(key, HttpTestUtils.makeCacheEntry());
+        }
+        Assert.assertNotNull(impl.getEntry("key3"));
+        server.clearCommands();
+
+        final Map<String, HttpCacheEntry> resultMap = impl.getEntries(keys);
+        Assert.assertEquals(3, resultMap.size());
+        Assert.assertTrue(resultMap.keySet().containsAll(keys.subList(0, 3)));
+
+        final List<String> commands = server.getCommands("get");
+        Assert.assertEquals(1, commands.size());
+        Assert.assertEquals(5, commands.get(0).split(" ").length);
+    }
+
+    @Test
+    public void testUpdateEntry() throws Exception {
+        impl.putEntry("key", HttpTestUtils.makeCacheEntry());
+        impl.updateEntry("key", new HttpCacheCASOperation() {
+
+            @Override
+            public HttpCacheEntry execute(final HttpCacheEntry existing) throws ResourceIOException {
+                return HttpTestUtils.makeCacheEntry(
+                        new BasicHeader[] { new BasicHeader("ETag", "\"updated\"") });
+            }
+
+        });
+
+        final HttpCacheEntry result = impl.getEntry("key");
+        Assert.assertNotNull(result);
+        Assert.assertEquals(HttpStatus.SC_OK, result.getStatus());
+        Assert.assertEquals("\"updated\"", result.getFirstHeader("ETag").getValue());
+        Assert.assertEquals(1, server.getCommands("cas").size());
+    }
+
+    @Test
+    public void testRemoveEntry() throws Exception {
+        impl.putEntry("key", HttpTestUtils.makeCacheEntry());
+        impl.removeEntry("key");
+        Assert.assertNull(impl.getEntry("key"));
+    }
+
+    /**
+     * Minimal single-node memcached speaking the text protocol.
+     */
+    static class FakeMemcachedServer implements Closeable {
+
+        private final ServerSocket serverSocket;
+        private final ExecutorService executorService;
+        private final Map<String, Item> items;
+        private final List<String> commands;
+        private long casCounter;
+
+        FakeMemcachedServer() throws IOException {
+            this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            this.executorService = Executors.newCachedThreadPool();
+            this.items = new HashMap<>();
+            this.commands = Collections.synchronizedList(new ArrayList<String>());
+            this.executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (;;) {
+                            final Socket socket = serverSocket.accept();
+                            executorService.execute(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                    handle(socket);
+                                }
+
+                            });
+                        }
+                    } catch (final IOException ignore) {
+                    }
+                }
+
+            });
+        }
+
+        InetSocketAddress getAddress() {
+            return new InetSocketAddress(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        }
+
+        List<String> getCommands(final String name) {
+            synchronized (commands) {
+                final List<String> result = new ArrayList<>();
+                for (final String command: commands) {
+                    if (command.startsWith(name + " ")) {
+                        result.add(command);
+                    }
+                }
+                return result;
+            }
+        }
+
+        void clearCommands() {
+            commands.clear();
+        }
+
+        private void handle(final Socket socket) {
+            try {
+                final InputStream in = new BufferedInputStream(socket.getInputStream());
+                final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                for (;;) {
+                    final String line = readLine(in);
+                    if (line == null) {
+                        break;
+                    }
+                    commands.add(line);
+                    final String[] tokens = line.split(" ");
+                    final String command = tokens[0];
+                    if (command.equals("get") || command.equals("gets")) {
+                        for (int i = 1; i < tokens.length; i++) {
+                            final Item item;
+                            synchronized (items) {
+                                item = items.get(tokens[i]);
+                            }
+                            if (item != null) {
+                                write(out, "VALUE " + tokens[i] + " " + item.flags + " " + item.data.length
+                                        + (command.equals("gets") ? " " + item.cas : ""));
+                                out.write(item.data);
+                                write(out, "");
+                            }
+                        }
+                        write(out, "END");
+                    } else if (command.equals("set") || command.equals("cas")) {
+                        final byte[] data = readData(in, Integer.parseInt(tokens[4]));
+                        final String result;
+                        synchronized (items) {
+                            final Item existing = items.get(tokens[1]);
+                            if (command.equals("cas") && existing == null) {
+                                result = "NOT_FOUND";
+                            } else if (command.equals("cas") && existing.cas != Long.parseLong(tokens[5])) {
+                                result = "EXISTS";
+                            } else {
+                                items.put(tokens[1], new Item(Integer.parseInt(tokens[2]), data, ++casCounter));
+                                result = "STORED";
+                            }
+                        }
+                        write(out, result);
+                    } else if (command.equals("delete")) {
+                        final Item removed;
+                        synchronized (items) {
+                            removed = items.remove(tokens[1]);
+                        }
+                        write(out, removed != null ? "DELETED" : "NOT_FOUND");
+                    } else if (command.equals("version")) {
+                        write(out, "VERSION 1.6.0");
+                    } else {
+                        write(out, "ERROR");
+                    }
+                    out.flush();
+                }
+            } catch (final IOException ignore) {
+            } finally {
+                try {
+                    socket.close();
+                } catch (final IOException ignore) {
+                }
+            }
+        }
+
+        private static String readLine(final InputStream in) throws IOException {
+            final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    final byte[] line = buf.toByteArray();
+                    final int len = line.length > 0 && line[line.length - 1] == '\r' ? line.length - 1 : line.length;
+                    return new String(line, 0, len, StandardCharsets.US_ASCII);
+                }
+                buf.write(b);
+            }
+            return null;
+        }
+
+        private static byte[] readData(final InputStream in, final int len) throws IOException {
+            final byte[] data = new byte[len];
+            int off = 0;
+            while (off < len) {
+                final int l = in.read(data, off, len - off);
+                if (l == -1) {
+                    throw new EOFException();
+                }
+                off += l;
+            }
+            readLine(in);
+            return data;
+        }
+
+        private static void write(final OutputStream out, final String line) throws IOException {
+            out.write(line.getBytes(StandardCharsets.US_ASCII));
+            out.write('\r');
+            out.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            executorService.shutdownNow();
+        }
+
+    }
+
+    static class Item {
+
+        final int flags;
+        final byte[] data;
+        final long cas;
+
+        Item(final int flags, final byte[] data, final long cas) {
+            this.flags = flags;
+            this.data = data;
+            this.cas = cas;
+        }
+
+    }
+
+}
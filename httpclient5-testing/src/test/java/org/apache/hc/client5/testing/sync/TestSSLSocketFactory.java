@@ -35,6 +35,9 @@
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -50,6 +53,7 @@
 import org.apache.hc.client5.http.ssl.TrustSelfSignedStrategy;
 import org.apache.hc.client5.testing.SSLTestContexts;
 import org.apache.hc.core5.function.Callback;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.impl.bootstrap.HttpServer;
 import org.apache.hc.core5.http.impl.bootstrap.ServerBootstrap;
@@ -154,6 +158,98 @@ public void testBasicDefaultHostnameVerifier() throws Exception {
         }
     }
 
+    @Test
+    public void testMaxConcurrentHandshakes() throws Exception {
+        // @formatter:off
+        this.server = ServerBootstrap.bootstrap()
+                .setSslContext(SSLTestContexts.createServerSSLContext())
+                .create();
+        // @formatter:on
+        this.server.start();
+
+        final CountDownLatch verifying = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final AtomicReference<Thread> verifierThread = new AtomicReference<>();
+        final SSLConnectionSocketFactory socketFactory = SSLConnectionSocketFactoryBuilder.create()
+                .setSslContext(SSLTestContexts.createClientSSLContext())
+                .setHostnameVerifier(new HostnameVerifier() {
+
+                    @Override
+                    public boolean verify(final String host, final SSLSession session) {
+                        if (verifierThread.compareAndSet(null, Thread.currentThread())) {
+                            verifying.countDown();
+                            try {
+                                proceed.await();
+                            } catch (final InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                        return true;
+                    }
+
+                })
+                .setMaxConcurrentHandshakes(1)
+                .build();
+        final InetSocketAddress remoteAddress = new InetSocketAddress("localhost", this.server.getLocalPort());
+        final HttpHost target = new HttpHost("https", "localhost", this.server.getLocalPort());
+
+        final AtomicReference<Exception> firstFailure = new AtomicReference<>();
+        final Thread first = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                final HttpContext context = new BasicHttpContext();
+                try (final Socket socket = socketFactory.connectSocket(
+                        TimeValue.ZERO_MILLISECONDS,
+                        socketFactory.createSocket(context),
+                        target,
+                        remoteAddress,
+                        null,
+                        context)) {
+                    Assert.assertNotNull(((SSLSocket) socket).getSession());
+                } catch (final Exception ex) {
+                    firstFailure.set(ex);
+                }
+            }
+
+        });
+        first.start();
+        Assert.assertTrue(verifying.await(5, TimeUnit.SECONDS));
+        // handshakes are performed by the connecting thread
+        Assert.assertSame(first, verifierThread.get());
+
+        final HttpContext context = new BasicHttpContext();
+        try (final Socket socket = socketFactory.createSocket(context)) {
+            try {
+                socketFactory.connectSocket(
+                        TimeValue.ofMilliseconds(200),
+                        socket,
+                        target,
+                        remoteAddress,
+                        null,
+                        context);
+                Assert.fail("ConnectionRequestTimeoutException expected");
+            } catch (final ConnectionRequestTimeoutException expected) {
+            }
+        } finally {
+            proceed.countDown();
+            first.join();
+        }
+        Assert.assertNull(firstFailure.get());
+
+        try (final Socket socket = socketFactory.createSocket(context)) {
+            try (final SSLSocket sslSocket = (SSLSocket) socketFactory.connectSocket(
+                    TimeValue.ofSeconds(5),
+                    socket,
+                    target,
+                    remoteAddress,
+                    null,
+                    context)) {
+                Assert.assertNotNull(sslSocket.getSession());
+            }
+        }
+    }
+
     @Test
     public void testClientAuthSSL() throws Exception {
         // @formatter:off
@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+
+/**
+ * Listener of connection pool events, for instance to collect metrics about lease wait time,
+ * pool saturation, connection creation rate and connection re-use on a per route basis.
+ * <p>
+ * Events are reported on the thread that triggers them, frequently on the request execution
+ * or I/O dispatch thread, so implementations must be thread-safe and must not block.
+ * Durations are reported in nanoseconds to avoid allocating on the hot path.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public interface ConnPoolMetricsListener {
+
+    /**
+     * Triggered when a connection lease is requested.
+     */
+    void leaseRequested(HttpRoute route);
+
+    /**
+     * Triggered when a connection lease is granted.
+     *
+     * @param waitTimeNanos the time elapsed since the lease was requested.
+     */
+    void leaseGranted(HttpRoute route, long waitTimeNanos);
+
+    /**
+     * Triggered when a connection lease times out because the pool was saturated.
+     *
+     * @param waitTimeNanos the time elapsed since the lease was requested.
+     */
+    void leaseTimedOut(HttpRoute route, long waitTimeNanos);
+
+    /**
+     * Triggered when a new connection has been established.
+     *
+     * @param connectTimeNanos the time taken to establish the connection, excluding
+     * the TLS handshake of secure connections where it is reported separately.
+     */
+    void connectionCreated(HttpRoute route, long connectTimeNanos);
+
+    /**
+     * Triggered when the TLS handshake of a connection has completed, either upon
+     * connection to a secure route or upon upgrade of the connection after tunnelling
+     * through a proxy.
+     *
+     * @param handshakeTimeNanos the time taken by the TLS handshake.
+     */
+    void handshakeCompleted(HttpRoute route, long handshakeTimeNanos);
+
+    /**
+     * Triggered when a lease is granted with a persistent connection from the pool.
+     */
+    void connectionReused(HttpRoute route);
+
+    /**
+     * Triggered when a connection is closed and removed from the pool, including
+     * connections evicted as idle, expired or stale, and connections that could
+     * not be established.
+     */
+    void connectionClosed(HttpRoute route);
+
+}
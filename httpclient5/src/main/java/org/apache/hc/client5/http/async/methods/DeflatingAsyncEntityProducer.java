@@ -0,0 +1,281 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.async.methods;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.hc.client5.http.entity.DeflaterPool;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * {@link AsyncEntityProducer} decorator that incrementally compresses content
+ * produced by the underlying entity producer with the {@code gzip} or
+ * {@code deflate} content coding. Content is never buffered in its entirety;
+ * the underlying producer is not asked for more content while compressed
+ * output it has already given rise to cannot be written out.
+ * <p>
+ * Deflaters are borrowed from the shared {@link DeflaterPool} and returned
+ * to the pool when resources are released.
+ * </p>
+ *
+ * @since 5.0
+ */
+public class DeflatingAsyncEntityProducer implements AsyncEntityProducer {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /*
+     * GZIP member header: magic, deflate compression method, no flags,
+     * no modification time, no extra flags, unknown OS
+     */
+    private static final byte[] GZIP_HEADER = new byte[] {
+            (byte) 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final AsyncEntityProducer entityProducer;
+    private final boolean gzip;
+    private final DeflaterPool deflaterPool;
+    private final byte[] inBuffer;
+    private final ByteBuffer outBuffer;
+    private final CRC32 crc;
+    private final DataStreamChannel compressingChannel;
+
+    private DataStreamChannel channel;
+    private Deflater deflater;
+    private volatile boolean endStream;
+    private volatile boolean completed;
+    private boolean trailerWritten;
+    private List<? extends Header> trailers;
+
+    /**
+     * Creates a new producer of compressed content.
+     *
+     * @param entityProducer the producer of the original content.
+     * @param gzip {@code true} for the {@code gzip} content coding,
+     *             {@code false} for the (zlib wrapped) {@code deflate} content coding.
+     */
+    public DeflatingAsyncEntityProducer(final AsyncEntityProducer entityProducer, final boolean gzip) {
+        this.entityProducer = Args.notNull(entityProducer, "Entity producer");
+        this.gzip = gzip;
+        this.deflaterPool = DeflaterPool.getInstance(gzip);
+        this.inBuffer = new byte[BUFFER_SIZE];
+        this.outBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+        this.crc = new CRC32();
+        this.compressingChannel = new DataStreamChannel() {
+
+            @Override
+            public void requestOutput() {
+                channel.requestOutput();
+            }
+
+            @Override
+            public int write(final ByteBuffer src) throws IOException {
+                return compress(src);
+            }
+
+            @Override
+            public void endStream() throws IOException {
+                endStream(null);
+            }
+
+            @Override
+            public void endStream(final List<? extends Header> trailers) throws IOException {
+                finish(trailers);
+            }
+
+        };
+    }
+
+    @Override
+    public String getContentType() {
+        return entityProducer.getContentType();
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return gzip ? "gzip" : "deflate";
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return entityProducer.getTrailerNames();
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return entityProducer.isRepeatable();
+    }
+
+    @Override
+    public int available() {
+        if (completed) {
+            return 0;
+        }
+        final int pending = outBuffer.position();
+        if (pending > 0) {
+            return pending;
+        }
+        return endStream ? 1 : entityProducer.available();
+    }
+
+    @Override
+    public void produce(final DataStreamChannel channel) throws IOException {
+        this.channel = channel;
+        if (deflater == null) {
+            deflater = deflaterPool.acquire();
+            if (gzip) {
+                outBuffer.put(GZIP_HEADER);
+            }
+        }
+        if (endStream) {
+            complete();
+        } else {
+            flushOutput();
+            entityProducer.produce(compressingChannel);
+        }
+    }
+
+    private int compress(final ByteBuffer src) throws IOException {
+        if (endStream) {
+            throw new IllegalStateException("Content stream has already been ended");
+        }
+        deflate(false);
+        flushOutput();
+        if (!deflater.needsInput()) {
+            return 0;
+        }
+        final int len = Math.min(src.remaining(), inBuffer.length);
+        if (len == 0) {
+            return 0;
+        }
+        src.get(inBuffer, 0, len);
+        if (gzip) {
+            crc.update(inBuffer, 0, len);
+        }
+        // the deflater keeps a reference to the input buffer until it needs more input
+        deflater.setInput(inBuffer, 0, len);
+        deflate(false);
+        flushOutput();
+        return len;
+    }
+
+    private void finish(final List<? extends Header> trailers) throws IOException {
+        this.trailers = trailers;
+        this.endStream = true;
+        deflater.finish();
+        complete();
+    }
+
+    private void complete() throws IOException {
+        deflate(true);
+        if (gzip && deflater.finished() && !trailerWritten) {
+            if (outBuffer.remaining() < 8) {
+                flushOutput();
+            }
+            if (outBuffer.remaining() >= 8) {
+                // rfc1952; ISIZE is the input size modulo 2^32
+                writeInt(crc.getValue());
+                writeInt(deflater.getBytesRead());
+                trailerWritten = true;
+            }
+        }
+        flushOutput();
+        if (!completed && deflater.finished() && (trailerWritten || !gzip) && outBuffer.position() == 0) {
+            completed = true;
+            channel.endStream(trailers);
+        }
+    }
+
+    private void deflate(final boolean finishing) throws IOException {
+        while (finishing ? !deflater.finished() : !deflater.needsInput()) {
+            if (!outBuffer.hasRemaining()) {
+                flushOutput();
+                if (!outBuffer.hasRemaining()) {
+                    return;
+                }
+            }
+            final int n = deflater.deflate(
+                    outBuffer.array(), outBuffer.arrayOffset() + outBuffer.position(), outBuffer.remaining());
+            outBuffer.position(outBuffer.position() + n);
+        }
+    }
+
+    private void flushOutput() throws IOException {
+        if (outBuffer.position() > 0) {
+            outBuffer.flip();
+            channel.write(outBuffer);
+            outBuffer.compact();
+        }
+    }
+
+    private void writeInt(final long i) {
+        outBuffer.put((byte) (i & 0xff));
+        outBuffer.put((byte) ((i >> 8) & 0xff));
+        outBuffer.put((byte) ((i >> 16) & 0xff));
+        outBuffer.put((byte) ((i >> 24) & 0xff));
+    }
+
+    @Override
+    public void failed(final Exception cause) {
+        entityProducer.failed(cause);
+    }
+
+    @Override
+    public void releaseResources() {
+        entityProducer.releaseResources();
+        if (deflater != null) {
+            deflaterPool.release(deflater);
+            deflater = null;
+        }
+        outBuffer.clear();
+        crc.reset();
+        endStream = false;
+        completed = false;
+        trailerWritten = false;
+        trailers = null;
+        channel = null;
+    }
+
+}
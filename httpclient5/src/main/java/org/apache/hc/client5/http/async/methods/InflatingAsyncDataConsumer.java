@@ -0,0 +1,345 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.async.methods;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import org.apache.hc.client5.http.async.AsyncContentDecoderFactory;
+import org.apache.hc.client5.http.entity.InflaterPool;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.ByteArrayBuffer;
+
+/**
+ * {@link AsyncDataConsumer} decorator that incrementally inflates content
+ * encoded with {@code gzip} or {@code deflate} and passes inflated content
+ * to the underlying data consumer as it becomes available. Content is never
+ * buffered in its entirety.
+ * <p>
+ * The {@code deflate} decoder accepts both zlib wrapped (as mandated by
+ * RFC 7230) and raw deflate streams, which some servers send instead.
+ * The {@code gzip} decoder supports concatenated gzip members and verifies
+ * the checksum and size of each member.
+ * </p>
+ * <p>
+ * Inflaters are borrowed from the shared {@link InflaterPool} and returned
+ * to the pool when resources are released.
+ * </p>
+ *
+ * @since 5.0
+ */
+public class InflatingAsyncDataConsumer implements AsyncDataConsumer {
+
+    /**
+     * Factory of {@code gzip} decoders.
+     */
+    public static final AsyncContentDecoderFactory GZIP = new AsyncContentDecoderFactory() {
+
+        @Override
+        public AsyncDataConsumer create(final AsyncDataConsumer dataConsumer) {
+            return new InflatingAsyncDataConsumer(dataConsumer, true);
+        }
+
+    };
+
+    /**
+     * Factory of {@code deflate} decoders.
+     */
+    public static final AsyncContentDecoderFactory DEFLATE = new AsyncContentDecoderFactory() {
+
+        @Override
+        public AsyncDataConsumer create(final AsyncDataConsumer dataConsumer) {
+            return new InflatingAsyncDataConsumer(dataConsumer, false);
+        }
+
+    };
+
+    private static final int GZIP_HEADER_LEN = 10;
+    private static final int GZIP_TRAILER_LEN = 8;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    enum State { HEADER, DATA, TRAILER, DONE }
+
+    private final AsyncDataConsumer dataConsumer;
+    private final boolean gzip;
+    private final ByteArrayBuffer pending;
+    private final byte[] outBuf;
+    private final CRC32 crc;
+
+    private InflaterPool inflaterPool;
+    private Inflater inflater;
+    private State state;
+    private byte[] inBuf;
+
+    public InflatingAsyncDataConsumer(final AsyncDataConsumer dataConsumer, final boolean gzip) {
+        super();
+        this.dataConsumer = Args.notNull(dataConsumer, "Data consumer");
+        this.gzip = gzip;
+        this.pending = new ByteArrayBuffer(GZIP_HEADER_LEN);
+        this.outBuf = new byte[8192];
+        this.crc = gzip ? new CRC32() : null;
+        this.state = State.HEADER;
+    }
+
+    @Override
+    public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+        dataConsumer.updateCapacity(capacityChannel);
+    }
+
+    @Override
+    public void consume(final ByteBuffer src) throws IOException {
+        final int len = src.remaining();
+        if (len == 0) {
+            return;
+        }
+        if (src.hasArray()) {
+            final int off = src.arrayOffset() + src.position();
+            src.position(src.limit());
+            process(src.array(), off, len);
+        } else {
+            if (inBuf == null || inBuf.length < len) {
+                inBuf = new byte[Math.max(len, 4096)];
+            }
+            src.get(inBuf, 0, len);
+            process(inBuf, 0, len);
+        }
+    }
+
+    private void process(final byte[] b, final int off, final int len) throws IOException {
+        byte[] buf = b;
+        int pos = off;
+        int remaining = len;
+        while (remaining > 0) {
+            switch (state) {
+                case HEADER:
+                    pending.append(buf, pos, remaining);
+                    if (gzip && inflater != null && !isGzipMagic(pending.array(), pending.length())) {
+                        // trailing garbage after a gzip member gets ignored as by GZIPInputStream
+                        pending.clear();
+                        state = State.DONE;
+                        return;
+                    }
+                    final int headerLen = gzip
+                            ? parseGzipHeader(pending.array(), pending.length())
+                            : parseDeflateHeader(pending.array(), pending.length());
+                    if (headerLen < 0) {
+                        return;
+                    }
+                    buf = pending.toByteArray();
+                    pos = headerLen;
+                    remaining = buf.length - headerLen;
+                    pending.clear();
+                    state = State.DATA;
+                    break;
+                case DATA:
+                    final int unused = inflate(buf, pos, remaining);
+                    pos += remaining - unused;
+                    remaining = unused;
+                    if (inflater.finished()) {
+                        state = gzip ? State.TRAILER : State.DONE;
+                    }
+                    break;
+                case TRAILER:
+                    final int chunk = Math.min(GZIP_TRAILER_LEN - pending.length(), remaining);
+                    pending.append(buf, pos, chunk);
+                    pos += chunk;
+                    remaining -= chunk;
+                    if (pending.length() == GZIP_TRAILER_LEN) {
+                        verifyGzipTrailer(pending.array());
+                        pending.clear();
+                        // more data may follow as another gzip member
+                        state = State.HEADER;
+                    }
+                    break;
+                default:
+                    // discard anything past the end of the compressed stream
+                    return;
+            }
+        }
+    }
+
+    private int inflate(final byte[] b, final int off, final int len) throws IOException {
+        inflater.setInput(b, off, len);
+        try {
+            for (;;) {
+                final int n = inflater.inflate(outBuf);
+                if (n > 0) {
+                    if (crc != null) {
+                        crc.update(outBuf, 0, n);
+                    }
+                    dataConsumer.consume(ByteBuffer.wrap(outBuf, 0, n));
+                } else if (inflater.finished() || inflater.needsInput()) {
+                    return inflater.getRemaining();
+                } else if (inflater.needsDictionary()) {
+                    throw new ZipException("Preset dictionaries are not supported");
+                }
+            }
+        } catch (final DataFormatException ex) {
+            throw new ZipException(ex.getMessage() != null ? ex.getMessage() : "Invalid compressed data");
+        }
+    }
+
+    private int parseDeflateHeader(final byte[] b, final int len) {
+        if (len < 2) {
+            return -1;
+        }
+        final int cmf = b[0] & 0xff;
+        final int flg = b[1] & 0xff;
+        // zlib header: deflate compression method and a valid header checksum
+        final boolean zlib = (cmf & 0x0f) == 8 && ((cmf << 8) | flg) % 31 == 0;
+        inflaterPool = InflaterPool.getInstance(!zlib);
+        inflater = inflaterPool.acquire();
+        return 0;
+    }
+
+    private int parseGzipHeader(final byte[] b, final int len) throws IOException {
+        if (len < GZIP_HEADER_LEN) {
+            return -1;
+        }
+        if (!isGzipMagic(b, len)) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (b[2] != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flg = b[3] & 0xff;
+        int pos = GZIP_HEADER_LEN;
+        if ((flg & FEXTRA) != 0) {
+            if (len < pos + 2) {
+                return -1;
+            }
+            pos += 2 + ((b[pos] & 0xff) | ((b[pos + 1] & 0xff) << 8));
+            if (len < pos) {
+                return -1;
+            }
+        }
+        if ((flg & FNAME) != 0) {
+            pos = skipZeroTerminated(b, pos, len);
+            if (pos < 0) {
+                return -1;
+            }
+        }
+        if ((flg & FCOMMENT) != 0) {
+            pos = skipZeroTerminated(b, pos, len);
+            if (pos < 0) {
+                return -1;
+            }
+        }
+        if ((flg & FHCRC) != 0) {
+            pos += 2;
+            if (len < pos) {
+                return -1;
+            }
+        }
+        if (inflater == null) {
+            inflaterPool = InflaterPool.getInstance(true);
+            inflater = inflaterPool.acquire();
+        } else {
+            inflater.reset();
+        }
+        crc.reset();
+        return pos;
+    }
+
+    private static boolean isGzipMagic(final byte[] b, final int len) {
+        return (len < 1 || (b[0] & 0xff) == 0x1f) && (len < 2 || (b[1] & 0xff) == 0x8b);
+    }
+
+    private static int skipZeroTerminated(final byte[] b, final int off, final int len) {
+        for (int i = off; i < len; i++) {
+            if (b[i] == 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private void verifyGzipTrailer(final byte[] b) throws IOException {
+        final long expectedCrc = readUInt(b, 0);
+        final long expectedSize = readUInt(b, 4);
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+        if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    private static long readUInt(final byte[] b, final int off) {
+        return (b[off] & 0xffL)
+                | ((b[off + 1] & 0xffL) << 8)
+                | ((b[off + 2] & 0xffL) << 16)
+                | ((b[off + 3] & 0xffL) << 24);
+    }
+
+    State getState() {
+        return state;
+    }
+
+    @Override
+    public void streamEnd(final List<? extends Header> trailers) throws HttpException, IOException {
+        final boolean complete;
+        switch (state) {
+            case HEADER:
+                // empty content or end of the last gzip member
+                complete = pending.isEmpty();
+                break;
+            case DONE:
+                complete = true;
+                break;
+            default:
+                complete = false;
+        }
+        if (!complete) {
+            throw new EOFException("Unexpected end of compressed content");
+        }
+        dataConsumer.streamEnd(trailers);
+    }
+
+    @Override
+    public void releaseResources() {
+        if (inflater != null) {
+            inflaterPool.release(inflater);
+            inflater = null;
+        }
+        dataConsumer.releaseResources();
+    }
+
+}
@@ -0,0 +1,220 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.util.Args;
+
+/**
+ *  Immutable class encapsulating request content compression options.
+ *  <p>
+ *  Request content gets compressed if it has no content coding of its own,
+ *  its content type matches one of the {@link #getContentTypes() content types}
+ *  and its length is unknown or equal to or greater than
+ *  the {@link #getMinimumSize() minimum size}.
+ *  </p>
+ *
+ *  @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE)
+public class RequestCompressionConfig implements Cloneable {
+
+    public static final String DEFAULT_CONTENT_CODING = "gzip";
+
+    public static final long DEFAULT_MINIMUM_SIZE = 1024;
+
+    public static final Collection<String> DEFAULT_CONTENT_TYPES = Collections.unmodifiableList(Arrays.asList(
+            "text/*",
+            "application/json",
+            "application/x-ndjson",
+            "application/xml",
+            "application/javascript",
+            "application/x-www-form-urlencoded"));
+
+    public static final RequestCompressionConfig DEFAULT = new Builder().build();
+
+    private final String contentCoding;
+    private final long minimumSize;
+    private final Set<String> contentTypes;
+
+    /**
+     * Intended for CDI compatibility
+    */
+    protected RequestCompressionConfig() {
+        this(DEFAULT_CONTENT_CODING, DEFAULT_MINIMUM_SIZE, DEFAULT_CONTENT_TYPES);
+    }
+
+    RequestCompressionConfig(
+            final String contentCoding,
+            final long minimumSize,
+            final Collection<String> contentTypes) {
+        super();
+        this.contentCoding = contentCoding;
+        this.minimumSize = minimumSize;
+        final Set<String> mimeTypes = new LinkedHashSet<>();
+        for (final String contentType : contentTypes) {
+            mimeTypes.add(contentType.trim().toLowerCase(Locale.ROOT));
+        }
+        this.contentTypes = Collections.unmodifiableSet(mimeTypes);
+    }
+
+    /**
+     * Returns the content coding used to compress request content.
+     * <p>
+     * Default: {@code gzip}
+     * </p>
+     */
+    public String getContentCoding() {
+        return contentCoding;
+    }
+
+    /**
+     * Returns the minimum length of request content of known length
+     * in bytes that gets compressed. Smaller content is sent as is,
+     * as it would barely shrink. Content of unknown length is always
+     * compressed.
+     * <p>
+     * Default: {@code 1024}
+     * </p>
+     */
+    public long getMinimumSize() {
+        return minimumSize;
+    }
+
+    /**
+     * Returns MIME types of request content that gets compressed.
+     * A type of {@code text/*} matches any {@code text} subtype.
+     * <p>
+     * Default: {@link #DEFAULT_CONTENT_TYPES}
+     * </p>
+     */
+    public Set<String> getContentTypes() {
+        return contentTypes;
+    }
+
+    /**
+     * Determines whether the given request content ought to be compressed.
+     */
+    public boolean isCompressible(final EntityDetails entityDetails) {
+        if (entityDetails == null || entityDetails.getContentEncoding() != null) {
+            return false;
+        }
+        final long len = entityDetails.getContentLength();
+        if (len >= 0 && len < minimumSize) {
+            return false;
+        }
+        final String contentType = entityDetails.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        final int i = contentType.indexOf(';');
+        final String mimeType = (i >= 0 ? contentType.substring(0, i) : contentType).trim().toLowerCase(Locale.ROOT);
+        if (contentTypes.contains(mimeType)) {
+            return true;
+        }
+        final int slash = mimeType.indexOf('/');
+        return slash > 0 && contentTypes.contains(mimeType.substring(0, slash) + "/*");
+    }
+
+    @Override
+    protected RequestCompressionConfig clone() throws CloneNotSupportedException {
+        return (RequestCompressionConfig) super.clone();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("[");
+        builder.append("contentCoding=").append(contentCoding);
+        builder.append(", minimumSize=").append(minimumSize);
+        builder.append(", contentTypes=").append(contentTypes);
+        builder.append("]");
+        return builder.toString();
+    }
+
+    public static RequestCompressionConfig.Builder custom() {
+        return new Builder();
+    }
+
+    public static RequestCompressionConfig.Builder copy(final RequestCompressionConfig config) {
+        return new Builder()
+                .setContentCoding(config.getContentCoding())
+                .setMinimumSize(config.getMinimumSize())
+                .setContentTypes(config.getContentTypes());
+    }
+
+    public static class Builder {
+
+        private String contentCoding;
+        private long minimumSize;
+        private Collection<String> contentTypes;
+
+        Builder() {
+            super();
+            this.contentCoding = DEFAULT_CONTENT_CODING;
+            this.minimumSize = DEFAULT_MINIMUM_SIZE;
+            this.contentTypes = DEFAULT_CONTENT_TYPES;
+        }
+
+        public Builder setContentCoding(final String contentCoding) {
+            this.contentCoding = Args.notBlank(contentCoding, "Content coding").toLowerCase(Locale.ROOT);
+            return this;
+        }
+
+        public Builder setMinimumSize(final long minimumSize) {
+            this.minimumSize = Args.notNegative(minimumSize, "Minimum size");
+            return this;
+        }
+
+        public Builder setContentTypes(final Collection<String> contentTypes) {
+            this.contentTypes = Args.notNull(contentTypes, "Content types");
+            return this;
+        }
+
+        public Builder setContentTypes(final String... contentTypes) {
+            return setContentTypes(Arrays.asList(contentTypes));
+        }
+
+        public RequestCompressionConfig build() {
+            return new RequestCompressionConfig(
+                    contentCoding,
+                    minimumSize,
+                    contentTypes);
+        }
+
+    }
+
+}
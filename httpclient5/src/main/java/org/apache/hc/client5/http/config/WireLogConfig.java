@@ -0,0 +1,242 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.config;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ *  Immutable class encapsulating wire logging options.
+ *  <p>
+ *  Wire logging is only ever performed if the {@code org.apache.hc.client5.http.wire}
+ *  logger is enabled at the {@code DEBUG} level. This configuration further narrows
+ *  it down to connections to particular {@link #getHosts() hosts} and to a
+ *  {@link #getSampleInterval() sample} of those connections. Connections that are
+ *  not selected are not instrumented at all. The amount of data logged per
+ *  connection can be capped with {@link #getMaxBytes()}.
+ *  </p>
+ *
+ *  @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.IMMUTABLE)
+public class WireLogConfig implements Cloneable {
+
+    public enum Format {
+
+        /**
+         * Printable ASCII characters are logged as is, line by line,
+         * other bytes as escaped hex values.
+         */
+        ESCAPED,
+
+        /**
+         * Hex dump of 16 bytes per line.
+         */
+        HEX
+
+    }
+
+    public static final WireLogConfig DEFAULT = new Builder().build();
+
+    private final Set<String> hosts;
+    private final int sampleInterval;
+    private final Format format;
+    private final long maxBytes;
+
+    /**
+     * Intended for CDI compatibility
+    */
+    protected WireLogConfig() {
+        this(Collections.<String>emptySet(), 1, Format.ESCAPED, -1);
+    }
+
+    WireLogConfig(
+            final Collection<String> hosts,
+            final int sampleInterval,
+            final Format format,
+            final long maxBytes) {
+        super();
+        final Set<String> hostNames = new LinkedHashSet<>();
+        for (final String host : hosts) {
+            hostNames.add(host.trim().toLowerCase(Locale.ROOT));
+        }
+        this.hosts = Collections.unmodifiableSet(hostNames);
+        this.sampleInterval = sampleInterval;
+        this.format = format;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns host names or IP addresses of the opposite endpoints whose
+     * connections get logged. An empty set means connections to any host.
+     * <p>
+     * Default: empty set
+     * </p>
+     */
+    public Set<String> getHosts() {
+        return hosts;
+    }
+
+    /**
+     * Returns the sample interval: only every n-th connection gets logged.
+     * <p>
+     * Default: {@code 1} (every connection)
+     * </p>
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Returns the format of logged data.
+     * <p>
+     * Default: {@link Format#ESCAPED}
+     * </p>
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the maximum number of bytes logged per connection in each
+     * direction. A negative value means no limit.
+     * <p>
+     * Default: {@code -1}
+     * </p>
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Determines whether the connection with the given id and opposite endpoint
+     * ought to be logged. Connections are sampled by their id, so the decision
+     * is stable for the lifetime of a connection.
+     *
+     * @param connectionId the connection id.
+     * @param hostName the host name of the opposite endpoint, if known.
+     * @param address the IP address of the opposite endpoint, if known.
+     */
+    public boolean isSelected(final String connectionId, final String hostName, final String address) {
+        if (!hosts.isEmpty()) {
+            final boolean matches = (hostName != null && hosts.contains(hostName.toLowerCase(Locale.ROOT)))
+                    || (address != null && hosts.contains(address));
+            if (!matches) {
+                return false;
+            }
+        }
+        return sampleInterval <= 1
+                || connectionId != null && (connectionId.hashCode() & 0x7fffffff) % sampleInterval == 0;
+    }
+
+    @Override
+    protected WireLogConfig clone() throws CloneNotSupportedException {
+        return (WireLogConfig) super.clone();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("[");
+        builder.append("hosts=").append(hosts);
+        builder.append(", sampleInterval=").append(sampleInterval);
+        builder.append(", format=").append(format);
+        builder.append(", maxBytes=").append(maxBytes);
+        builder.append("]");
+        return builder.toString();
+    }
+
+    public static WireLogConfig.Builder custom() {
+        return new Builder();
+    }
+
+    public static WireLogConfig.Builder copy(final WireLogConfig config) {
+        return new Builder()
+                .setHosts(config.getHosts())
+                .setSampleInterval(config.getSampleInterval())
+                .setFormat(config.getFormat())
+                .setMaxBytes(config.getMaxBytes());
+    }
+
+    public static class Builder {
+
+        private Collection<String> hosts;
+        private int sampleInterval;
+        private Format format;
+        private long maxBytes;
+
+        Builder() {
+            super();
+            this.hosts = Collections.emptySet();
+            this.sampleInterval = 1;
+            this.format = Format.ESCAPED;
+            this.maxBytes = -1;
+        }
+
+        public Builder setHosts(final Collection<String> hosts) {
+            this.hosts = Args.notNull(hosts, "Hosts");
+            return this;
+        }
+
+        public Builder setHosts(final String... hosts) {
+            return setHosts(Arrays.asList(hosts));
+        }
+
+        public Builder setSampleInterval(final int sampleInterval) {
+            this.sampleInterval = Args.positive(sampleInterval, "Sample interval");
+            return this;
+        }
+
+        public Builder setFormat(final Format format) {
+            this.format = format != null ? format : Format.ESCAPED;
+            return this;
+        }
+
+        public Builder setMaxBytes(final long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        public WireLogConfig build() {
+            return new WireLogConfig(
+                    hosts,
+                    sampleInterval,
+                    format,
+                    maxBytes);
+        }
+
+    }
+
+}
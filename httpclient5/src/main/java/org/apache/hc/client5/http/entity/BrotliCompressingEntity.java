@@ -0,0 +1,102 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Wrapping entity that compresses content with Brotli when {@link #writeTo writing}.
+ * <p>
+ * This entity requires {@code com.aayushatharva.brotli4j:brotli4j} on the classpath.
+ * The library is not a dependency of HttpClient; use {@link #isAvailable()}
+ * to find out whether it can be used.
+ * </p>
+ *
+ * @since 5.0
+ */
+public class BrotliCompressingEntity extends HttpEntityWrapper {
+
+    private static final String BR_CODEC = "br";
+
+    private static final Constructor<?> ENCODER = OptionalCodecs.invokeStaticCheck(
+            "com.aayushatharva.brotli4j.Brotli4jLoader", "isAvailable")
+            ? OptionalCodecs.findConstructor("com.aayushatharva.brotli4j.encoder.BrotliOutputStream", OutputStream.class)
+            : null;
+
+    /**
+     * Determines whether a Brotli encoder is available on the classpath.
+     */
+    public static boolean isAvailable() {
+        return ENCODER != null;
+    }
+
+    public BrotliCompressingEntity(final HttpEntity entity) {
+        super(entity);
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return BR_CODEC;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        // force content chunking
+        return true;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void writeTo(final OutputStream outStream) throws IOException {
+        Args.notNull(outStream, "Output stream");
+        if (ENCODER == null) {
+            throw new IllegalStateException("Brotli encoder is not available");
+        }
+        final OutputStream compressed = OptionalCodecs.newInstance(ENCODER, OutputStream.class, outStream);
+        super.writeTo(compressed);
+        // Only close output stream if the wrapped entity has been
+        // successfully written out
+        compressed.close();
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+
+/**
+ * {@link InputStreamFactory} for handling Brotli Content Coded responses.
+ * <p>
+ * This factory requires a Brotli decoder on the classpath: either
+ * {@code org.brotli:dec} or {@code com.aayushatharva.brotli4j:brotli4j}.
+ * Neither library is a dependency of HttpClient; use {@link #isAvailable()}
+ * to find out whether one of them can be used.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+public class BrotliInputStreamFactory implements InputStreamFactory {
+
+    private static final Constructor<?> DECODER = findDecoder();
+
+    private static Constructor<?> findDecoder() {
+        final Constructor<?> constructor = OptionalCodecs.findConstructor(
+                "org.brotli.dec.BrotliInputStream", InputStream.class);
+        if (constructor != null) {
+            return constructor;
+        }
+        if (OptionalCodecs.invokeStaticCheck("com.aayushatharva.brotli4j.Brotli4jLoader", "isAvailable")) {
+            return OptionalCodecs.findConstructor(
+                    "com.aayushatharva.brotli4j.decoder.BrotliInputStream", InputStream.class);
+        }
+        return null;
+    }
+
+    /**
+     * Singleton instance.
+     */
+    private static final BrotliInputStreamFactory INSTANCE = new BrotliInputStreamFactory();
+
+    /**
+     * Gets the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    public static BrotliInputStreamFactory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Determines whether a Brotli decoder is available on the classpath.
+     */
+    public static boolean isAvailable() {
+        return DECODER != null;
+    }
+
+    @Override
+    public InputStream create(final InputStream inputStream) throws IOException {
+        if (DECODER == null) {
+            throw new IllegalStateException("Brotli decoder is not available");
+        }
+        return OptionalCodecs.newInstance(DECODER, InputStream.class, inputStream);
+    }
+
+}
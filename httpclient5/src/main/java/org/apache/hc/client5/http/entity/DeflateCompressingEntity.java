@@ -0,0 +1,94 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Wrapping entity that compresses content in the zlib format
+ * ({@code deflate} content coding) when {@link #writeTo writing}.
+ * <p>
+ * Deflaters are borrowed from the shared {@link DeflaterPool}.
+ * </p>
+ *
+ * @since 5.0
+ */
+public class DeflateCompressingEntity extends HttpEntityWrapper {
+
+    private static final String DEFLATE_CODEC = "deflate";
+
+    public DeflateCompressingEntity(final HttpEntity entity) {
+        super(entity);
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return DEFLATE_CODEC;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked() {
+        // force content chunking
+        return true;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void writeTo(final OutputStream outStream) throws IOException {
+        Args.notNull(outStream, "Output stream");
+        final DeflaterPool pool = DeflaterPool.getInstance(false);
+        final Deflater deflater = pool.acquire();
+        try {
+            final DeflaterOutputStream deflate = new DeflaterOutputStream(outStream, deflater, 512);
+            super.writeTo(deflate);
+            deflate.finish();
+            // Only close output stream if the wrapped entity has been
+            // successfully written out
+            outStream.close();
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+}
@@ -29,7 +29,6 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
-import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipException;
 
@@ -61,7 +60,7 @@ public DeflateInputStream(final InputStream wrapped) throws IOException {
         if (compressionMethod == 8 && compressionInfo <= 7 && ((b1 << 8) | b2) % 31 == 0) {
             nowrap = false;
         }
-        sourceStream = new DeflateStream(pushback, new Inflater(nowrap));
+        sourceStream = new DeflateStream(pushback, InflaterPool.getInstance(nowrap));
     }
 
     /**
@@ -138,10 +137,12 @@ public void close() throws IOException {
 
     static class DeflateStream extends InflaterInputStream {
 
+        private final InflaterPool pool;
         private boolean closed = false;
 
-        public DeflateStream(final InputStream in, final Inflater inflater) {
-            super(in, inflater);
+        public DeflateStream(final InputStream in, final InflaterPool pool) {
+            super(in, pool.acquire());
+            this.pool = pool;
         }
 
         @Override
@@ -150,8 +151,11 @@ public void close() throws IOException {
                 return;
             }
             closed = true;
-            inf.end();
-            super.close();
+            try {
+                super.close();
+            } finally {
+                pool.release(inf);
+            }
         }
 
     }
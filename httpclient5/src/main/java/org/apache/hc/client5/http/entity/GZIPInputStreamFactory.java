@@ -29,13 +29,16 @@
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
 
 /**
  * {@link InputStreamFactory} for handling GZIPContent Coded responses.
+ * <p>
+ * Inflaters are borrowed from the shared {@link InflaterPool} and returned
+ * to the pool when the stream is closed.
+ * </p>
  *
  * @since 5.0
  */
@@ -58,7 +61,7 @@ public static GZIPInputStreamFactory getInstance() {
 
     @Override
     public InputStream create(final InputStream inputStream) throws IOException {
-        return new GZIPInputStream(inputStream);
+        return new PooledGZIPInputStream(inputStream, InflaterPool.getInstance(true));
     }
 
 }
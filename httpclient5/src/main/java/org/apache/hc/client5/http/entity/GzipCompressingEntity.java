@@ -29,7 +29,10 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
@@ -37,7 +40,9 @@
 
 /**
  * Wrapping entity that compresses content when {@link #writeTo writing}.
- *
+ * <p>
+ * Deflaters are borrowed from the shared {@link DeflaterPool}.
+ * </p>
  *
  * @since 4.0
  */
@@ -45,6 +50,14 @@ public class GzipCompressingEntity extends HttpEntityWrapper {
 
     private static final String GZIP_CODEC = "gzip";
 
+    /*
+     * GZIP member header: magic, deflate compression method, no flags,
+     * no modification time, no extra flags, unknown OS
+     */
+    private static final byte[] GZIP_HEADER = new byte[] {
+            (byte) 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
     public GzipCompressingEntity(final HttpEntity entity) {
         super(entity);
     }
@@ -73,11 +86,36 @@ public InputStream getContent() throws IOException {
     @Override
     public void writeTo(final OutputStream outStream) throws IOException {
         Args.notNull(outStream, "Output stream");
-        final GZIPOutputStream gzip = new GZIPOutputStream(outStream);
-        super.writeTo(gzip);
-        // Only close output stream if the wrapped entity has been
-        // successfully written out
-        gzip.close();
+        final DeflaterPool pool = DeflaterPool.getInstance(true);
+        final Deflater deflater = pool.acquire();
+        try {
+            outStream.write(GZIP_HEADER);
+            final CRC32 crc = new CRC32();
+            final DeflaterOutputStream deflate = new DeflaterOutputStream(outStream, deflater, 512);
+            super.writeTo(new CheckedOutputStream(deflate, crc));
+            deflate.finish();
+            writeTrailer(outStream, crc.getValue(), deflater.getBytesRead());
+            // Only close output stream if the wrapped entity has been
+            // successfully written out
+            outStream.close();
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    private static void writeTrailer(final OutputStream outStream, final long crc, final long size) throws IOException {
+        final byte[] trailer = new byte[8];
+        writeInt(trailer, 0, crc);
+        // rfc1952; ISIZE is the input size modulo 2^32
+        writeInt(trailer, 4, size);
+        outStream.write(trailer);
+    }
+
+    private static void writeInt(final byte[] b, final int off, final long i) {
+        b[off] = (byte) (i & 0xff);
+        b[off + 1] = (byte) ((i >> 8) & 0xff);
+        b[off + 2] = (byte) ((i >> 16) & 0xff);
+        b[off + 3] = (byte) ((i >> 24) & 0xff);
     }
 
 }
@@ -0,0 +1,136 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Inflater;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Bounded pool of reusable {@link Inflater} instances.
+ * <p>
+ * Each {@link Inflater} holds native zlib memory that is only released
+ * by {@link Inflater#end()}. Reusing instances across messages avoids
+ * repeated allocation and initialization of zlib streams. Instances are
+ * reset when returned to the pool; instances in excess of the maximum
+ * number of idle instances are ended.
+ * </p>
+ * <p>
+ * The same {@link Inflater} must not be released more than once and
+ * must not be used after it has been released.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class InflaterPool {
+
+    private static final int DEFAULT_MAX_IDLE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final InflaterPool ZLIB = new InflaterPool(false, DEFAULT_MAX_IDLE);
+    private static final InflaterPool RAW = new InflaterPool(true, DEFAULT_MAX_IDLE);
+
+    /**
+     * Returns the shared pool of inflaters of the given format.
+     *
+     * @param nowrap if {@code true} the inflaters expect raw deflate data,
+     *               as used by the {@code gzip} format.
+     */
+    public static InflaterPool getInstance(final boolean nowrap) {
+        return nowrap ? RAW : ZLIB;
+    }
+
+    private final boolean nowrap;
+    private final BlockingQueue<Inflater> idle;
+    private final AtomicLong createdCount;
+
+    /**
+     * @param nowrap if {@code true} the pooled instances use the raw deflate format.
+     * @param maxIdle the maximum number of idle instances kept by the pool.
+     */
+    public InflaterPool(final boolean nowrap, final int maxIdle) {
+        super();
+        this.nowrap = nowrap;
+        this.idle = new ArrayBlockingQueue<>(Args.positive(maxIdle, "Max idle"));
+        this.createdCount = new AtomicLong();
+    }
+
+    /**
+     * Obtains an idle instance from the pool or creates a new one.
+     */
+    public Inflater acquire() {
+        final Inflater inflater = idle.poll();
+        if (inflater != null) {
+            return inflater;
+        }
+        createdCount.incrementAndGet();
+        return new Inflater(nowrap);
+    }
+
+    /**
+     * Resets the given instance and returns it to the pool.
+     */
+    public void release(final Inflater inflater) {
+        if (inflater == null) {
+            return;
+        }
+        try {
+            inflater.reset();
+        } catch (final RuntimeException ex) {
+            // already ended
+            return;
+        }
+        if (!idle.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Returns the number of idle instances.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of instances created by this pool.
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "[nowrap: " + nowrap + "; idle: " + idle.size() + "; created: " + createdCount.get() + "]";
+    }
+
+}
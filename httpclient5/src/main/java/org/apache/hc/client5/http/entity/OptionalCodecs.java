@@ -0,0 +1,93 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Binds to optional third party codec libraries at runtime so that
+ * they are not required at compile time.
+ */
+final class OptionalCodecs {
+
+    private OptionalCodecs() {
+    }
+
+    private static Class<?> loadClass(final String className) throws ClassNotFoundException {
+        return Class.forName(className, true, OptionalCodecs.class.getClassLoader());
+    }
+
+    /**
+     * Returns the public constructor of the given class taking a single
+     * argument of the given type or {@code null} if not available.
+     */
+    static Constructor<?> findConstructor(final String className, final Class<?> argType) {
+        try {
+            return loadClass(className).getConstructor(argType);
+        } catch (final ClassNotFoundException | NoSuchMethodException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Invokes the given public static method taking no arguments that returns
+     * a boolean. Returns {@code false} if the method is not available or fails.
+     */
+    static boolean invokeStaticCheck(final String className, final String methodName) {
+        try {
+            final Method method = loadClass(className).getMethod(methodName);
+            return Boolean.TRUE.equals(method.invoke(null));
+        } catch (final ReflectiveOperationException | LinkageError | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    static <T> T newInstance(
+            final Constructor<?> constructor, final Class<T> type, final Object arg) throws IOException {
+        try {
+            return type.cast(constructor.newInstance(arg));
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        } catch (final InstantiationException | IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+}
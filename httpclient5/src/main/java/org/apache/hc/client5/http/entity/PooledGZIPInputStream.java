@@ -0,0 +1,266 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Input stream that decodes content in the {@code gzip} format as defined
+ * by RFC 1952 with an {@link Inflater} borrowed from an {@link InflaterPool}.
+ * The inflater is returned to the pool when the stream is closed.
+ * <p>
+ * Concatenated gzip members are decoded one after the other. The checksum
+ * and size of each member are verified. Data following the last member
+ * that does not start another member is ignored.
+ * </p>
+ */
+class PooledGZIPInputStream extends InputStream {
+
+    private static final int ID1 = 0x1f;
+    private static final int ID2 = 0x8b;
+    private static final int CM_DEFLATE = 8;
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final InputStream in;
+    private final InflaterPool pool;
+    private final Inflater inflater;
+    private final CRC32 crc;
+    private final byte[] buf;
+
+    // buffered input not yet passed to the inflater
+    private int pos;
+    private int lim;
+
+    private boolean eos;
+    private boolean closed;
+
+    PooledGZIPInputStream(final InputStream in, final InflaterPool pool) throws IOException {
+        super();
+        this.in = in;
+        this.pool = pool;
+        this.inflater = pool.acquire();
+        this.crc = new CRC32();
+        this.buf = new byte[512];
+        try {
+            readHeader(true);
+        } catch (final IOException | RuntimeException ex) {
+            pool.release(inflater);
+            throw ex;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        final byte[] b = new byte[1];
+        return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (eos) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        for (;;) {
+            final int n;
+            try {
+                n = inflater.inflate(b, off, len);
+            } catch (final DataFormatException ex) {
+                throw new ZipException(ex.getMessage() != null ? ex.getMessage() : "Invalid compressed data");
+            }
+            if (n > 0) {
+                crc.update(b, off, n);
+                return n;
+            }
+            if (inflater.finished()) {
+                // give back input the inflater did not consume
+                pos = lim - inflater.getRemaining();
+                readTrailer();
+                if (!readHeader(false)) {
+                    eos = true;
+                    return -1;
+                }
+            } else if (inflater.needsDictionary()) {
+                throw new ZipException("Preset dictionaries are not supported");
+            } else if (inflater.needsInput()) {
+                if (pos == lim && !fill()) {
+                    throw new EOFException("Unexpected end of compressed content");
+                }
+                inflater.setInput(buf, pos, lim - pos);
+                pos = lim;
+            }
+        }
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return eos ? 0 : 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            eos = true;
+            try {
+                in.close();
+            } finally {
+                pool.release(inflater);
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buf, 0, buf.length);
+        } while (n == 0);
+        if (n == -1) {
+            return false;
+        }
+        pos = 0;
+        lim = n;
+        return true;
+    }
+
+    private int nextByte() throws IOException {
+        if (pos == lim && !fill()) {
+            return -1;
+        }
+        return buf[pos++] & 0xff;
+    }
+
+    private int requireByte() throws IOException {
+        final int b = nextByte();
+        if (b == -1) {
+            throw new EOFException("Unexpected end of compressed content");
+        }
+        return b;
+    }
+
+    private int headerByte() throws IOException {
+        final int b = requireByte();
+        crc.update(b);
+        return b;
+    }
+
+    /**
+     * Reads the header of a gzip member and prepares the inflater for its
+     * compressed data. Returns {@code false} if there is no further member,
+     * which is an error for the first one.
+     */
+    private boolean readHeader(final boolean first) throws IOException {
+        crc.reset();
+        final int id1 = first ? headerByte() : nextByte();
+        final int id2 = id1 == ID1 ? (first ? headerByte() : nextByte()) : -1;
+        if (id1 != ID1 || id2 != ID2) {
+            if (first) {
+                throw new ZipException("Not in GZIP format");
+            }
+            return false;
+        }
+        if (!first) {
+            crc.update(id1);
+            crc.update(id2);
+        }
+        if (headerByte() != CM_DEFLATE) {
+            throw new ZipException("Unsupported compression method");
+        }
+        final int flg = headerByte();
+        // MTIME, XFL and OS
+        for (int i = 0; i < 6; i++) {
+            headerByte();
+        }
+        if ((flg & FEXTRA) != 0) {
+            final int xlen = headerByte() | (headerByte() << 8);
+            for (int i = 0; i < xlen; i++) {
+                headerByte();
+            }
+        }
+        if ((flg & FNAME) != 0) {
+            while (headerByte() != 0) {
+            }
+        }
+        if ((flg & FCOMMENT) != 0) {
+            while (headerByte() != 0) {
+            }
+        }
+        if ((flg & FHCRC) != 0) {
+            // CRC16 is the low order half of the CRC32 of the preceding header bytes
+            final int expected = (int) crc.getValue() & 0xffff;
+            if ((requireByte() | (requireByte() << 8)) != expected) {
+                throw new ZipException("Corrupt GZIP header");
+            }
+        }
+        crc.reset();
+        inflater.reset();
+        return true;
+    }
+
+    private void readTrailer() throws IOException {
+        final long expectedCrc = readUInt();
+        final long expectedSize = readUInt();
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+        // ISIZE is the uncompressed size modulo 2^32
+        if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    private long readUInt() throws IOException {
+        return requireByte()
+                | ((long) requireByte() << 8)
+                | ((long) requireByte() << 16)
+                | ((long) requireByte() << 24);
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+
+/**
+ * {@link InputStreamFactory} for handling Zstandard Content Coded responses.
+ * <p>
+ * This factory requires {@code com.github.luben:zstd-jni} on the classpath.
+ * The library is not a dependency of HttpClient; use {@link #isAvailable()}
+ * to find out whether it can be used.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+public class ZstdInputStreamFactory implements InputStreamFactory {
+
+    private static final Constructor<?> DECODER = OptionalCodecs.findConstructor(
+            "com.github.luben.zstd.ZstdInputStream", InputStream.class);
+
+    /**
+     * Singleton instance.
+     */
+    private static final ZstdInputStreamFactory INSTANCE = new ZstdInputStreamFactory();
+
+    /**
+     * Gets the singleton instance.
+     *
+     * @return the singleton instance.
+     */
+    public static ZstdInputStreamFactory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Determines whether a Zstandard decoder is available on the classpath.
+     */
+    public static boolean isAvailable() {
+        return DECODER != null;
+    }
+
+    @Override
+    public InputStream create(final InputStream inputStream) throws IOException {
+        if (DECODER == null) {
+            throw new IllegalStateException("Zstandard decoder is not available");
+        }
+        return OptionalCodecs.newInstance(DECODER, InputStream.class, inputStream);
+    }
+
+}
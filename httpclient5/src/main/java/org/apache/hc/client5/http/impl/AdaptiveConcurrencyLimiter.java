@@ -0,0 +1,264 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Experimental;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * <p>The {@code AdaptiveConcurrencyLimiter} continuously tunes the maximum
+ * number of connections per route of a {@link ConnPoolControl} based on
+ * observed round-trip times and errors, so that routes to healthy backends
+ * get more connections while routes to degraded backends are throttled.</p>
+ *
+ * <p>The limit of a route follows a gradient between the long-term average
+ * round-trip time and the most recent one: as long as the latter does not
+ * exceed the former by more than the configured tolerance, the limit grows
+ * by roughly the square root of its current value; once queuing on the
+ * backend increases the round-trip time, the limit shrinks proportionally.
+ * Errors such as response timeouts and 503 responses cause a multiplicative
+ * decrease. The limit is never grown while less than half of it is in use.</p>
+ *
+ * <p>Round-trip times should be measured on established connections so
+ * that time spent waiting for a connection lease does not feed back into
+ * the limit. For this reason the request execution handlers reporting to
+ * the limiter run after the connection has been established and do not
+ * observe failures to connect.</p>
+ *
+ * <p>The limiter can be used with clients built by
+ * {@link org.apache.hc.client5.http.impl.classic.HttpClientBuilder} and
+ * {@link org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder}.
+ * It is not supported by
+ * {@link org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder},
+ * as HTTP/2 clients multiplex requests over a single connection per route
+ * instead of maintaining a per route connection limit.</p>
+ *
+ * @see org.apache.hc.client5.http.impl.classic.AdaptiveConcurrencyExec
+ * @see org.apache.hc.client5.http.impl.async.AsyncAdaptiveConcurrencyExec
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+@Experimental
+public class AdaptiveConcurrencyLimiter {
+
+    // number of samples the long-term round-trip time is averaged over
+    private static final int LONG_WINDOW = 600;
+
+    private final ConnPoolControl<HttpRoute> connPoolControl;
+    private final ConcurrentMap<HttpRoute, RouteLimit> routeLimits;
+
+    private volatile int minLimit = 1;
+    private volatile int maxLimit = 100;
+    private volatile double rttTolerance = 1.5;
+    private volatile double smoothing = 0.2;
+    private volatile double backoffRatio = 0.9;
+
+    /**
+     * Creates an {@code AdaptiveConcurrencyLimiter} to manage
+     * per route connection pool sizes represented by the
+     * given {@link ConnPoolControl}.
+     *
+     * @param connPoolControl per route maximums to be managed.
+     */
+    public AdaptiveConcurrencyLimiter(final ConnPoolControl<HttpRoute> connPoolControl) {
+        super();
+        this.connPoolControl = Args.notNull(connPoolControl, "Connection pool control");
+        this.routeLimits = new ConcurrentHashMap<>();
+    }
+
+    private RouteLimit getRouteLimit(final HttpRoute route) {
+        RouteLimit routeLimit = routeLimits.get(route);
+        if (routeLimit == null) {
+            final RouteLimit newRouteLimit = new RouteLimit(connPoolControl.getMaxPerRoute(route));
+            routeLimit = routeLimits.putIfAbsent(route, newRouteLimit);
+            if (routeLimit == null) {
+                routeLimit = newRouteLimit;
+            }
+        }
+        return routeLimit;
+    }
+
+    /**
+     * Called when a request is about to be sent over an established connection.
+     */
+    public void requestStarted(final HttpRoute route) {
+        final RouteLimit routeLimit = getRouteLimit(route);
+        synchronized (routeLimit) {
+            routeLimit.inflight++;
+        }
+    }
+
+    /**
+     * Called when a response has been received for a request.
+     *
+     * @param rttNanos the time elapsed between sending the request and receiving the response head.
+     */
+    public void requestCompleted(final HttpRoute route, final long rttNanos) {
+        final RouteLimit routeLimit = getRouteLimit(route);
+        synchronized (routeLimit) {
+            final int inflight = routeLimit.inflight;
+            routeLimit.inflight = Math.max(0, inflight - 1);
+            if (rttNanos <= 0) {
+                return;
+            }
+            final double rtt = rttNanos;
+            if (routeLimit.longRtt == 0) {
+                routeLimit.longRtt = rtt;
+            } else {
+                routeLimit.longRtt += (rtt - routeLimit.longRtt) / LONG_WINDOW;
+                // let the baseline catch up quickly once a latency spike has ended
+                if (routeLimit.longRtt > 2 * rtt) {
+                    routeLimit.longRtt *= 0.95;
+                }
+            }
+            final double limit = routeLimit.limit;
+            final double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * routeLimit.longRtt / rtt));
+            final double newLimit = limit * (1 - smoothing) + (limit * gradient + Math.sqrt(limit)) * smoothing;
+            if (newLimit > limit && inflight < limit / 2) {
+                // the route is not making use of its current limit
+                return;
+            }
+            update(route, routeLimit, newLimit);
+        }
+    }
+
+    /**
+     * Called when a request failed in a way indicating the backend is overloaded,
+     * such as a response timeout or a 503 (Service Unavailable) response.
+     */
+    public void requestFailed(final HttpRoute route) {
+        final RouteLimit routeLimit = getRouteLimit(route);
+        synchronized (routeLimit) {
+            routeLimit.inflight = Math.max(0, routeLimit.inflight - 1);
+            update(route, routeLimit, routeLimit.limit * backoffRatio);
+        }
+    }
+
+    /**
+     * Called when a request was terminated without providing a meaningful sample,
+     * for instance when cancelled or failed due to a client side error.
+     */
+    public void requestIgnored(final HttpRoute route) {
+        final RouteLimit routeLimit = getRouteLimit(route);
+        synchronized (routeLimit) {
+            routeLimit.inflight = Math.max(0, routeLimit.inflight - 1);
+        }
+    }
+
+    private void update(final HttpRoute route, final RouteLimit routeLimit, final double limit) {
+        routeLimit.limit = Math.max(minLimit, Math.min(maxLimit, limit));
+        final int maxPerRoute = (int) routeLimit.limit;
+        if (maxPerRoute != routeLimit.maxPerRoute) {
+            routeLimit.maxPerRoute = maxPerRoute;
+            connPoolControl.setMaxPerRoute(route, maxPerRoute);
+        }
+    }
+
+    /**
+     * Returns the current limit of the given route.
+     */
+    public int getLimit(final HttpRoute route) {
+        final RouteLimit routeLimit = getRouteLimit(route);
+        synchronized (routeLimit) {
+            return routeLimit.maxPerRoute;
+        }
+    }
+
+    /**
+     * Sets the minimum per route limit. Defaults to 1.
+     *
+     * @param minLimit must be positive
+     */
+    public void setMinLimit(final int minLimit) {
+        Args.positive(minLimit, "Min limit");
+        this.minLimit = minLimit;
+    }
+
+    /**
+     * Sets the maximum per route limit to grow up to. Defaults to 100.
+     *
+     * @param maxLimit must be positive
+     */
+    public void setMaxLimit(final int maxLimit) {
+        Args.positive(maxLimit, "Max limit");
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * Sets the factor by which the round-trip time may exceed its long-term
+     * average before the limit starts shrinking. Defaults to 1.5.
+     *
+     * @param rttTolerance must be at least 1.0
+     */
+    public void setRttTolerance(final double rttTolerance) {
+        Args.check(rttTolerance >= 1.0, "RTT tolerance must be >= 1.0");
+        this.rttTolerance = rttTolerance;
+    }
+
+    /**
+     * Sets the weight of a new limit estimate relative to the current limit.
+     * Lower values lead to more stable but slower adjustments. Defaults to 0.2.
+     *
+     * @param smoothing must be between 0.0 exclusive and 1.0 inclusive
+     */
+    public void setSmoothing(final double smoothing) {
+        Args.check(smoothing > 0.0 && smoothing <= 1.0, "Smoothing must be 0.0 < f <= 1.0");
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Sets the factor the limit is multiplied by on failure. Defaults to 0.9.
+     *
+     * @param backoffRatio must be between 0.0 and 1.0, exclusive
+     */
+    public void setBackoffRatio(final double backoffRatio) {
+        Args.check(backoffRatio > 0.0 && backoffRatio < 1.0, "Backoff ratio must be 0.0 < f < 1.0");
+        this.backoffRatio = backoffRatio;
+    }
+
+    static final class RouteLimit {
+
+        double limit;
+        int maxPerRoute;
+        double longRtt;
+        int inflight;
+
+        RouteLimit(final int maxPerRoute) {
+            this.limit = maxPerRoute;
+            this.maxPerRoute = maxPerRoute;
+        }
+
+    }
+
+}
@@ -0,0 +1,393 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Experimental;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.HttpConnection;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Spreads connections to hosts with multiple addresses across those addresses
+ * and temporarily ejects addresses that repeatedly fail to accept connections.
+ * <p>
+ * Connection operators consult the balancer for the order in which resolved
+ * addresses are to be tried and report the outcome of each connection attempt.
+ * The first address in the returned order is the one selected by the
+ * {@link Policy}; the remaining healthy addresses follow as fallbacks and
+ * ejected addresses come last, so that connecting is still attempted should
+ * all addresses be ejected.
+ * </p>
+ * <p>
+ * An address is ejected after the configured number of consecutive connect
+ * failures. The ejection time is the base ejection time multiplied by the
+ * number of times the address has been ejected in a row, up to the maximum
+ * ejection time. A successful connection resets the failure history.
+ * </p>
+ * <p>
+ * The state kept for an address is discarded once the address has no open
+ * connections, is not ejected and has not been selected or reported on for
+ * longer than the maximum ejection time.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+@Experimental
+public class AddressLoadBalancer {
+
+    /**
+     * Address selection policy.
+     */
+    public enum Policy {
+
+        /** Rotates through the addresses of a host. */
+        ROUND_ROBIN,
+
+        /** Selects the address with the fewest open connections. */
+        LEAST_CONNECTIONS,
+
+        /** Selects the less loaded one of two randomly chosen addresses. */
+        POWER_OF_TWO_CHOICES
+
+    }
+
+    private final Policy policy;
+    private final ConcurrentMap<InetSocketAddress, AddressState> states;
+    private final ConcurrentMap<String, HostCounter> counters;
+    private final AtomicLong nextPruneTime;
+
+    private volatile int maxFailures = 3;
+    private volatile long baseEjectionTime = TimeValue.ofSeconds(30).toMillis();
+    private volatile long maxEjectionTime = TimeValue.ofMinutes(5).toMillis();
+
+    public AddressLoadBalancer(final Policy policy) {
+        super();
+        this.policy = Args.notNull(policy, "Policy");
+        this.states = new ConcurrentHashMap<>();
+        this.counters = new ConcurrentHashMap<>();
+        this.nextPruneTime = new AtomicLong();
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    private AddressState getState(final InetSocketAddress address) {
+        AddressState state = states.get(address);
+        if (state == null) {
+            final AddressState newState = new AddressState();
+            state = states.putIfAbsent(address, newState);
+            if (state == null) {
+                state = newState;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns the given addresses of the given host in the order in which
+     * connecting to them is to be attempted.
+     */
+    public InetAddress[] select(final String host, final InetAddress[] addresses, final int port) {
+        if (addresses == null || addresses.length < 2) {
+            return addresses;
+        }
+        final long now = now();
+        prune(now);
+        final List<Candidate> healthy = new ArrayList<>(addresses.length);
+        final List<Candidate> ejected = new ArrayList<>(addresses.length);
+        for (final InetAddress address : addresses) {
+            final AddressState state = getState(new InetSocketAddress(address, port));
+            final Candidate candidate;
+            synchronized (state) {
+                state.lastUsed = now;
+                candidate = new Candidate(address, state.getOpenConnections(), state.ejectedUntil);
+            }
+            if (candidate.ejectedUntil > now) {
+                ejected.add(candidate);
+            } else {
+                healthy.add(candidate);
+            }
+        }
+        final List<Candidate> ordered = new ArrayList<>(addresses.length);
+        if (!healthy.isEmpty()) {
+            switch (policy) {
+                case ROUND_ROBIN:
+                    Collections.rotate(healthy, -nextIndex(host, healthy.size(), now));
+                    break;
+                case LEAST_CONNECTIONS:
+                    // rotate first so that ties are spread evenly
+                    Collections.rotate(healthy, -nextIndex(host, healthy.size(), now));
+                    Collections.sort(healthy, new Comparator<Candidate>() {
+
+                        @Override
+                        public int compare(final Candidate c1, final Candidate c2) {
+                            return c1.openConnections < c2.openConnections ? -1 :
+                                    (c1.openConnections == c2.openConnections ? 0 : 1);
+                        }
+
+                    });
+                    break;
+                case POWER_OF_TWO_CHOICES:
+                    if (healthy.size() > 1) {
+                        final ThreadLocalRandom random = ThreadLocalRandom.current();
+                        final int i = random.nextInt(healthy.size());
+                        int j = random.nextInt(healthy.size() - 1);
+                        if (j >= i) {
+                            j++;
+                        }
+                        final int choice = healthy.get(j).openConnections < healthy.get(i).openConnections ? j : i;
+                        healthy.add(0, healthy.remove(choice));
+                    }
+                    break;
+            }
+            ordered.addAll(healthy);
+        }
+        Collections.sort(ejected, new Comparator<Candidate>() {
+
+            @Override
+            public int compare(final Candidate c1, final Candidate c2) {
+                return c1.ejectedUntil < c2.ejectedUntil ? -1 : (c1.ejectedUntil == c2.ejectedUntil ? 0 : 1);
+            }
+
+        });
+        ordered.addAll(ejected);
+        final InetAddress[] result = new InetAddress[ordered.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ordered.get(i).address;
+        }
+        return result;
+    }
+
+    private int nextIndex(final String host, final int size, final long now) {
+        final String key = host != null ? host : "";
+        HostCounter counter = counters.get(key);
+        if (counter == null) {
+            final HostCounter newCounter = new HostCounter();
+            counter = counters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        counter.lastUsed = now;
+        return (counter.value.getAndIncrement() & Integer.MAX_VALUE) % size;
+    }
+
+    /**
+     * Discards the state of idle addresses and hosts. Runs at most once
+     * per maximum ejection time.
+     */
+    private void prune(final long now) {
+        final long pruneTime = nextPruneTime.get();
+        final long idleTime = maxEjectionTime;
+        if (now < pruneTime || !nextPruneTime.compareAndSet(pruneTime, now + idleTime)) {
+            return;
+        }
+        for (final Iterator<Map.Entry<InetSocketAddress, AddressState>> it = states.entrySet().iterator(); it.hasNext(); ) {
+            final AddressState state = it.next().getValue();
+            synchronized (state) {
+                if (now - state.lastUsed >= idleTime && state.ejectedUntil <= now && state.getOpenConnections() == 0) {
+                    state.removed = true;
+                    it.remove();
+                }
+            }
+        }
+        for (final Iterator<HostCounter> it = counters.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().lastUsed >= idleTime) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Reports a connection successfully established to the given address.
+     * The connection is counted as open for as long as it reports being open.
+     */
+    public void connected(final InetSocketAddress address, final HttpConnection connection) {
+        Args.notNull(address, "Address");
+        for (;;) {
+            final AddressState state = getState(address);
+            synchronized (state) {
+                if (state.removed) {
+                    continue;
+                }
+                state.lastUsed = now();
+                state.consecutiveFailures = 0;
+                state.ejectionCount = 0;
+                state.ejectedUntil = 0;
+                if (connection != null) {
+                    state.connections.put(connection, Boolean.TRUE);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reports a failed attempt to connect to the given address.
+     */
+    public void connectFailed(final InetSocketAddress address) {
+        Args.notNull(address, "Address");
+        for (;;) {
+            final AddressState state = getState(address);
+            synchronized (state) {
+                if (state.removed) {
+                    continue;
+                }
+                final long now = now();
+                state.lastUsed = now;
+                state.consecutiveFailures++;
+                if (state.consecutiveFailures >= maxFailures) {
+                    state.consecutiveFailures = 0;
+                    state.ejectionCount++;
+                    final long ejectionTime = Math.min(baseEjectionTime * state.ejectionCount, maxEjectionTime);
+                    state.ejectedUntil = now + ejectionTime;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Determines whether the given address is currently ejected.
+     */
+    public boolean isEjected(final InetSocketAddress address) {
+        final AddressState state = states.get(address);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            return state.ejectedUntil > now();
+        }
+    }
+
+    /**
+     * Returns the number of open connections to the given address.
+     */
+    public int getOpenConnections(final InetSocketAddress address) {
+        final AddressState state = states.get(address);
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.getOpenConnections();
+        }
+    }
+
+    /**
+     * Sets the number of consecutive connect failures after which
+     * an address gets ejected. Defaults to 3.
+     */
+    public void setMaxFailures(final int maxFailures) {
+        this.maxFailures = Args.positive(maxFailures, "Max failures");
+    }
+
+    /**
+     * Sets the time an address is ejected for the first time. Defaults to 30 seconds.
+     */
+    public void setBaseEjectionTime(final TimeValue baseEjectionTime) {
+        Args.notNull(baseEjectionTime, "Base ejection time");
+        this.baseEjectionTime = baseEjectionTime.toMillis();
+    }
+
+    /**
+     * Sets the maximum time an address can be ejected for. Defaults to 5 minutes.
+     */
+    public void setMaxEjectionTime(final TimeValue maxEjectionTime) {
+        Args.notNull(maxEjectionTime, "Max ejection time");
+        this.maxEjectionTime = maxEjectionTime.toMillis();
+    }
+
+    @Override
+    public String toString() {
+        return "[policy: " + policy + "; addresses: " + states.size() + "]";
+    }
+
+    static final class AddressState {
+
+        final Map<HttpConnection, Boolean> connections = new WeakHashMap<>();
+        int consecutiveFailures;
+        int ejectionCount;
+        long ejectedUntil;
+        long lastUsed;
+        boolean removed;
+
+        int getOpenConnections() {
+            int count = 0;
+            for (final Iterator<HttpConnection> it = connections.keySet().iterator(); it.hasNext(); ) {
+                final HttpConnection connection = it.next();
+                if (connection != null && connection.isOpen()) {
+                    count++;
+                } else {
+                    it.remove();
+                }
+            }
+            return count;
+        }
+
+    }
+
+    static final class HostCounter {
+
+        final AtomicInteger value = new AtomicInteger();
+        volatile long lastUsed;
+
+    }
+
+    static final class Candidate {
+
+        final InetAddress address;
+        final int openConnections;
+        final long ejectedUntil;
+
+        Candidate(final InetAddress address, final int openConnections, final long ejectedUntil) {
+            this.address = address;
+            this.openConnections = openConnections;
+            this.ejectedUntil = ejectedUntil;
+        }
+
+    }
+
+}
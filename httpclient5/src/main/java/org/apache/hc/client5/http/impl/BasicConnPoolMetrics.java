@@ -0,0 +1,254 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Default implementation of {@link ConnPoolMetricsListener} that keeps striped counters
+ * and {@link LatencyHistogram}s per route and in total. Updates are lock-free and
+ * allocation-free once a route has been seen, which makes this implementation cheap
+ * enough to be left enabled in production.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class BasicConnPoolMetrics implements ConnPoolMetricsListener {
+
+    /**
+     * Connection pool metrics of a route or of the pool as a whole.
+     */
+    @Contract(threading = ThreadingBehavior.SAFE)
+    public static final class Metrics {
+
+        private final StripedCounter leaseRequests;
+        private final StripedCounter leasesGranted;
+        private final StripedCounter leaseTimeouts;
+        private final StripedCounter connectionsCreated;
+        private final StripedCounter connectionsReused;
+        private final StripedCounter connectionsClosed;
+        private final LatencyHistogram leaseWaitTime;
+        private final LatencyHistogram connectTime;
+        private final LatencyHistogram handshakeTime;
+
+        Metrics() {
+            this.leaseRequests = new StripedCounter();
+            this.leasesGranted = new StripedCounter();
+            this.leaseTimeouts = new StripedCounter();
+            this.connectionsCreated = new StripedCounter();
+            this.connectionsReused = new StripedCounter();
+            this.connectionsClosed = new StripedCounter();
+            this.leaseWaitTime = new LatencyHistogram();
+            this.connectTime = new LatencyHistogram();
+            this.handshakeTime = new LatencyHistogram();
+        }
+
+        public long getLeaseRequestCount() {
+            return leaseRequests.sum();
+        }
+
+        public long getLeaseGrantedCount() {
+            return leasesGranted.sum();
+        }
+
+        public long getLeaseTimeoutCount() {
+            return leaseTimeouts.sum();
+        }
+
+        public long getConnectionCreatedCount() {
+            return connectionsCreated.sum();
+        }
+
+        public long getConnectionReusedCount() {
+            return connectionsReused.sum();
+        }
+
+        public long getConnectionClosedCount() {
+            return connectionsClosed.sum();
+        }
+
+        /**
+         * Returns the ratio of granted leases served with a persistent connection from the pool.
+         */
+        public double getReuseRatio() {
+            final long granted = leasesGranted.sum();
+            return granted > 0 ? (double) connectionsReused.sum() / granted : 0.0;
+        }
+
+        /**
+         * Returns the histogram of times spent waiting for a lease to be granted.
+         */
+        public LatencyHistogram getLeaseWaitTime() {
+            return leaseWaitTime;
+        }
+
+        /**
+         * Returns the histogram of connection establishment times.
+         */
+        public LatencyHistogram getConnectTime() {
+            return connectTime;
+        }
+
+        /**
+         * Returns the histogram of TLS handshake times.
+         */
+        public LatencyHistogram getHandshakeTime() {
+            return handshakeTime;
+        }
+
+        @Override
+        public String toString() {
+            return "[leases requested: " + getLeaseRequestCount() +
+                    "; granted: " + getLeaseGrantedCount() +
+                    "; timed out: " + getLeaseTimeoutCount() +
+                    "; connections created: " + getConnectionCreatedCount() +
+                    "; reused: " + getConnectionReusedCount() +
+                    "; closed: " + getConnectionClosedCount() +
+                    "; lease wait time: " + leaseWaitTime +
+                    "; connect time: " + connectTime +
+                    "; handshake time: " + handshakeTime + "]";
+        }
+
+    }
+
+    private final Metrics totals;
+    private final ConcurrentMap<HttpRoute, Metrics> routeMetrics;
+
+    public BasicConnPoolMetrics() {
+        super();
+        this.totals = new Metrics();
+        this.routeMetrics = new ConcurrentHashMap<>();
+    }
+
+    private Metrics metrics(final HttpRoute route) {
+        Metrics metrics = routeMetrics.get(route);
+        if (metrics == null) {
+            final Metrics newMetrics = new Metrics();
+            metrics = routeMetrics.putIfAbsent(route, newMetrics);
+            if (metrics == null) {
+                metrics = newMetrics;
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns metrics of all routes combined.
+     */
+    public Metrics getTotals() {
+        return totals;
+    }
+
+    /**
+     * Returns metrics of the given route or {@code null} if no event has been reported
+     * for the route.
+     */
+    public Metrics getMetrics(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        return routeMetrics.get(route);
+    }
+
+    /**
+     * Returns routes with metrics.
+     */
+    public Set<HttpRoute> getRoutes() {
+        return Collections.unmodifiableSet(routeMetrics.keySet());
+    }
+
+    /**
+     * Discards metrics of the given route, for instance once the route is no longer in use.
+     */
+    public void removeMetrics(final HttpRoute route) {
+        routeMetrics.remove(route);
+    }
+
+    @Override
+    public void leaseRequested(final HttpRoute route) {
+        metrics(route).leaseRequests.increment();
+        totals.leaseRequests.increment();
+    }
+
+    @Override
+    public void leaseGranted(final HttpRoute route, final long waitTimeNanos) {
+        final Metrics metrics = metrics(route);
+        metrics.leasesGranted.increment();
+        metrics.leaseWaitTime.record(waitTimeNanos);
+        totals.leasesGranted.increment();
+        totals.leaseWaitTime.record(waitTimeNanos);
+    }
+
+    @Override
+    public void leaseTimedOut(final HttpRoute route, final long waitTimeNanos) {
+        final Metrics metrics = metrics(route);
+        metrics.leaseTimeouts.increment();
+        metrics.leaseWaitTime.record(waitTimeNanos);
+        totals.leaseTimeouts.increment();
+        totals.leaseWaitTime.record(waitTimeNanos);
+    }
+
+    @Override
+    public void connectionCreated(final HttpRoute route, final long connectTimeNanos) {
+        final Metrics metrics = metrics(route);
+        metrics.connectionsCreated.increment();
+        metrics.connectTime.record(connectTimeNanos);
+        totals.connectionsCreated.increment();
+        totals.connectTime.record(connectTimeNanos);
+    }
+
+    @Override
+    public void handshakeCompleted(final HttpRoute route, final long handshakeTimeNanos) {
+        metrics(route).handshakeTime.record(handshakeTimeNanos);
+        totals.handshakeTime.record(handshakeTimeNanos);
+    }
+
+    @Override
+    public void connectionReused(final HttpRoute route) {
+        metrics(route).connectionsReused.increment();
+        totals.connectionsReused.increment();
+    }
+
+    @Override
+    public void connectionClosed(final HttpRoute route) {
+        metrics(route).connectionsClosed.increment();
+        totals.connectionsClosed.increment();
+    }
+
+    @Override
+    public String toString() {
+        return totals.toString();
+    }
+
+}
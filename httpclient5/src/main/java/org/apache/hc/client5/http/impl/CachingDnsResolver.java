@@ -0,0 +1,436 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link DnsResolver} that caches the results of another resolver.
+ * <p>
+ * Successful lookups are cached for the configured time to live, failed
+ * lookups for the negative time to live. Once an entry has expired it
+ * continues to be served for the stale-while-revalidate period while it
+ * is being refreshed in the background, so that a slow resolver does not
+ * stall connection setup. Concurrent lookups of a host missing from
+ * the cache are answered by a single call to the underlying resolver.
+ * The cache holds at most the configured number of entries, evicting
+ * the least recently used ones first.
+ * </p>
+ * <p>
+ * The {@link #resolveCanonicalHostname(String)} method is not cached.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class CachingDnsResolver implements DnsResolver {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final DnsResolver dnsResolver;
+    private final long timeToLive;
+    private final long negativeTimeToLive;
+    private final long staleWhileRevalidate;
+    private final Executor refreshExecutor;
+    private final Map<String, Entry> cache;
+    private final ConcurrentMap<String, FutureTask<Entry>> lookups;
+
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong staleHitCount;
+    private final AtomicLong refreshFailureCount;
+
+    CachingDnsResolver(
+            final DnsResolver dnsResolver,
+            final TimeValue timeToLive,
+            final TimeValue negativeTimeToLive,
+            final TimeValue staleWhileRevalidate,
+            final int maxEntries,
+            final Executor refreshExecutor) {
+        this.dnsResolver = dnsResolver != null ? dnsResolver : SystemDefaultDnsResolver.INSTANCE;
+        this.timeToLive = timeToLive.toMillis();
+        this.negativeTimeToLive = negativeTimeToLive.toMillis();
+        this.staleWhileRevalidate = staleWhileRevalidate.toMillis();
+        this.refreshExecutor = refreshExecutor != null ? refreshExecutor : createRefreshExecutor();
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+
+        };
+        this.lookups = new ConcurrentHashMap<>();
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.staleHitCount = new AtomicLong();
+        this.refreshFailureCount = new AtomicLong();
+    }
+
+    private static Executor createRefreshExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                1, 1,
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new DefaultThreadFactory("dns-refresh", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public InetAddress[] resolve(final String host) throws UnknownHostException {
+        final String key = host != null ? host : "";
+        final long now = now();
+        final Entry entry;
+        boolean refresh = false;
+        synchronized (cache) {
+            entry = cache.get(key);
+            if (entry != null && entry.addresses != null && !entry.refreshing
+                    && now >= entry.expiry && now < entry.expiry + staleWhileRevalidate) {
+                entry.refreshing = true;
+                refresh = true;
+            }
+        }
+        if (entry != null) {
+            if (now < entry.expiry) {
+                hitCount.incrementAndGet();
+                return entry.get(host);
+            }
+            if (entry.addresses != null && now < entry.expiry + staleWhileRevalidate) {
+                staleHitCount.incrementAndGet();
+                if (refresh) {
+                    scheduleRefresh(host, key, entry);
+                }
+                return entry.get(host);
+            }
+        }
+        missCount.incrementAndGet();
+        return lookup(host, key).get(host);
+    }
+
+    private Entry lookup(final String host, final String key) throws UnknownHostException {
+        final FutureTask<Entry> newLookup = new FutureTask<>(new Callable<Entry>() {
+
+            @Override
+            public Entry call() {
+                Entry entry;
+                try {
+                    final InetAddress[] addresses = dnsResolver.resolve(host);
+                    entry = new Entry(addresses, null, now() + timeToLive);
+                } catch (final UnknownHostException ex) {
+                    entry = new Entry(null, ex, now() + negativeTimeToLive);
+                }
+                synchronized (cache) {
+                    cache.put(key, entry);
+                }
+                return entry;
+            }
+
+        });
+        // Only the first of concurrent lookups for the same host calls the resolver;
+        // the others wait for its result
+        FutureTask<Entry> lookup = lookups.putIfAbsent(key, newLookup);
+        if (lookup == null) {
+            lookup = newLookup;
+            try {
+                lookup.run();
+            } finally {
+                lookups.remove(key, lookup);
+            }
+        }
+        try {
+            return lookup.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            final UnknownHostException uhe = new UnknownHostException(
+                    "Interrupted while waiting for resolution of " + host);
+            uhe.initCause(ex);
+            throw uhe;
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void scheduleRefresh(final String host, final String key, final Entry staleEntry) {
+        if (log.isDebugEnabled()) {
+            log.debug("Refreshing DNS entry for " + host + " in the background");
+        }
+        try {
+            refreshExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    boolean refreshed = false;
+                    try {
+                        final InetAddress[] addresses = dnsResolver.resolve(host);
+                        synchronized (cache) {
+                            cache.put(key, new Entry(addresses, null, now() + timeToLive));
+                        }
+                        refreshed = true;
+                    } catch (final UnknownHostException ex) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Background refresh of DNS entry for " + host + " failed: " + ex.getMessage());
+                        }
+                    } finally {
+                        if (!refreshed) {
+                            // keep serving the stale entry; the next lookup will retry
+                            refreshFailureCount.incrementAndGet();
+                            synchronized (cache) {
+                                staleEntry.refreshing = false;
+                            }
+                        }
+                    }
+                }
+
+            });
+        } catch (final RejectedExecutionException ex) {
+            synchronized (cache) {
+                staleEntry.refreshing = false;
+            }
+        }
+    }
+
+    @Override
+    public String resolveCanonicalHostname(final String host) throws UnknownHostException {
+        return dnsResolver.resolveCanonicalHostname(host);
+    }
+
+    /**
+     * Removes the cached entry for the given host, if any.
+     */
+    public void evict(final String host) {
+        synchronized (cache) {
+            cache.remove(host != null ? host : "");
+        }
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached entries.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from a fresh cache entry,
+     * including negative ones.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups answered by the underlying resolver.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of lookups answered from an expired cache entry
+     * while it was being refreshed.
+     */
+    public long getStaleHitCount() {
+        return staleHitCount.get();
+    }
+
+    /**
+     * Returns the number of background refreshes that failed to resolve the host.
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("[entries: ").append(size());
+        buffer.append("; hits: ").append(getHitCount());
+        buffer.append("; misses: ").append(getMissCount());
+        buffer.append("; stale hits: ").append(getStaleHitCount());
+        buffer.append("]");
+        return buffer.toString();
+    }
+
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    static final class Entry {
+
+        final InetAddress[] addresses;
+        final UnknownHostException failure;
+        final long expiry;
+        boolean refreshing;
+
+        Entry(final InetAddress[] addresses, final UnknownHostException failure, final long expiry) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiry = expiry;
+        }
+
+        InetAddress[] get(final String host) throws UnknownHostException {
+            if (addresses != null) {
+                return addresses.clone();
+            }
+            final UnknownHostException ex = new UnknownHostException(
+                    failure.getMessage() != null ? failure.getMessage() : host);
+            ex.initCause(failure);
+            throw ex;
+        }
+
+    }
+
+    public static class Builder {
+
+        private DnsResolver dnsResolver;
+        private TimeValue timeToLive;
+        private TimeValue negativeTimeToLive;
+        private TimeValue staleWhileRevalidate;
+        private int maxEntries;
+        private Executor refreshExecutor;
+
+        Builder() {
+            super();
+            this.timeToLive = TimeValue.ofSeconds(60);
+            this.negativeTimeToLive = TimeValue.ofSeconds(10);
+            this.staleWhileRevalidate = TimeValue.ofSeconds(30);
+            this.maxEntries = 1000;
+        }
+
+        /**
+         * Sets the resolver whose results are to be cached.
+         * Defaults to {@link SystemDefaultDnsResolver}.
+         */
+        public Builder setDnsResolver(final DnsResolver dnsResolver) {
+            this.dnsResolver = dnsResolver;
+            return this;
+        }
+
+        /**
+         * Sets the time successful lookups are cached for. Defaults to 60 seconds.
+         */
+        public Builder setTimeToLive(final TimeValue timeToLive) {
+            this.timeToLive = Args.notNull(timeToLive, "Time to live");
+            return this;
+        }
+
+        /**
+         * Sets the time failed lookups are cached for. Defaults to 10 seconds.
+         */
+        public Builder setNegativeTimeToLive(final TimeValue negativeTimeToLive) {
+            this.negativeTimeToLive = Args.notNull(negativeTimeToLive, "Negative time to live");
+            return this;
+        }
+
+        /**
+         * Sets the time an expired entry may still be served while being
+         * refreshed in the background. Defaults to 30 seconds.
+         */
+        public Builder setStaleWhileRevalidate(final TimeValue staleWhileRevalidate) {
+            this.staleWhileRevalidate = Args.notNull(staleWhileRevalidate, "Stale while revalidate");
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of cached entries. Defaults to 1000.
+         */
+        public Builder setMaxEntries(final int maxEntries) {
+            this.maxEntries = Args.positive(maxEntries, "Max entries");
+            return this;
+        }
+
+        /**
+         * Sets the executor background refreshes are run on. Defaults to
+         * a single daemon thread that terminates when idle.
+         */
+        public Builder setRefreshExecutor(final Executor refreshExecutor) {
+            this.refreshExecutor = refreshExecutor;
+            return this;
+        }
+
+        public CachingDnsResolver build() {
+            return new CachingDnsResolver(
+                    dnsResolver,
+                    timeToLive,
+                    negativeTimeToLive,
+                    staleWhileRevalidate,
+                    maxEntries,
+                    refreshExecutor);
+        }
+
+    }
+
+}
@@ -7,6 +7,6 @@
  */
 public enum ChainElements {
 
-    REDIRECT, BACK_OFF, RETRY_SERVICE_UNAVAILABLE, RETRY_IO_ERROR, CACHING, PROTOCOL, CONNECT, MAIN_TRANSPORT
+    REDIRECT, BACK_OFF, RETRY_SERVICE_UNAVAILABLE, RETRY_IO_ERROR, COMPRESS, COMPRESS_REQUEST, CACHING, PROTOCOL, CONNECT, ADAPTIVE_CONCURRENCY, MAIN_TRANSPORT
 
 }
\ No newline at end of file
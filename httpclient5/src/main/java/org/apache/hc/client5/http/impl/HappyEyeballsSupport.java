@@ -0,0 +1,125 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.annotation.Internal;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+
+/**
+ * Support methods for racing connection attempts to multiple addresses
+ * of the same host as described in RFC 8305 (Happy Eyeballs Version 2).
+ *
+ * @since 5.0
+ */
+@Internal
+public final class HappyEyeballsSupport {
+
+    private HappyEyeballsSupport() {
+    }
+
+    /**
+     * Re-orders the given addresses so that address families alternate,
+     * starting with the family of the first address as preferred by the
+     * resolver. The relative order of addresses of the same family is retained.
+     */
+    public static InetAddress[] interleave(final InetAddress[] addresses) {
+        if (addresses == null || addresses.length < 3) {
+            return addresses;
+        }
+        final Class<?> preferredFamily = addresses[0].getClass();
+        final List<InetAddress> preferred = new ArrayList<>(addresses.length);
+        final List<InetAddress> other = new ArrayList<>(addresses.length);
+        for (final InetAddress address : addresses) {
+            if (address.getClass() == preferredFamily) {
+                preferred.add(address);
+            } else {
+                other.add(address);
+            }
+        }
+        final InetAddress[] result = new InetAddress[addresses.length];
+        int i = 0;
+        int p = 0;
+        int o = 0;
+        while (p < preferred.size() || o < other.size()) {
+            if (p < preferred.size()) {
+                result[i++] = preferred.get(p++);
+            }
+            if (o < other.size()) {
+                result[i++] = other.get(o++);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a shared executor for blocking connection attempts.
+     */
+    public static ExecutorService getConnectExecutor() {
+        return ExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Returns a shared scheduler used to stagger non-blocking connection attempts.
+     */
+    public static ScheduledExecutorService getScheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    private static final class ExecutorHolder {
+
+        static final ExecutorService EXECUTOR = new ThreadPoolExecutor(
+                0, Integer.MAX_VALUE,
+                60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(),
+                new DefaultThreadFactory("happy-eyeballs-connect", true));
+
+    }
+
+    private static final class SchedulerHolder {
+
+        static final ScheduledExecutorService SCHEDULER;
+
+        static {
+            final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+                    1, new DefaultThreadFactory("happy-eyeballs-scheduler", true));
+            scheduler.setRemoveOnCancelPolicy(true);
+            SCHEDULER = scheduler;
+        }
+
+    }
+
+}
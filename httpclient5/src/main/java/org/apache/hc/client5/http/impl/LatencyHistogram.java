@@ -0,0 +1,121 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Lightweight histogram of durations with power-of-two microsecond buckets.
+ * Recording a value is lock-free and allocation-free; percentiles are accurate
+ * to within a factor of two, which is sufficient to tell a healthy pool from
+ * a saturated one.
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public final class LatencyHistogram {
+
+    // bucket 0 holds values below 1 microsecond, bucket i values in [2^(i-1), 2^i) microseconds
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray buckets;
+    private final StripedCounter count;
+    private final StripedCounter totalMicros;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKETS);
+        this.count = new StripedCounter();
+        this.totalMicros = new StripedCounter();
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(final long nanos) {
+        final long micros = nanos > 0 ? nanos / 1000 : 0;
+        final int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+        this.buckets.getAndIncrement(bucket);
+        this.count.increment();
+        this.totalMicros.add(micros);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     */
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the mean of recorded durations.
+     */
+    public TimeValue getMean() {
+        final long n = this.count.sum();
+        return TimeValue.ofMicroseconds(n > 0 ? this.totalMicros.sum() / n : 0);
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of recorded durations.
+     *
+     * @param percentile the percentile between 0 and 100.
+     */
+    public TimeValue getPercentile(final double percentile) {
+        Args.check(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+        long total = 0;
+        final long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = this.buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return TimeValue.ZERO_MILLISECONDS;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return TimeValue.ofMicroseconds(i > 0 ? (1L << i) - 1 : 0);
+            }
+        }
+        return TimeValue.ofMicroseconds((1L << (BUCKETS - 1)) - 1);
+    }
+
+    @Override
+    public String toString() {
+        return "[count=" + getCount() + ", mean=" + getMean() + ", p50=" + getPercentile(50) +
+                ", p99=" + getPercentile(99) + "]";
+    }
+
+}
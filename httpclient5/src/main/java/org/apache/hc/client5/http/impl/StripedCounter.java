@@ -0,0 +1,84 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter that spreads updates from different threads over several cells
+ * padded to separate cache lines, so that frequently updated counters do not
+ * become a point of contention. Reads sum up all cells and are therefore
+ * more expensive than updates.
+ *
+ * @since 5.0
+ */
+final class StripedCounter {
+
+    // 8 longs per 64 byte cache line
+    private static final int PADDING = 8;
+    private static final int STRIPES;
+
+    static {
+        int stripes = 1;
+        final int cpus = Runtime.getRuntime().availableProcessors();
+        while (stripes < cpus && stripes < 16) {
+            stripes <<= 1;
+        }
+        STRIPES = stripes;
+    }
+
+    private final AtomicLongArray cells;
+
+    StripedCounter() {
+        this.cells = new AtomicLongArray(STRIPES * PADDING);
+    }
+
+    private static int index() {
+        int h = (int) Thread.currentThread().getId();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return (h & (STRIPES - 1)) * PADDING;
+    }
+
+    void increment() {
+        this.cells.getAndIncrement(index());
+    }
+
+    void add(final long delta) {
+        this.cells.getAndAdd(index(), delta);
+    }
+
+    long sum() {
+        long sum = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            sum += this.cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+}
@@ -28,7 +28,10 @@
 package org.apache.hc.client5.http.impl;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.core5.annotation.Internal;
 import org.apache.hc.core5.util.Args;
 import org.slf4j.Logger;
@@ -38,8 +41,14 @@ public class Wire {
 
     private static final int MAX_STRING_BUILDER_SIZE = 2048;
 
+    private static final int HEX_BYTES_PER_LINE = 16;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private static final ThreadLocal<StringBuilder> threadLocal = new ThreadLocal<>();
 
+    private static final ThreadLocal<byte[]> threadLocalBytes = new ThreadLocal<>();
+
     /**
      * Returns a {@code StringBuilder} that this Layout implementation can use to write the formatted log event to.
      *
@@ -72,43 +81,139 @@ private static void trimToMaxSize(final StringBuilder stringBuilder, final int m
         }
     }
 
+    /**
+     * Returns a scratch buffer used to copy content of direct byte buffers.
+     */
+    private static byte[] getBytes() {
+        byte[] result = threadLocalBytes.get();
+        if (result == null) {
+            result = new byte[MAX_STRING_BUILDER_SIZE];
+            threadLocalBytes.set(result);
+        }
+        return result;
+    }
+
     private final Logger log;
     private final String id;
+    private final WireLogConfig.Format format;
+    private final long maxBytes;
+    private final AtomicLong inputCount;
+    private final AtomicLong outputCount;
 
-    public Wire(final Logger log, final String id) {
+    public Wire(final Logger log, final String id, final WireLogConfig config) {
         super();
         this.log = log;
         this.id = id;
+        this.format = config != null ? config.getFormat() : WireLogConfig.Format.ESCAPED;
+        this.maxBytes = config != null ? config.getMaxBytes() : -1;
+        this.inputCount = new AtomicLong();
+        this.outputCount = new AtomicLong();
+    }
+
+    public Wire(final Logger log, final String id) {
+        this(log, id, null);
+    }
+
+    private void logLimitReached(final String header) {
+        final StringBuilder buffer = getStringBuilder();
+        buffer.append(this.id).append(' ').append(header).append("[wire log limit of ").append(maxBytes).append(" bytes reached]");
+        this.log.debug(buffer.toString());
+    }
+
+    private void wire(final String header, final AtomicLong count, final byte[] b, final int pos, final int off) {
+        int len = off;
+        boolean limitReached = false;
+        if (maxBytes >= 0) {
+            final long total = count.getAndAdd(off);
+            if (total >= maxBytes) {
+                return;
+            }
+            if (total + off > maxBytes) {
+                len = (int) (maxBytes - total);
+                limitReached = true;
+            }
+        }
+        if (format == WireLogConfig.Format.HEX) {
+            hex(header, b, pos, len);
+        } else {
+            escaped(header, b, pos, len);
+        }
+        if (limitReached) {
+            logLimitReached(header);
+        }
     }
 
-    private void wire(final String header, final byte[] b, final int pos, final int off) {
+    private void escaped(final String header, final byte[] b, final int pos, final int off) {
         final StringBuilder buffer = getStringBuilder();
         for (int i = 0; i < off; i++) {
-            final int ch = b[pos + i];
+            if (buffer.length() == 0) {
+                buffer.append(this.id).append(' ').append(header).append('\"');
+            }
+            final int ch = b[pos + i] & 0xff;
             if (ch == 13) {
                 buffer.append("[\\r]");
             } else if (ch == 10) {
-                    buffer.append("[\\n]\"");
-                    buffer.insert(0, "\"");
-                    buffer.insert(0, header);
-                    this.log.debug(this.id + " " + buffer.toString());
-                    buffer.setLength(0);
+                buffer.append("[\\n]\"");
+                this.log.debug(buffer.toString());
+                buffer.setLength(0);
             } else if ((ch < 32) || (ch >= 127)) {
                 buffer.append("[0x");
-                buffer.append(Integer.toHexString(ch));
-                buffer.append("]");
+                if (ch >= 16) {
+                    buffer.append(HEX_DIGITS[ch >> 4]);
+                }
+                buffer.append(HEX_DIGITS[ch & 0x0f]);
+                buffer.append(']');
             } else {
                 buffer.append((char) ch);
             }
         }
         if (buffer.length() > 0) {
             buffer.append('\"');
-            buffer.insert(0, '\"');
-            buffer.insert(0, header);
-            this.log.debug(this.id + " " + buffer.toString());
+            this.log.debug(buffer.toString());
+        }
+    }
+
+    private void hex(final String header, final byte[] b, final int pos, final int off) {
+        final StringBuilder buffer = getStringBuilder();
+        for (int line = 0; line < off; line += HEX_BYTES_PER_LINE) {
+            final int n = Math.min(HEX_BYTES_PER_LINE, off - line);
+            buffer.setLength(0);
+            buffer.append(this.id).append(' ').append(header);
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                buffer.append(HEX_DIGITS[(line >> shift) & 0x0f]);
+            }
+            buffer.append(' ');
+            for (int i = 0; i < HEX_BYTES_PER_LINE; i++) {
+                buffer.append(' ');
+                if (i < n) {
+                    final int ch = b[pos + line + i] & 0xff;
+                    buffer.append(HEX_DIGITS[ch >> 4]).append(HEX_DIGITS[ch & 0x0f]);
+                } else {
+                    buffer.append("  ");
+                }
+            }
+            buffer.append("  ");
+            for (int i = 0; i < n; i++) {
+                final int ch = b[pos + line + i] & 0xff;
+                buffer.append((ch < 32) || (ch >= 127) ? '.' : (char) ch);
+            }
+            this.log.debug(buffer.toString());
         }
     }
 
+    private void wire(final String header, final AtomicLong count, final ByteBuffer b) {
+        if (b.hasArray()) {
+            wire(header, count, b.array(), b.arrayOffset() + b.position(), b.remaining());
+        } else {
+            final ByteBuffer tmp = b.duplicate();
+            final byte[] bytes = getBytes();
+            while (tmp.hasRemaining()) {
+                final int n = Math.min(tmp.remaining(), bytes.length);
+                tmp.get(bytes, 0, n);
+                wire(header, count, bytes, 0, n);
+            }
+        }
+    }
 
     public boolean isEnabled() {
         return this.log.isDebugEnabled();
@@ -116,12 +221,12 @@ public boolean isEnabled() {
 
     public void output(final byte[] b, final int pos, final int off) {
         Args.notNull(b, "Output");
-        wire(">> ", b, pos, off);
+        wire(">> ", outputCount, b, pos, off);
     }
 
     public void input(final byte[] b, final int pos, final int off) {
         Args.notNull(b, "Input");
-        wire("<< ", b, pos, off);
+        wire("<< ", inputCount, b, pos, off);
     }
 
     public void output(final byte[] b) {
@@ -135,43 +240,35 @@ public void input(final byte[] b) {
     }
 
     public void output(final int b) {
-        output(new byte[] {(byte) b});
+        final byte[] bytes = getBytes();
+        bytes[0] = (byte) b;
+        output(bytes, 0, 1);
     }
 
     public void input(final int b) {
-        input(new byte[] {(byte) b});
+        final byte[] bytes = getBytes();
+        bytes[0] = (byte) b;
+        input(bytes, 0, 1);
     }
 
     public void output(final String s) {
         Args.notNull(s, "Output");
-        output(s.getBytes());
+        output(s.getBytes(StandardCharsets.US_ASCII));
     }
 
     public void input(final String s) {
         Args.notNull(s, "Input");
-        input(s.getBytes());
+        input(s.getBytes(StandardCharsets.US_ASCII));
     }
 
     public void output(final ByteBuffer b) {
         Args.notNull(b, "Output");
-        if (b.hasArray()) {
-            output(b.array(), b.arrayOffset() + b.position(), b.remaining());
-        } else {
-            final byte[] tmp = new byte[b.remaining()];
-            b.get(tmp);
-            output(tmp);
-        }
+        wire(">> ", outputCount, b);
     }
 
     public void input(final ByteBuffer b) {
         Args.notNull(b, "Input");
-        if (b.hasArray()) {
-            input(b.array(), b.arrayOffset() + b.position(), b.remaining());
-        } else {
-            final byte[] tmp = new byte[b.remaining()];
-            b.get(tmp);
-            input(tmp);
-        }
+        wire("<< ", inputCount, b);
     }
 
 }
@@ -73,9 +73,13 @@ public void run() {
                     ioReactor.start();
                 }
             });
+            onStart();
         }
     }
 
+    void onStart() {
+    }
+
     @Override
     public void register(final String hostname, final String uriPattern, final Supplier<AsyncPushConsumer> supplier) {
         pushConsumerRegistry.register(hostname, uriPattern, supplier);
@@ -0,0 +1,145 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.async;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ConnectionBackoffStrategy;
+import org.apache.hc.client5.http.impl.AdaptiveConcurrencyLimiter;
+import org.apache.hc.client5.http.impl.classic.DefaultBackoffStrategy;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Experimental;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Request execution handler in the asynchronous request execution chain
+ * that measures response times of requests executed over established
+ * connections and reports them to an {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * Further responsibilities such as communication with the opposite
+ * endpoint is delegated to the next executor in the request execution
+ * chain.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+@Experimental
+public final class AsyncAdaptiveConcurrencyExec implements AsyncExecChainHandler {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ConnectionBackoffStrategy connectionBackoffStrategy;
+
+    public AsyncAdaptiveConcurrencyExec(
+            final AdaptiveConcurrencyLimiter limiter,
+            final ConnectionBackoffStrategy connectionBackoffStrategy) {
+        super();
+        this.limiter = Args.notNull(limiter, "Adaptive concurrency limiter");
+        this.connectionBackoffStrategy = Args.notNull(connectionBackoffStrategy, "Connection backoff strategy");
+    }
+
+    public AsyncAdaptiveConcurrencyExec(final AdaptiveConcurrencyLimiter limiter) {
+        this(limiter, new DefaultBackoffStrategy());
+    }
+
+    @Override
+    public void execute(
+            final HttpRequest request,
+            final AsyncEntityProducer entityProducer,
+            final AsyncExecChain.Scope scope,
+            final AsyncExecChain chain,
+            final AsyncExecCallback asyncExecCallback) throws HttpException, IOException {
+        final HttpRoute route = scope.route;
+        // make sure each request is accounted for exactly once
+        final AtomicBoolean reported = new AtomicBoolean(false);
+
+        limiter.requestStarted(route);
+        final long start = System.nanoTime();
+        try {
+            chain.proceed(request, entityProducer, scope, new AsyncExecCallback() {
+
+                @Override
+                public AsyncDataConsumer handleResponse(
+                        final HttpResponse response,
+                        final EntityDetails entityDetails) throws HttpException, IOException {
+                    if (reported.compareAndSet(false, true)) {
+                        if (connectionBackoffStrategy.shouldBackoff(response)) {
+                            limiter.requestFailed(route);
+                        } else {
+                            limiter.requestCompleted(route, System.nanoTime() - start);
+                        }
+                    }
+                    return asyncExecCallback.handleResponse(response, entityDetails);
+                }
+
+                @Override
+                public void handleInformationResponse(final HttpResponse response) throws HttpException, IOException {
+                    asyncExecCallback.handleInformationResponse(response);
+                }
+
+                @Override
+                public void completed() {
+                    if (reported.compareAndSet(false, true)) {
+                        limiter.requestIgnored(route);
+                    }
+                    asyncExecCallback.completed();
+                }
+
+                @Override
+                public void failed(final Exception cause) {
+                    if (reported.compareAndSet(false, true)) {
+                        if (connectionBackoffStrategy.shouldBackoff(cause)) {
+                            limiter.requestFailed(route);
+                        } else {
+                            limiter.requestIgnored(route);
+                        }
+                    }
+                    asyncExecCallback.failed(cause);
+                }
+
+            });
+        } catch (final IOException | HttpException | RuntimeException ex) {
+            if (reported.compareAndSet(false, true)) {
+                limiter.requestIgnored(route);
+            }
+            throw ex;
+        }
+    }
+
+}
@@ -0,0 +1,239 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.async;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.hc.client5.http.async.AsyncContentDecoderFactory;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.async.methods.InflatingAsyncDataConsumer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Internal;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.message.BasicHeaderValueParser;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.http.message.ParserCursor;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Request execution handler in the asynchronous request execution chain
+ * that is responsible for automatic response content decompression.
+ * <p>
+ * Response content is decoded incrementally as it arrives and passed on
+ * to the response consumer in its decoded form.
+ * </p>
+ * <p>
+ * Further responsibilities such as communication with the opposite
+ * endpoint is delegated to the next executor in the request execution
+ * chain.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+@Internal
+public final class ContentCompressionAsyncExec implements AsyncExecChainHandler {
+
+    private final String[] acceptEncoding;
+    private final Lookup<AsyncContentDecoderFactory> decoderRegistry;
+    private final boolean ignoreUnknown;
+
+    public ContentCompressionAsyncExec(
+            final List<String> acceptEncoding,
+            final Lookup<AsyncContentDecoderFactory> decoderRegistry,
+            final boolean ignoreUnknown) {
+        this.acceptEncoding = acceptEncoding != null ? acceptEncoding.toArray(
+                new String[acceptEncoding.size()]) : new String[] {"gzip", "x-gzip", "deflate"};
+        this.decoderRegistry = decoderRegistry != null ? decoderRegistry :
+                RegistryBuilder.<AsyncContentDecoderFactory>create()
+                        .register("gzip", InflatingAsyncDataConsumer.GZIP)
+                        .register("x-gzip", InflatingAsyncDataConsumer.GZIP)
+                        .register("deflate", InflatingAsyncDataConsumer.DEFLATE)
+                        .build();
+        this.ignoreUnknown = ignoreUnknown;
+    }
+
+    public ContentCompressionAsyncExec(final boolean ignoreUnknown) {
+        this(null, null, ignoreUnknown);
+    }
+
+    /**
+     * Handles {@code gzip} and {@code deflate} compressed content.
+     */
+    public ContentCompressionAsyncExec() {
+        this(null, null, true);
+    }
+
+    @Override
+    public void execute(
+            final HttpRequest request,
+            final AsyncEntityProducer entityProducer,
+            final AsyncExecChain.Scope scope,
+            final AsyncExecChain chain,
+            final AsyncExecCallback asyncExecCallback) throws HttpException, IOException {
+        Args.notNull(request, "HTTP request");
+        Args.notNull(scope, "Scope");
+
+        final RequestConfig requestConfig = scope.clientContext.getRequestConfig();
+        if (!requestConfig.isContentCompressionEnabled()) {
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+            return;
+        }
+
+        /* Signal support for Accept-Encoding transfer encodings. */
+        if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.addHeader(MessageSupport.format(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+        }
+
+        chain.proceed(request, entityProducer, scope, new AsyncExecCallback() {
+
+            @Override
+            public AsyncDataConsumer handleResponse(
+                    final HttpResponse response,
+                    final EntityDetails entityDetails) throws HttpException, IOException {
+                // entity details can be null in case of 304 Not Modified, 204 No Content or similar
+                // check for zero length entity.
+                if (entityDetails == null || entityDetails.getContentLength() == 0
+                        || entityDetails.getContentEncoding() == null) {
+                    return asyncExecCallback.handleResponse(response, entityDetails);
+                }
+                final List<AsyncContentDecoderFactory> decoders = lookupDecoders(entityDetails.getContentEncoding());
+                if (decoders == null || decoders.isEmpty()) {
+                    return asyncExecCallback.handleResponse(response, entityDetails);
+                }
+                response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+                response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+                response.removeHeaders(HttpHeaders.CONTENT_MD5);
+                final AsyncDataConsumer dataConsumer = asyncExecCallback.handleResponse(
+                        response, new DecodedEntityDetails(entityDetails));
+                if (dataConsumer == null) {
+                    return null;
+                }
+                // Content codings are listed in the order they were applied
+                // and get decoded in reverse
+                AsyncDataConsumer decodingConsumer = dataConsumer;
+                for (final AsyncContentDecoderFactory decoder : decoders) {
+                    decodingConsumer = decoder.create(decodingConsumer);
+                }
+                return decodingConsumer;
+            }
+
+            @Override
+            public void handleInformationResponse(final HttpResponse response) throws HttpException, IOException {
+                asyncExecCallback.handleInformationResponse(response);
+            }
+
+            @Override
+            public void completed() {
+                asyncExecCallback.completed();
+            }
+
+            @Override
+            public void failed(final Exception cause) {
+                asyncExecCallback.failed(cause);
+            }
+
+        });
+    }
+
+    /**
+     * Returns decoders of the given content codings in the order of the codings
+     * or {@code null} if some of the content codings are not supported.
+     */
+    private List<AsyncContentDecoderFactory> lookupDecoders(final String contentEncoding) throws HttpException {
+        final ParserCursor cursor = new ParserCursor(0, contentEncoding.length());
+        final HeaderElement[] codecs = BasicHeaderValueParser.INSTANCE.parseElements(contentEncoding, cursor);
+        final List<AsyncContentDecoderFactory> decoders = new ArrayList<>(codecs.length);
+        for (final HeaderElement codec : codecs) {
+            final String codecname = codec.getName().toLowerCase(Locale.ROOT);
+            final AsyncContentDecoderFactory decoderFactory = decoderRegistry.lookup(codecname);
+            if (decoderFactory != null) {
+                decoders.add(decoderFactory);
+            } else if (!"identity".equals(codecname)) {
+                if (!ignoreUnknown) {
+                    throw new HttpException("Unsupported Content-Encoding: " + codec.getName());
+                }
+                // Content that cannot be fully decoded is passed on as is
+                return null;
+            }
+        }
+        return decoders;
+    }
+
+    static class DecodedEntityDetails implements EntityDetails {
+
+        private final EntityDetails entityDetails;
+
+        DecodedEntityDetails(final EntityDetails entityDetails) {
+            this.entityDetails = entityDetails;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public String getContentType() {
+            return entityDetails.getContentType();
+        }
+
+        @Override
+        public String getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public boolean isChunked() {
+            return entityDetails.isChunked();
+        }
+
+        @Override
+        public Set<String> getTrailerNames() {
+            return entityDetails.getTrailerNames();
+        }
+
+    }
+
+}
@@ -34,8 +34,10 @@
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 
 import org.apache.hc.client5.http.AuthenticationStrategy;
@@ -43,12 +45,15 @@
 import org.apache.hc.client5.http.HttpRequestRetryHandler;
 import org.apache.hc.client5.http.SchemePortResolver;
 import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.async.AsyncContentDecoderFactory;
 import org.apache.hc.client5.http.async.AsyncExecChainHandler;
 import org.apache.hc.client5.http.auth.AuthSchemeProvider;
 import org.apache.hc.client5.http.auth.AuthSchemes;
 import org.apache.hc.client5.http.auth.CredentialsProvider;
 import org.apache.hc.client5.http.auth.KerberosConfig;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.CookieSpecProvider;
 import org.apache.hc.client5.http.cookie.CookieStore;
@@ -195,6 +200,9 @@ private ExecInterceptorEntry(
 
     private Lookup<AuthSchemeProvider> authSchemeRegistry;
     private Lookup<CookieSpecProvider> cookieSpecRegistry;
+    private LinkedHashMap<String, AsyncContentDecoderFactory> contentDecoderMap;
+    private RequestCompressionConfig requestCompressionConfig;
+    private WireLogConfig wireLogConfig;
     private CookieStore cookieStore;
     private CredentialsProvider credentialsProvider;
 
@@ -207,6 +215,7 @@ private ExecInterceptorEntry(
     private boolean systemProperties;
     private boolean automaticRetriesDisabled;
     private boolean redirectHandlingDisabled;
+    private boolean contentCompressionDisabled;
     private boolean cookieManagementDisabled;
     private boolean authCachingDisabled;
 
@@ -487,6 +496,41 @@ public final H2AsyncClientBuilder setDefaultCookieSpecRegistry(final Lookup<Cook
         return this;
     }
 
+    /**
+     * Assigns {@link WireLogConfig} selecting connections whose wire content gets
+     * logged, provided the {@code org.apache.hc.client5.http.wire} logger is enabled
+     * at the {@code DEBUG} level. Connections that are not selected are not
+     * instrumented at all.
+     *
+     * @since 5.0
+     */
+    public final H2AsyncClientBuilder setWireLogConfig(final WireLogConfig wireLogConfig) {
+        this.wireLogConfig = wireLogConfig;
+        return this;
+    }
+
+    /**
+     * Enables automatic compression of request content matching the given
+     * {@link RequestCompressionConfig}. Supported content codings are
+     * {@code gzip} and {@code deflate}. Request content is not compressed by default.
+     *
+     * @since 5.0
+     */
+    public final H2AsyncClientBuilder setRequestCompressionConfig(final RequestCompressionConfig requestCompressionConfig) {
+        this.requestCompressionConfig = requestCompressionConfig;
+        return this;
+    }
+
+    /**
+     * Assigns a map of {@link AsyncContentDecoderFactory}s to be used
+     * for automatic content decompression.
+     */
+    public final H2AsyncClientBuilder setContentDecoderRegistry(
+            final LinkedHashMap<String, AsyncContentDecoderFactory> contentDecoderMap) {
+        this.contentDecoderMap = contentDecoderMap;
+        return this;
+    }
+
     /**
      * Assigns default {@link CookieStore} instance which will be used for
      * request execution if not explicitly set in the client execution context.
@@ -531,6 +575,14 @@ public final H2AsyncClientBuilder disableAutomaticRetries() {
         return this;
     }
 
+    /**
+     * Disables automatic content decompression.
+     */
+    public final H2AsyncClientBuilder disableContentCompression() {
+        contentCompressionDisabled = true;
+        return this;
+    }
+
     /**
      * Disables state (cookie) management.
      */
@@ -672,6 +724,29 @@ public CloseableHttpAsyncClient build() {
                 new AsyncProtocolExec(httpProcessor, targetAuthStrategyCopy, proxyAuthStrategyCopy),
                 ChainElements.PROTOCOL.name());
 
+        if (requestCompressionConfig != null) {
+            execChainDefinition.addBefore(ChainElements.PROTOCOL.name(),
+                    new RequestCompressionAsyncExec(requestCompressionConfig),
+                    ChainElements.COMPRESS_REQUEST.name());
+        }
+
+        if (!contentCompressionDisabled) {
+            if (contentDecoderMap != null) {
+                final List<String> encodings = new ArrayList<>(contentDecoderMap.keySet());
+                final RegistryBuilder<AsyncContentDecoderFactory> b2 = RegistryBuilder.create();
+                for (final Map.Entry<String, AsyncContentDecoderFactory> entry : contentDecoderMap.entrySet()) {
+                    b2.register(entry.getKey(), entry.getValue());
+                }
+                execChainDefinition.addFirst(
+                        new ContentCompressionAsyncExec(encodings, b2.build(), true),
+                        ChainElements.COMPRESS.name());
+            } else {
+                execChainDefinition.addFirst(
+                        new ContentCompressionAsyncExec(true),
+                        ChainElements.COMPRESS.name());
+            }
+        }
+
         // Add request retry executor, if not disabled
         if (!automaticRetriesDisabled) {
             HttpRequestRetryHandler retryHandlerCopy = this.retryHandler;
@@ -715,7 +790,8 @@ public AsyncPushConsumer create(final HttpRequest request, final HttpContext con
 
                 },
                 h2Config != null ? h2Config : H2Config.DEFAULT,
-                charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT);
+                charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT,
+                wireLogConfig);
         final DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(
                 ioEventHandlerFactory,
                 ioReactorConfig != null ? ioReactorConfig : IOReactorConfig.DEFAULT,
@@ -30,6 +30,7 @@
 import java.io.IOException;
 import java.util.List;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.impl.ConnPoolSupport;
 import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpConnection;
@@ -62,23 +63,36 @@ class H2AsyncClientEventHandlerFactory implements IOEventHandlerFactory {
     private final HandlerFactory<AsyncPushConsumer> exchangeHandlerFactory;
     private final H2Config h2Config;
     private final CharCodingConfig charCodingConfig;
+    private final WireLogConfig wireLogConfig;
 
     H2AsyncClientEventHandlerFactory(
             final HttpProcessor httpProcessor,
             final HandlerFactory<AsyncPushConsumer> exchangeHandlerFactory,
             final H2Config h2Config,
-            final CharCodingConfig charCodingConfig) {
+            final CharCodingConfig charCodingConfig,
+            final WireLogConfig wireLogConfig) {
         this.httpProcessor = Args.notNull(httpProcessor, "HTTP processor");
         this.exchangeHandlerFactory = exchangeHandlerFactory;
         this.h2Config = h2Config != null ? h2Config : H2Config.DEFAULT;
         this.charCodingConfig = charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT;
+        this.wireLogConfig = wireLogConfig;
+    }
+
+    H2AsyncClientEventHandlerFactory(
+            final HttpProcessor httpProcessor,
+            final HandlerFactory<AsyncPushConsumer> exchangeHandlerFactory,
+            final H2Config h2Config,
+            final CharCodingConfig charCodingConfig) {
+        this(httpProcessor, exchangeHandlerFactory, h2Config, charCodingConfig, null);
     }
 
     @Override
     public IOEventHandler createHandler(final ProtocolIOSession ioSession, final Object attachment) {
         final Logger sessionLog = LoggerFactory.getLogger(ioSession.getClass());
+        final boolean wireLogged = LoggingIOSession.isWireLogged(
+                ioSession, ConnPoolSupport.getId(ioSession), wireLog, wireLogConfig);
         if (sessionLog.isDebugEnabled()
-                || wireLog.isDebugEnabled()
+                || wireLogged
                 || headerLog.isDebugEnabled()
                 || frameLog.isDebugEnabled()
                 || framePayloadLog.isDebugEnabled()
@@ -172,7 +186,7 @@ public void onOutputFlowControl(final HttpConnection connection, final int strea
                         }
 
                     });
-            final LoggingIOSession loggingIOSession = new LoggingIOSession(ioSession, id, sessionLog, wireLog);
+            final LoggingIOSession loggingIOSession = new LoggingIOSession(ioSession, id, sessionLog, wireLogged ? wireLog : null, wireLogConfig);
             return new H2OnlyClientProtocolNegotiator(loggingIOSession, http2StreamHandlerFactory, false);
         }
         final ClientH2StreamMultiplexerFactory http2StreamHandlerFactory = new ClientH2StreamMultiplexerFactory(
@@ -1,12 +1,15 @@
 package org.apache.hc.client5.http.impl.async;
 
 import org.apache.hc.client5.http.*;
+import org.apache.hc.client5.http.async.AsyncContentDecoderFactory;
 import org.apache.hc.client5.http.async.AsyncExecChainHandler;
 import org.apache.hc.client5.http.auth.AuthSchemeProvider;
 import org.apache.hc.client5.http.auth.AuthSchemes;
 import org.apache.hc.client5.http.auth.CredentialsProvider;
 import org.apache.hc.client5.http.auth.KerberosConfig;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.CookieSpecProvider;
 import org.apache.hc.client5.http.cookie.CookieStore;
@@ -49,8 +52,10 @@
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -138,6 +143,7 @@ private ExecInterceptorEntry(
 
     private HttpVersionPolicy versionPolicy;
     private AsyncClientConnectionManager connManager;
+    private DnsResolver dnsResolver;
     private boolean connManagerShared;
     private IOReactorConfig ioReactorConfig;
     private Http1Config h1Config;
@@ -156,11 +162,15 @@ private ExecInterceptorEntry(
     private HttpRoutePlanner routePlanner;
     private RedirectStrategy redirectStrategy;
     private HttpRequestRetryHandler retryHandler;
+    private AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
 
     private ConnectionReuseStrategy reuseStrategy;
 
     private Lookup<AuthSchemeProvider> authSchemeRegistry;
     private Lookup<CookieSpecProvider> cookieSpecRegistry;
+    private LinkedHashMap<String, AsyncContentDecoderFactory> contentDecoderMap;
+    private RequestCompressionConfig requestCompressionConfig;
+    private WireLogConfig wireLogConfig;
     private CookieStore cookieStore;
     private CredentialsProvider credentialsProvider;
 
@@ -175,6 +185,7 @@ private ExecInterceptorEntry(
     private boolean systemProperties;
     private boolean automaticRetriesDisabled;
     private boolean redirectHandlingDisabled;
+    private boolean contentCompressionDisabled;
     private boolean cookieManagementDisabled;
     private boolean authCachingDisabled;
     private boolean connectionStateDisabled;
@@ -223,6 +234,21 @@ public final HttpAsyncClientBuilder setConnectionManager(final AsyncClientConnec
         return this;
     }
 
+    /**
+     * Assigns {@link DnsResolver} instance used by the default connection manager,
+     * for instance a {@link CachingDnsResolver}.
+     * <p>
+     * Please note this value has no effect if a connection manager is
+     * explicitly assigned with {@link #setConnectionManager}.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public final HttpAsyncClientBuilder setDnsResolver(final DnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+        return this;
+    }
+
     /**
      * Defines the connection manager is to be shared by multiple
      * client instances.
@@ -437,6 +463,19 @@ public HttpAsyncClientBuilder setRedirectStrategy(final RedirectStrategy redirec
         return this;
     }
 
+    /**
+     * Assigns {@link AdaptiveConcurrencyLimiter} instance used to adjust
+     * per route connection limits based on observed response times.
+     * Response times and backoff signals are observed on established
+     * connections only; failures to connect are not reported to the limiter.
+     *
+     * @since 5.0
+     */
+    public final HttpAsyncClientBuilder setAdaptiveConcurrencyLimiter(final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter) {
+        this.adaptiveConcurrencyLimiter = adaptiveConcurrencyLimiter;
+        return this;
+    }
+
     /**
      * Assigns {@link SchemePortResolver} instance.
      */
@@ -518,6 +557,41 @@ public final HttpAsyncClientBuilder setDefaultCookieSpecRegistry(final Lookup<Co
         return this;
     }
 
+    /**
+     * Assigns {@link WireLogConfig} selecting connections whose wire content gets
+     * logged, provided the {@code org.apache.hc.client5.http.wire} logger is enabled
+     * at the {@code DEBUG} level. Connections that are not selected are not
+     * instrumented at all.
+     *
+     * @since 5.0
+     */
+    public final HttpAsyncClientBuilder setWireLogConfig(final WireLogConfig wireLogConfig) {
+        this.wireLogConfig = wireLogConfig;
+        return this;
+    }
+
+    /**
+     * Enables automatic compression of request content matching the given
+     * {@link RequestCompressionConfig}. Supported content codings are
+     * {@code gzip} and {@code deflate}. Request content is not compressed by default.
+     *
+     * @since 5.0
+     */
+    public final HttpAsyncClientBuilder setRequestCompressionConfig(final RequestCompressionConfig requestCompressionConfig) {
+        this.requestCompressionConfig = requestCompressionConfig;
+        return this;
+    }
+
+    /**
+     * Assigns a map of {@link AsyncContentDecoderFactory}s to be used
+     * for automatic content decompression.
+     */
+    public final HttpAsyncClientBuilder setContentDecoderRegistry(
+            final LinkedHashMap<String, AsyncContentDecoderFactory> contentDecoderMap) {
+        this.contentDecoderMap = contentDecoderMap;
+        return this;
+    }
+
     /**
      * Assigns default {@link CookieStore} instance which will be used for
      * request execution if not explicitly set in the client execution context.
@@ -570,6 +644,14 @@ public final HttpAsyncClientBuilder disableAutomaticRetries() {
         return this;
     }
 
+    /**
+     * Disables automatic content decompression.
+     */
+    public final HttpAsyncClientBuilder disableContentCompression() {
+        contentCompressionDisabled = true;
+        return this;
+    }
+
     /**
      * Disables state (cookie) management.
      */
@@ -654,7 +736,9 @@ protected void addCloseable(final Closeable closeable) {
     public CloseableHttpAsyncClient build() {
         AsyncClientConnectionManager connManagerCopy = this.connManager;
         if (connManagerCopy == null) {
-            connManagerCopy = PoolingAsyncClientConnectionManagerBuilder.create().build();
+            connManagerCopy = PoolingAsyncClientConnectionManagerBuilder.create()
+                    .setDnsResolver(dnsResolver)
+                    .build();
         }
 
         ConnectionKeepAliveStrategy keepAliveStrategyCopy = this.keepAliveStrategy;
@@ -702,6 +786,14 @@ public CloseableHttpAsyncClient build() {
                         proxyAuthStrategyCopy),
                 ChainElements.CONNECT.name());
 
+        // Optionally, add adaptive concurrency executor right before the main transport
+        // so that time spent waiting for a connection is not taken for server latency
+        if (this.adaptiveConcurrencyLimiter != null) {
+            execChainDefinition.addBefore(ChainElements.MAIN_TRANSPORT.name(),
+                    new AsyncAdaptiveConcurrencyExec(this.adaptiveConcurrencyLimiter),
+                    ChainElements.ADAPTIVE_CONCURRENCY.name());
+        }
+
         final HttpProcessorBuilder b = HttpProcessorBuilder.create();
         if (requestInterceptors != null) {
             for (final RequestInterceptorEntry entry : requestInterceptors) {
@@ -750,6 +842,29 @@ public CloseableHttpAsyncClient build() {
                 new AsyncProtocolExec(httpProcessor, targetAuthStrategyCopy, proxyAuthStrategyCopy),
                 ChainElements.PROTOCOL.name());
 
+        if (requestCompressionConfig != null) {
+            execChainDefinition.addBefore(ChainElements.PROTOCOL.name(),
+                    new RequestCompressionAsyncExec(requestCompressionConfig),
+                    ChainElements.COMPRESS_REQUEST.name());
+        }
+
+        if (!contentCompressionDisabled) {
+            if (contentDecoderMap != null) {
+                final List<String> encodings = new ArrayList<>(contentDecoderMap.keySet());
+                final RegistryBuilder<AsyncContentDecoderFactory> b2 = RegistryBuilder.create();
+                for (final Map.Entry<String, AsyncContentDecoderFactory> entry : contentDecoderMap.entrySet()) {
+                    b2.register(entry.getKey(), entry.getValue());
+                }
+                execChainDefinition.addFirst(
+                        new ContentCompressionAsyncExec(encodings, b2.build(), true),
+                        ChainElements.COMPRESS.name());
+            } else {
+                execChainDefinition.addFirst(
+                        new ContentCompressionAsyncExec(true),
+                        ChainElements.COMPRESS.name());
+            }
+        }
+
         // Add request retry executor, if not disabled
         if (!automaticRetriesDisabled) {
             HttpRequestRetryHandler retryHandlerCopy = this.retryHandler;
@@ -850,7 +965,8 @@ public AsyncPushConsumer create(final HttpRequest request, final HttpContext con
                 h2Config != null ? h2Config : H2Config.DEFAULT,
                 h1Config != null ? h1Config : Http1Config.DEFAULT,
                 charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT,
-                reuseStrategyCopy);
+                reuseStrategyCopy,
+                wireLogConfig);
         final DefaultConnectingIOReactor ioReactor = new DefaultConnectingIOReactor(
                 ioEventHandlerFactory,
                 ioReactorConfig != null ? ioReactorConfig : IOReactorConfig.DEFAULT,
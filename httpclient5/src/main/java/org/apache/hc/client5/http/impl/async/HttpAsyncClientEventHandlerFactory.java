@@ -31,6 +31,7 @@
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.impl.ConnPoolSupport;
 import org.apache.hc.core5.http.ConnectionReuseStrategy;
 import org.apache.hc.core5.http.Header;
@@ -80,6 +81,7 @@ class HttpAsyncClientEventHandlerFactory implements IOEventHandlerFactory {
     private final H2Config h2Config;
     private final Http1Config h1Config;
     private final CharCodingConfig charCodingConfig;
+    private final WireLogConfig wireLogConfig;
     private final ConnectionReuseStrategy http1ConnectionReuseStrategy;
     private final NHttpMessageParserFactory<HttpResponse> http1ResponseParserFactory;
     private final NHttpMessageWriterFactory<HttpRequest> http1RequestWriterFactory;
@@ -91,7 +93,8 @@ class HttpAsyncClientEventHandlerFactory implements IOEventHandlerFactory {
             final H2Config h2Config,
             final Http1Config h1Config,
             final CharCodingConfig charCodingConfig,
-            final ConnectionReuseStrategy connectionReuseStrategy) {
+            final ConnectionReuseStrategy connectionReuseStrategy,
+            final WireLogConfig wireLogConfig) {
         this.httpProcessor = Args.notNull(httpProcessor, "HTTP processor");
         this.exchangeHandlerFactory = exchangeHandlerFactory;
         this.versionPolicy = versionPolicy != null ? versionPolicy : HttpVersionPolicy.NEGOTIATE;
@@ -101,14 +104,28 @@ class HttpAsyncClientEventHandlerFactory implements IOEventHandlerFactory {
         this.http1ConnectionReuseStrategy = connectionReuseStrategy != null ? connectionReuseStrategy : DefaultConnectionReuseStrategy.INSTANCE;
         this.http1ResponseParserFactory = new DefaultHttpResponseParserFactory(h1Config);
         this.http1RequestWriterFactory = DefaultHttpRequestWriterFactory.INSTANCE;
+        this.wireLogConfig = wireLogConfig;
+    }
+
+    HttpAsyncClientEventHandlerFactory(
+            final HttpProcessor httpProcessor,
+            final HandlerFactory<AsyncPushConsumer> exchangeHandlerFactory,
+            final HttpVersionPolicy versionPolicy,
+            final H2Config h2Config,
+            final Http1Config h1Config,
+            final CharCodingConfig charCodingConfig,
+            final ConnectionReuseStrategy connectionReuseStrategy) {
+        this(httpProcessor, exchangeHandlerFactory, versionPolicy, h2Config, h1Config, charCodingConfig, connectionReuseStrategy, null);
     }
 
     @Override
     public IOEventHandler createHandler(final ProtocolIOSession ioSession, final Object attachment) {
         final Logger sessionLog = LoggerFactory.getLogger(ioSession.getClass());
+        final boolean wireLogged = LoggingIOSession.isWireLogged(
+                ioSession, ConnPoolSupport.getId(ioSession), wireLog, wireLogConfig);
         if (sessionLog.isDebugEnabled()
                 || streamLog.isDebugEnabled()
-                || wireLog.isDebugEnabled()
+                || wireLogged
                 || headerLog.isDebugEnabled()
                 || frameLog.isDebugEnabled()
                 || framePayloadLog.isDebugEnabled()
@@ -243,7 +260,7 @@ public void onOutputFlowControl(final HttpConnection connection, final int strea
                         }
 
                     });
-            final LoggingIOSession loggingIOSession = new LoggingIOSession(ioSession, id, sessionLog, wireLog);
+            final LoggingIOSession loggingIOSession = new LoggingIOSession(ioSession, id, sessionLog, wireLogged ? wireLog : null, wireLogConfig);
             return new ClientHttpProtocolNegotiator(
                             loggingIOSession,
                             http1StreamHandlerFactory,
@@ -37,6 +37,7 @@
 import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.cookie.CookieSpecProvider;
 import org.apache.hc.client5.http.cookie.CookieStore;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
 import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.routing.HttpRoutePlanner;
@@ -94,6 +95,13 @@ public final class InternalHttpAsyncClient extends InternalAbstractHttpAsyncClie
         this.versionPolicy = versionPolicy;
     }
 
+    @Override
+    void onStart() {
+        if (connmgr instanceof PoolingAsyncClientConnectionManager) {
+            ((PoolingAsyncClientConnectionManager) connmgr).ensureMinIdle(getConnectionInitiator());
+        }
+    }
+
     @Override
     AsyncExecRuntime crerateAsyncExecRuntime(final HandlerFactory<AsyncPushConsumer> pushHandlerFactory) {
         return new InternalHttpAsyncExecRuntime(log, connmgr, getConnectionInitiator(), pushHandlerFactory, versionPolicy);
@@ -28,6 +28,7 @@
 package org.apache.hc.client5.http.impl.async;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
@@ -36,6 +37,7 @@
 
 import javax.net.ssl.SSLContext;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.impl.Wire;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.net.NamedEndpoint;
@@ -57,19 +59,50 @@ class LoggingIOSession implements ProtocolIOSession {
     private final ProtocolIOSession session;
     private final ByteChannel channel;
 
-    public LoggingIOSession(final ProtocolIOSession session, final String id, final Logger log, final Logger wireLog) {
+    public LoggingIOSession(
+            final ProtocolIOSession session,
+            final String id,
+            final Logger log,
+            final Logger wireLog,
+            final WireLogConfig wireLogConfig) {
         super();
         this.session = session;
         this.id = id;
         this.log = log;
-        this.wireLog = new Wire(wireLog, this.id);
+        this.wireLog = wireLog != null ? new Wire(wireLog, this.id, wireLogConfig) : null;
         this.channel = new LoggingByteChannel();
     }
 
+    public LoggingIOSession(final ProtocolIOSession session, final String id, final Logger log, final Logger wireLog) {
+        this(session, id, log, wireLog, null);
+    }
+
     public LoggingIOSession(final ProtocolIOSession session, final String id, final Logger log) {
         this(session, id, log, null);
     }
 
+    /**
+     * Determines whether wire content of the given session ought to be logged.
+     */
+    static boolean isWireLogged(
+            final ProtocolIOSession session,
+            final String id,
+            final Logger wireLog,
+            final WireLogConfig wireLogConfig) {
+        if (!wireLog.isDebugEnabled()) {
+            return false;
+        }
+        if (wireLogConfig == null) {
+            return true;
+        }
+        final NamedEndpoint endpoint = session.getInitialEndpoint();
+        final SocketAddress remoteAddress = session.getRemoteAddress();
+        final String address = remoteAddress instanceof InetSocketAddress
+                && ((InetSocketAddress) remoteAddress).getAddress() != null
+                ? ((InetSocketAddress) remoteAddress).getAddress().getHostAddress() : null;
+        return wireLogConfig.isSelected(id, endpoint != null ? endpoint.getHostName() : null, address);
+    }
+
     @Override
     public String getId() {
         return session.getId();
@@ -266,7 +299,7 @@ public int read(final ByteBuffer dst) throws IOException {
             if (log.isDebugEnabled()) {
                 log.debug(id + " " + session + ": " + bytesRead + " bytes read");
             }
-            if (bytesRead > 0 && wireLog.isEnabled()) {
+            if (bytesRead > 0 && wireLog != null && wireLog.isEnabled()) {
                 final ByteBuffer b = dst.duplicate();
                 final int p = b.position();
                 b.limit(p);
@@ -282,7 +315,7 @@ public int write(final ByteBuffer src) throws IOException {
             if (log.isDebugEnabled()) {
                 log.debug(id + " " + session + ": " + byteWritten + " bytes written");
             }
-            if (byteWritten > 0 && wireLog.isEnabled()) {
+            if (byteWritten > 0 && wireLog != null && wireLog.isEnabled()) {
                 final ByteBuffer b = src.duplicate();
                 final int p = b.position();
                 b.limit(p);
@@ -0,0 +1,101 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.async;
+
+import java.io.IOException;
+
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.async.methods.DeflatingAsyncEntityProducer;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Internal;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Request execution handler in the asynchronous request execution chain
+ * that is responsible for automatic request content compression.
+ * <p>
+ * Request entity producers matching the {@link RequestCompressionConfig} get
+ * decorated with {@link DeflatingAsyncEntityProducer}, which compresses content
+ * incrementally as it is being produced. Supported content codings are
+ * {@code gzip} and {@code deflate}.
+ * </p>
+ * <p>
+ * Further responsibilities such as communication with the opposite
+ * endpoint is delegated to the next executor in the request execution
+ * chain.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+@Internal
+public final class RequestCompressionAsyncExec implements AsyncExecChainHandler {
+
+    private final RequestCompressionConfig config;
+    private final boolean gzip;
+
+    public RequestCompressionAsyncExec(final RequestCompressionConfig config) {
+        this.config = config != null ? config : RequestCompressionConfig.DEFAULT;
+        final String contentCoding = this.config.getContentCoding();
+        Args.check("gzip".equals(contentCoding) || "deflate".equals(contentCoding),
+                "Unsupported content coding: %s", contentCoding);
+        this.gzip = "gzip".equals(contentCoding);
+    }
+
+    public RequestCompressionAsyncExec() {
+        this(null);
+    }
+
+    @Override
+    public void execute(
+            final HttpRequest request,
+            final AsyncEntityProducer entityProducer,
+            final AsyncExecChain.Scope scope,
+            final AsyncExecChain chain,
+            final AsyncExecCallback asyncExecCallback) throws HttpException, IOException {
+        Args.notNull(request, "HTTP request");
+        Args.notNull(scope, "Scope");
+
+        if (entityProducer != null
+                && !(entityProducer instanceof DeflatingAsyncEntityProducer)
+                && !request.containsHeader(HttpHeaders.CONTENT_ENCODING)
+                && config.isCompressible(entityProducer)) {
+            chain.proceed(request, new DeflatingAsyncEntityProducer(entityProducer, gzip), scope, asyncExecCallback);
+        } else {
+            chain.proceed(request, entityProducer, scope, asyncExecCallback);
+        }
+    }
+
+}
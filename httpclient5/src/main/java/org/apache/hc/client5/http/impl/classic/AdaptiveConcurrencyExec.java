@@ -0,0 +1,105 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.classic;
+
+import java.io.IOException;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.ConnectionBackoffStrategy;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.impl.AdaptiveConcurrencyLimiter;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Experimental;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Request execution handler in the classic request execution chain
+ * that measures response times of requests executed over established
+ * connections and reports them to an {@link AdaptiveConcurrencyLimiter}.
+ * <p>
+ * Further responsibilities such as communication with the opposite
+ * endpoint is delegated to the next executor in the request execution
+ * chain.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+@Experimental
+public final class AdaptiveConcurrencyExec implements ExecChainHandler {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ConnectionBackoffStrategy connectionBackoffStrategy;
+
+    public AdaptiveConcurrencyExec(
+            final AdaptiveConcurrencyLimiter limiter,
+            final ConnectionBackoffStrategy connectionBackoffStrategy) {
+        super();
+        this.limiter = Args.notNull(limiter, "Adaptive concurrency limiter");
+        this.connectionBackoffStrategy = Args.notNull(connectionBackoffStrategy, "Connection backoff strategy");
+    }
+
+    public AdaptiveConcurrencyExec(final AdaptiveConcurrencyLimiter limiter) {
+        this(limiter, new DefaultBackoffStrategy());
+    }
+
+    @Override
+    public ClassicHttpResponse execute(
+            final ClassicHttpRequest request,
+            final ExecChain.Scope scope,
+            final ExecChain chain) throws IOException, HttpException {
+        Args.notNull(request, "HTTP request");
+        Args.notNull(scope, "Scope");
+        final HttpRoute route = scope.route;
+
+        this.limiter.requestStarted(route);
+        final long start = System.nanoTime();
+        final ClassicHttpResponse response;
+        try {
+            response = chain.proceed(request, scope);
+        } catch (final IOException | HttpException | RuntimeException ex) {
+            if (this.connectionBackoffStrategy.shouldBackoff(ex)) {
+                this.limiter.requestFailed(route);
+            } else {
+                this.limiter.requestIgnored(route);
+            }
+            throw ex;
+        }
+        if (this.connectionBackoffStrategy.shouldBackoff(response)) {
+            this.limiter.requestFailed(route);
+        } else {
+            this.limiter.requestCompleted(route, System.nanoTime() - start);
+        }
+        return response;
+    }
+
+}
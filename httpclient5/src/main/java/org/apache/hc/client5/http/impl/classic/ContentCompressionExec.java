@@ -28,16 +28,20 @@
 package org.apache.hc.client5.http.impl.classic;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
 import org.apache.hc.client5.http.classic.ExecChain;
 import org.apache.hc.client5.http.classic.ExecChainHandler;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.entity.BrotliInputStreamFactory;
 import org.apache.hc.client5.http.entity.DecompressingEntity;
 import org.apache.hc.client5.http.entity.DeflateInputStreamFactory;
 import org.apache.hc.client5.http.entity.GZIPInputStreamFactory;
 import org.apache.hc.client5.http.entity.InputStreamFactory;
+import org.apache.hc.client5.http.entity.ZstdInputStreamFactory;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.Internal;
@@ -79,16 +83,36 @@ public ContentCompressionExec(
             final Lookup<InputStreamFactory> decoderRegistry,
             final boolean ignoreUnknown) {
         this.acceptEncoding = acceptEncoding != null ? acceptEncoding.toArray(
-                new String[acceptEncoding.size()]) : new String[] {"gzip", "x-gzip", "deflate"};
-        this.decoderRegistry = decoderRegistry != null ? decoderRegistry :
-                RegistryBuilder.<InputStreamFactory>create()
-                        .register("gzip", GZIPInputStreamFactory.getInstance())
-                        .register("x-gzip", GZIPInputStreamFactory.getInstance())
-                        .register("deflate", DeflateInputStreamFactory.getInstance())
-                        .build();
+                new String[acceptEncoding.size()]) : defaultAcceptEncoding();
+        this.decoderRegistry = decoderRegistry != null ? decoderRegistry : defaultDecoderRegistry();
         this.ignoreUnknown = ignoreUnknown;
     }
 
+    private static String[] defaultAcceptEncoding() {
+        final List<String> encodings = new ArrayList<>(Arrays.asList("gzip", "x-gzip", "deflate"));
+        if (BrotliInputStreamFactory.isAvailable()) {
+            encodings.add("br");
+        }
+        if (ZstdInputStreamFactory.isAvailable()) {
+            encodings.add("zstd");
+        }
+        return encodings.toArray(new String[encodings.size()]);
+    }
+
+    private static Lookup<InputStreamFactory> defaultDecoderRegistry() {
+        final RegistryBuilder<InputStreamFactory> builder = RegistryBuilder.<InputStreamFactory>create()
+                .register("gzip", GZIPInputStreamFactory.getInstance())
+                .register("x-gzip", GZIPInputStreamFactory.getInstance())
+                .register("deflate", DeflateInputStreamFactory.getInstance());
+        if (BrotliInputStreamFactory.isAvailable()) {
+            builder.register("br", BrotliInputStreamFactory.getInstance());
+        }
+        if (ZstdInputStreamFactory.isAvailable()) {
+            builder.register("zstd", ZstdInputStreamFactory.getInstance());
+        }
+        return builder.build();
+    }
+
     public ContentCompressionExec(final boolean ignoreUnknown) {
         this(null, null, ignoreUnknown);
     }
@@ -100,6 +124,9 @@ public ContentCompressionExec(final boolean ignoreUnknown) {
      * <li>gzip - see {@link java.util.zip.GZIPInputStream}</li>
      * <li>deflate - see {@link org.apache.hc.client5.http.entity.DeflateInputStream}</li>
      * </ul>
+     * as well as {@code br} and {@code zstd} compressed entities if the respective
+     * decoder libraries are available (see {@link BrotliInputStreamFactory} and
+     * {@link ZstdInputStreamFactory}).
      */
     public ContentCompressionExec() {
         this(null, null, true);
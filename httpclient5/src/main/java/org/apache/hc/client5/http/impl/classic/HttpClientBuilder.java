@@ -8,7 +8,9 @@
 import org.apache.hc.client5.http.classic.BackoffManager;
 import org.apache.hc.client5.http.classic.ConnectionBackoffStrategy;
 import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.CookieSpecProvider;
 import org.apache.hc.client5.http.cookie.CookieStore;
@@ -120,6 +122,7 @@ private ExecInterceptorEntry(
 
     private HttpRequestExecutor requestExec;
     private HttpClientConnectionManager connManager;
+    private DnsResolver dnsResolver;
     private boolean connManagerShared;
     private SchemePortResolver schemePortResolver;
     private ConnectionReuseStrategy reuseStrategy;
@@ -137,10 +140,13 @@ private ExecInterceptorEntry(
     private RedirectStrategy redirectStrategy;
     private ConnectionBackoffStrategy connectionBackoffStrategy;
     private BackoffManager backoffManager;
+    private AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter;
     private ServiceUnavailableRetryStrategy serviceUnavailStrategy;
     private Lookup<AuthSchemeProvider> authSchemeRegistry;
     private Lookup<CookieSpecProvider> cookieSpecRegistry;
     private LinkedHashMap<String, InputStreamFactory> contentDecoderMap;
+    private RequestCompressionConfig requestCompressionConfig;
+    private WireLogConfig wireLogConfig;
     private CookieStore cookieStore;
     private CredentialsProvider credentialsProvider;
     private String userAgent;
@@ -187,6 +193,21 @@ public final HttpClientBuilder setConnectionManager(
         return this;
     }
 
+    /**
+     * Assigns {@link DnsResolver} instance used by the default connection manager,
+     * for instance a {@link CachingDnsResolver}.
+     * <p>
+     * Please note this value has no effect if a connection manager is
+     * explicitly assigned with {@link #setConnectionManager}.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setDnsResolver(final DnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+        return this;
+    }
+
     /**
      * Defines the connection manager is to be shared by multiple
      * client instances.
@@ -498,6 +519,21 @@ public final HttpClientBuilder setBackoffManager(final BackoffManager backoffMan
         return this;
     }
 
+    /**
+     * Assigns {@link AdaptiveConcurrencyLimiter} instance used to adjust
+     * per route connection limits based on observed response times.
+     * Backoff signals are determined by the {@link ConnectionBackoffStrategy}
+     * if set or {@link DefaultBackoffStrategy} otherwise. Response times and
+     * backoff signals are observed on established connections only; failures
+     * to connect are not reported to the limiter.
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setAdaptiveConcurrencyLimiter(final AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter) {
+        this.adaptiveConcurrencyLimiter = adaptiveConcurrencyLimiter;
+        return this;
+    }
+
     /**
      * Assigns {@link ServiceUnavailableRetryStrategy} instance.
      */
@@ -552,6 +588,32 @@ public final HttpClientBuilder setDefaultCookieSpecRegistry(
     }
 
 
+    /**
+     * Assigns {@link WireLogConfig} selecting connections whose wire content gets
+     * logged, provided the {@code org.apache.hc.client5.http.wire} logger is enabled
+     * at the {@code DEBUG} level. Only applies to the default connection manager;
+     * see {@link PoolingHttpClientConnectionManagerBuilder#setWireLogConfig(WireLogConfig)}.
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setWireLogConfig(final WireLogConfig wireLogConfig) {
+        this.wireLogConfig = wireLogConfig;
+        return this;
+    }
+
+    /**
+     * Enables automatic compression of request content matching the given
+     * {@link RequestCompressionConfig}. Supported content codings are
+     * {@code gzip} and {@code deflate} as well as {@code br} and {@code zstd}
+     * if the respective encoder libraries are available. Request content is not compressed by default.
+     *
+     * @since 5.0
+     */
+    public final HttpClientBuilder setRequestCompressionConfig(final RequestCompressionConfig requestCompressionConfig) {
+        this.requestCompressionConfig = requestCompressionConfig;
+        return this;
+    }
+
     /**
      * Assigns a map of {@link org.apache.hc.client5.http.entity.InputStreamFactory}s
      * to be used for automatic content decompression.
@@ -668,7 +730,10 @@ public CloseableHttpClient build() {
         }
         HttpClientConnectionManager connManagerCopy = this.connManager;
         if (connManagerCopy == null) {
-            connManagerCopy = PoolingHttpClientConnectionManagerBuilder.create().build();
+            connManagerCopy = PoolingHttpClientConnectionManagerBuilder.create()
+                    .setDnsResolver(dnsResolver)
+                    .setWireLogConfig(wireLogConfig)
+                    .build();
         }
         ConnectionReuseStrategy reuseStrategyCopy = this.reuseStrategy;
         if (reuseStrategyCopy == null) {
@@ -784,6 +849,12 @@ public boolean keepAlive(
         execChainDefinition.addFirst(
                 new ProtocolExec(httpProcessor, targetAuthStrategyCopy, proxyAuthStrategyCopy),
                 ChainElements.PROTOCOL.name());
+
+        if (requestCompressionConfig != null) {
+            execChainDefinition.addBefore(ChainElements.PROTOCOL.name(),
+                    new RequestCompressionExec(requestCompressionConfig),
+                    ChainElements.COMPRESS_REQUEST.name());
+        }
         // Add request retry executor, if not disabled
         if (!automaticRetriesDisabled) {
             HttpRequestRetryHandler retryHandlerCopy = this.retryHandler;
@@ -854,6 +925,15 @@ public boolean keepAlive(
                     ChainElements.BACK_OFF.name());
         }
 
+        // Optionally, add adaptive concurrency executor right before the main transport
+        // so that time spent waiting for a connection is not taken for server latency
+        if (this.adaptiveConcurrencyLimiter != null) {
+            execChainDefinition.addBefore(ChainElements.MAIN_TRANSPORT.name(),
+                    new AdaptiveConcurrencyExec(this.adaptiveConcurrencyLimiter,
+                            this.connectionBackoffStrategy != null ? this.connectionBackoffStrategy : new DefaultBackoffStrategy()),
+                    ChainElements.ADAPTIVE_CONCURRENCY.name());
+        }
+
         if (execInterceptors != null) {
             for (final ExecInterceptorEntry entry : execInterceptors) {
                 switch (entry.postion) {
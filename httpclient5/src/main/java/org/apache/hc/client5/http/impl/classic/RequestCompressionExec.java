@@ -0,0 +1,121 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.classic;
+
+import java.io.IOException;
+
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
+import org.apache.hc.client5.http.entity.BrotliCompressingEntity;
+import org.apache.hc.client5.http.entity.DeflateCompressingEntity;
+import org.apache.hc.client5.http.entity.GzipCompressingEntity;
+import org.apache.hc.client5.http.entity.ZstdCompressingEntity;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.Internal;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.util.Args;
+
+/**
+ * Request execution handler in the classic request execution chain
+ * that is responsible for automatic request content compression.
+ * <p>
+ * Request entities matching the {@link RequestCompressionConfig} get wrapped
+ * with an entity that compresses content as it is being written out.
+ * Supported content codings are {@code gzip} and {@code deflate} as well as
+ * {@code br} and {@code zstd} if the respective encoder libraries are available.
+ * </p>
+ * <p>
+ * Further responsibilities such as communication with the opposite
+ * endpoint is delegated to the next executor in the request execution
+ * chain.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.STATELESS)
+@Internal
+public final class RequestCompressionExec implements ExecChainHandler {
+
+    private final RequestCompressionConfig config;
+
+    public RequestCompressionExec(final RequestCompressionConfig config) {
+        this.config = config != null ? config : RequestCompressionConfig.DEFAULT;
+        final String contentCoding = this.config.getContentCoding();
+        switch (contentCoding) {
+            case "gzip":
+            case "deflate":
+                break;
+            case "br":
+                Args.check(BrotliCompressingEntity.isAvailable(), "Brotli encoder is not available");
+                break;
+            case "zstd":
+                Args.check(ZstdCompressingEntity.isAvailable(), "Zstandard encoder is not available");
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported content coding: " + contentCoding);
+        }
+    }
+
+    public RequestCompressionExec() {
+        this(null);
+    }
+
+    @Override
+    public ClassicHttpResponse execute(
+            final ClassicHttpRequest request,
+            final ExecChain.Scope scope,
+            final ExecChain chain) throws IOException, HttpException {
+        Args.notNull(request, "HTTP request");
+        Args.notNull(scope, "Scope");
+
+        final HttpEntity entity = request.getEntity();
+        if (entity != null && !request.containsHeader(HttpHeaders.CONTENT_ENCODING) && config.isCompressible(entity)) {
+            request.setEntity(compress(entity));
+        }
+        return chain.proceed(request, scope);
+    }
+
+    private HttpEntity compress(final HttpEntity entity) {
+        switch (config.getContentCoding()) {
+            case "deflate":
+                return new DeflateCompressingEntity(entity);
+            case "br":
+                return new BrotliCompressingEntity(entity);
+            case "zstd":
+                return new ZstdCompressingEntity(entity);
+            default:
+                return new GzipCompressingEntity(entity);
+        }
+    }
+
+}
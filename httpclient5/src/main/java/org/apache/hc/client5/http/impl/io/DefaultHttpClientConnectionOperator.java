@@ -1,13 +1,16 @@
 package org.apache.hc.client5.http.impl.io;
 
 import org.apache.hc.client5.http.*;
+import org.apache.hc.client5.http.impl.AddressLoadBalancer;
 import org.apache.hc.client5.http.impl.ConnPoolSupport;
 import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.HappyEyeballsSupport;
 import org.apache.hc.client5.http.io.HttpClientConnectionOperator;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
+import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.Internal;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
@@ -22,7 +25,17 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+import javax.net.ssl.SSLSocket;
 
 /**
  * Default implementation of {@link HttpClientConnectionOperator} used as default in Http client,
@@ -42,11 +55,25 @@ public class DefaultHttpClientConnectionOperator implements HttpClientConnection
     private final Lookup<ConnectionSocketFactory> socketFactoryRegistry;
     private final SchemePortResolver schemePortResolver;
     private final DnsResolver dnsResolver;
+    private final TimeValue connectionAttemptDelay;
+    private final AddressLoadBalancer addressLoadBalancer;
 
+    /**
+     * @param connectionAttemptDelay if not {@code null}, enables racing of connection attempts
+     *   to multiple addresses as described in RFC 8305 (Happy Eyeballs), starting the next
+     *   attempt after the given delay or as soon as the previous one fails. Only the TCP
+     *   connects are raced; TLS is negotiated with the winning address only.
+     * @param addressLoadBalancer if not {@code null}, determines the order in which resolved
+     *   addresses are tried and tracks the outcome of connection attempts.
+     *
+     * @since 5.0
+     */
     public DefaultHttpClientConnectionOperator(
             final Lookup<ConnectionSocketFactory> socketFactoryRegistry,
             final SchemePortResolver schemePortResolver,
-            final DnsResolver dnsResolver) {
+            final DnsResolver dnsResolver,
+            final TimeValue connectionAttemptDelay,
+            final AddressLoadBalancer addressLoadBalancer) {
         super();
         Args.notNull(socketFactoryRegistry, "Socket factory registry");
         this.socketFactoryRegistry = socketFactoryRegistry;
@@ -54,6 +81,26 @@ public DefaultHttpClientConnectionOperator(
                 DefaultSchemePortResolver.INSTANCE;
         this.dnsResolver = dnsResolver != null ? dnsResolver :
                 SystemDefaultDnsResolver.INSTANCE;
+        this.connectionAttemptDelay = connectionAttemptDelay;
+        this.addressLoadBalancer = addressLoadBalancer;
+    }
+
+    /**
+     * @since 5.0
+     */
+    public DefaultHttpClientConnectionOperator(
+            final Lookup<ConnectionSocketFactory> socketFactoryRegistry,
+            final SchemePortResolver schemePortResolver,
+            final DnsResolver dnsResolver,
+            final TimeValue connectionAttemptDelay) {
+        this(socketFactoryRegistry, schemePortResolver, dnsResolver, connectionAttemptDelay, null);
+    }
+
+    public DefaultHttpClientConnectionOperator(
+            final Lookup<ConnectionSocketFactory> socketFactoryRegistry,
+            final SchemePortResolver schemePortResolver,
+            final DnsResolver dnsResolver) {
+        this(socketFactoryRegistry, schemePortResolver, dnsResolver, null);
     }
 
     @SuppressWarnings("unchecked")
@@ -83,29 +130,26 @@ public void connect(
         if (sf == null) {
             throw new UnsupportedSchemeException(host.getSchemeName() + " protocol is not supported");
         }
-        final InetAddress[] addresses = host.getAddress() != null ?
-                new InetAddress[]{host.getAddress()} : this.dnsResolver.resolve(host.getHostName());
         final int port = this.schemePortResolver.resolve(host);
+        InetAddress[] addresses;
+        if (host.getAddress() != null) {
+            addresses = new InetAddress[]{host.getAddress()};
+        } else {
+            addresses = this.dnsResolver.resolve(host.getHostName());
+            if (this.addressLoadBalancer != null) {
+                addresses = this.addressLoadBalancer.select(host.getHostName(), addresses, port);
+            }
+        }
+        if (this.connectionAttemptDelay != null && addresses.length > 1) {
+            connectRacing(conn, sf, host, HappyEyeballsSupport.interleave(addresses), port,
+                    localAddress, connectTimeout, socketConfig, context);
+            return;
+        }
         for (int i = 0; i < addresses.length; i++) {
             final InetAddress address = addresses[i];
             final boolean last = i == addresses.length - 1;
 
-            Socket sock = sf.createSocket(context);
-            sock.setSoTimeout(socketConfig.getSoTimeout().toMillisIntBound());
-            sock.setReuseAddress(socketConfig.isSoReuseAddress());
-            sock.setTcpNoDelay(socketConfig.isTcpNoDelay());
-            sock.setKeepAlive(socketConfig.isSoKeepAlive());
-            if (socketConfig.getRcvBufSize() > 0) {
-                sock.setReceiveBufferSize(socketConfig.getRcvBufSize());
-            }
-            if (socketConfig.getSndBufSize() > 0) {
-                sock.setSendBufferSize(socketConfig.getSndBufSize());
-            }
-
-            final int linger = socketConfig.getSoLinger().toMillisIntBound();
-            if (linger >= 0) {
-                sock.setSoLinger(true, linger);
-            }
+            Socket sock = createSocket(sf, socketConfig, context);
             conn.bind(sock);
 
             final InetSocketAddress remoteAddress = new InetSocketAddress(address, port);
@@ -118,12 +162,17 @@ public void connect(
                 if (this.log.isDebugEnabled()) {
                     this.log.debug(ConnPoolSupport.getId(conn) + ": connection established " + conn);
                 }
+                if (this.addressLoadBalancer != null) {
+                    this.addressLoadBalancer.connected(remoteAddress, conn);
+                }
                 return;
             } catch (final SocketTimeoutException ex) {
+                reportFailure(remoteAddress);
                 if (last) {
                     throw new ConnectTimeoutException(ex, host, addresses);
                 }
             } catch (final ConnectException ex) {
+                reportFailure(remoteAddress);
                 if (last) {
                     final String msg = ex.getMessage();
                     if ("Connection timed out".equals(msg)) {
@@ -132,6 +181,7 @@ public void connect(
                     throw new HttpHostConnectException(ex, host, addresses);
                 }
             } catch (final NoRouteToHostException ex) {
+                reportFailure(remoteAddress);
                 if (last) {
                     throw ex;
                 }
@@ -143,6 +193,170 @@ public void connect(
         }
     }
 
+    private void reportFailure(final InetSocketAddress remoteAddress) {
+        if (this.addressLoadBalancer != null) {
+            this.addressLoadBalancer.connectFailed(remoteAddress);
+        }
+    }
+
+    private static Socket createSocket(
+            final ConnectionSocketFactory sf,
+            final SocketConfig socketConfig,
+            final HttpContext context) throws IOException {
+        final Socket sock = sf.createSocket(context);
+        sock.setSoTimeout(socketConfig.getSoTimeout().toMillisIntBound());
+        sock.setReuseAddress(socketConfig.isSoReuseAddress());
+        sock.setTcpNoDelay(socketConfig.isTcpNoDelay());
+        sock.setKeepAlive(socketConfig.isSoKeepAlive());
+        if (socketConfig.getRcvBufSize() > 0) {
+            sock.setReceiveBufferSize(socketConfig.getRcvBufSize());
+        }
+        if (socketConfig.getSndBufSize() > 0) {
+            sock.setSendBufferSize(socketConfig.getSndBufSize());
+        }
+
+        final int linger = socketConfig.getSoLinger().toMillisIntBound();
+        if (linger >= 0) {
+            sock.setSoLinger(true, linger);
+        }
+        return sock;
+    }
+
+    private void connectRacing(
+            final ManagedHttpClientConnection conn,
+            final ConnectionSocketFactory sf,
+            final HttpHost host,
+            final InetAddress[] addresses,
+            final int port,
+            final InetSocketAddress localAddress,
+            final TimeValue connectTimeout,
+            final SocketConfig socketConfig,
+            final HttpContext context) throws IOException {
+        final CompletionService<Socket> completionService = new ExecutorCompletionService<>(
+                HappyEyeballsSupport.getConnectExecutor());
+        final List<Future<Socket>> attempts = new ArrayList<>(addresses.length);
+        final List<Socket> sockets = new ArrayList<>(addresses.length);
+        Future<Socket> winner = null;
+        Socket sock = null;
+        InetSocketAddress remoteAddress = null;
+        IOException lastException = null;
+        try {
+            int pending = 0;
+            boolean startNext = true;
+            for (;;) {
+                if (startNext && attempts.size() < addresses.length) {
+                    final Socket attemptSock = createSocket(sf, socketConfig, context);
+                    final InetSocketAddress attemptAddress = new InetSocketAddress(addresses[attempts.size()], port);
+                    // only the TCP connects are raced, TLS is layered on top of the winner
+                    final ConnectionSocketFactory connector = isLayeredAfterConnect(sf, attemptSock)
+                            ? PlainConnectionSocketFactory.INSTANCE : sf;
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug(ConnPoolSupport.getId(conn) + ": connecting to " + attemptAddress);
+                    }
+                    sockets.add(attemptSock);
+                    attempts.add(completionService.submit(new Callable<Socket>() {
+
+                        @Override
+                        public Socket call() throws Exception {
+                            return connector.connectSocket(
+                                    connectTimeout, attemptSock, host, attemptAddress, localAddress, context);
+                        }
+
+                    }));
+                    pending++;
+                    startNext = false;
+                }
+                if (pending == 0) {
+                    break;
+                }
+                final Future<Socket> done;
+                if (attempts.size() < addresses.length) {
+                    done = completionService.poll(
+                            this.connectionAttemptDelay.getDuration(), this.connectionAttemptDelay.getTimeUnit());
+                    if (done == null) {
+                        startNext = true;
+                        continue;
+                    }
+                } else {
+                    done = completionService.take();
+                }
+                pending--;
+                try {
+                    sock = done.get();
+                    winner = done;
+                    remoteAddress = new InetSocketAddress(addresses[attempts.indexOf(done)], port);
+                    conn.bind(sock);
+                    break;
+                } catch (final ExecutionException ex) {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof IOException) {
+                        lastException = (IOException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else {
+                        throw new IOException(cause);
+                    }
+                    final InetSocketAddress failedAddress = new InetSocketAddress(addresses[attempts.indexOf(done)], port);
+                    if (this.log.isDebugEnabled()) {
+                        this.log.debug(ConnPoolSupport.getId(conn) + ": connect to " +
+                                failedAddress + " failed (" + cause + ")");
+                    }
+                    reportFailure(failedAddress);
+                    // start the next attempt right away
+                    startNext = true;
+                }
+            }
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Connect to " + host + " interrupted");
+        } finally {
+            for (int i = 0; i < attempts.size(); i++) {
+                final Future<Socket> attempt = attempts.get(i);
+                if (attempt != winner) {
+                    attempt.cancel(true);
+                    try {
+                        sockets.get(i).close();
+                    } catch (final IOException ignore) {
+                    }
+                }
+            }
+        }
+        if (winner != null) {
+            if (isLayeredAfterConnect(sf, sock)) {
+                if (TimeValue.isPositive(connectTimeout) && sock.getSoTimeout() == 0) {
+                    sock.setSoTimeout(connectTimeout.toMillisIntBound());
+                }
+                sock = ((LayeredConnectionSocketFactory) sf).createLayeredSocket(
+                        sock, host.getHostName(), port, context);
+                conn.bind(sock);
+            }
+            if (this.log.isDebugEnabled()) {
+                this.log.debug(ConnPoolSupport.getId(conn) + ": connection established " + conn);
+            }
+            if (this.addressLoadBalancer != null) {
+                this.addressLoadBalancer.connected(remoteAddress, conn);
+            }
+            return;
+        }
+        if (lastException instanceof SocketTimeoutException) {
+            throw new ConnectTimeoutException(lastException, host, addresses);
+        } else if (lastException instanceof ConnectException) {
+            if ("Connection timed out".equals(lastException.getMessage())) {
+                throw new ConnectTimeoutException(lastException, host, addresses);
+            }
+            throw new HttpHostConnectException(lastException, host, addresses);
+        }
+        throw lastException;
+    }
+
+    /**
+     * Determines whether the socket is connected as a plain socket with TLS layered on top
+     * of it once connected, rather than by the socket factory in one go.
+     */
+    private static boolean isLayeredAfterConnect(final ConnectionSocketFactory sf, final Socket sock) {
+        return sf instanceof LayeredConnectionSocketFactory && !(sock instanceof SSLSocket);
+    }
+
     @Override
     public void upgrade(
             final ManagedHttpClientConnection conn,
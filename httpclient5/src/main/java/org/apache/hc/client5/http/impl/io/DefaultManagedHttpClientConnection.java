@@ -1,5 +1,6 @@
 package org.apache.hc.client5.http.impl.io;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
@@ -22,6 +23,7 @@
 import javax.net.ssl.SSLSocket;
 import java.io.IOException;
 import java.io.InterruptedIOException;
+import java.net.InetAddress;
 import java.net.Socket;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
@@ -35,6 +37,7 @@
     private final Logger wireLog = LoggerFactory.getLogger("org.apache.hc.client5.http.wire");
 
     private final String id;
+    private final WireLogConfig wireLogConfig;
     private final AtomicBoolean closed;
 
     private Timeout socketTimeout;
@@ -47,12 +50,27 @@ public DefaultManagedHttpClientConnection(
             final ContentLengthStrategy incomingContentStrategy,
             final ContentLengthStrategy outgoingContentStrategy,
             final HttpMessageWriterFactory<ClassicHttpRequest> requestWriterFactory,
-            final HttpMessageParserFactory<ClassicHttpResponse> responseParserFactory) {
+            final HttpMessageParserFactory<ClassicHttpResponse> responseParserFactory,
+            final WireLogConfig wireLogConfig) {
         super(h1Config, charDecoder, charEncoder, incomingContentStrategy, outgoingContentStrategy, requestWriterFactory, responseParserFactory);
         this.id = id;
+        this.wireLogConfig = wireLogConfig;
         this.closed = new AtomicBoolean();
     }
 
+    public DefaultManagedHttpClientConnection(
+            final String id,
+            final CharsetDecoder charDecoder,
+            final CharsetEncoder charEncoder,
+            final Http1Config h1Config,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy,
+            final HttpMessageWriterFactory<ClassicHttpRequest> requestWriterFactory,
+            final HttpMessageParserFactory<ClassicHttpResponse> responseParserFactory) {
+        this(id, charDecoder, charEncoder, h1Config, incomingContentStrategy, outgoingContentStrategy,
+                requestWriterFactory, responseParserFactory, null);
+    }
+
     public DefaultManagedHttpClientConnection(final String id) {
         this(id, null, null, null, null, null, null, null);
     }
@@ -120,10 +138,28 @@ public void close(final CloseMode closeMode) {
 
     @Override
     public void bind(final Socket socket) throws IOException {
-        super.bind(this.wireLog.isDebugEnabled() ? new LoggingSocketHolder(socket, this.id, this.wireLog) : new SocketHolder(socket));
+        super.bind(isWireLogged(socket) ? new LoggingSocketHolder(socket, this.id, this.wireLog, this.wireLogConfig) : new SocketHolder(socket));
         socketTimeout = Timeout.ofMilliseconds(socket.getSoTimeout());
     }
 
+    private boolean isWireLogged(final Socket socket) {
+        if (!this.wireLog.isDebugEnabled()) {
+            return false;
+        }
+        if (this.wireLogConfig == null) {
+            return true;
+        }
+        final InetAddress address = socket.getInetAddress();
+        if (address == null) {
+            // not connected yet; the connection gets bound again once it is
+            return this.wireLogConfig.getHosts().isEmpty() && this.wireLogConfig.isSelected(this.id, null, null);
+        }
+        // InetAddress#getHostName may trigger a reverse lookup, #toString does not
+        final String s = address.toString();
+        final int i = s.lastIndexOf('/');
+        return this.wireLogConfig.isSelected(this.id, i > 0 ? s.substring(0, i) : null, address.getHostAddress());
+    }
+
     @Override
     protected void onResponseReceived(final ClassicHttpResponse response) {
         if (response != null && this.headerLog.isDebugEnabled()) {
@@ -32,6 +32,7 @@
 import java.io.OutputStream;
 import java.net.Socket;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.impl.Wire;
 import org.apache.hc.core5.http.impl.io.SocketHolder;
 import org.slf4j.Logger;
@@ -40,9 +41,13 @@ class LoggingSocketHolder extends SocketHolder {
 
     private final Wire wire;
 
-    public LoggingSocketHolder(final Socket socket, final String id, final Logger log) {
+    public LoggingSocketHolder(final Socket socket, final String id, final Logger log, final WireLogConfig wireLogConfig) {
         super(socket);
-        this.wire = new Wire(log, id);
+        this.wire = new Wire(log, id, wireLogConfig);
+    }
+
+    public LoggingSocketHolder(final Socket socket, final String id, final Logger log) {
+        this(socket, id, log, null);
     }
 
     @Override
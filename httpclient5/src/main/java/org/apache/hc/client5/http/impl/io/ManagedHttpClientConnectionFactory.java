@@ -35,6 +35,7 @@
 import java.nio.charset.CodingErrorAction;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.hc.client5.http.config.WireLogConfig;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
@@ -66,14 +67,19 @@ public class ManagedHttpClientConnectionFactory implements HttpConnectionFactory
     private final HttpMessageParserFactory<ClassicHttpResponse> responseParserFactory;
     private final ContentLengthStrategy incomingContentStrategy;
     private final ContentLengthStrategy outgoingContentStrategy;
+    private final WireLogConfig wireLogConfig;
 
+    /**
+     * @since 5.0
+     */
     public ManagedHttpClientConnectionFactory(
             final Http1Config h1Config,
             final CharCodingConfig charCodingConfig,
             final HttpMessageWriterFactory<ClassicHttpRequest> requestWriterFactory,
             final HttpMessageParserFactory<ClassicHttpResponse> responseParserFactory,
             final ContentLengthStrategy incomingContentStrategy,
-            final ContentLengthStrategy outgoingContentStrategy) {
+            final ContentLengthStrategy outgoingContentStrategy,
+            final WireLogConfig wireLogConfig) {
         super();
         this.h1Config = h1Config != null ? h1Config : Http1Config.DEFAULT;
         this.charCodingConfig = charCodingConfig != null ? charCodingConfig : CharCodingConfig.DEFAULT;
@@ -85,6 +91,18 @@ public ManagedHttpClientConnectionFactory(
                 DefaultContentLengthStrategy.INSTANCE;
         this.outgoingContentStrategy = outgoingContentStrategy != null ? outgoingContentStrategy :
                 DefaultContentLengthStrategy.INSTANCE;
+        this.wireLogConfig = wireLogConfig;
+    }
+
+    public ManagedHttpClientConnectionFactory(
+            final Http1Config h1Config,
+            final CharCodingConfig charCodingConfig,
+            final HttpMessageWriterFactory<ClassicHttpRequest> requestWriterFactory,
+            final HttpMessageParserFactory<ClassicHttpResponse> responseParserFactory,
+            final ContentLengthStrategy incomingContentStrategy,
+            final ContentLengthStrategy outgoingContentStrategy) {
+        this(h1Config, charCodingConfig, requestWriterFactory, responseParserFactory,
+                incomingContentStrategy, outgoingContentStrategy, null);
     }
 
     public ManagedHttpClientConnectionFactory(
@@ -132,7 +150,8 @@ public ManagedHttpClientConnection createConnection(final Socket socket) throws
                 incomingContentStrategy,
                 outgoingContentStrategy,
                 requestWriterFactory,
-                responseParserFactory);
+                responseParserFactory,
+                wireLogConfig);
         if (socket != null) {
             conn.bind(socket);
         }
@@ -1,23 +1,31 @@
 package org.apache.hc.client5.http.impl.io;
 
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.ConnPoolSupport;
 import org.apache.hc.client5.http.impl.ConnectionShutdownException;
 import org.apache.hc.client5.http.io.*;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.PlainConnectionSocketFactory;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.Internal;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.http.*;
 import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.core5.http.impl.io.HttpRequestExecutor;
 import org.apache.hc.core5.http.io.HttpConnectionFactory;
 import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.pool.*;
@@ -26,10 +34,26 @@
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -66,6 +90,12 @@
  * <p>
  * PoolingHttpClientConnectionManager维护的连接数在每个路由基础和总数上都有限制。默认，每个路由基础上的连接不超过2个，总连接数不能超过20。在实际应用中，这个限制可能会太小了，尤其是当服务器也使用Http协议时。此处我们设置为最高200个总连接数和每个基础路由连接不超过20个。
  * <p>
+ * A minimum number of idle connections can be maintained on a per route basis
+ * (see {@link #setMinIdlePerRoute(HttpRoute, int)}). Connections are opened
+ * in the background whenever the number of idle connections for the route drops
+ * below the target, for instance after connections have been evicted as idle or
+ * expired. Connections can also be opened ahead of time with
+ * {@link #warmUp(HttpRoute, int, Timeout, FutureCallback)}.
  *
  * @since 4.3
  */
@@ -78,13 +108,29 @@
     public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 25;
     public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 5;
 
+    // Marks entries claimed by a lease; never waited upon, as the validator skips claimed entries
+    private static final CountDownLatch LEASED = new CountDownLatch(0);
+
     private final HttpClientConnectionOperator connectionOperator;
     private final ManagedConnPool<HttpRoute, ManagedHttpClientConnection> pool;
     private final HttpConnectionFactory<ManagedHttpClientConnection> connFactory;
     private final AtomicBoolean closed;
 
+    private final ConcurrentMap<HttpRoute, Integer> minIdlePerRoute;
+    private final Set<HttpRoute> routesBeingWarmedUp;
+    private final ConcurrentMap<PoolEntry<HttpRoute, ManagedHttpClientConnection>, CountDownLatch> claimedEntries;
+    private final AtomicLong validatedCount;
+    private final AtomicLong staleCount;
+    private final Queue<BackgroundConnect> pendingConnects;
+
     private volatile SocketConfig defaultSocketConfig;
     private volatile TimeValue validateAfterInactivity;
+    private volatile Timeout warmUpConnectTimeout;
+    private volatile TimeValue backgroundValidationInterval;
+    private volatile ConnPoolMetricsListener metricsListener;
+    private volatile ScheduledExecutorService maintenanceExecutor;
+    private volatile Executor connectExecutor;
+    private ScheduledFuture<?> backgroundValidationFuture;
 
     public PoolingHttpClientConnectionManager() {
         this(RegistryBuilder.<ConnectionSocketFactory>create()
@@ -174,6 +220,12 @@ protected PoolingHttpClientConnectionManager(
         }
         this.connFactory = connFactory != null ? connFactory : ManagedHttpClientConnectionFactory.INSTANCE;
         this.closed = new AtomicBoolean(false);
+        this.minIdlePerRoute = new ConcurrentHashMap<>();
+        this.routesBeingWarmedUp = Collections.newSetFromMap(new ConcurrentHashMap<HttpRoute, Boolean>());
+        this.claimedEntries = new ConcurrentHashMap<>();
+        this.validatedCount = new AtomicLong(0);
+        this.staleCount = new AtomicLong(0);
+        this.pendingConnects = new ConcurrentLinkedQueue<>();
     }
 
     @Internal
@@ -186,6 +238,12 @@ protected PoolingHttpClientConnectionManager(
         this.pool = Args.notNull(pool, "Connection pool");
         this.connFactory = connFactory != null ? connFactory : ManagedHttpClientConnectionFactory.INSTANCE;
         this.closed = new AtomicBoolean(false);
+        this.minIdlePerRoute = new ConcurrentHashMap<>();
+        this.routesBeingWarmedUp = Collections.newSetFromMap(new ConcurrentHashMap<HttpRoute, Boolean>());
+        this.claimedEntries = new ConcurrentHashMap<>();
+        this.validatedCount = new AtomicLong(0);
+        this.staleCount = new AtomicLong(0);
+        this.pendingConnects = new ConcurrentLinkedQueue<>();
     }
 
     @Override
@@ -199,6 +257,10 @@ public void close(final CloseMode closeMode) {
             if (this.log.isDebugEnabled()) {
                 this.log.debug("Shutdown connection pool " + closeMode);
             }
+            final ScheduledExecutorService executor = this.maintenanceExecutor;
+            if (executor != null) {
+                executor.shutdownNow();
+            }
             this.pool.close(closeMode);
             this.log.debug("Connection pool shut down");
         }
@@ -226,6 +288,14 @@ public LeaseRequest lease(
             log.debug(id + ": endpoint lease request (" + requestTimeout + ") " +
                     ConnPoolSupport.formatStats(route, state, pool));
         }
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        final long leaseStart;
+        if (metrics != null) {
+            metrics.leaseRequested(route);
+            leaseStart = System.nanoTime();
+        } else {
+            leaseStart = 0;
+        }
         final Future<PoolEntry<HttpRoute, ManagedHttpClientConnection>> leaseFuture = this.pool.lease(route, state, requestTimeout, null);
         return new LeaseRequest() {
 
@@ -246,33 +316,51 @@ public synchronized ConnectionEndpoint get(
                     }
                 } catch (final TimeoutException ex) {
                     leaseFuture.cancel(true);
+                    if (metrics != null) {
+                        metrics.leaseTimedOut(route, System.nanoTime() - leaseStart);
+                    }
+                    throw ex;
+                } catch (final ExecutionException ex) {
+                    if (metrics != null && ex.getCause() instanceof TimeoutException) {
+                        metrics.leaseTimedOut(route, System.nanoTime() - leaseStart);
+                    }
                     throw ex;
                 }
                 if (log.isDebugEnabled()) {
                     log.debug(id + ": endpoint leased " + ConnPoolSupport.formatStats(route, state, pool));
                 }
+                final boolean backgroundValidation = TimeValue.isPositive(backgroundValidationInterval);
+                if (backgroundValidation) {
+                    // idle connections are validated by the background task
+                    try {
+                        claim(poolEntry);
+                    } catch (final InterruptedException ex) {
+                        pool.release(poolEntry, true);
+                        throw ex;
+                    }
+                }
                 try {
-                    if (TimeValue.isPositive(validateAfterInactivity)) {
+                    if (!backgroundValidation && TimeValue.isPositive(validateAfterInactivity)) {
                         final ManagedHttpClientConnection conn = poolEntry.getConnection();
                         if (conn != null
                                 && poolEntry.getUpdated() + validateAfterInactivity.toMillis() <= System.currentTimeMillis()) {
-                            boolean stale;
-                            try {
-                                stale = conn.isStale();
-                            } catch (final IOException ignore) {
-                                stale = true;
-                            }
-                            if (stale) {
+                            if (isStale(conn)) {
                                 if (log.isDebugEnabled()) {
                                     log.debug(id + ": connection " + ConnPoolSupport.getId(conn) + " is stale");
                                 }
                                 poolEntry.discardConnection(CloseMode.IMMEDIATE);
+                                if (metrics != null) {
+                                    metrics.connectionClosed(route);
+                                }
                             }
                         }
                     }
                     final ManagedHttpClientConnection conn = poolEntry.getConnection();
                     if (conn != null) {
                         conn.activate();
+                        if (metrics != null) {
+                            metrics.connectionReused(route);
+                        }
                     } else {
                         poolEntry.assignConnection(connFactory.createConnection(null));
                     }
@@ -281,11 +369,16 @@ public synchronized ConnectionEndpoint get(
                             log.debug(id + ": endpoint lease cancelled");
                         }
                         pool.release(poolEntry, false);
+                        claimedEntries.remove(poolEntry);
                     } else {
                         this.endpoint = new InternalConnectionEndpoint(poolEntry);
                         if (log.isDebugEnabled()) {
                             log.debug(id + ": acquired " + ConnPoolSupport.getId(endpoint));
                         }
+                        if (metrics != null) {
+                            metrics.leaseGranted(route, System.nanoTime() - leaseStart);
+                        }
+                        replenish(route);
                     }
                     return this.endpoint;
                 } catch (final Exception ex) {
@@ -293,6 +386,7 @@ public synchronized ConnectionEndpoint get(
                         log.debug(id + ": endpoint lease failed");
                     }
                     pool.release(poolEntry, false);
+                    claimedEntries.remove(poolEntry);
                     throw new ExecutionException(ex.getMessage(), ex);
                 }
             }
@@ -341,12 +435,48 @@ public void release(final ConnectionEndpoint endpoint, final Object state, final
             reusable = false;
             throw ex;
         } finally {
-            this.pool.release(entry, reusable);
-            if (this.log.isDebugEnabled()) {
-                log.debug(ConnPoolSupport.getId(endpoint) + ": connection released " +
-                        ConnPoolSupport.formatStats(entry.getRoute(), entry.getState(), pool));
+            if (reusable && handOver(entry)) {
+                if (this.log.isDebugEnabled()) {
+                    log.debug(ConnPoolSupport.getId(endpoint) + ": connection handed over to pending connect " +
+                            ConnPoolSupport.formatStats(entry.getRoute(), entry.getState(), pool));
+                }
+            } else {
+                this.pool.release(entry, reusable);
+                this.claimedEntries.remove(entry);
+                final ConnPoolMetricsListener metrics = this.metricsListener;
+                if (metrics != null && !reusable) {
+                    metrics.connectionClosed(entry.getRoute());
+                }
+                if (this.log.isDebugEnabled()) {
+                    log.debug(ConnPoolSupport.getId(endpoint) + ": connection released " +
+                            ConnPoolSupport.formatStats(entry.getRoute(), entry.getState(), pool));
+                }
+                if (!reusable) {
+                    replenish(entry.getRoute());
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands a connection being released over to an endpoint of the same route waiting
+     * for its connection to be established in the background. The entry remains leased.
+     * Only connections without state are handed over as the state the endpoint has been
+     * leased with is unknown.
+     */
+    private boolean handOver(final PoolEntry<HttpRoute, ManagedHttpClientConnection> entry) {
+        if (entry.getState() != null || this.pendingConnects.isEmpty()) {
+            return false;
+        }
+        for (final Iterator<BackgroundConnect> it = this.pendingConnects.iterator(); it.hasNext(); ) {
+            final BackgroundConnect backgroundConnect = it.next();
+            if (backgroundConnect.poolEntry.getRoute().equals(entry.getRoute())
+                    && backgroundConnect.future.completed(entry)) {
+                it.remove();
+                return true;
             }
         }
+        return false;
     }
 
     @Override
@@ -356,7 +486,91 @@ public void connect(final ConnectionEndpoint endpoint, final TimeValue connectTi
         if (internalEndpoint.isConnected()) {
             return;
         }
-        final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry = internalEndpoint.getPoolEntry();
+        final Executor executor = this.connectExecutor;
+        if (executor != null && !internalEndpoint.getPoolEntry().getRoute().isTunnelled()) {
+            connectInBackground(internalEndpoint, executor, connectTimeout, context);
+        } else {
+            establish(internalEndpoint, connectTimeout, context);
+        }
+    }
+
+    private void connectInBackground(
+            final InternalConnectionEndpoint endpoint,
+            final Executor executor,
+            final TimeValue connectTimeout,
+            final HttpContext context) throws IOException {
+        final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry = endpoint.getPoolEntry();
+        final HttpRoute route = poolEntry.getRoute();
+        // the background task gets a context of its own as it may outlive the request
+        final BackgroundConnect backgroundConnect = new BackgroundConnect(
+                poolEntry, connectTimeout, new BasicHttpContext(context));
+        this.pendingConnects.add(backgroundConnect);
+        try {
+            executor.execute(backgroundConnect);
+        } catch (final RejectedExecutionException ex) {
+            this.pendingConnects.remove(backgroundConnect);
+            if (backgroundConnect.future.cancel()) {
+                establish(endpoint, connectTimeout, context);
+                return;
+            }
+            // a released connection has been handed over already
+            backgroundConnect.discard();
+        }
+        PoolEntry<HttpRoute, ManagedHttpClientConnection> result;
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    result = backgroundConnect.future.get();
+                    break;
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                    if (backgroundConnect.future.cancel()) {
+                        // the pool entry now belongs to the background task
+                        this.pendingConnects.remove(backgroundConnect);
+                        endpoint.detach();
+                        throw new InterruptedIOException("Interrupted while connecting to " + route);
+                    }
+                }
+            }
+        } catch (final ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (result == poolEntry) {
+            if (!endpoint.isConnected()) {
+                throw new ConnectionClosedException("Connection closed while connecting to " + route);
+            }
+        } else {
+            // a connection released in the meantime has been handed over; the background task
+            // returns the connection it establishes to the pool
+            endpoint.replace(result);
+            result.getConnection().activate();
+            final ConnPoolMetricsListener metrics = this.metricsListener;
+            if (metrics != null) {
+                metrics.connectionReused(route);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug(ConnPoolSupport.getId(endpoint) + ": took over " + ConnPoolSupport.getId(result.getConnection()));
+            }
+        }
+    }
+
+    private void establish(
+            final InternalConnectionEndpoint endpoint,
+            final TimeValue connectTimeout,
+            final HttpContext context) throws IOException {
+        final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry = endpoint.getPoolEntry();
         if (!poolEntry.hasConnection()) {
             poolEntry.assignConnection(connFactory.createConnection(null));
         }
@@ -371,6 +585,9 @@ public void connect(final ConnectionEndpoint endpoint, final TimeValue connectTi
             log.debug(ConnPoolSupport.getId(endpoint) + ": connecting endpoint to " + host + " (" + connectTimeout + ")");
         }
         final ManagedHttpClientConnection conn = poolEntry.getConnection();
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        final long connectStart = metrics != null ? System.nanoTime() : 0;
+        context.removeAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME);
         this.connectionOperator.connect(
                 conn,
                 host,
@@ -378,6 +595,17 @@ public void connect(final ConnectionEndpoint endpoint, final TimeValue connectTi
                 connectTimeout,
                 defaultSocketConfig != null ? this.defaultSocketConfig : SocketConfig.DEFAULT,
                 context);
+        final Object handshakeTime = context.removeAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME);
+        if (metrics != null) {
+            final long connectTime = System.nanoTime() - connectStart;
+            if (handshakeTime instanceof Long) {
+                final long handshakeTimeNanos = (Long) handshakeTime;
+                metrics.connectionCreated(route, connectTime - handshakeTimeNanos);
+                metrics.handshakeCompleted(route, handshakeTimeNanos);
+            } else {
+                metrics.connectionCreated(route, connectTime);
+            }
+        }
         if (log.isDebugEnabled()) {
             log.debug(ConnPoolSupport.getId(endpoint) + ": connected " + ConnPoolSupport.getId(conn));
         }
@@ -389,7 +617,15 @@ public void upgrade(final ConnectionEndpoint endpoint, final HttpContext context
         final InternalConnectionEndpoint internalEndpoint = cast(endpoint);
         final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry = internalEndpoint.getValidatedPoolEntry();
         final HttpRoute route = poolEntry.getRoute();
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        final long handshakeStart = metrics != null ? System.nanoTime() : 0;
+        context.removeAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME);
         this.connectionOperator.upgrade(poolEntry.getConnection(), route.getTargetHost(), context);
+        final Object handshakeTime = context.removeAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME);
+        if (metrics != null) {
+            metrics.handshakeCompleted(route, handshakeTime instanceof Long
+                    ? (Long) handshakeTime : System.nanoTime() - handshakeStart);
+        }
     }
 
     @Override
@@ -398,13 +634,19 @@ public void closeIdle(final TimeValue idleTime) {
         if (this.log.isDebugEnabled()) {
             this.log.debug("Closing connections idle longer than " + idleTime);
         }
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> idleEntries = availableEntriesIfObserved();
         this.pool.closeIdle(idleTime);
+        reportClosed(idleEntries);
+        replenishAll();
     }
 
     @Override
     public void closeExpired() {
         this.log.debug("Closing expired connections");
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> idleEntries = availableEntriesIfObserved();
         this.pool.closeExpired();
+        reportClosed(idleEntries);
+        replenishAll();
     }
 
     @Override
@@ -474,12 +716,536 @@ public TimeValue getValidateAfterInactivity() {
      * Non-positive value passed to this method disables connection validation. This check helps
      * detect connections that have become stale (half-closed) while kept inactive in the pool.
      *
+     * @see #setBackgroundValidationInterval(TimeValue)
      * @since 4.4
      */
     public void setValidateAfterInactivity(final TimeValue validateAfterInactivity) {
         this.validateAfterInactivity = validateAfterInactivity;
     }
 
+    /**
+     * @see #setBackgroundValidationInterval(TimeValue)
+     * @since 5.0
+     */
+    public TimeValue getBackgroundValidationInterval() {
+        return this.backgroundValidationInterval;
+    }
+
+    /**
+     * Defines the interval at which idle persistent connections are validated by a background
+     * task instead of on the thread {@link #lease(String, HttpRoute, Object) leasing} them.
+     * Only connections inactive for longer than {@link #setValidateAfterInactivity(TimeValue)}
+     * are checked (all idle connections if that period is not positive), and connections found
+     * stale are closed so that the lease operation only hands out connections that have already
+     * been validated. Non-positive value passed to this method disables background validation
+     * and restores validation on lease.
+     * <p>
+     * Background validation requires the pool to support enumeration of available connections,
+     * which is the case for both {@link PoolConcurrencyPolicy} implementations, and should be
+     * configured before the connection manager is put to use.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public synchronized void setBackgroundValidationInterval(final TimeValue interval) {
+        if (this.backgroundValidationFuture != null) {
+            this.backgroundValidationFuture.cancel(false);
+            this.backgroundValidationFuture = null;
+        }
+        if (TimeValue.isPositive(interval)) {
+            Asserts.check(!this.closed.get(), "Connection pool shut down");
+            Asserts.check(this.pool instanceof StrictConnPool || this.pool instanceof LaxConnPool,
+                    "Connection pool does not support background validation");
+            this.backgroundValidationFuture = getMaintenanceExecutor().scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        validateIdleConnections();
+                    } catch (final RuntimeException ex) {
+                        log.warn("Unexpected error validating idle connections", ex);
+                    }
+                }
+
+            }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        this.backgroundValidationInterval = interval;
+    }
+
+    /**
+     * @see #setMetricsListener(ConnPoolMetricsListener)
+     * @since 5.0
+     */
+    public ConnPoolMetricsListener getMetricsListener() {
+        return this.metricsListener;
+    }
+
+    /**
+     * Assigns {@link ConnPoolMetricsListener} to be notified of lease and connection events.
+     * TLS handshakes performed by {@link SSLConnectionSocketFactory} are reported separately
+     * from connection creation; with other socket factories the connect time includes
+     * the handshake of secure connections.
+     * Closures of idle and expired connections can only be reported if the pool supports
+     * enumeration of available connections, which is the case for both
+     * {@link PoolConcurrencyPolicy} implementations.
+     *
+     * @since 5.0
+     */
+    public void setMetricsListener(final ConnPoolMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * @see #setConnectExecutor(Executor)
+     * @since 5.0
+     */
+    public Executor getConnectExecutor() {
+        return this.connectExecutor;
+    }
+
+    /**
+     * Assigns an executor to establish new connections on, including the TLS handshake and
+     * server identity verification of secure connections, so that connection setup and
+     * certificate validation of many endpoints can proceed in parallel on a bounded number of
+     * threads. The thread {@link #connect(ConnectionEndpoint, TimeValue, HttpContext) connecting}
+     * an endpoint waits until either its connection has been established in the background or
+     * a reusable connection to the same route is released to the pool, whichever comes first.
+     * In the latter case the endpoint takes over the released connection and the new connection
+     * is returned to the pool once established.
+     * <p>
+     * Connections the executor rejects and connections to tunnelled routes are established by
+     * the connecting thread. Only connections released without state are taken over. The
+     * executor is not shut down by the connection manager. If {@code null}, which is
+     * the default, all connections are established by the connecting thread.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public void setConnectExecutor(final Executor connectExecutor) {
+        this.connectExecutor = connectExecutor;
+    }
+
+    /**
+     * Returns the total number of pooled connections validated prior to re-use, whether on lease
+     * or by the background task.
+     *
+     * @since 5.0
+     */
+    public long getValidatedConnectionCount() {
+        return this.validatedCount.get();
+    }
+
+    /**
+     * Returns the total number of pooled connections found stale and discarded by validation.
+     *
+     * @since 5.0
+     */
+    public long getStaleConnectionCount() {
+        return this.staleCount.get();
+    }
+
+    private boolean isStale(final ManagedHttpClientConnection conn) {
+        this.validatedCount.incrementAndGet();
+        boolean stale;
+        try {
+            stale = conn.isStale();
+        } catch (final IOException ignore) {
+            stale = true;
+        }
+        if (stale) {
+            this.staleCount.incrementAndGet();
+        }
+        return stale;
+    }
+
+    /**
+     * Takes exclusive ownership of the leased pool entry. Entries are only claimed for the
+     * duration of a lease or a background validation; if the entry is being validated, waits
+     * for the single stale check in progress to complete.
+     */
+    private void claim(
+            final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry) throws InterruptedException {
+        for (;;) {
+            final CountDownLatch validation = this.claimedEntries.putIfAbsent(poolEntry, LEASED);
+            if (validation == null) {
+                return;
+            }
+            validation.await();
+        }
+    }
+
+    private void enumAvailable(final Callback<PoolEntry<HttpRoute, ManagedHttpClientConnection>> callback) {
+        if (this.pool instanceof StrictConnPool) {
+            ((StrictConnPool<HttpRoute, ManagedHttpClientConnection>) this.pool).enumAvailable(callback);
+        } else if (this.pool instanceof LaxConnPool) {
+            ((LaxConnPool<HttpRoute, ManagedHttpClientConnection>) this.pool).enumAvailable(callback);
+        }
+    }
+
+    /**
+     * Returns available entries with an open connection when connection closures are reported
+     * to a {@link ConnPoolMetricsListener}, {@code null} otherwise.
+     */
+    private List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> availableEntriesIfObserved() {
+        if (this.metricsListener == null) {
+            return null;
+        }
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> entries = new ArrayList<>();
+        enumAvailable(new Callback<PoolEntry<HttpRoute, ManagedHttpClientConnection>>() {
+
+            @Override
+            public void execute(final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry) {
+                if (poolEntry.hasConnection()) {
+                    entries.add(poolEntry);
+                }
+            }
+
+        });
+        return entries;
+    }
+
+    private void reportClosed(final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> entries) {
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        if (entries == null || metrics == null) {
+            return;
+        }
+        for (final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry: entries) {
+            if (!poolEntry.hasConnection()) {
+                metrics.connectionClosed(poolEntry.getRoute());
+            }
+        }
+    }
+
+    void validateIdleConnections() {
+        final TimeValue inactivity = this.validateAfterInactivity;
+        final long cutoff = TimeValue.isPositive(inactivity)
+                ? System.currentTimeMillis() - inactivity.toMillis() : Long.MAX_VALUE;
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> idleEntries = new ArrayList<>();
+        final Callback<PoolEntry<HttpRoute, ManagedHttpClientConnection>> callback =
+                new Callback<PoolEntry<HttpRoute, ManagedHttpClientConnection>>() {
+
+            @Override
+            public void execute(final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry) {
+                if (poolEntry.hasConnection() && poolEntry.getUpdated() <= cutoff) {
+                    idleEntries.add(poolEntry);
+                }
+            }
+
+        };
+        enumAvailable(callback);
+        // the entries may have been leased since; only those that can be claimed are checked
+        boolean discarded = false;
+        for (final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry: idleEntries) {
+            if (this.closed.get()) {
+                return;
+            }
+            final CountDownLatch validation = new CountDownLatch(1);
+            if (this.claimedEntries.putIfAbsent(poolEntry, validation) != null) {
+                continue;
+            }
+            try {
+                final ManagedHttpClientConnection conn = poolEntry.getConnection();
+                if (conn != null && isStale(conn)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Connection " + ConnPoolSupport.getId(conn) + " is stale");
+                    }
+                    poolEntry.discardConnection(CloseMode.IMMEDIATE);
+                    discarded = true;
+                    final ConnPoolMetricsListener metrics = this.metricsListener;
+                    if (metrics != null) {
+                        metrics.connectionClosed(poolEntry.getRoute());
+                    }
+                }
+            } finally {
+                this.claimedEntries.remove(poolEntry);
+                validation.countDown();
+            }
+        }
+        if (discarded) {
+            replenishAll();
+        }
+    }
+
+    /**
+     * Defines the minimum number of idle connections the pool should maintain for the given
+     * route. Whenever the number of available connections for the route drops below this
+     * value, new connections are opened in the background using the connect timeout of the
+     * most recent {@link #warmUp(HttpRoute, int, Timeout, FutureCallback) warm-up}
+     * (or {@link RequestConfig#getConnectTimeout() the default one}). Zero disables
+     * the target for the route.
+     * <p>
+     * Connections to tunnelled routes cannot be established without executing the tunnelling
+     * protocol and are never opened in advance.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public void setMinIdlePerRoute(final HttpRoute route, final int minIdle) {
+        Args.notNull(route, "HTTP route");
+        Args.notNegative(minIdle, "Min idle");
+        if (minIdle > 0) {
+            this.minIdlePerRoute.put(route, minIdle);
+            replenish(route);
+        } else {
+            this.minIdlePerRoute.remove(route);
+        }
+    }
+
+    /**
+     * @see #setMinIdlePerRoute(HttpRoute, int)
+     * @since 5.0
+     */
+    public int getMinIdlePerRoute(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        final Integer minIdle = this.minIdlePerRoute.get(route);
+        return minIdle != null ? minIdle : 0;
+    }
+
+    /**
+     * Opens up to {@code count} connections to the given route in the background, including
+     * the TLS handshake for secure routes, and returns them to the pool so that subsequent
+     * requests do not pay the connection setup cost. Connections already available in the pool
+     * count towards {@code count} and remain available to requests; no more connections are opened
+     * than the per route limit allows and none while requests are waiting for a connection to
+     * the route. Each connection is returned to the pool as soon as it has been established.
+     *
+     * @param route the route to open connections to.
+     * @param count the desired number of available connections.
+     * @param connectTimeout the connect timeout.
+     * @param callback the callback to be notified of the number of connections opened.
+     * @return future representing the number of connections opened.
+     *
+     * @since 5.0
+     */
+    public Future<Integer> warmUp(
+            final HttpRoute route,
+            final int count,
+            final Timeout connectTimeout,
+            final FutureCallback<Integer> callback) {
+        Args.notNull(route, "HTTP route");
+        Args.notNegative(count, "Connection count");
+        Args.notNull(connectTimeout, "Connect timeout");
+        Asserts.check(!this.closed.get(), "Connection pool shut down");
+        this.warmUpConnectTimeout = connectTimeout;
+        final BasicFuture<Integer> future = new BasicFuture<>(callback);
+        getMaintenanceExecutor().execute(new Runnable() {
+
+            @Override
+            public void run() {
+                final boolean marked = routesBeingWarmedUp.add(route);
+                try {
+                    future.completed(openConnections(route, count, connectTimeout));
+                } catch (final Exception ex) {
+                    future.failed(ex);
+                } finally {
+                    if (marked) {
+                        routesBeingWarmedUp.remove(route);
+                    }
+                }
+            }
+
+        });
+        return future;
+    }
+
+    private ScheduledExecutorService getMaintenanceExecutor() {
+        ScheduledExecutorService executor = this.maintenanceExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = this.maintenanceExecutor;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(
+                            new DefaultThreadFactory("connection-pool-maintenance", true));
+                    this.maintenanceExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private void replenishAll() {
+        if (this.minIdlePerRoute.isEmpty()) {
+            return;
+        }
+        for (final HttpRoute route: this.minIdlePerRoute.keySet()) {
+            replenish(route);
+        }
+    }
+
+    private void replenish(final HttpRoute route) {
+        if (this.minIdlePerRoute.isEmpty() || this.closed.get()) {
+            return;
+        }
+        final int minIdle = getMinIdlePerRoute(route);
+        if (minIdle == 0 || this.pool.getStats(route).getAvailable() >= minIdle) {
+            return;
+        }
+        if (this.routesBeingWarmedUp.add(route)) {
+            final Timeout connectTimeout = this.warmUpConnectTimeout != null
+                    ? this.warmUpConnectTimeout : RequestConfig.DEFAULT.getConnectTimeout();
+            try {
+                getMaintenanceExecutor().execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            openConnections(route, minIdle, connectTimeout);
+                        } catch (final Exception ex) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("Failed to open idle connections to " + route, ex);
+                            }
+                        } finally {
+                            routesBeingWarmedUp.remove(route);
+                        }
+                    }
+
+                });
+            } catch (final RejectedExecutionException ex) {
+                this.routesBeingWarmedUp.remove(route);
+            }
+        }
+    }
+
+    int openConnections(
+            final HttpRoute route,
+            final int count,
+            final Timeout connectTimeout) throws IOException {
+        if (route.isTunnelled()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Tunnelled route " + route + " cannot be warmed up");
+            }
+            return 0;
+        }
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> slots = leaseUnconnected(route, count);
+        int opened = 0;
+        int next = 0;
+        try {
+            while (next < slots.size() && !this.closed.get()) {
+                final InternalConnectionEndpoint endpoint = new InternalConnectionEndpoint(slots.get(next++));
+                try {
+                    connect(endpoint, connectTimeout, HttpClientContext.create());
+                    opened++;
+                } finally {
+                    if (endpoint.isConnected()) {
+                        release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+                    } else {
+                        final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry = endpoint.detach();
+                        poolEntry.discardConnection(CloseMode.IMMEDIATE);
+                        this.pool.release(poolEntry, false);
+                    }
+                }
+            }
+        } finally {
+            while (next < slots.size()) {
+                this.pool.release(slots.get(next++), false);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Opened " + opened + " connection(s) to " + route + " " + ConnPoolSupport.formatStats(route, null, pool));
+        }
+        return opened;
+    }
+
+    /**
+     * Leases without waiting the pool entries required for the given route to have {@code count}
+     * connections available. Entries that already have a connection count towards {@code count}
+     * and are returned to the pool right away; the entries without a connection are returned to
+     * the caller. Stops short if the route is saturated or has requests waiting for a connection.
+     * <p>
+     * The pool is accessed directly so that lease metrics only reflect actual requests.
+     * </p>
+     */
+    private List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> leaseUnconnected(
+            final HttpRoute route, final int count) {
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> connected = new ArrayList<>();
+        final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> unconnected = new ArrayList<>();
+        try {
+            while (connected.size() + unconnected.size() < count && !this.closed.get()) {
+                final Future<PoolEntry<HttpRoute, ManagedHttpClientConnection>> future = this.pool.lease(
+                        route, null, Timeout.ZERO_MILLISECONDS, null);
+                if (!future.isDone() && future.cancel(true)) {
+                    break;
+                }
+                final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry;
+                try {
+                    poolEntry = future.get();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (final ExecutionException | CancellationException ex) {
+                    break;
+                }
+                if (poolEntry.hasConnection()) {
+                    connected.add(poolEntry);
+                } else {
+                    unconnected.add(poolEntry);
+                }
+            }
+        } finally {
+            for (final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry: connected) {
+                this.pool.release(poolEntry, true);
+            }
+        }
+        return unconnected;
+    }
+
+    /**
+     * Establishes the connection of a leased pool entry on the connect executor. The endpoint
+     * waiting for it is either given the entry once connected or a connection released by
+     * another endpoint in the meantime, in which case the entry is returned to the pool
+     * as soon as it has been connected.
+     */
+    private class BackgroundConnect implements Runnable {
+
+        final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry;
+        final TimeValue connectTimeout;
+        final HttpContext context;
+        final BasicFuture<PoolEntry<HttpRoute, ManagedHttpClientConnection>> future;
+
+        BackgroundConnect(
+                final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry,
+                final TimeValue connectTimeout,
+                final HttpContext context) {
+            this.poolEntry = poolEntry;
+            this.connectTimeout = connectTimeout;
+            this.context = context;
+            this.future = new BasicFuture<>(null);
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                // no longer waited for
+                discard();
+                return;
+            }
+            final InternalConnectionEndpoint endpoint = new InternalConnectionEndpoint(poolEntry);
+            try {
+                establish(endpoint, connectTimeout, context);
+            } catch (final IOException | RuntimeException ex) {
+                pendingConnects.remove(this);
+                if (!future.failed(ex)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(ConnPoolSupport.getId(endpoint) + ": background connect failed (" + ex + ")");
+                    }
+                    discard();
+                }
+                return;
+            }
+            pendingConnects.remove(this);
+            if (!future.completed(poolEntry)) {
+                release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+            }
+        }
+
+        void discard() {
+            poolEntry.discardConnection(CloseMode.IMMEDIATE);
+            pool.release(poolEntry, false);
+            claimedEntries.remove(poolEntry);
+        }
+
+    }
+
     private static final AtomicLong COUNT = new AtomicLong(0);
 
     class InternalConnectionEndpoint extends ConnectionEndpoint implements Identifiable {
@@ -517,6 +1283,10 @@ PoolEntry<HttpRoute, ManagedHttpClientConnection> detach() {
             return poolEntryRef.getAndSet(null);
         }
 
+        void replace(final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry) {
+            poolEntryRef.set(poolEntry);
+        }
+
         @Override
         public void close(final CloseMode closeMode) {
             final PoolEntry<HttpRoute, ManagedHttpClientConnection> poolEntry = poolEntryRef.get();
@@ -27,8 +27,13 @@
 
 package org.apache.hc.client5.http.impl.io;
 
+import java.util.concurrent.Executor;
+
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.config.WireLogConfig;
+import org.apache.hc.client5.http.impl.AddressLoadBalancer;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
@@ -85,6 +90,11 @@ public class PoolingHttpClientConnectionManagerBuilder {
 
     private TimeValue timeToLive;
     private TimeValue validateAfterInactivity;
+    private ConnPoolMetricsListener metricsListener;
+    private TimeValue connectionAttemptDelay;
+    private AddressLoadBalancer addressLoadBalancer;
+    private WireLogConfig wireLogConfig;
+    private Executor connectExecutor;
 
     public static PoolingHttpClientConnectionManagerBuilder create() {
         return new PoolingHttpClientConnectionManagerBuilder();
@@ -187,6 +197,71 @@ public final PoolingHttpClientConnectionManagerBuilder setValidateAfterInactivit
         return this;
     }
 
+    /**
+     * Assigns {@link ConnPoolMetricsListener} to be notified of lease and connection events.
+     *
+     * @see org.apache.hc.client5.http.impl.BasicConnPoolMetrics
+     * @since 5.0
+     */
+    public final PoolingHttpClientConnectionManagerBuilder setMetricsListener(final ConnPoolMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    /**
+     * Enables racing of connection attempts to hosts resolving to multiple
+     * addresses as described in RFC 8305 (Happy Eyeballs). Address families
+     * are interleaved and the next attempt is started after the given delay
+     * or as soon as the previous one fails, whichever comes first. The first
+     * connection to be established is used and all other attempts are aborted.
+     * RFC 8305 recommends a delay of 250 milliseconds.
+     * <p>
+     * Connection attempts are made sequentially if not set.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public final PoolingHttpClientConnectionManagerBuilder setConnectionAttemptDelay(final TimeValue connectionAttemptDelay) {
+        this.connectionAttemptDelay = connectionAttemptDelay;
+        return this;
+    }
+
+    /**
+     * Assigns {@link AddressLoadBalancer} used to spread connections to hosts
+     * with multiple addresses across those addresses and to temporarily eject
+     * addresses failing to accept connections.
+     *
+     * @since 5.0
+     */
+    public final PoolingHttpClientConnectionManagerBuilder setAddressLoadBalancer(final AddressLoadBalancer addressLoadBalancer) {
+        this.addressLoadBalancer = addressLoadBalancer;
+        return this;
+    }
+
+    /**
+     * Assigns {@link WireLogConfig} selecting connections whose wire content gets
+     * logged. Ignored if a custom {@link HttpConnectionFactory} has been set.
+     *
+     * @since 5.0
+     */
+    public final PoolingHttpClientConnectionManagerBuilder setWireLogConfig(final WireLogConfig wireLogConfig) {
+        this.wireLogConfig = wireLogConfig;
+        return this;
+    }
+
+    /**
+     * Assigns an executor to establish new connections on, including the TLS handshake
+     * of secure connections. Connecting threads take over connections released to
+     * the pool in the meantime. The executor should be bounded.
+     *
+     * @see PoolingHttpClientConnectionManager#setConnectExecutor(Executor)
+     * @since 5.0
+     */
+    public final PoolingHttpClientConnectionManagerBuilder setConnectExecutor(final Executor connectExecutor) {
+        this.connectExecutor = connectExecutor;
+        return this;
+    }
+
     /**
      * Use system properties when creating and configuring default
      * implementations.
@@ -199,20 +274,27 @@ public final PoolingHttpClientConnectionManagerBuilder useSystemProperties() {
     public PoolingHttpClientConnectionManager build() {
         @SuppressWarnings("resource")
         final PoolingHttpClientConnectionManager poolingmgr = new PoolingHttpClientConnectionManager(
-                RegistryBuilder.<ConnectionSocketFactory>create()
-                        .register(URIScheme.HTTP.id, PlainConnectionSocketFactory.getSocketFactory())
-                        .register(URIScheme.HTTPS.id, sslSocketFactory != null ? sslSocketFactory :
-                                (systemProperties ?
-                                        SSLConnectionSocketFactory.getSystemSocketFactory() :
-                                        SSLConnectionSocketFactory.getSocketFactory()))
-                        .build(),
+                new DefaultHttpClientConnectionOperator(
+                        RegistryBuilder.<ConnectionSocketFactory>create()
+                                .register(URIScheme.HTTP.id, PlainConnectionSocketFactory.getSocketFactory())
+                                .register(URIScheme.HTTPS.id, sslSocketFactory != null ? sslSocketFactory :
+                                        (systemProperties ?
+                                                SSLConnectionSocketFactory.getSystemSocketFactory() :
+                                                SSLConnectionSocketFactory.getSocketFactory()))
+                                .build(),
+                        schemePortResolver,
+                        dnsResolver,
+                        connectionAttemptDelay,
+                        addressLoadBalancer),
                 poolConcurrencyPolicy,
                 poolReusePolicy,
                 timeToLive != null ? timeToLive : TimeValue.NEG_ONE_MILLISECONDS,
-                schemePortResolver,
-                dnsResolver,
-                connectionFactory);
+                connectionFactory == null && wireLogConfig != null ?
+                        new ManagedHttpClientConnectionFactory(null, null, null, null, null, null, wireLogConfig) :
+                        connectionFactory);
         poolingmgr.setValidateAfterInactivity(this.validateAfterInactivity);
+        poolingmgr.setMetricsListener(this.metricsListener);
+        poolingmgr.setConnectExecutor(this.connectExecutor);
         if (defaultSocketConfig != null) {
             poolingmgr.setDefaultSocketConfig(defaultSocketConfig);
         }
@@ -34,6 +34,7 @@
 
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.impl.AddressLoadBalancer;
 import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
 import org.apache.hc.client5.http.nio.AsyncClientConnectionOperator;
 import org.apache.hc.client5.http.nio.ManagedAsyncClientConnection;
@@ -46,6 +47,7 @@
 import org.apache.hc.core5.reactor.ConnectionInitiator;
 import org.apache.hc.core5.reactor.IOSession;
 import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
 final class DefaultAsyncClientConnectionOperator implements AsyncClientConnectionOperator {
@@ -53,14 +55,25 @@ final class DefaultAsyncClientConnectionOperator implements AsyncClientConnectio
     private final SchemePortResolver schemePortResolver;
     private final MultihomeIOSessionRequester sessionRequester;
     private final Lookup<TlsStrategy> tlsStrategyLookup;
+    private final AddressLoadBalancer addressLoadBalancer;
 
     DefaultAsyncClientConnectionOperator(
             final Lookup<TlsStrategy> tlsStrategyLookup,
             final SchemePortResolver schemePortResolver,
-            final DnsResolver dnsResolver) {
+            final DnsResolver dnsResolver,
+            final TimeValue connectionAttemptDelay,
+            final AddressLoadBalancer addressLoadBalancer) {
         this.tlsStrategyLookup = Args.notNull(tlsStrategyLookup, "TLS strategy lookup");
         this.schemePortResolver = schemePortResolver != null ? schemePortResolver : DefaultSchemePortResolver.INSTANCE;
-        this.sessionRequester = new MultihomeIOSessionRequester(dnsResolver);
+        this.sessionRequester = new MultihomeIOSessionRequester(dnsResolver, connectionAttemptDelay, addressLoadBalancer);
+        this.addressLoadBalancer = addressLoadBalancer;
+    }
+
+    DefaultAsyncClientConnectionOperator(
+            final Lookup<TlsStrategy> tlsStrategyLookup,
+            final SchemePortResolver schemePortResolver,
+            final DnsResolver dnsResolver) {
+        this(tlsStrategyLookup, schemePortResolver, dnsResolver, null, null);
     }
 
     @Override
@@ -89,6 +102,10 @@ public Future<ManagedAsyncClientConnection> connect(
                     @Override
                     public void completed(final IOSession session) {
                         final DefaultManagedAsyncClientConnection connection = new DefaultManagedAsyncClientConnection(session);
+                        if (addressLoadBalancer != null && remoteAddress == null
+                                && session.getRemoteAddress() instanceof InetSocketAddress) {
+                            addressLoadBalancer.connected((InetSocketAddress) session.getRemoteAddress(), connection);
+                        }
                         if (tlsStrategy != null) {
                             tlsStrategy.upgrade(
                                     connection,
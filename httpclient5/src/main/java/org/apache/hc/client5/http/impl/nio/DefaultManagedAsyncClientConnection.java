@@ -32,10 +32,13 @@
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLSession;
 
 import org.apache.hc.client5.http.impl.ConnPoolSupport;
 import org.apache.hc.client5.http.nio.ManagedAsyncClientConnection;
+import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.http.EndpointDetails;
 import org.apache.hc.core5.http.HttpConnection;
 import org.apache.hc.core5.http.HttpVersion;
@@ -65,10 +68,15 @@ final class DefaultManagedAsyncClientConnection implements ManagedAsyncClientCon
     private final Timeout socketTimeout;
     private final AtomicBoolean closed;
 
+    private long handshakeStart;
+    private long handshakeTime;
+    private Callback<Long> handshakeCallback;
+
     public DefaultManagedAsyncClientConnection(final IOSession ioSession) {
         this.ioSession = ioSession;
         this.socketTimeout = ioSession.getSocketTimeout();
         this.closed = new AtomicBoolean();
+        this.handshakeTime = -1;
     }
 
     @Override
@@ -155,13 +163,58 @@ public void startTls(
             log.debug(getId() + ": start TLS");
         }
         if (ioSession instanceof TransportSecurityLayer) {
-            ((TransportSecurityLayer) ioSession).startTls(sslContext, endpoint, sslBufferMode, initializer, verifier,
-                handshakeTimeout);
+            synchronized (this) {
+                this.handshakeStart = System.nanoTime();
+                this.handshakeTime = -1;
+            }
+            ((TransportSecurityLayer) ioSession).startTls(sslContext, endpoint, sslBufferMode, initializer,
+                new SSLSessionVerifier() {
+
+                    @Override
+                    public TlsDetails verify(
+                            final NamedEndpoint endpoint, final SSLEngine sslEngine) throws SSLException {
+                        final TlsDetails tlsDetails = verifier != null ? verifier.verify(endpoint, sslEngine) : null;
+                        handshakeCompleted();
+                        return tlsDetails;
+                    }
+
+                }, handshakeTimeout);
         } else {
             throw new UnsupportedOperationException("TLS upgrade not supported");
         }
     }
 
+    private void handshakeCompleted() {
+        final Callback<Long> callback;
+        final long time;
+        synchronized (this) {
+            time = System.nanoTime() - this.handshakeStart;
+            this.handshakeTime = time;
+            callback = this.handshakeCallback;
+            this.handshakeCallback = null;
+        }
+        if (callback != null) {
+            callback.execute(time);
+        }
+    }
+
+    /**
+     * Registers a callback to be notified of the duration in nanoseconds of the most recent
+     * TLS handshake once it has completed successfully. The callback is invoked immediately
+     * if the handshake has already completed.
+     */
+    void onHandshakeCompleted(final Callback<Long> callback) {
+        final long time;
+        synchronized (this) {
+            if (this.handshakeTime < 0) {
+                this.handshakeCallback = callback;
+                return;
+            }
+            time = this.handshakeTime;
+        }
+        callback.execute(time);
+    }
+
     @Override
     public TlsDetails getTlsDetails() {
         return ioSession instanceof TransportSecurityLayer ? ((TransportSecurityLayer) ioSession).getTlsDetails() : null;
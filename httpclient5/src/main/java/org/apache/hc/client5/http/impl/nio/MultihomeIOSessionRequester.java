@@ -39,11 +39,16 @@
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.HttpHostConnectException;
 import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.apache.hc.client5.http.impl.AddressLoadBalancer;
+import org.apache.hc.client5.http.impl.HappyEyeballsSupport;
+import org.apache.hc.core5.concurrent.Cancellable;
 import org.apache.hc.core5.concurrent.ComplexFuture;
 import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.net.NamedEndpoint;
 import org.apache.hc.core5.reactor.ConnectionInitiator;
 import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,9 +57,30 @@ final class MultihomeIOSessionRequester {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
     private final DnsResolver dnsResolver;
+    private final TimeValue connectionAttemptDelay;
+    private final AddressLoadBalancer addressLoadBalancer;
 
-    MultihomeIOSessionRequester(final DnsResolver dnsResolver) {
+    MultihomeIOSessionRequester(
+            final DnsResolver dnsResolver,
+            final TimeValue connectionAttemptDelay,
+            final AddressLoadBalancer addressLoadBalancer) {
         this.dnsResolver = dnsResolver != null ? dnsResolver : SystemDefaultDnsResolver.INSTANCE;
+        this.connectionAttemptDelay = connectionAttemptDelay;
+        this.addressLoadBalancer = addressLoadBalancer;
+    }
+
+    MultihomeIOSessionRequester(final DnsResolver dnsResolver, final TimeValue connectionAttemptDelay) {
+        this(dnsResolver, connectionAttemptDelay, null);
+    }
+
+    MultihomeIOSessionRequester(final DnsResolver dnsResolver) {
+        this(dnsResolver, null, null);
+    }
+
+    private void reportFailure(final InetSocketAddress remoteAddress) {
+        if (addressLoadBalancer != null) {
+            addressLoadBalancer.connectFailed(remoteAddress);
+        }
     }
 
     public Future<IOSession> connect(
@@ -78,18 +104,35 @@ public Future<IOSession> connect(
         }
 
         final ComplexFuture<IOSession> future = new ComplexFuture<>(callback);
-        final InetAddress[] remoteAddresses;
+        final InetAddress[] resolvedAddresses;
         try {
-            remoteAddresses = dnsResolver.resolve(remoteEndpoint.getHostName());
+            resolvedAddresses = dnsResolver.resolve(remoteEndpoint.getHostName());
         } catch (final UnknownHostException ex) {
             future.failed(ex);
             return future;
         }
+        final InetAddress[] remoteAddresses = addressLoadBalancer != null ?
+                addressLoadBalancer.select(remoteEndpoint.getHostName(), resolvedAddresses, remoteEndpoint.getPort()) :
+                resolvedAddresses;
 
         if (log.isDebugEnabled()) {
             log.debug(remoteEndpoint + ": resolved to " + Arrays.asList(remoteAddresses));
         }
 
+        if (connectionAttemptDelay != null && remoteAddresses.length > 1) {
+            final ConnectionRace race = new ConnectionRace(
+                    connectionInitiator,
+                    remoteEndpoint,
+                    HappyEyeballsSupport.interleave(remoteAddresses),
+                    localAddress,
+                    connectTimeout,
+                    attachment,
+                    future);
+            future.setDependency(race);
+            race.startNext();
+            return future;
+        }
+
         final Runnable runnable = new Runnable() {
 
             private final AtomicInteger attempt = new AtomicInteger(0);
@@ -123,6 +166,7 @@ public void completed(final IOSession session) {
 
                             @Override
                             public void failed(final Exception cause) {
+                                reportFailure(remoteAddress);
                                 if (attempt.get() >= remoteAddresses.length) {
                                     if (log.isDebugEnabled()) {
                                         log.debug(remoteEndpoint + ": connection to " + remoteAddress + " failed " +
@@ -161,6 +205,168 @@ public void run() {
         return future;
     }
 
+    /**
+     * Races connection attempts to multiple addresses as described in RFC 8305,
+     * starting the next attempt after the connection attempt delay or as soon
+     * as the previous one fails.
+     */
+    private final class ConnectionRace implements Cancellable {
+
+        private final ConnectionInitiator connectionInitiator;
+        private final NamedEndpoint remoteEndpoint;
+        private final InetAddress[] remoteAddresses;
+        private final SocketAddress localAddress;
+        private final Timeout connectTimeout;
+        private final Object attachment;
+        private final ComplexFuture<IOSession> future;
+        private final AtomicInteger started;
+        private final AtomicInteger failed;
+        private final Future<?>[] attempts;
+        private final Future<?>[] timers;
+
+        ConnectionRace(
+                final ConnectionInitiator connectionInitiator,
+                final NamedEndpoint remoteEndpoint,
+                final InetAddress[] remoteAddresses,
+                final SocketAddress localAddress,
+                final Timeout connectTimeout,
+                final Object attachment,
+                final ComplexFuture<IOSession> future) {
+            this.connectionInitiator = connectionInitiator;
+            this.remoteEndpoint = remoteEndpoint;
+            this.remoteAddresses = remoteAddresses;
+            this.localAddress = localAddress;
+            this.connectTimeout = connectTimeout;
+            this.attachment = attachment;
+            this.future = future;
+            this.started = new AtomicInteger(0);
+            this.failed = new AtomicInteger(0);
+            this.attempts = new Future<?>[remoteAddresses.length];
+            this.timers = new Future<?>[remoteAddresses.length];
+        }
+
+        void startNext() {
+            final int index = started.getAndIncrement();
+            if (index < remoteAddresses.length) {
+                start(index);
+            }
+        }
+
+        private void start(final int index) {
+            if (future.isDone()) {
+                return;
+            }
+            final InetSocketAddress remoteAddress = new InetSocketAddress(remoteAddresses[index], remoteEndpoint.getPort());
+            if (log.isDebugEnabled()) {
+                log.debug(remoteEndpoint + ": connecting " + localAddress + " to " + remoteAddress + " (" + connectTimeout + ")");
+            }
+            final Future<IOSession> sessionFuture = connectionInitiator.connect(
+                    remoteEndpoint,
+                    remoteAddress,
+                    localAddress,
+                    connectTimeout,
+                    attachment,
+                    new FutureCallback<IOSession>() {
+
+                        @Override
+                        public void completed(final IOSession session) {
+                            if (future.completed(session)) {
+                                if (log.isDebugEnabled()) {
+                                    log.debug(remoteEndpoint + ": connected " + session.getId() + " " +
+                                            session.getLocalAddress() + "->" + session.getRemoteAddress());
+                                }
+                                cancelAttempts(index);
+                            } else {
+                                session.close(CloseMode.IMMEDIATE);
+                            }
+                        }
+
+                        @Override
+                        public void failed(final Exception cause) {
+                            reportFailure(remoteAddress);
+                            if (future.isDone()) {
+                                return;
+                            }
+                            if (failed.incrementAndGet() >= remoteAddresses.length) {
+                                if (log.isDebugEnabled()) {
+                                    log.debug(remoteEndpoint + ": connection to " + remoteAddress + " failed " +
+                                            "(" + cause.getClass() + "); terminating operation");
+                                }
+                                if (cause instanceof IOException) {
+                                    future.failed(new HttpHostConnectException((IOException) cause, remoteEndpoint, remoteAddresses));
+                                } else {
+                                    future.failed(cause);
+                                }
+                            } else {
+                                if (log.isDebugEnabled()) {
+                                    log.debug(remoteEndpoint + ": connection to " + remoteAddress + " failed " +
+                                            "(" + cause.getClass() + "); starting connection to the next address");
+                                }
+                                startNext();
+                            }
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            if (future.isDone()) {
+                                return;
+                            }
+                            if (failed.incrementAndGet() >= remoteAddresses.length) {
+                                future.cancel();
+                            } else {
+                                startNext();
+                            }
+                        }
+
+                    });
+            Future<?> timer = null;
+            if (index + 1 < remoteAddresses.length) {
+                timer = HappyEyeballsSupport.getScheduler().schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        // start the next attempt unless a failure has already done so
+                        if (started.compareAndSet(index + 1, index + 2)) {
+                            start(index + 1);
+                        }
+                    }
+
+                }, connectionAttemptDelay.getDuration(), connectionAttemptDelay.getTimeUnit());
+            }
+            synchronized (this) {
+                attempts[index] = sessionFuture;
+                timers[index] = timer;
+            }
+            if (future.isDone()) {
+                cancelAttempts(-1);
+            }
+        }
+
+        private void cancelAttempts(final int winner) {
+            final Future<?>[] attemptsCopy;
+            final Future<?>[] timersCopy;
+            synchronized (this) {
+                attemptsCopy = attempts.clone();
+                timersCopy = timers.clone();
+            }
+            for (int i = 0; i < attemptsCopy.length; i++) {
+                if (timersCopy[i] != null) {
+                    timersCopy[i].cancel(false);
+                }
+                if (i != winner && attemptsCopy[i] != null) {
+                    attemptsCopy[i].cancel(true);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            cancelAttempts(-1);
+            return true;
+        }
+
+    }
+
     public Future<IOSession> connect(
             final ConnectionInitiator connectionInitiator,
             final NamedEndpoint remoteEndpoint,
@@ -28,15 +28,26 @@
 package org.apache.hc.client5.http.impl.nio;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.ConnPoolSupport;
 import org.apache.hc.client5.http.impl.ConnectionShutdownException;
 import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
@@ -47,6 +58,7 @@
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.Internal;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.concurrent.BasicFuture;
 import org.apache.hc.core5.concurrent.ComplexFuture;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.function.Callback;
@@ -97,6 +109,13 @@
  * Total time to live (TTL) set at construction time defines maximum life span
  * of persistent connections regardless of their expiration setting. No persistent
  * connection will be re-used past its TTL value.
+ * <p>
+ * A minimum number of idle connections can be maintained on a per route basis
+ * (see {@link #setMinIdlePerRoute(HttpRoute, int)}). Connections are opened
+ * without blocking whenever the number of idle connections for the route drops
+ * below the target, for instance after connections have been evicted as idle or
+ * expired. Connections can also be opened ahead of time with
+ * {@link #warmUp(HttpRoute, int, ConnectionInitiator, Timeout, FutureCallback)}.
  *
  * @since 5.0
  */
@@ -111,8 +130,13 @@ public class PoolingAsyncClientConnectionManager implements AsyncClientConnectio
     private final ManagedConnPool<HttpRoute, ManagedAsyncClientConnection> pool;
     private final AsyncClientConnectionOperator connectionOperator;
     private final AtomicBoolean closed;
+    private final ConcurrentMap<HttpRoute, Integer> minIdlePerRoute;
+    private final Set<HttpRoute> routesBeingWarmedUp;
 
     private volatile TimeValue validateAfterInactivity;
+    private volatile ConnectionInitiator warmUpConnectionInitiator;
+    private volatile Timeout warmUpConnectTimeout;
+    private volatile ConnPoolMetricsListener metricsListener;
 
     public PoolingAsyncClientConnectionManager() {
         this(RegistryBuilder.<TlsStrategy>create()
@@ -177,6 +201,8 @@ protected PoolingAsyncClientConnectionManager(
                 throw new IllegalArgumentException("Unexpected PoolConcurrencyPolicy value: " + poolConcurrencyPolicy);
         }
         this.closed = new AtomicBoolean(false);
+        this.minIdlePerRoute = new ConcurrentHashMap<>();
+        this.routesBeingWarmedUp = Collections.newSetFromMap(new ConcurrentHashMap<HttpRoute, Boolean>());
     }
 
     @Internal
@@ -186,6 +212,8 @@ protected PoolingAsyncClientConnectionManager(
         this.connectionOperator = Args.notNull(connectionOperator, "Connection operator");
         this.pool = Args.notNull(pool, "Connection pool");
         this.closed = new AtomicBoolean(false);
+        this.minIdlePerRoute = new ConcurrentHashMap<>();
+        this.routesBeingWarmedUp = Collections.newSetFromMap(new ConcurrentHashMap<HttpRoute, Boolean>());
     }
 
     @Override
@@ -222,6 +250,14 @@ public Future<AsyncConnectionEndpoint> lease(
             log.debug(id + ": endpoint lease request (" + requestTimeout + ") " +
                     ConnPoolSupport.formatStats(route, state, pool));
         }
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        final long leaseStart;
+        if (metrics != null) {
+            metrics.leaseRequested(route);
+            leaseStart = System.nanoTime();
+        } else {
+            leaseStart = 0;
+        }
         final ComplexFuture<AsyncConnectionEndpoint> resultFuture = new ComplexFuture<>(callback);
         final Future<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> leaseFuture = pool.lease(
                 route, state, requestTimeout, new FutureCallback<PoolEntry<HttpRoute, ManagedAsyncClientConnection>>() {
@@ -231,6 +267,12 @@ void leaseCompleted(final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poo
                         if (connection != null) {
                             connection.activate();
                         }
+                        if (metrics != null) {
+                            if (connection != null) {
+                                metrics.connectionReused(route);
+                            }
+                            metrics.leaseGranted(route, System.nanoTime() - leaseStart);
+                        }
                         if (log.isDebugEnabled()) {
                             log.debug(id + ": endpoint leased " + ConnPoolSupport.formatStats(route, state, pool));
                         }
@@ -239,6 +281,7 @@ void leaseCompleted(final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poo
                             log.debug(id + ": acquired " + ConnPoolSupport.getId(endpoint));
                         }
                         resultFuture.completed(endpoint);
+                        replenish(route);
                     }
 
                     @Override
@@ -258,6 +301,9 @@ public void execute(final Boolean result) {
                                                 log.debug(id + ": connection " + ConnPoolSupport.getId(connection) + " is stale");
                                             }
                                             poolEntry.discardConnection(CloseMode.IMMEDIATE);
+                                            if (metrics != null) {
+                                                metrics.connectionClosed(route);
+                                            }
                                         }
                                         leaseCompleted(poolEntry);
                                     }
@@ -269,6 +315,9 @@ public void execute(final Boolean result) {
                                         log.debug(id + ": connection " + ConnPoolSupport.getId(connection) + " is closed");
                                     }
                                     poolEntry.discardConnection(CloseMode.IMMEDIATE);
+                                    if (metrics != null) {
+                                        metrics.connectionClosed(route);
+                                    }
                                 }
                                 leaseCompleted(poolEntry);
                             }
@@ -282,6 +331,9 @@ public void failed(final Exception ex) {
                         if (log.isDebugEnabled()) {
                             log.debug(id + ": endpoint lease failed");
                         }
+                        if (metrics != null && ex instanceof TimeoutException) {
+                            metrics.leaseTimedOut(route, System.nanoTime() - leaseStart);
+                        }
                         resultFuture.failed(ex);
                     }
 
@@ -337,6 +389,13 @@ public void release(final AsyncConnectionEndpoint endpoint, final Object state,
                 log.debug(ConnPoolSupport.getId(endpoint) + ": connection released " +
                         ConnPoolSupport.formatStats(entry.getRoute(), entry.getState(), pool));
             }
+            if (!reusable) {
+                final ConnPoolMetricsListener metrics = this.metricsListener;
+                if (metrics != null) {
+                    metrics.connectionClosed(entry.getRoute());
+                }
+                replenish(entry.getRoute());
+            }
         }
     }
 
@@ -351,6 +410,9 @@ public Future<AsyncConnectionEndpoint> connect(
         Args.notNull(endpoint, "Endpoint");
         Args.notNull(connectionInitiator, "Connection initiator");
         Args.notNull(connectTimeout, "Timeout");
+        if (this.warmUpConnectionInitiator == null) {
+            this.warmUpConnectionInitiator = connectionInitiator;
+        }
         final InternalConnectionEndpoint internalEndpoint = cast(endpoint);
         final ComplexFuture<AsyncConnectionEndpoint> resultFuture = new ComplexFuture<>(callback);
         if (internalEndpoint.isConnected()) {
@@ -369,6 +431,8 @@ public Future<AsyncConnectionEndpoint> connect(
         if (this.log.isDebugEnabled()) {
             log.debug(ConnPoolSupport.getId(endpoint) + ": connecting endpoint to " + host + " (" + connectTimeout + ")");
         }
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        final long connectStart = metrics != null ? System.nanoTime() : 0;
         final Future<ManagedAsyncClientConnection> connectFuture = connectionOperator.connect(
                 connectionInitiator, host, localAddress, connectTimeout, attachment, new FutureCallback<ManagedAsyncClientConnection>() {
 
@@ -379,6 +443,10 @@ public void completed(final ManagedAsyncClientConnection connection) {
                                 log.debug(ConnPoolSupport.getId(endpoint) + ": connected " + ConnPoolSupport.getId(connection));
                             }
                             poolEntry.assignConnection(connection);
+                            if (metrics != null) {
+                                metrics.connectionCreated(route, System.nanoTime() - connectStart);
+                                reportHandshake(route, connection, metrics);
+                            }
                             resultFuture.completed(internalEndpoint);
                         } catch (final RuntimeException ex) {
                             resultFuture.failed(ex);
@@ -411,11 +479,33 @@ public void upgrade(
         final HttpRoute route = poolEntry.getRoute();
         final ManagedAsyncClientConnection connection = poolEntry.getConnection();
         connectionOperator.upgrade(poolEntry.getConnection(), route.getTargetHost(), attachment);
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        if (metrics != null) {
+            reportHandshake(route, connection, metrics);
+        }
         if (log.isDebugEnabled()) {
             log.debug(ConnPoolSupport.getId(internalEndpoint) + ": upgraded " + ConnPoolSupport.getId(connection));
         }
     }
 
+    private static void reportHandshake(
+            final HttpRoute route,
+            final ManagedAsyncClientConnection connection,
+            final ConnPoolMetricsListener metrics) {
+        // The TLS handshake, if any, has been started by the connection operator
+        // and completes asynchronously on the I/O dispatch thread
+        if (connection instanceof DefaultManagedAsyncClientConnection) {
+            ((DefaultManagedAsyncClientConnection) connection).onHandshakeCompleted(new Callback<Long>() {
+
+                @Override
+                public void execute(final Long handshakeTimeNanos) {
+                    metrics.handshakeCompleted(route, handshakeTimeNanos);
+                }
+
+            });
+        }
+    }
+
     @Override
     public Set<HttpRoute> getRoutes() {
         return pool.getRoutes();
@@ -453,12 +543,58 @@ public int getMaxPerRoute(final HttpRoute route) {
 
     @Override
     public void closeIdle(final TimeValue idletime) {
+        final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> idleEntries = availableEntriesIfObserved();
         pool.closeIdle(idletime);
+        reportClosed(idleEntries);
+        replenishAll();
     }
 
     @Override
     public void closeExpired() {
+        final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> idleEntries = availableEntriesIfObserved();
         pool.closeExpired();
+        reportClosed(idleEntries);
+        replenishAll();
+    }
+
+    /**
+     * Returns available entries with an open connection when connection closures are reported
+     * to a {@link ConnPoolMetricsListener}, {@code null} otherwise.
+     */
+    private List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> availableEntriesIfObserved() {
+        if (metricsListener == null) {
+            return null;
+        }
+        final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> entries = new ArrayList<>();
+        final Callback<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> callback =
+                new Callback<PoolEntry<HttpRoute, ManagedAsyncClientConnection>>() {
+
+            @Override
+            public void execute(final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poolEntry) {
+                if (poolEntry.hasConnection()) {
+                    entries.add(poolEntry);
+                }
+            }
+
+        };
+        if (pool instanceof StrictConnPool) {
+            ((StrictConnPool<HttpRoute, ManagedAsyncClientConnection>) pool).enumAvailable(callback);
+        } else if (pool instanceof LaxConnPool) {
+            ((LaxConnPool<HttpRoute, ManagedAsyncClientConnection>) pool).enumAvailable(callback);
+        }
+        return entries;
+    }
+
+    private void reportClosed(final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> entries) {
+        final ConnPoolMetricsListener metrics = this.metricsListener;
+        if (entries == null || metrics == null) {
+            return;
+        }
+        for (final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poolEntry: entries) {
+            if (!poolEntry.hasConnection()) {
+                metrics.connectionClosed(poolEntry.getRoute());
+            }
+        }
     }
 
     @Override
@@ -486,6 +622,325 @@ public void setValidateAfterInactivity(final TimeValue validateAfterInactivity)
         this.validateAfterInactivity = validateAfterInactivity;
     }
 
+    /**
+     * Defines the minimum number of idle connections the pool should maintain for the given
+     * route. Whenever the number of available connections for the route drops below this
+     * value, new connections are opened using the {@link ConnectionInitiator} passed to
+     * {@link #ensureMinIdle(ConnectionInitiator)} (or the one of the most recent connect
+     * operation) and the connect timeout of the most recent
+     * {@link #warmUp(HttpRoute, int, ConnectionInitiator, Timeout, FutureCallback) warm-up}
+     * (or {@link RequestConfig#getConnectTimeout() the default one}). Zero disables
+     * the target for the route.
+     * <p>
+     * Connections to tunnelled routes cannot be established without executing the tunnelling
+     * protocol and are never opened in advance.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public void setMinIdlePerRoute(final HttpRoute route, final int minIdle) {
+        Args.notNull(route, "HTTP route");
+        Args.notNegative(minIdle, "Min idle");
+        if (minIdle > 0) {
+            minIdlePerRoute.put(route, minIdle);
+            replenish(route);
+        } else {
+            minIdlePerRoute.remove(route);
+        }
+    }
+
+    /**
+     * @see #setMinIdlePerRoute(HttpRoute, int)
+     * @since 5.0
+     */
+    public int getMinIdlePerRoute(final HttpRoute route) {
+        Args.notNull(route, "HTTP route");
+        final Integer minIdle = minIdlePerRoute.get(route);
+        return minIdle != null ? minIdle : 0;
+    }
+
+    /**
+     * Opens connections for all routes whose number of idle connections is below
+     * their {@link #setMinIdlePerRoute(HttpRoute, int) minimum idle target} and remembers
+     * the connection initiator for replenishing evicted connections later on.
+     *
+     * @since 5.0
+     */
+    public void ensureMinIdle(final ConnectionInitiator connectionInitiator) {
+        Args.notNull(connectionInitiator, "Connection initiator");
+        this.warmUpConnectionInitiator = connectionInitiator;
+        replenishAll();
+    }
+
+    /**
+     * Opens up to {@code count} connections to the given route, including the TLS handshake
+     * for secure routes, and returns them to the pool so that subsequent requests do not pay
+     * the connection setup cost. Connections already available in the pool count towards
+     * {@code count} and remain available to requests; no more connections are opened than
+     * the per route limit allows and none while requests are waiting for a connection to
+     * the route. Each connection is returned to the pool as soon as it has been established.
+     *
+     * @param route the route to open connections to.
+     * @param count the desired number of available connections.
+     * @param connectionInitiator the connection initiator.
+     * @param connectTimeout the connect timeout.
+     * @param callback the callback to be notified of the number of connections opened.
+     * @return future representing the number of connections opened.
+     *
+     * @since 5.0
+     */
+    public Future<Integer> warmUp(
+            final HttpRoute route,
+            final int count,
+            final ConnectionInitiator connectionInitiator,
+            final Timeout connectTimeout,
+            final FutureCallback<Integer> callback) {
+        Args.notNull(route, "HTTP route");
+        Args.notNegative(count, "Connection count");
+        Args.notNull(connectionInitiator, "Connection initiator");
+        Args.notNull(connectTimeout, "Connect timeout");
+        Asserts.check(!closed.get(), "Connection pool shut down");
+        this.warmUpConnectionInitiator = connectionInitiator;
+        this.warmUpConnectTimeout = connectTimeout;
+        final boolean marked = routesBeingWarmedUp.add(route);
+        return openConnections(route, count, connectionInitiator, connectTimeout, new FutureCallback<Integer>() {
+
+            @Override
+            public void completed(final Integer opened) {
+                if (marked) {
+                    routesBeingWarmedUp.remove(route);
+                }
+                if (callback != null) {
+                    callback.completed(opened);
+                }
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                if (marked) {
+                    routesBeingWarmedUp.remove(route);
+                }
+                if (callback != null) {
+                    callback.failed(ex);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                if (marked) {
+                    routesBeingWarmedUp.remove(route);
+                }
+                if (callback != null) {
+                    callback.cancelled();
+                }
+            }
+
+        });
+    }
+
+    private void replenishAll() {
+        if (minIdlePerRoute.isEmpty()) {
+            return;
+        }
+        for (final HttpRoute route: minIdlePerRoute.keySet()) {
+            replenish(route);
+        }
+    }
+
+    private void replenish(final HttpRoute route) {
+        final ConnectionInitiator connectionInitiator = this.warmUpConnectionInitiator;
+        if (minIdlePerRoute.isEmpty() || connectionInitiator == null || closed.get()) {
+            return;
+        }
+        final int minIdle = getMinIdlePerRoute(route);
+        if (minIdle == 0 || pool.getStats(route).getAvailable() >= minIdle) {
+            return;
+        }
+        if (routesBeingWarmedUp.add(route)) {
+            final Timeout connectTimeout = this.warmUpConnectTimeout != null
+                    ? this.warmUpConnectTimeout : RequestConfig.DEFAULT.getConnectTimeout();
+            openConnections(route, minIdle, connectionInitiator, connectTimeout, new FutureCallback<Integer>() {
+
+                @Override
+                public void completed(final Integer opened) {
+                    routesBeingWarmedUp.remove(route);
+                }
+
+                @Override
+                public void failed(final Exception ex) {
+                    routesBeingWarmedUp.remove(route);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Failed to open idle connections to " + route, ex);
+                    }
+                }
+
+                @Override
+                public void cancelled() {
+                    routesBeingWarmedUp.remove(route);
+                }
+
+            });
+        }
+    }
+
+    private Future<Integer> openConnections(
+            final HttpRoute route,
+            final int count,
+            final ConnectionInitiator connectionInitiator,
+            final Timeout connectTimeout,
+            final FutureCallback<Integer> callback) {
+        final BasicFuture<Integer> resultFuture = new BasicFuture<>(callback);
+        if (route.isTunnelled()) {
+            if (log.isDebugEnabled()) {
+                log.debug("Tunnelled route " + route + " cannot be warmed up");
+            }
+            resultFuture.completed(0);
+            return resultFuture;
+        }
+        final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> slots = leaseUnconnected(route, count);
+        if (slots.isEmpty()) {
+            resultFuture.completed(0);
+            return resultFuture;
+        }
+        final AtomicInteger remaining = new AtomicInteger(slots.size());
+        final AtomicInteger opened = new AtomicInteger(0);
+        final AtomicReference<Exception> failure = new AtomicReference<>(null);
+
+        final class WarmUpCallback implements FutureCallback<AsyncConnectionEndpoint> {
+
+            private final InternalConnectionEndpoint endpoint;
+
+            WarmUpCallback(final InternalConnectionEndpoint endpoint) {
+                this.endpoint = endpoint;
+            }
+
+            void done() {
+                // each connection is made available as soon as it has been established
+                if (endpoint.isConnected()) {
+                    release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+                } else {
+                    discard(endpoint);
+                }
+                if (remaining.decrementAndGet() > 0) {
+                    return;
+                }
+                final Exception ex = failure.get();
+                if (ex != null && opened.get() == 0) {
+                    resultFuture.failed(ex);
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Opened " + opened.get() + " connection(s) to " + route + " " +
+                                ConnPoolSupport.formatStats(route, null, pool));
+                    }
+                    resultFuture.completed(opened.get());
+                }
+            }
+
+            @Override
+            public void completed(final AsyncConnectionEndpoint result) {
+                opened.incrementAndGet();
+                done();
+            }
+
+            @Override
+            public void failed(final Exception ex) {
+                failure.set(ex);
+                done();
+            }
+
+            @Override
+            public void cancelled() {
+                done();
+            }
+
+        }
+
+        for (final PoolEntry<HttpRoute, ManagedAsyncClientConnection> slot: slots) {
+            final InternalConnectionEndpoint endpoint = new InternalConnectionEndpoint(slot);
+            final WarmUpCallback warmUpCallback = new WarmUpCallback(endpoint);
+            try {
+                connect(endpoint, connectionInitiator, connectTimeout, null, null, warmUpCallback);
+            } catch (final RuntimeException ex) {
+                warmUpCallback.failed(ex);
+            }
+        }
+        return resultFuture;
+    }
+
+    /**
+     * Leases without waiting the pool entries required for the given route to have {@code count}
+     * connections available. Entries that already have a connection count towards {@code count}
+     * and are returned to the pool right away; the entries without a connection are returned to
+     * the caller. Stops short if the route is saturated or has requests waiting for a connection.
+     * <p>
+     * The pool is accessed directly so that lease metrics only reflect actual requests.
+     * </p>
+     */
+    private List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> leaseUnconnected(
+            final HttpRoute route, final int count) {
+        final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> connected = new ArrayList<>();
+        final List<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> unconnected = new ArrayList<>();
+        try {
+            while (connected.size() + unconnected.size() < count && !closed.get()) {
+                final Future<PoolEntry<HttpRoute, ManagedAsyncClientConnection>> future = pool.lease(
+                        route, null, Timeout.ZERO_MILLISECONDS, null);
+                if (!future.isDone() && future.cancel(true)) {
+                    break;
+                }
+                final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poolEntry;
+                try {
+                    poolEntry = future.get();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (final ExecutionException | CancellationException ex) {
+                    break;
+                }
+                if (poolEntry.hasConnection()) {
+                    connected.add(poolEntry);
+                } else {
+                    unconnected.add(poolEntry);
+                }
+            }
+        } finally {
+            for (final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poolEntry: connected) {
+                pool.release(poolEntry, true);
+            }
+        }
+        return unconnected;
+    }
+
+    private void discard(final InternalConnectionEndpoint endpoint) {
+        final PoolEntry<HttpRoute, ManagedAsyncClientConnection> poolEntry = endpoint.detach();
+        if (poolEntry != null) {
+            poolEntry.discardConnection(CloseMode.IMMEDIATE);
+            pool.release(poolEntry, false);
+        }
+    }
+
+    /**
+     * @see #setMetricsListener(ConnPoolMetricsListener)
+     * @since 5.0
+     */
+    public ConnPoolMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Assigns {@link ConnPoolMetricsListener} to be notified of lease and connection events.
+     * Connection creation times of secure connections do not include the TLS handshake,
+     * which is performed asynchronously once the connection has been established and
+     * reported separately upon its completion.
+     * Closures of idle and expired connections can only be reported if the pool supports
+     * enumeration of available connections, which is the case for both
+     * {@link PoolConcurrencyPolicy} implementations.
+     *
+     * @since 5.0
+     */
+    public void setMetricsListener(final ConnPoolMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     private static final AtomicLong COUNT = new AtomicLong(0);
 
     class InternalConnectionEndpoint extends AsyncConnectionEndpoint implements Identifiable {
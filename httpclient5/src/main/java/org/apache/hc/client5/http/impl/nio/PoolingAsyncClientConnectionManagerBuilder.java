@@ -27,8 +27,10 @@
 
 package org.apache.hc.client5.http.impl.nio;
 
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.impl.AddressLoadBalancer;
 import org.apache.hc.client5.http.ssl.ConscryptClientTlsStrategy;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
 import org.apache.hc.core5.http.config.RegistryBuilder;
@@ -79,6 +81,9 @@ public class PoolingAsyncClientConnectionManagerBuilder {
 
     private TimeValue timeToLive;
     private TimeValue validateAfterInactivity;
+    private ConnPoolMetricsListener metricsListener;
+    private TimeValue connectionAttemptDelay;
+    private AddressLoadBalancer addressLoadBalancer;
 
     public static PoolingAsyncClientConnectionManagerBuilder create() {
         return new PoolingAsyncClientConnectionManagerBuilder();
@@ -164,6 +169,47 @@ public final PoolingAsyncClientConnectionManagerBuilder setValidateAfterInactivi
         return this;
     }
 
+    /**
+     * Assigns {@link ConnPoolMetricsListener} to be notified of lease and connection events.
+     *
+     * @see org.apache.hc.client5.http.impl.BasicConnPoolMetrics
+     * @since 5.0
+     */
+    public final PoolingAsyncClientConnectionManagerBuilder setMetricsListener(final ConnPoolMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+        return this;
+    }
+
+    /**
+     * Enables racing of connection attempts to hosts resolving to multiple
+     * addresses as described in RFC 8305 (Happy Eyeballs). Address families
+     * are interleaved and the next attempt is started after the given delay
+     * or as soon as the previous one fails, whichever comes first. The first
+     * connection to be established is used and all other attempts are aborted.
+     * RFC 8305 recommends a delay of 250 milliseconds.
+     * <p>
+     * Connection attempts are made sequentially if not set.
+     * </p>
+     *
+     * @since 5.0
+     */
+    public final PoolingAsyncClientConnectionManagerBuilder setConnectionAttemptDelay(final TimeValue connectionAttemptDelay) {
+        this.connectionAttemptDelay = connectionAttemptDelay;
+        return this;
+    }
+
+    /**
+     * Assigns {@link AddressLoadBalancer} used to spread connections to hosts
+     * with multiple addresses across those addresses and to temporarily eject
+     * addresses failing to accept connections.
+     *
+     * @since 5.0
+     */
+    public final PoolingAsyncClientConnectionManagerBuilder setAddressLoadBalancer(final AddressLoadBalancer addressLoadBalancer) {
+        this.addressLoadBalancer = addressLoadBalancer;
+        return this;
+    }
+
     /**
      * Use system properties when creating and configuring default
      * implementations.
@@ -193,15 +239,19 @@ public PoolingAsyncClientConnectionManager build() {
             }
         }
         final PoolingAsyncClientConnectionManager poolingmgr = new PoolingAsyncClientConnectionManager(
-                RegistryBuilder.<TlsStrategy>create()
-                        .register("https", tlsStrategyCopy)
-                        .build(),
+                new DefaultAsyncClientConnectionOperator(
+                        RegistryBuilder.<TlsStrategy>create()
+                                .register("https", tlsStrategyCopy)
+                                .build(),
+                        schemePortResolver,
+                        dnsResolver,
+                        connectionAttemptDelay,
+                        addressLoadBalancer),
                 poolConcurrencyPolicy,
                 poolReusePolicy,
-                timeToLive,
-                schemePortResolver,
-                dnsResolver);
+                timeToLive);
         poolingmgr.setValidateAfterInactivity(this.validateAfterInactivity);
+        poolingmgr.setMetricsListener(this.metricsListener);
         if (maxConnTotal > 0) {
             poolingmgr.setMaxTotal(maxConnTotal);
         }
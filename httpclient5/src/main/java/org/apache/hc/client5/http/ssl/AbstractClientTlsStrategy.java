@@ -67,6 +67,7 @@ abstract class AbstractClientTlsStrategy implements TlsStrategy {
     private final SSLBufferMode sslBufferManagement;
     private final HostnameVerifier hostnameVerifier;
     private final TlsSessionValidator tlsSessionValidator;
+    private final TlsSessionCache tlsSessionCache;
 
     AbstractClientTlsStrategy(
             final SSLContext sslContext,
@@ -74,6 +75,16 @@ abstract class AbstractClientTlsStrategy implements TlsStrategy {
             final String[] supportedCipherSuites,
             final SSLBufferMode sslBufferManagement,
             final HostnameVerifier hostnameVerifier) {
+        this(sslContext, supportedProtocols, supportedCipherSuites, sslBufferManagement, hostnameVerifier, null);
+    }
+
+    AbstractClientTlsStrategy(
+            final SSLContext sslContext,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final SSLBufferMode sslBufferManagement,
+            final HostnameVerifier hostnameVerifier,
+            final TlsSessionCache tlsSessionCache) {
         super();
         this.sslContext = Args.notNull(sslContext, "SSL context");
         this.supportedProtocols = supportedProtocols;
@@ -81,6 +92,10 @@ abstract class AbstractClientTlsStrategy implements TlsStrategy {
         this.sslBufferManagement = sslBufferManagement != null ? sslBufferManagement : SSLBufferMode.STATIC;
         this.hostnameVerifier = hostnameVerifier != null ? hostnameVerifier : HttpsSupport.getDefaultHostnameVerifier();
         this.tlsSessionValidator = new TlsSessionValidator(log);
+        this.tlsSessionCache = tlsSessionCache;
+        if (tlsSessionCache != null) {
+            tlsSessionCache.configure(sslContext);
+        }
     }
 
     @Override
@@ -91,6 +106,7 @@ public boolean upgrade(
             final SocketAddress remoteAddress,
             final Object attachment,
             final Timeout handshakeTimeout) {
+        final long handshakeStart = System.currentTimeMillis();
         tlsSession.startTls(sslContext, host, sslBufferManagement, new SSLSessionInitializer() {
 
             @Override
@@ -130,6 +146,13 @@ public void initialize(final NamedEndpoint endpoint, final SSLEngine sslEngine)
             @Override
             public TlsDetails verify(final NamedEndpoint endpoint, final SSLEngine sslEngine) throws SSLException {
                 verifySession(host.getHostName(), sslEngine.getSession());
+                if (tlsSessionCache != null) {
+                    final boolean resumed = tlsSessionCache.sessionEstablished(
+                            host.getHostName(), host.getPort(), sslEngine.getSession(), handshakeStart);
+                    if (log.isDebugEnabled()) {
+                        log.debug(resumed ? "TLS session resumed" : "New TLS session established");
+                    }
+                }
                 return createTlsDetails(sslEngine);
             }
 
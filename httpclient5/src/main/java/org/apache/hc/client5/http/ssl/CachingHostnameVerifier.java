@@ -0,0 +1,207 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.ssl;
+
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import org.apache.hc.client5.http.psl.PublicSuffixMatcherLoader;
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HttpClientHostnameVerifier} decorator that remembers successful
+ * verification outcomes.
+ * <p>
+ * Matching a host name against a certificate involves parsing its subject
+ * alternative names or subject DN and consulting the public suffix list.
+ * This class caches the host name / certificate pairs that have passed
+ * verification by the underlying verifier, so that repeated connections
+ * to the same server skip this work. Certificates are compared by their
+ * DER encoding, which identifies them as precisely as their fingerprint.
+ * Cache entries are discarded once the certificate expires. Failed
+ * verifications are never cached.
+ * </p>
+ *
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class CachingHostnameVerifier implements HttpClientHostnameVerifier {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final HttpClientHostnameVerifier hostnameVerifier;
+    private final Map<Key, Long> verified;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+
+    /**
+     * @param hostnameVerifier the verifier to delegate to.
+     * @param maxEntries the maximum number of verification outcomes to cache.
+     */
+    public CachingHostnameVerifier(final HttpClientHostnameVerifier hostnameVerifier, final int maxEntries) {
+        super();
+        this.hostnameVerifier = Args.notNull(hostnameVerifier, "Hostname verifier");
+        Args.positive(maxEntries, "Max entries");
+        this.verified = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Long> eldest) {
+                return size() > maxEntries;
+            }
+
+        };
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+    }
+
+    /**
+     * Creates a cache of 1000 entries backed by {@link DefaultHostnameVerifier}
+     * using the default public suffix list.
+     */
+    public CachingHostnameVerifier() {
+        this(new DefaultHostnameVerifier(PublicSuffixMatcherLoader.getDefault()), 1000);
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public boolean verify(final String host, final SSLSession session) {
+        try {
+            final Certificate[] certs = session.getPeerCertificates();
+            final X509Certificate x509 = (X509Certificate) certs[0];
+            verify(host, x509);
+            return true;
+        } catch (final SSLException ex) {
+            if (log.isDebugEnabled()) {
+                log.debug(ex.getMessage(), ex);
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void verify(final String host, final X509Certificate cert) throws SSLException {
+        final Key key = new Key(host != null ? host.toLowerCase(Locale.ROOT) : null, cert);
+        final long now = now();
+        synchronized (verified) {
+            final Long notAfter = verified.get(key);
+            if (notAfter != null) {
+                if (now <= notAfter.longValue()) {
+                    hitCount.incrementAndGet();
+                    return;
+                }
+                verified.remove(key);
+            }
+        }
+        missCount.incrementAndGet();
+        hostnameVerifier.verify(host, cert);
+        final long notAfter = cert.getNotAfter().getTime();
+        if (now <= notAfter) {
+            synchronized (verified) {
+                verified.put(key, Long.valueOf(notAfter));
+            }
+        }
+    }
+
+    /**
+     * Discards all cached verification outcomes.
+     */
+    public void clear() {
+        synchronized (verified) {
+            verified.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached verification outcomes.
+     */
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    /**
+     * Returns the number of verifications answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of verifications delegated to the underlying verifier.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    static final class Key {
+
+        private final String host;
+        private final X509Certificate cert;
+
+        Key(final String host, final X509Certificate cert) {
+            this.host = host;
+            this.cert = cert;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof Key) {
+                final Key that = (Key) obj;
+                return (this.host != null ? this.host.equals(that.host) : that.host == null)
+                        && this.cert.equals(that.cert);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (host != null ? host.hashCode() : 0) + cert.hashCode();
+        }
+
+    }
+
+}
@@ -76,6 +76,7 @@ public static ClientTlsStrategyBuilder create() {
     private SSLBufferMode sslBufferMode;
     private HostnameVerifier hostnameVerifier;
     private Factory<SSLEngine, TlsDetails> tlsDetailsFactory;
+    private TlsSessionCache tlsSessionCache;
     private boolean systemProperties;
 
     /**
@@ -137,6 +138,14 @@ public ClientTlsStrategyBuilder setTlsDetailsFactory(final Factory<SSLEngine, Tl
         return this;
     }
 
+    /**
+     * Assigns {@link TlsSessionCache} instance.
+     */
+    public ClientTlsStrategyBuilder setTlsSessionCache(final TlsSessionCache tlsSessionCache) {
+        this.tlsSessionCache = tlsSessionCache;
+        return this;
+    }
+
     /**
      * Use system properties when creating and configuring default
      * implementations.
@@ -171,7 +180,8 @@ public TlsStrategy build() {
                 ciphersCopy,
                 sslBufferMode != null ? sslBufferMode : SSLBufferMode.STATIC,
                 hostnameVerifier != null ? hostnameVerifier : HttpsSupport.getDefaultHostnameVerifier(),
-                tlsDetailsFactory);
+                tlsDetailsFactory,
+                tlsSessionCache);
     }
 
 }
@@ -73,7 +73,26 @@ public DefaultClientTlsStrategy(
             final SSLBufferMode sslBufferManagement,
             final HostnameVerifier hostnameVerifier,
             final Factory<SSLEngine, TlsDetails> tlsDetailsFactory) {
-        super(sslContext, supportedProtocols, supportedCipherSuites, sslBufferManagement, hostnameVerifier);
+        this(sslContext, supportedProtocols, supportedCipherSuites, sslBufferManagement, hostnameVerifier,
+                tlsDetailsFactory, null);
+    }
+
+    /**
+     * @param tlsSessionCache the TLS session cache to apply to the SSL context.
+     *                        If {@code null} the session cache settings of the
+     *                        context are left unchanged.
+     * @since 5.0
+     */
+    public DefaultClientTlsStrategy(
+            final SSLContext sslContext,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final SSLBufferMode sslBufferManagement,
+            final HostnameVerifier hostnameVerifier,
+            final Factory<SSLEngine, TlsDetails> tlsDetailsFactory,
+            final TlsSessionCache tlsSessionCache) {
+        super(sslContext, supportedProtocols, supportedCipherSuites, sslBufferManagement, hostnameVerifier,
+                tlsSessionCache);
         this.tlsDetailsFactory = tlsDetailsFactory;
     }
 
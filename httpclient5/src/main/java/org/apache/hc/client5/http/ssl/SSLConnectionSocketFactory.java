@@ -29,11 +29,14 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.net.SocketFactory;
@@ -47,6 +50,7 @@
 import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
 import org.apache.hc.core5.annotation.Contract;
 import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.http.ssl.TLS;
@@ -70,6 +74,16 @@
 @Contract(threading = ThreadingBehavior.STATELESS)
 public class SSLConnectionSocketFactory implements LayeredConnectionSocketFactory {
 
+    /**
+     * Attribute name of a {@link Long} object set in the execution context, which
+     * represents the duration in nanoseconds of the most recent TLS handshake
+     * performed by the socket factory. Connection managers use it to report
+     * handshake times separately from connect times.
+     *
+     * @since 5.0
+     */
+    public static final String HANDSHAKE_TIME = "http.ssl.handshake-time";
+
     private static final String WEAK_KEY_EXCHANGES
             = "^(TLS|SSL)_(NULL|ECDH_anon|DH_anon|DH_anon_EXPORT|DHE_RSA_EXPORT|DHE_DSS_EXPORT|"
             + "DSS_EXPORT|DH_DSS_EXPORT|DH_RSA_EXPORT|RSA_EXPORT|KRB5_EXPORT)_(.*)";
@@ -122,6 +136,8 @@ static boolean isWeakCipherSuite(final String cipherSuite) {
     private final String[] supportedProtocols;
     private final String[] supportedCipherSuites;
     private final TlsSessionValidator tlsSessionValidator;
+    private final TlsSessionCache tlsSessionCache;
+    private final Semaphore handshakePermits;
 
     public SSLConnectionSocketFactory(final SSLContext sslContext) {
         this(sslContext, HttpsSupport.getDefaultHostnameVerifier());
@@ -148,6 +164,48 @@ public SSLConnectionSocketFactory(
                 supportedProtocols, supportedCipherSuites, hostnameVerifier);
     }
 
+    /**
+     * @param tlsSessionCache the TLS session cache to apply to the SSL context.
+     *                        If {@code null} the session cache settings of the
+     *                        context are left unchanged.
+     * @since 5.0
+     */
+    public SSLConnectionSocketFactory(
+            final SSLContext sslContext,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final TlsSessionCache tlsSessionCache) {
+        this(sslContext, supportedProtocols, supportedCipherSuites, hostnameVerifier, tlsSessionCache, 0);
+    }
+
+    /**
+     * @param tlsSessionCache the TLS session cache to apply to the SSL context.
+     *                        If {@code null} the session cache settings of the
+     *                        context are left unchanged.
+     * @param maxConcurrentHandshakes the maximum number of TLS handshakes and
+     *                                server identity verifications to perform
+     *                                concurrently. Connecting threads in excess of
+     *                                the limit wait no longer than the socket timeout
+     *                                and fail with {@link ConnectionRequestTimeoutException}
+     *                                otherwise. If zero or negative the number is not
+     *                                limited.
+     * @since 5.0
+     */
+    public SSLConnectionSocketFactory(
+            final SSLContext sslContext,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final TlsSessionCache tlsSessionCache,
+            final int maxConcurrentHandshakes) {
+        this(Args.notNull(sslContext, "SSL context").getSocketFactory(),
+                supportedProtocols, supportedCipherSuites, hostnameVerifier, tlsSessionCache, maxConcurrentHandshakes);
+        if (tlsSessionCache != null) {
+            tlsSessionCache.configure(sslContext);
+        }
+    }
+
     /**
      * @since 4.4
      */
@@ -165,11 +223,23 @@ public SSLConnectionSocketFactory(
             final String[] supportedProtocols,
             final String[] supportedCipherSuites,
             final HostnameVerifier hostnameVerifier) {
+        this(socketfactory, supportedProtocols, supportedCipherSuites, hostnameVerifier, null, 0);
+    }
+
+    private SSLConnectionSocketFactory(
+            final javax.net.ssl.SSLSocketFactory socketfactory,
+            final String[] supportedProtocols,
+            final String[] supportedCipherSuites,
+            final HostnameVerifier hostnameVerifier,
+            final TlsSessionCache tlsSessionCache,
+            final int maxConcurrentHandshakes) {
         this.socketfactory = Args.notNull(socketfactory, "SSL socket factory");
         this.supportedProtocols = supportedProtocols;
         this.supportedCipherSuites = supportedCipherSuites;
         this.hostnameVerifier = hostnameVerifier != null ? hostnameVerifier : HttpsSupport.getDefaultHostnameVerifier();
         this.tlsSessionValidator = new TlsSessionValidator(log);
+        this.tlsSessionCache = tlsSessionCache;
+        this.handshakePermits = maxConcurrentHandshakes > 0 ? new Semaphore(maxConcurrentHandshakes) : null;
     }
 
     /**
@@ -218,8 +288,11 @@ public Socket connectSocket(
         if (sock instanceof SSLSocket) {
             final SSLSocket sslsock = (SSLSocket) sock;
             this.log.debug("Starting handshake");
-            sslsock.startHandshake();
-            verifyHostname(sslsock, host.getHostName());
+            final long handshakeStart = System.currentTimeMillis();
+            final long handshakeStartNanos = System.nanoTime();
+            executeHandshake(sslsock, host.getHostName());
+            handshakeCompleted(context, handshakeStartNanos);
+            sessionEstablished(sslsock, host.getHostName(), remoteAddress.getPort(), handshakeStart);
             return sock;
         }
         return createLayeredSocket(sock, host.getHostName(), remoteAddress.getPort(), context);
@@ -254,11 +327,62 @@ public Socket createLayeredSocket(
 
         prepareSocket(sslsock);
         this.log.debug("Starting handshake");
-        sslsock.startHandshake();
-        verifyHostname(sslsock, target);
+        final long handshakeStart = System.currentTimeMillis();
+        final long handshakeStartNanos = System.nanoTime();
+        executeHandshake(sslsock, target);
+        handshakeCompleted(context, handshakeStartNanos);
+        sessionEstablished(sslsock, target, port, handshakeStart);
         return sslsock;
     }
 
+    private static void handshakeCompleted(final HttpContext context, final long handshakeStartNanos) {
+        if (context != null) {
+            context.setAttribute(HANDSHAKE_TIME, System.nanoTime() - handshakeStartNanos);
+        }
+    }
+
+    private void executeHandshake(final SSLSocket sslsock, final String hostname) throws IOException {
+        if (handshakePermits == null) {
+            sslsock.startHandshake();
+            verifyHostname(sslsock, hostname);
+            return;
+        }
+        // wait for a permit no longer than the handshake itself may take; running out of
+        // permits says nothing about the peer, hence not a SocketTimeoutException
+        final int timeout = sslsock.getSoTimeout();
+        try {
+            if (timeout > 0) {
+                if (!handshakePermits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    Closer.closeQuietly(sslsock);
+                    throw new ConnectionRequestTimeoutException("Timeout waiting for TLS handshake (" + timeout + " ms)");
+                }
+            } else {
+                handshakePermits.acquire();
+            }
+        } catch (final InterruptedException ex) {
+            Closer.closeQuietly(sslsock);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for TLS handshake");
+        }
+        try {
+            sslsock.startHandshake();
+            verifyHostname(sslsock, hostname);
+        } finally {
+            handshakePermits.release();
+        }
+    }
+
+    private void sessionEstablished(
+            final SSLSocket sslsock, final String hostname, final int port, final long handshakeStart) {
+        if (tlsSessionCache != null) {
+            final boolean resumed = tlsSessionCache.sessionEstablished(
+                    hostname, port, sslsock.getSession(), handshakeStart);
+            if (this.log.isDebugEnabled()) {
+                this.log.debug(resumed ? "TLS session resumed" : "New TLS session established");
+            }
+        }
+    }
+
     private void verifyHostname(final SSLSocket sslsock, final String hostname) throws IOException {
         try {
             SSLSession session = sslsock.getSession();
@@ -69,6 +69,8 @@ public static SSLConnectionSocketFactoryBuilder create() {
     private String[] tlsVersions;
     private String[] ciphers;
     private HostnameVerifier hostnameVerifier;
+    private TlsSessionCache tlsSessionCache;
+    private int maxConcurrentHandshakes;
     private boolean systemProperties;
 
     /**
@@ -115,6 +117,29 @@ public SSLConnectionSocketFactoryBuilder setHostnameVerifier(final HostnameVerif
         return this;
     }
 
+    /**
+     * Assigns {@link TlsSessionCache} instance.
+     */
+    public SSLConnectionSocketFactoryBuilder setTlsSessionCache(final TlsSessionCache tlsSessionCache) {
+        this.tlsSessionCache = tlsSessionCache;
+        return this;
+    }
+
+    /**
+     * Assigns the maximum number of TLS handshakes and server identity
+     * verifications to perform concurrently. Connecting threads in excess
+     * of the limit wait for a handshake to complete for no longer than
+     * the socket timeout and fail with
+     * {@link org.apache.hc.core5.http.ConnectionRequestTimeoutException}
+     * otherwise, which is neither retried with another address of the host
+     * nor counted as a connect failure of the address. If zero or negative,
+     * which is the default, the number is not limited.
+     */
+    public SSLConnectionSocketFactoryBuilder setMaxConcurrentHandshakes(final int maxConcurrentHandshakes) {
+        this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+        return this;
+    }
+
     /**
      * Use system properties when creating and configuring default
      * implementations.
@@ -125,16 +150,17 @@ public final SSLConnectionSocketFactoryBuilder useSystemProperties() {
     }
 
     public SSLConnectionSocketFactory build() {
-        final javax.net.ssl.SSLSocketFactory socketfactory;
+        final SSLContext sslContextCopy;
         if (sslContext != null) {
-            socketfactory = sslContext.getSocketFactory();
+            sslContextCopy = sslContext;
+        } else if (systemProperties) {
+            sslContextCopy = tlsSessionCache != null || maxConcurrentHandshakes > 0 ? SSLContexts.createSystemDefault() : null;
         } else {
-            if (systemProperties) {
-                socketfactory = (javax.net.ssl.SSLSocketFactory) javax.net.ssl.SSLSocketFactory.getDefault();
-            } else {
-                socketfactory = SSLContexts.createDefault().getSocketFactory();
-            }
+            sslContextCopy = SSLContexts.createDefault();
         }
+        final javax.net.ssl.SSLSocketFactory socketfactory = sslContextCopy != null
+                ? sslContextCopy.getSocketFactory()
+                : (javax.net.ssl.SSLSocketFactory) javax.net.ssl.SSLSocketFactory.getDefault();
         final String[] tlsVersionsCopy;
         if (tlsVersions != null) {
             tlsVersionsCopy = tlsVersions;
@@ -147,11 +173,21 @@ public SSLConnectionSocketFactory build() {
         } else {
             ciphersCopy = systemProperties ? HttpsSupport.getSystemCipherSuits() : null;
         }
+        final HostnameVerifier hostnameVerifierCopy = hostnameVerifier != null ? hostnameVerifier : HttpsSupport.getDefaultHostnameVerifier();
+        if (sslContextCopy != null && (tlsSessionCache != null || maxConcurrentHandshakes > 0)) {
+            return new SSLConnectionSocketFactory(
+                    sslContextCopy,
+                    tlsVersionsCopy,
+                    ciphersCopy,
+                    hostnameVerifierCopy,
+                    tlsSessionCache,
+                    maxConcurrentHandshakes);
+        }
         return new SSLConnectionSocketFactory(
                 socketfactory,
                 tlsVersionsCopy,
                 ciphersCopy,
-                hostnameVerifier != null ? hostnameVerifier : HttpsSupport.getDefaultHostnameVerifier());
+                hostnameVerifierCopy);
     }
 
 }
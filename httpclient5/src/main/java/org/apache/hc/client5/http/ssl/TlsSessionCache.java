@@ -0,0 +1,240 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.ssl;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+
+import org.apache.hc.core5.annotation.Contract;
+import org.apache.hc.core5.annotation.ThreadingBehavior;
+import org.apache.hc.core5.util.Args;
+import org.apache.hc.core5.util.TimeValue;
+
+/**
+ * Controls TLS session resumption of client connections.
+ * <p>
+ * JSSE caches client sessions and session tickets in the client session
+ * context of an {@link SSLContext}, keyed by the peer host name (SNI) and
+ * port, and resumes them when a new connection to the same endpoint is
+ * established from the same context. This class bounds the size and the
+ * lifetime of that cache, keeps track of the most recent session per
+ * endpoint and records how many handshakes resumed a previous session.
+ * </p>
+ * <p>
+ * Resumption is detected on a best effort basis: a session is considered
+ * resumed if it is the same session or has the same session ID as the one
+ * previously established with the endpoint, or if it had been created
+ * before the handshake started.
+ * </p>
+ *
+ * @see SSLConnectionSocketFactoryBuilder#setTlsSessionCache(TlsSessionCache)
+ * @see ClientTlsStrategyBuilder#setTlsSessionCache(TlsSessionCache)
+ * @since 5.0
+ */
+@Contract(threading = ThreadingBehavior.SAFE)
+public class TlsSessionCache {
+
+    private final int maxSessions;
+    private final TimeValue sessionTimeout;
+    private final Map<String, SSLSession> sessions;
+    private final AtomicLong resumedCount;
+    private final AtomicLong fullHandshakeCount;
+
+    /**
+     * @param maxSessions the maximum number of cached sessions.
+     * @param sessionTimeout the time after which cached sessions are no longer resumed.
+     */
+    public TlsSessionCache(final int maxSessions, final TimeValue sessionTimeout) {
+        super();
+        this.maxSessions = Args.positive(maxSessions, "Max sessions");
+        this.sessionTimeout = Args.notNull(sessionTimeout, "Session timeout");
+        this.sessions = new LinkedHashMap<String, SSLSession>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, SSLSession> eldest) {
+                return size() > TlsSessionCache.this.maxSessions;
+            }
+
+        };
+        this.resumedCount = new AtomicLong();
+        this.fullHandshakeCount = new AtomicLong();
+    }
+
+    /**
+     * Creates a cache of 1000 sessions that expire after 24 hours.
+     */
+    public TlsSessionCache() {
+        this(1000, TimeValue.ofHours(24));
+    }
+
+    /**
+     * Applies the size and timeout of this cache to the client session
+     * context of the given {@link SSLContext}.
+     */
+    public void configure(final SSLContext sslContext) {
+        Args.notNull(sslContext, "SSL context");
+        final SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        if (sessionContext != null) {
+            sessionContext.setSessionCacheSize(maxSessions);
+            sessionContext.setSessionTimeout(sessionTimeout.toSecondsIntBound());
+        }
+    }
+
+    static String key(final String host, final int port) {
+        return (host != null ? host.toLowerCase(Locale.ROOT) : "") + ":" + port;
+    }
+
+    /**
+     * Records a completed handshake with the given endpoint.
+     *
+     * @param host the peer host name.
+     * @param port the peer port.
+     * @param session the session negotiated by the handshake.
+     * @param handshakeStart the time in milliseconds the handshake started at.
+     * @return {@code true} if the session was resumed, {@code false} otherwise.
+     */
+    public boolean sessionEstablished(
+            final String host,
+            final int port,
+            final SSLSession session,
+            final long handshakeStart) {
+        if (session == null) {
+            return false;
+        }
+        final String key = key(host, port);
+        final SSLSession previous;
+        synchronized (sessions) {
+            previous = sessions.put(key, session);
+        }
+        final boolean resumed;
+        if (previous == session) {
+            resumed = true;
+        } else if (previous != null && isNotEmpty(previous.getId())
+                && Arrays.equals(previous.getId(), session.getId())) {
+            resumed = true;
+        } else {
+            resumed = session.getCreationTime() < handshakeStart;
+        }
+        if (resumed) {
+            resumedCount.incrementAndGet();
+        } else {
+            fullHandshakeCount.incrementAndGet();
+        }
+        return resumed;
+    }
+
+    private static boolean isNotEmpty(final byte[] id) {
+        return id != null && id.length > 0;
+    }
+
+    /**
+     * Returns the most recent session established with the given endpoint
+     * if still valid and not expired, {@code null} otherwise.
+     */
+    public SSLSession getSession(final String host, final int port) {
+        final String key = key(host, port);
+        synchronized (sessions) {
+            final SSLSession session = sessions.get(key);
+            if (session == null) {
+                return null;
+            }
+            if (!session.isValid()
+                    || System.currentTimeMillis() - session.getCreationTime() >= sessionTimeout.toMillis()) {
+                sessions.remove(key);
+                return null;
+            }
+            return session;
+        }
+    }
+
+    /**
+     * Invalidates the most recent session established with the given endpoint
+     * so that the next connection performs a full handshake.
+     */
+    public void invalidate(final String host, final int port) {
+        final SSLSession session;
+        synchronized (sessions) {
+            session = sessions.remove(key(host, port));
+        }
+        if (session != null) {
+            session.invalidate();
+        }
+    }
+
+    /**
+     * Invalidates all sessions tracked by this cache.
+     */
+    public void clear() {
+        final SSLSession[] copy;
+        synchronized (sessions) {
+            copy = sessions.values().toArray(new SSLSession[sessions.size()]);
+            sessions.clear();
+        }
+        for (final SSLSession session : copy) {
+            session.invalidate();
+        }
+    }
+
+    /**
+     * Returns the number of handshakes that resumed a previous session.
+     */
+    public long getResumedCount() {
+        return resumedCount.get();
+    }
+
+    /**
+     * Returns the number of full handshakes.
+     */
+    public long getFullHandshakeCount() {
+        return fullHandshakeCount.get();
+    }
+
+    /**
+     * Returns the ratio of resumed handshakes to all handshakes.
+     */
+    public double getResumptionRatio() {
+        final long resumed = resumedCount.get();
+        final long total = resumed + fullHandshakeCount.get();
+        return total > 0 ? (double) resumed / total : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "[max sessions: " + maxSessions + "; session timeout: " + sessionTimeout +
+                "; resumed: " + getResumedCount() + "; full handshakes: " + getFullHandshakeCount() + "]";
+    }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.async.methods;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.StringAsyncEntityProducer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestDeflatingAsyncEntityProducer {
+
+    static class ByteChannel implements DataStreamChannel {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int capacity;
+        private boolean ended;
+        private List<? extends Header> trailers;
+
+        ByteChannel(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void requestOutput() {
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            Assert.assertFalse(ended);
+            final int n = Math.min(src.remaining(), capacity);
+            for (int i = 0; i < n; i++) {
+                buffer.write(src.get());
+            }
+            return n;
+        }
+
+        @Override
+        public void endStream() throws IOException {
+            endStream(null);
+        }
+
+        @Override
+        public void endStream(final List<? extends Header> trailers) throws IOException {
+            Assert.assertFalse(ended);
+            this.ended = true;
+            this.trailers = trailers;
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+    }
+
+    private static String createContent() {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            buffer.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"}\n");
+        }
+        return buffer.toString();
+    }
+
+    private static byte[] produce(final AsyncEntityProducer producer, final ByteChannel channel) throws IOException {
+        for (int i = 0; i < 1000000 && !channel.ended; i++) {
+            Assert.assertTrue(producer.available() > 0);
+            producer.produce(channel);
+        }
+        Assert.assertTrue(channel.ended);
+        Assert.assertEquals(0, producer.available());
+        return channel.toByteArray();
+    }
+
+    private static String inflate(final InputStream in) throws IOException {
+        try {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final byte[] tmp = new byte[4096];
+            int l;
+            while ((l = in.read(tmp)) != -1) {
+                buffer.write(tmp, 0, l);
+            }
+            return new String(buffer.toByteArray(), StandardCharsets.US_ASCII);
+        } finally {
+            in.close();
+        }
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        final String content = createContent();
+        final DeflatingAsyncEntityProducer producer = new DeflatingAsyncEntityProducer(
+                new StringAsyncEntityProducer(content, ContentType.APPLICATION_JSON), true);
+        Assert.assertEquals("gzip", producer.getContentEncoding());
+        Assert.assertEquals(-1, producer.getContentLength());
+        Assert.assertTrue(producer.isChunked());
+        Assert.assertEquals(ContentType.APPLICATION_JSON.toString(), producer.getContentType());
+
+        final byte[] compressed = produce(producer, new ByteChannel(Integer.MAX_VALUE));
+        Assert.assertTrue(compressed.length < content.length() / 4);
+        Assert.assertEquals(content, inflate(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        producer.releaseResources();
+    }
+
+    @Test
+    public void testDeflate() throws Exception {
+        final String content = createContent();
+        final DeflatingAsyncEntityProducer producer = new DeflatingAsyncEntityProducer(
+                new StringAsyncEntityProducer(content, ContentType.APPLICATION_JSON), false);
+        Assert.assertEquals("deflate", producer.getContentEncoding());
+
+        final byte[] compressed = produce(producer, new ByteChannel(Integer.MAX_VALUE));
+        Assert.assertEquals(content, inflate(new InflaterInputStream(new ByteArrayInputStream(compressed))));
+        producer.releaseResources();
+    }
+
+    @Test
+    public void testLimitedChannelCapacity() throws Exception {
+        final String content = createContent();
+        final DeflatingAsyncEntityProducer producer = new DeflatingAsyncEntityProducer(
+                new BasicAsyncEntityProducer(content, ContentType.APPLICATION_JSON), true);
+
+        final byte[] compressed = produce(producer, new ByteChannel(7));
+        Assert.assertEquals(content, inflate(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        producer.releaseResources();
+    }
+
+    @Test
+    public void testEmptyContent() throws Exception {
+        final DeflatingAsyncEntityProducer producer = new DeflatingAsyncEntityProducer(
+                new BasicAsyncEntityProducer(new byte[0], ContentType.APPLICATION_OCTET_STREAM), true);
+
+        final byte[] compressed = produce(producer, new ByteChannel(3));
+        Assert.assertEquals("", inflate(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        producer.releaseResources();
+    }
+
+    @Test
+    public void testRepeatable() throws Exception {
+        final String content = createContent();
+        final DeflatingAsyncEntityProducer producer = new DeflatingAsyncEntityProducer(
+                new BasicAsyncEntityProducer(content.getBytes(StandardCharsets.US_ASCII), ContentType.APPLICATION_JSON), true);
+        Assert.assertTrue(producer.isRepeatable());
+
+        final byte[] compressed1 = produce(producer, new ByteChannel(Integer.MAX_VALUE));
+        producer.releaseResources();
+        final byte[] compressed2 = produce(producer, new ByteChannel(Integer.MAX_VALUE));
+        producer.releaseResources();
+        Assert.assertArrayEquals(compressed1, compressed2);
+        Assert.assertEquals(content, inflate(new GZIPInputStream(new ByteArrayInputStream(compressed2))));
+    }
+
+    @Test
+    public void testTrailers() throws Exception {
+        final List<Header> trailers = Collections.<Header>singletonList(new BasicHeader("checksum", "1234"));
+        final AsyncEntityProducer entityProducer = Mockito.mock(AsyncEntityProducer.class);
+        Mockito.when(entityProducer.available()).thenReturn(1);
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                final DataStreamChannel channel = invocation.getArgument(0);
+                channel.write(ByteBuffer.wrap("stuff".getBytes(StandardCharsets.US_ASCII)));
+                channel.endStream(trailers);
+                return null;
+            }
+
+        }).when(entityProducer).produce(Mockito.<DataStreamChannel>any());
+        final DeflatingAsyncEntityProducer producer = new DeflatingAsyncEntityProducer(entityProducer, true);
+
+        final ByteChannel channel = new ByteChannel(Integer.MAX_VALUE);
+        final byte[] compressed = produce(producer, channel);
+        Assert.assertEquals("stuff", inflate(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+        Assert.assertSame(trailers, channel.trailers);
+
+        producer.releaseResources();
+        Mockito.verify(entityProducer).releaseResources();
+    }
+
+}
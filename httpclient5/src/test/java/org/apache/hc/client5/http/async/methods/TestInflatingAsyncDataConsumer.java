@@ -0,0 +1,231 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.async.methods;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestInflatingAsyncDataConsumer {
+
+    static class CollectingDataConsumer implements AsyncDataConsumer {
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        boolean completed;
+        boolean released;
+
+        @Override
+        public void updateCapacity(final CapacityChannel capacityChannel) throws IOException {
+        }
+
+        @Override
+        public void consume(final ByteBuffer src) throws IOException {
+            while (src.hasRemaining()) {
+                content.write(src.get());
+            }
+        }
+
+        @Override
+        public void streamEnd(final List<? extends Header> trailers) {
+            completed = true;
+        }
+
+        @Override
+        public void releaseResources() {
+            released = true;
+        }
+
+        String getContent() {
+            return new String(content.toByteArray(), StandardCharsets.US_ASCII);
+        }
+
+    }
+
+    private static final String TEXT;
+
+    static {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            buffer.append("Some compressible stuff ").append(i).append("\r\n");
+        }
+        TEXT = buffer.toString();
+    }
+
+    private static byte[] gzip(final String s) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (final GZIPOutputStream out = new GZIPOutputStream(buf)) {
+            out.write(s.getBytes(StandardCharsets.US_ASCII));
+        }
+        return buf.toByteArray();
+    }
+
+    private static byte[] deflate(final String s, final boolean nowrap) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (final DeflaterOutputStream out = new DeflaterOutputStream(buf, new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+            out.write(s.getBytes(StandardCharsets.US_ASCII));
+        }
+        return buf.toByteArray();
+    }
+
+    private static void feed(final AsyncDataConsumer consumer, final byte[] data, final int chunkSize) throws Exception {
+        for (int i = 0; i < data.length; i += chunkSize) {
+            consumer.consume(ByteBuffer.wrap(data, i, Math.min(chunkSize, data.length - i)));
+        }
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(collector);
+        feed(consumer, gzip(TEXT), 4096);
+        consumer.streamEnd(null);
+        consumer.releaseResources();
+        Assert.assertEquals(TEXT, collector.getContent());
+        Assert.assertTrue(collector.completed);
+        Assert.assertTrue(collector.released);
+    }
+
+    @Test
+    public void testGzipByteByByte() throws Exception {
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(collector);
+        feed(consumer, gzip(TEXT), 1);
+        consumer.streamEnd(null);
+        Assert.assertEquals(TEXT, collector.getContent());
+    }
+
+    @Test
+    public void testGzipOptionalHeaderFields() throws Exception {
+        final byte[] member = gzip("stuff");
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        // FEXTRA | FNAME | FCOMMENT | FHCRC
+        buf.write(new byte[] {0x1f, (byte) 0x8b, 8, 4 | 8 | 16 | 2, 0, 0, 0, 0, 0, 0});
+        buf.write(new byte[] {3, 0, 'a', 'b', 'c'});
+        buf.write(new byte[] {'n', 'a', 'm', 'e', 0});
+        buf.write(new byte[] {'c', 'o', 'm', 0});
+        buf.write(new byte[] {0, 0});
+        buf.write(member, 10, member.length - 10);
+
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(collector);
+        feed(consumer, buf.toByteArray(), 3);
+        consumer.streamEnd(null);
+        Assert.assertEquals("stuff", collector.getContent());
+    }
+
+    @Test
+    public void testGzipConcatenatedMembers() throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        buf.write(gzip("some "));
+        buf.write(gzip("stuff"));
+
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(collector);
+        feed(consumer, buf.toByteArray(), 7);
+        consumer.streamEnd(null);
+        Assert.assertEquals("some stuff", collector.getContent());
+    }
+
+    @Test
+    public void testGzipDirectBuffer() throws Exception {
+        final byte[] data = gzip(TEXT);
+        final ByteBuffer src = ByteBuffer.allocateDirect(data.length);
+        src.put(data);
+        src.flip();
+
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(collector);
+        consumer.consume(src);
+        consumer.streamEnd(null);
+        Assert.assertFalse(src.hasRemaining());
+        Assert.assertEquals(TEXT, collector.getContent());
+    }
+
+    @Test(expected = ZipException.class)
+    public void testGzipCorruptTrailer() throws Exception {
+        final byte[] data = gzip("stuff");
+        data[data.length - 1] ^= 1;
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(new CollectingDataConsumer());
+        feed(consumer, data, data.length);
+    }
+
+    @Test(expected = ZipException.class)
+    public void testNotGzip() throws Exception {
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(new CollectingDataConsumer());
+        feed(consumer, TEXT.getBytes(StandardCharsets.US_ASCII), 100);
+    }
+
+    @Test(expected = EOFException.class)
+    public void testGzipTruncated() throws Exception {
+        final byte[] data = gzip(TEXT);
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(new CollectingDataConsumer());
+        consumer.consume(ByteBuffer.wrap(data, 0, data.length / 2));
+        consumer.streamEnd(null);
+    }
+
+    @Test
+    public void testEmptyContent() throws Exception {
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.GZIP.create(collector);
+        consumer.streamEnd(null);
+        consumer.releaseResources();
+        Assert.assertEquals("", collector.getContent());
+        Assert.assertTrue(collector.completed);
+    }
+
+    @Test
+    public void testDeflateZlib() throws Exception {
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.DEFLATE.create(collector);
+        feed(consumer, deflate(TEXT, false), 1);
+        consumer.streamEnd(null);
+        Assert.assertEquals(TEXT, collector.getContent());
+    }
+
+    @Test
+    public void testDeflateRaw() throws Exception {
+        final CollectingDataConsumer collector = new CollectingDataConsumer();
+        final AsyncDataConsumer consumer = InflatingAsyncDataConsumer.DEFLATE.create(collector);
+        feed(consumer, deflate(TEXT, true), 1000);
+        consumer.streamEnd(null);
+        Assert.assertEquals(TEXT, collector.getContent());
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.config;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestWireLogConfig {
+
+    @Test
+    public void testDefaults() {
+        final WireLogConfig config = WireLogConfig.DEFAULT;
+        Assert.assertTrue(config.getHosts().isEmpty());
+        Assert.assertEquals(1, config.getSampleInterval());
+        Assert.assertEquals(WireLogConfig.Format.ESCAPED, config.getFormat());
+        Assert.assertEquals(-1, config.getMaxBytes());
+        Assert.assertTrue(config.isSelected("http-outgoing-1", "somehost", "10.0.0.1"));
+        Assert.assertTrue(config.isSelected(null, null, null));
+    }
+
+    @Test
+    public void testHostSelection() {
+        final WireLogConfig config = WireLogConfig.custom()
+                .setHosts("SomeHost", "10.0.0.2")
+                .build();
+        Assert.assertTrue(config.isSelected("http-outgoing-1", "somehost", "10.0.0.1"));
+        Assert.assertTrue(config.isSelected("http-outgoing-1", "SOMEHOST", null));
+        Assert.assertTrue(config.isSelected("http-outgoing-1", "otherhost", "10.0.0.2"));
+        Assert.assertFalse(config.isSelected("http-outgoing-1", "otherhost", "10.0.0.1"));
+        Assert.assertFalse(config.isSelected("http-outgoing-1", null, null));
+    }
+
+    @Test
+    public void testSampling() {
+        final WireLogConfig config = WireLogConfig.custom()
+                .setSampleInterval(10)
+                .build();
+        int selected = 0;
+        for (int i = 0; i < 1000; i++) {
+            final String id = "http-outgoing-" + i;
+            final boolean b = config.isSelected(id, "somehost", null);
+            // stable for the same connection
+            Assert.assertEquals(b, config.isSelected(id, "somehost", null));
+            if (b) {
+                selected++;
+            }
+        }
+        Assert.assertEquals(100, selected);
+        Assert.assertFalse(config.isSelected(null, "somehost", null));
+    }
+
+    @Test
+    public void testCopy() {
+        final WireLogConfig config = WireLogConfig.custom()
+                .setHosts("somehost")
+                .setSampleInterval(5)
+                .setFormat(WireLogConfig.Format.HEX)
+                .setMaxBytes(4096)
+                .build();
+        final WireLogConfig copy = WireLogConfig.copy(config).build();
+        Assert.assertEquals(config.getHosts(), copy.getHosts());
+        Assert.assertEquals(5, copy.getSampleInterval());
+        Assert.assertEquals(WireLogConfig.Format.HEX, copy.getFormat());
+        Assert.assertEquals(4096, copy.getMaxBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSampleInterval() {
+        WireLogConfig.custom().setSampleInterval(0);
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+
+/**
+ * Simple comparison of bytes on the wire and CPU cost of the supported
+ * content codings for a JSON payload. Brotli and Zstandard are only measured
+ * if their libraries are on the classpath. This is not a unit test; run it
+ * manually with {@code [seconds]} argument.
+ */
+public class ContentCodingBenchmark {
+
+    interface Encoder {
+
+        HttpEntity encode(HttpEntity entity);
+
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        final StringBuilder buffer = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            if (i > 0) {
+                buffer.append(",");
+            }
+            buffer.append("{\"id\":").append(i)
+                    .append(",\"name\":\"item-").append(i)
+                    .append("\",\"price\":").append(i * 7 % 1000).append('.').append(i % 100)
+                    .append(",\"tags\":[\"tag-").append(i % 17).append("\",\"tag-").append(i % 31).append("\"]}");
+        }
+        buffer.append("]");
+        final HttpEntity payload = new StringEntity(buffer.toString(), ContentType.APPLICATION_JSON);
+        System.out.printf("%-8s size=%,d%n", "identity", payload.getContentLength());
+
+        for (int round = 0; round < 2; round++) {
+            run("gzip", payload, new Encoder() {
+
+                @Override
+                public HttpEntity encode(final HttpEntity entity) {
+                    return new GzipCompressingEntity(entity);
+                }
+
+            }, GZIPInputStreamFactory.getInstance(), seconds);
+            if (BrotliCompressingEntity.isAvailable() && BrotliInputStreamFactory.isAvailable()) {
+                run("br", payload, new Encoder() {
+
+                    @Override
+                    public HttpEntity encode(final HttpEntity entity) {
+                        return new BrotliCompressingEntity(entity);
+                    }
+
+                }, BrotliInputStreamFactory.getInstance(), seconds);
+            } else {
+                System.out.println("br       not available");
+            }
+            if (ZstdCompressingEntity.isAvailable() && ZstdInputStreamFactory.isAvailable()) {
+                run("zstd", payload, new Encoder() {
+
+                    @Override
+                    public HttpEntity encode(final HttpEntity entity) {
+                        return new ZstdCompressingEntity(entity);
+                    }
+
+                }, ZstdInputStreamFactory.getInstance(), seconds);
+            } else {
+                System.out.println("zstd     not available");
+            }
+        }
+    }
+
+    static void run(
+            final String name,
+            final HttpEntity payload,
+            final Encoder encoder,
+            final InputStreamFactory decoder,
+            final int seconds) throws IOException {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long encodeOps = 0;
+        while (System.nanoTime() < deadline) {
+            buf.reset();
+            encoder.encode(payload).writeTo(buf);
+            encodeOps++;
+        }
+        final byte[] encoded = buf.toByteArray();
+        final byte[] tmp = new byte[8192];
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long decodeOps = 0;
+        while (System.nanoTime() < deadline) {
+            final HttpEntity entity = new DecompressingEntity(new ByteArrayEntity(encoded, null), decoder);
+            try (final InputStream in = entity.getContent()) {
+                while (in.read(tmp) != -1) {
+                    // discard
+                }
+            }
+            decodeOps++;
+        }
+        final long nanos = TimeUnit.SECONDS.toNanos(seconds);
+        System.out.printf("%-8s size=%,d encode us/op=%,d decode us/op=%,d%n",
+                name, encoded.length, nanos / encodeOps / 1000, nanos / decodeOps / 1000);
+    }
+
+}
@@ -0,0 +1,157 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+
+/**
+ * Simple throughput comparison of gzip coding of small messages using
+ * {@link java.util.zip.GZIPInputStream} / {@link java.util.zip.GZIPOutputStream},
+ * which allocate a new zlib stream per message, against the entity package
+ * codecs backed by {@link InflaterPool} and {@link DeflaterPool}. This is not
+ * a unit test; run it manually with {@code [threads] [seconds]} arguments.
+ */
+public class InflaterPoolBenchmark {
+
+    interface Codec {
+
+        void encode(byte[] content, OutputStream out) throws IOException;
+
+        InputStream decode(InputStream in) throws IOException;
+
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            buffer.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\"}\n");
+        }
+        final byte[] content = buffer.toString().getBytes("US-ASCII");
+
+        final Codec jdk = new Codec() {
+
+            @Override
+            public void encode(final byte[] content, final OutputStream out) throws IOException {
+                try (final GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(content);
+                }
+            }
+
+            @Override
+            public InputStream decode(final InputStream in) throws IOException {
+                return new GZIPInputStream(in);
+            }
+
+        };
+        final Codec pooled = new Codec() {
+
+            @Override
+            public void encode(final byte[] content, final OutputStream out) throws IOException {
+                new GzipCompressingEntity(new ByteArrayEntity(content, ContentType.TEXT_PLAIN)).writeTo(out);
+            }
+
+            @Override
+            public InputStream decode(final InputStream in) throws IOException {
+                return GZIPInputStreamFactory.getInstance().create(in);
+            }
+
+        };
+        for (int round = 0; round < 2; round++) {
+            run("GZIP streams", jdk, content, threads, seconds);
+            run("Pooled", pooled, content, threads, seconds);
+        }
+        System.out.println("Inflaters created: " + InflaterPool.getInstance(true).getCreatedCount()
+                + "; deflaters created: " + DeflaterPool.getInstance(true).getCreatedCount());
+    }
+
+    static void run(
+            final String name,
+            final Codec codec,
+            final byte[] content,
+            final int threads,
+            final int seconds) throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final CountDownLatch startGate = new CountDownLatch(1);
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            final List<Future<Long>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executorService.submit(new Callable<Long>() {
+
+                    @Override
+                    public Long call() throws Exception {
+                        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+                        final byte[] tmp = new byte[4096];
+                        long ops = 0;
+                        startGate.await();
+                        while ((ops & 0xff) != 0 || System.nanoTime() < deadline) {
+                            buf.reset();
+                            codec.encode(content, buf);
+                            try (final InputStream in = codec.decode(new ByteArrayInputStream(buf.toByteArray()))) {
+                                while (in.read(tmp) != -1) {
+                                    // discard
+                                }
+                            }
+                            ops++;
+                        }
+                        return ops;
+                    }
+
+                }));
+            }
+            startGate.countDown();
+            long totalOps = 0;
+            for (final Future<Long> future: futures) {
+                totalOps += future.get();
+            }
+            System.out.printf("%-14s threads=%d round trips/s=%,d us/op=%.1f%n",
+                    name, threads, totalOps / seconds, (double) TimeUnit.SECONDS.toMicros(seconds) * threads / totalOps);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+}
@@ -30,8 +30,15 @@
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
 
 import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
@@ -100,4 +107,122 @@ public void testDecompressionWithMultipleGZipStream() throws Exception {
         }
     }
 
+    @Test
+    public void testCompressionInteroperability() throws Exception {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            buffer.append("some kind of text ").append(i).append('\n');
+        }
+        final String text = buffer.toString();
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        new GzipCompressingEntity(new StringEntity(text, ContentType.TEXT_PLAIN)).writeTo(buf);
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(buf.toByteArray()))) {
+            Assert.assertEquals(text, EntityUtils.toString(
+                    new InputStreamEntity(in, ContentType.TEXT_PLAIN), StandardCharsets.US_ASCII));
+        }
+
+        buf.reset();
+        try (final GZIPOutputStream out = new GZIPOutputStream(buf)) {
+            out.write(text.getBytes(StandardCharsets.US_ASCII));
+        }
+        final ByteArrayEntity out = new ByteArrayEntity(buf.toByteArray(), ContentType.APPLICATION_OCTET_STREAM);
+        Assert.assertEquals(text, EntityUtils.toString(new GzipDecompressingEntity(out), StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = ZipException.class)
+    public void testDecompressionCorruptTrailer() throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        new GzipCompressingEntity(new StringEntity("some kind of text", ContentType.TEXT_PLAIN)).writeTo(buf);
+        final byte[] bytes = buf.toByteArray();
+        bytes[bytes.length - 5] ^= 1;
+        final ByteArrayEntity out = new ByteArrayEntity(bytes, ContentType.APPLICATION_OCTET_STREAM);
+        EntityUtils.toString(new GzipDecompressingEntity(out), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testDecompressionStreamClosed() throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        new GzipCompressingEntity(new StringEntity("some kind of text", ContentType.TEXT_PLAIN)).writeTo(buf);
+        final InputStream in = GZIPInputStreamFactory.getInstance().create(new ByteArrayInputStream(buf.toByteArray()));
+        Assert.assertEquals('s', in.read());
+        in.close();
+        in.close();
+        try {
+            in.read();
+            Assert.fail("IOException expected");
+        } catch (final IOException expected) {
+        }
+    }
+
+    private static byte[] gzipMember(final String text, final boolean headerCrc) throws IOException {
+        final byte[] data = text.getBytes(StandardCharsets.US_ASCII);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        // FHCRC, FEXTRA, FNAME and FCOMMENT
+        buf.write(new byte[] { 0x1f, (byte) 0x8b, 8, headerCrc ? (byte) 0x1e : (byte) 0x1c, 0, 0, 0, 0, 0, (byte) 0xff });
+        buf.write(new byte[] { 3, 0, 'x', 'y', 'z' });
+        buf.write("name\0comment\0".getBytes(StandardCharsets.US_ASCII));
+        if (headerCrc) {
+            final CRC32 crc = new CRC32();
+            crc.update(buf.toByteArray());
+            buf.write((int) crc.getValue());
+            buf.write((int) crc.getValue() >> 8);
+        }
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try (final DeflaterOutputStream out = new DeflaterOutputStream(buf, deflater) {
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+
+        }) {
+            out.write(data);
+        }
+        deflater.end();
+        final CRC32 crc = new CRC32();
+        crc.update(data);
+        for (final long value : new long[] { crc.getValue(), data.length }) {
+            for (int i = 0; i < 4; i++) {
+                buf.write((int) (value >> (i * 8)));
+            }
+        }
+        return buf.toByteArray();
+    }
+
+    private static String gunzip(final byte[] bytes) throws Exception {
+        final HttpEntity entity = new GzipDecompressingEntity(
+                new ByteArrayEntity(bytes, ContentType.APPLICATION_OCTET_STREAM));
+        return EntityUtils.toString(entity, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void testDecompressionOptionalHeaderFields() throws Exception {
+        Assert.assertEquals("some kind of text", gunzip(gzipMember("some kind of text", true)));
+        Assert.assertEquals("some kind of text", gunzip(gzipMember("some kind of text", false)));
+    }
+
+    @Test(expected = ZipException.class)
+    public void testDecompressionCorruptHeaderCrc() throws Exception {
+        final byte[] bytes = gzipMember("some kind of text", true);
+        bytes[12] ^= 1;
+        gunzip(bytes);
+    }
+
+    @Test
+    public void testDecompressionTrailingGarbage() throws Exception {
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        buf.write(gzipMember("stream-1\n", false));
+        buf.write(gzipMember("stream-2\n", true));
+        buf.write("garbage".getBytes(StandardCharsets.US_ASCII));
+        Assert.assertEquals("stream-1\nstream-2\n", gunzip(buf.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDecompressionTruncated() throws Exception {
+        final byte[] bytes = gzipMember("some kind of text", false);
+        final byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        gunzip(truncated);
+    }
+
 }
@@ -0,0 +1,129 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestInflaterPool {
+
+    @Test
+    public void testInflaterReuse() throws Exception {
+        final InflaterPool pool = new InflaterPool(true, 2);
+        final Inflater inflater1 = pool.acquire();
+        final Inflater inflater2 = pool.acquire();
+        Assert.assertNotSame(inflater1, inflater2);
+        Assert.assertEquals(2, pool.getCreatedCount());
+
+        inflater1.setInput(new byte[] {1, 2, 3});
+        pool.release(inflater1);
+        Assert.assertEquals(1, pool.getIdleCount());
+
+        final Inflater inflater3 = pool.acquire();
+        Assert.assertSame(inflater1, inflater3);
+        Assert.assertTrue(inflater3.needsInput());
+        Assert.assertEquals(0, inflater3.getBytesRead());
+        Assert.assertEquals(2, pool.getCreatedCount());
+        pool.release(inflater2);
+        pool.release(inflater3);
+    }
+
+    @Test
+    public void testInflaterPoolBounded() throws Exception {
+        final InflaterPool pool = new InflaterPool(false, 1);
+        final Inflater inflater1 = pool.acquire();
+        final Inflater inflater2 = pool.acquire();
+        pool.release(inflater1);
+        pool.release(inflater2);
+        Assert.assertEquals(1, pool.getIdleCount());
+        try {
+            // excess instance has been ended
+            inflater2.reset();
+            Assert.fail("NullPointerException expected");
+        } catch (final NullPointerException expected) {
+        }
+    }
+
+    @Test
+    public void testReleaseEndedInflater() throws Exception {
+        final InflaterPool pool = new InflaterPool(false, 1);
+        final Inflater inflater = pool.acquire();
+        inflater.end();
+        pool.release(inflater);
+        Assert.assertEquals(0, pool.getIdleCount());
+        pool.release(null);
+        Assert.assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    public void testDeflaterReuse() throws Exception {
+        final DeflaterPool pool = new DeflaterPool(true, 2);
+        final Deflater deflater1 = pool.acquire();
+        deflater1.setLevel(Deflater.BEST_SPEED);
+        deflater1.setInput(new byte[] {1, 2, 3});
+        deflater1.finish();
+        final byte[] tmp = new byte[64];
+        deflater1.deflate(tmp);
+        pool.release(deflater1);
+
+        final Deflater deflater2 = pool.acquire();
+        Assert.assertSame(deflater1, deflater2);
+        Assert.assertEquals(0, deflater2.getBytesRead());
+        Assert.assertFalse(deflater2.finished());
+        deflater2.setInput(new byte[] {1, 2, 3});
+        deflater2.finish();
+        final byte[] tmp2 = new byte[64];
+        int n2 = 0;
+        while (!deflater2.finished()) {
+            n2 += deflater2.deflate(tmp2, n2, tmp2.length - n2);
+        }
+
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(tmp2, 0, n2);
+            final byte[] out = new byte[3];
+            Assert.assertEquals(3, inflater.inflate(out));
+            Assert.assertArrayEquals(new byte[] {1, 2, 3}, out);
+        } finally {
+            inflater.end();
+        }
+        Assert.assertEquals(1, pool.getCreatedCount());
+        pool.release(deflater2);
+    }
+
+    @Test
+    public void testSharedInstances() throws Exception {
+        Assert.assertSame(InflaterPool.getInstance(true), InflaterPool.getInstance(true));
+        Assert.assertNotSame(InflaterPool.getInstance(true), InflaterPool.getInstance(false));
+        Assert.assertSame(DeflaterPool.getInstance(false), DeflaterPool.getInstance(false));
+        Assert.assertNotSame(DeflaterPool.getInstance(true), DeflaterPool.getInstance(false));
+    }
+
+}
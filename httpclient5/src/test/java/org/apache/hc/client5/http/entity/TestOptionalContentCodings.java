@@ -0,0 +1,134 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.entity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TestOptionalContentCodings {
+
+    @Test
+    public void testFindConstructor() throws Exception {
+        final Constructor<?> constructor = OptionalCodecs.findConstructor(
+                "java.util.zip.GZIPInputStream", InputStream.class);
+        Assert.assertNotNull(constructor);
+        Assert.assertNull(OptionalCodecs.findConstructor("org.example.NoSuchStream", InputStream.class));
+        Assert.assertNull(OptionalCodecs.findConstructor("java.util.zip.GZIPInputStream", String.class));
+    }
+
+    @Test
+    public void testNewInstance() throws Exception {
+        final Constructor<?> constructor = OptionalCodecs.findConstructor(
+                "java.util.zip.GZIPInputStream", InputStream.class);
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        new GzipCompressingEntity(new StringEntity("some stuff")).writeTo(buf);
+        final InputStream in = OptionalCodecs.newInstance(
+                constructor, InputStream.class, new ByteArrayInputStream(buf.toByteArray()));
+        Assert.assertTrue(in instanceof GZIPInputStream);
+        final byte[] b = new byte[64];
+        final int n = in.read(b);
+        Assert.assertEquals("some stuff", new String(b, 0, n, StandardCharsets.US_ASCII));
+    }
+
+    @Test(expected = ZipException.class)
+    public void testNewInstanceFailure() throws Exception {
+        final Constructor<?> constructor = OptionalCodecs.findConstructor(
+                "java.util.zip.GZIPInputStream", InputStream.class);
+        OptionalCodecs.newInstance(constructor, InputStream.class, new ByteArrayInputStream(new byte[] {1, 2, 3}));
+    }
+
+    @Test
+    public void testStaticCheck() throws Exception {
+        Assert.assertFalse(OptionalCodecs.invokeStaticCheck("java.lang.Thread", "interrupted"));
+        Assert.assertFalse(OptionalCodecs.invokeStaticCheck("org.example.NoSuchLoader", "isAvailable"));
+    }
+
+    @Test
+    public void testCompressingEntities() throws Exception {
+        final BrotliCompressingEntity brotli = new BrotliCompressingEntity(new StringEntity("stuff"));
+        Assert.assertEquals("br", brotli.getContentEncoding());
+        Assert.assertEquals(-1, brotli.getContentLength());
+        Assert.assertTrue(brotli.isChunked());
+        final ZstdCompressingEntity zstd = new ZstdCompressingEntity(new StringEntity("stuff"));
+        Assert.assertEquals("zstd", zstd.getContentEncoding());
+        Assert.assertEquals(-1, zstd.getContentLength());
+        Assert.assertTrue(zstd.isChunked());
+    }
+
+    @Test
+    public void testBrotliRoundTrip() throws Exception {
+        Assume.assumeTrue(BrotliCompressingEntity.isAvailable() && BrotliInputStreamFactory.isAvailable());
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        new BrotliCompressingEntity(new StringEntity("some stuff")).writeTo(buf);
+        final DecompressingEntity entity = new DecompressingEntity(
+                new ByteArrayEntity(buf.toByteArray(), null),
+                BrotliInputStreamFactory.getInstance());
+        Assert.assertEquals("some stuff", EntityUtils.toString(entity));
+    }
+
+    @Test
+    public void testZstdRoundTrip() throws Exception {
+        Assume.assumeTrue(ZstdCompressingEntity.isAvailable() && ZstdInputStreamFactory.isAvailable());
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        new ZstdCompressingEntity(new StringEntity("some stuff")).writeTo(buf);
+        final DecompressingEntity entity = new DecompressingEntity(
+                new ByteArrayEntity(buf.toByteArray(), null),
+                ZstdInputStreamFactory.getInstance());
+        Assert.assertEquals("some stuff", EntityUtils.toString(entity));
+    }
+
+    @Test
+    public void testUnavailableDecoders() throws Exception {
+        if (!BrotliInputStreamFactory.isAvailable()) {
+            try {
+                BrotliInputStreamFactory.getInstance().create(new ByteArrayInputStream(new byte[0]));
+                Assert.fail("IllegalStateException expected");
+            } catch (final IllegalStateException expected) {
+            }
+        }
+        if (!ZstdInputStreamFactory.isAvailable()) {
+            try {
+                ZstdInputStreamFactory.getInstance().create(new ByteArrayInputStream(new byte[0]));
+                Assert.fail("IllegalStateException expected");
+            } catch (final IllegalStateException expected) {
+            }
+        }
+    }
+
+}
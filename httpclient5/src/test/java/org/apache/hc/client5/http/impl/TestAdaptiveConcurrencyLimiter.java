@@ -0,0 +1,145 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.classic.MockConnPoolControl;
+import org.apache.hc.core5.http.HttpHost;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestAdaptiveConcurrencyLimiter {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private MockConnPoolControl connPerRoute;
+    private HttpRoute route;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Before
+    public void setUp() {
+        connPerRoute = new MockConnPoolControl();
+        route = new HttpRoute(new HttpHost("localhost", 80));
+        connPerRoute.setMaxPerRoute(route, 10);
+        limiter = new AdaptiveConcurrencyLimiter(connPerRoute);
+        limiter.setSmoothing(1.0);
+        limiter.setMaxLimit(50);
+    }
+
+    private void saturate(final int n) {
+        for (int i = 0; i < n; i++) {
+            limiter.requestStarted(route);
+        }
+    }
+
+    private void sample(final long rttNanos, final int n) {
+        for (int i = 0; i < n; i++) {
+            limiter.requestStarted(route);
+            limiter.requestCompleted(route, rttNanos);
+        }
+    }
+
+    @Test
+    public void testInitialLimitFromPool() {
+        Assert.assertEquals(10, limiter.getLimit(route));
+    }
+
+    @Test
+    public void testGrowsWhileLatencyIsStable() {
+        saturate(10);
+        sample(FAST, 3);
+        Assert.assertTrue(limiter.getLimit(route) > 10);
+        Assert.assertEquals(limiter.getLimit(route), connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testDoesNotGrowWhenUnderutilized() {
+        sample(FAST, 20);
+        Assert.assertEquals(10, limiter.getLimit(route));
+        Assert.assertEquals(10, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testShrinksWhenUnderutilizedAndLatencyIncreases() {
+        sample(FAST, 20);
+        sample(SLOW, 3);
+        Assert.assertTrue(limiter.getLimit(route) < 10);
+        Assert.assertEquals(limiter.getLimit(route), connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testShrinksWhenLatencyIncreases() {
+        saturate(10);
+        sample(FAST, 3);
+        final int limit = limiter.getLimit(route);
+        sample(SLOW, 3);
+        Assert.assertTrue(limiter.getLimit(route) < limit);
+        Assert.assertEquals(limiter.getLimit(route), connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testDoesNotGrowBeyondMaxLimit() {
+        limiter.setMaxLimit(12);
+        saturate(10);
+        sample(FAST, 20);
+        Assert.assertEquals(12, limiter.getLimit(route));
+        Assert.assertEquals(12, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testBacksOffOnFailure() {
+        limiter.requestStarted(route);
+        limiter.requestFailed(route);
+        Assert.assertEquals(9, limiter.getLimit(route));
+        Assert.assertEquals(9, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testDoesNotBackOffBelowMinLimit() {
+        limiter.setMinLimit(8);
+        for (int i = 0; i < 10; i++) {
+            limiter.requestStarted(route);
+            limiter.requestFailed(route);
+        }
+        Assert.assertEquals(8, limiter.getLimit(route));
+        Assert.assertEquals(8, connPerRoute.getMaxPerRoute(route));
+    }
+
+    @Test
+    public void testIgnoredRequestsDoNotChangeLimit() {
+        saturate(10);
+        for (int i = 0; i < 10; i++) {
+            limiter.requestIgnored(route);
+        }
+        Assert.assertEquals(10, limiter.getLimit(route));
+    }
+
+}
@@ -0,0 +1,187 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import org.apache.hc.core5.http.HttpConnection;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestAddressLoadBalancer {
+
+    private InetAddress ip1;
+    private InetAddress ip2;
+    private InetAddress ip3;
+    private InetAddress[] addresses;
+    private long now;
+
+    @Before
+    public void setup() throws Exception {
+        ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        ip2 = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+        ip3 = InetAddress.getByAddress(new byte[] {10, 0, 0, 3});
+        addresses = new InetAddress[] { ip1, ip2, ip3 };
+        now = 1000L;
+    }
+
+    private AddressLoadBalancer createBalancer(final AddressLoadBalancer.Policy policy) {
+        final AddressLoadBalancer balancer = new AddressLoadBalancer(policy) {
+
+            @Override
+            long now() {
+                return now;
+            }
+
+        };
+        balancer.setMaxFailures(2);
+        balancer.setBaseEjectionTime(TimeValue.ofMilliseconds(100));
+        balancer.setMaxEjectionTime(TimeValue.ofMilliseconds(150));
+        return balancer;
+    }
+
+    private static HttpConnection openConnection() {
+        final HttpConnection connection = Mockito.mock(HttpConnection.class);
+        Mockito.when(connection.isOpen()).thenReturn(Boolean.TRUE);
+        return connection;
+    }
+
+    @Test
+    public void testRoundRobin() throws Exception {
+        final AddressLoadBalancer balancer = createBalancer(AddressLoadBalancer.Policy.ROUND_ROBIN);
+        Assert.assertArrayEquals(new InetAddress[] { ip1, ip2, ip3 }, balancer.select("somehost", addresses, 80));
+        Assert.assertArrayEquals(new InetAddress[] { ip2, ip3, ip1 }, balancer.select("somehost", addresses, 80));
+        Assert.assertArrayEquals(new InetAddress[] { ip3, ip1, ip2 }, balancer.select("somehost", addresses, 80));
+        Assert.assertArrayEquals(new InetAddress[] { ip1, ip2, ip3 }, balancer.select("somehost", addresses, 80));
+        // hosts are rotated independently
+        Assert.assertArrayEquals(new InetAddress[] { ip1, ip2, ip3 }, balancer.select("otherhost", addresses, 80));
+    }
+
+    @Test
+    public void testLeastConnections() throws Exception {
+        final AddressLoadBalancer balancer = createBalancer(AddressLoadBalancer.Policy.LEAST_CONNECTIONS);
+        final HttpConnection closed = Mockito.mock(HttpConnection.class);
+        balancer.connected(new InetSocketAddress(ip1, 80), openConnection());
+        balancer.connected(new InetSocketAddress(ip1, 80), openConnection());
+        balancer.connected(new InetSocketAddress(ip2, 80), openConnection());
+        balancer.connected(new InetSocketAddress(ip3, 80), closed);
+
+        Assert.assertEquals(2, balancer.getOpenConnections(new InetSocketAddress(ip1, 80)));
+        Assert.assertEquals(0, balancer.getOpenConnections(new InetSocketAddress(ip3, 80)));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertArrayEquals(new InetAddress[] { ip3, ip2, ip1 }, balancer.select("somehost", addresses, 80));
+        }
+    }
+
+    @Test
+    public void testPowerOfTwoChoices() throws Exception {
+        final AddressLoadBalancer balancer = createBalancer(AddressLoadBalancer.Policy.POWER_OF_TWO_CHOICES);
+        balancer.connected(new InetSocketAddress(ip1, 80), openConnection());
+        final InetAddress[] twoAddresses = new InetAddress[] { ip1, ip2 };
+        for (int i = 0; i < 10; i++) {
+            Assert.assertArrayEquals(new InetAddress[] { ip2, ip1 }, balancer.select("somehost", twoAddresses, 80));
+        }
+        for (int i = 0; i < 10; i++) {
+            // the most loaded address never gets selected out of three
+            balancer.connected(new InetSocketAddress(ip1, 80), openConnection());
+            Assert.assertNotEquals(ip1, balancer.select("somehost", addresses, 80)[0]);
+        }
+    }
+
+    @Test
+    public void testEjection() throws Exception {
+        final AddressLoadBalancer balancer = createBalancer(AddressLoadBalancer.Policy.ROUND_ROBIN);
+        final InetSocketAddress address1 = new InetSocketAddress(ip1, 80);
+
+        balancer.connectFailed(address1);
+        Assert.assertFalse(balancer.isEjected(address1));
+        balancer.connectFailed(address1);
+        Assert.assertTrue(balancer.isEjected(address1));
+        Assert.assertArrayEquals(new InetAddress[] { ip2, ip3, ip1 }, balancer.select("somehost", addresses, 80));
+        // a different port is a different endpoint
+        Assert.assertFalse(balancer.isEjected(new InetSocketAddress(ip1, 443)));
+
+        now += 100;
+        Assert.assertFalse(balancer.isEjected(address1));
+
+        // ejection time grows with consecutive ejections up to the maximum
+        balancer.connectFailed(address1);
+        balancer.connectFailed(address1);
+        now += 149;
+        Assert.assertTrue(balancer.isEjected(address1));
+        now += 1;
+        Assert.assertFalse(balancer.isEjected(address1));
+
+        balancer.connected(address1, null);
+        balancer.connectFailed(address1);
+        Assert.assertFalse(balancer.isEjected(address1));
+    }
+
+    @Test
+    public void testAllEjected() throws Exception {
+        final AddressLoadBalancer balancer = createBalancer(AddressLoadBalancer.Policy.ROUND_ROBIN);
+        for (final InetAddress address : new InetAddress[] { ip2, ip1, ip3 }) {
+            balancer.connectFailed(new InetSocketAddress(address, 80));
+            balancer.connectFailed(new InetSocketAddress(address, 80));
+            now += 1;
+        }
+        // ordered by ejection expiry
+        Assert.assertArrayEquals(new InetAddress[] { ip2, ip1, ip3 }, balancer.select("somehost", addresses, 80));
+    }
+
+    @Test
+    public void testIdleAddressesPruned() throws Exception {
+        final AddressLoadBalancer balancer = createBalancer(AddressLoadBalancer.Policy.ROUND_ROBIN);
+        final InetSocketAddress address1 = new InetSocketAddress(ip1, 80);
+        final InetSocketAddress address3 = new InetSocketAddress(ip3, 80);
+        balancer.connected(address1, openConnection());
+        Assert.assertArrayEquals(new InetAddress[] { ip1, ip2, ip3 }, balancer.select("somehost", addresses, 80));
+        Assert.assertEquals("[policy: ROUND_ROBIN; addresses: 3]", balancer.toString());
+
+        now += 100;
+        balancer.connectFailed(address3);
+        balancer.connectFailed(address3);
+
+        now += 50;
+        balancer.select("otherhost", new InetAddress[] { ip1, ip2 }, 8080);
+        // idle 10.0.0.2:80 is discarded; 10.0.0.1:80 has an open connection and 10.0.0.3:80 is ejected
+        Assert.assertEquals("[policy: ROUND_ROBIN; addresses: 4]", balancer.toString());
+        Assert.assertTrue(balancer.isEjected(address3));
+
+        now += 150;
+        Assert.assertArrayEquals(new InetAddress[] { ip1, ip2, ip3 }, balancer.select("somehost", addresses, 80));
+        // the rotation of the idle host starts over
+        Assert.assertEquals("[policy: ROUND_ROBIN; addresses: 3]", balancer.toString());
+        Assert.assertEquals(1, balancer.getOpenConnections(address1));
+        Assert.assertFalse(balancer.isEjected(address3));
+    }
+
+}
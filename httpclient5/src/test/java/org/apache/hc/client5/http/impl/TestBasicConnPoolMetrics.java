@@ -0,0 +1,142 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link BasicConnPoolMetrics}.
+ */
+public class TestBasicConnPoolMetrics {
+
+    @Test
+    public void testCounters() throws Exception {
+        final HttpRoute route1 = new HttpRoute(new HttpHost("somehost", 80));
+        final HttpRoute route2 = new HttpRoute(new HttpHost("otherhost", 80));
+        final BasicConnPoolMetrics poolMetrics = new BasicConnPoolMetrics();
+        Assert.assertNull(poolMetrics.getMetrics(route1));
+
+        poolMetrics.leaseRequested(route1);
+        poolMetrics.connectionCreated(route1, TimeUnit.MILLISECONDS.toNanos(20));
+        poolMetrics.leaseGranted(route1, TimeUnit.MILLISECONDS.toNanos(1));
+        poolMetrics.connectionClosed(route1);
+        poolMetrics.leaseRequested(route1);
+        poolMetrics.connectionReused(route1);
+        poolMetrics.leaseGranted(route1, TimeUnit.MILLISECONDS.toNanos(1));
+        poolMetrics.leaseRequested(route2);
+        poolMetrics.leaseTimedOut(route2, TimeUnit.SECONDS.toNanos(3));
+
+        final BasicConnPoolMetrics.Metrics metrics1 = poolMetrics.getMetrics(route1);
+        Assert.assertNotNull(metrics1);
+        Assert.assertEquals(2, metrics1.getLeaseRequestCount());
+        Assert.assertEquals(2, metrics1.getLeaseGrantedCount());
+        Assert.assertEquals(0, metrics1.getLeaseTimeoutCount());
+        Assert.assertEquals(1, metrics1.getConnectionCreatedCount());
+        Assert.assertEquals(1, metrics1.getConnectionReusedCount());
+        Assert.assertEquals(1, metrics1.getConnectionClosedCount());
+        Assert.assertEquals(0.5, metrics1.getReuseRatio(), 0.001);
+        Assert.assertEquals(1, metrics1.getConnectTime().getCount());
+        Assert.assertEquals(2, metrics1.getLeaseWaitTime().getCount());
+
+        final BasicConnPoolMetrics.Metrics metrics2 = poolMetrics.getMetrics(route2);
+        Assert.assertNotNull(metrics2);
+        Assert.assertEquals(1, metrics2.getLeaseRequestCount());
+        Assert.assertEquals(0, metrics2.getLeaseGrantedCount());
+        Assert.assertEquals(1, metrics2.getLeaseTimeoutCount());
+        Assert.assertEquals(0.0, metrics2.getReuseRatio(), 0.001);
+
+        final BasicConnPoolMetrics.Metrics totals = poolMetrics.getTotals();
+        Assert.assertEquals(3, totals.getLeaseRequestCount());
+        Assert.assertEquals(2, totals.getLeaseGrantedCount());
+        Assert.assertEquals(1, totals.getLeaseTimeoutCount());
+        Assert.assertEquals(3, totals.getLeaseWaitTime().getCount());
+        Assert.assertEquals(2, poolMetrics.getRoutes().size());
+
+        poolMetrics.removeMetrics(route2);
+        Assert.assertNull(poolMetrics.getMetrics(route2));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final BasicConnPoolMetrics poolMetrics = new BasicConnPoolMetrics();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (int n = 0; n < 1000; n++) {
+                        poolMetrics.leaseRequested(route);
+                        poolMetrics.leaseGranted(route, 1000);
+                    }
+                }
+
+            });
+            threads[i].start();
+        }
+        for (final Thread thread: threads) {
+            thread.join();
+        }
+        Assert.assertEquals(8000, poolMetrics.getMetrics(route).getLeaseRequestCount());
+        Assert.assertEquals(8000, poolMetrics.getTotals().getLeaseGrantedCount());
+        Assert.assertEquals(8000, poolMetrics.getTotals().getLeaseWaitTime().getCount());
+    }
+
+    @Test
+    public void testHistogramPercentiles() throws Exception {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(TimeValue.ZERO_MILLISECONDS, histogram.getPercentile(99));
+
+        for (int i = 0; i < 99; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(50));
+        histogram.record(0);
+
+        Assert.assertEquals(101, histogram.getCount());
+        // percentiles are upper bounds of power of two buckets
+        Assert.assertEquals(TimeValue.ofMicroseconds(127), histogram.getPercentile(50));
+        Assert.assertEquals(TimeValue.ofMicroseconds(127), histogram.getPercentile(99));
+        Assert.assertEquals(TimeValue.ofMicroseconds(65535), histogram.getPercentile(100));
+        Assert.assertEquals(0, histogram.getPercentile(0).toMillis());
+        Assert.assertEquals(TimeValue.ofMicroseconds((99 * 100 + 50000) / 101), histogram.getMean());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHistogramInvalidPercentile() throws Exception {
+        new LatencyHistogram().getPercentile(101);
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestCachingDnsResolver {
+
+    private DnsResolver dnsResolver;
+    private List<Runnable> refreshes;
+    private InetAddress ip1;
+    private InetAddress ip2;
+    private long now;
+    private CachingDnsResolver cachingResolver;
+
+    @Before
+    public void setup() throws Exception {
+        dnsResolver = Mockito.mock(DnsResolver.class);
+        refreshes = new ArrayList<>();
+        ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        ip2 = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+        now = 1000L;
+        cachingResolver = createResolver(10);
+    }
+
+    private CachingDnsResolver createResolver(final int maxEntries) {
+        return new CachingDnsResolver(
+                dnsResolver,
+                TimeValue.ofMilliseconds(100),
+                TimeValue.ofMilliseconds(10),
+                TimeValue.ofMilliseconds(50),
+                maxEntries,
+                new Executor() {
+
+                    @Override
+                    public void execute(final Runnable command) {
+                        refreshes.add(command);
+                    }
+
+                }) {
+
+            @Override
+            long now() {
+                return now;
+            }
+
+        };
+    }
+
+    @Test
+    public void testCachesAddresses() throws Exception {
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1 });
+
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+        now += 99;
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+
+        Mockito.verify(dnsResolver, Mockito.times(1)).resolve("somehost");
+        Assert.assertEquals(1, cachingResolver.getMissCount());
+        Assert.assertEquals(1, cachingResolver.getHitCount());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        Mockito.when(dnsResolver.resolve("somehost"))
+                .thenReturn(new InetAddress[] { ip1 })
+                .thenReturn(new InetAddress[] { ip2 });
+
+        cachingResolver.resolve("somehost");
+        now += 120;
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+        Assert.assertEquals(2, cachingResolver.getStaleHitCount());
+        // only one refresh per entry
+        Assert.assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        Assert.assertArrayEquals(new InetAddress[] { ip2 }, cachingResolver.resolve("somehost"));
+        Assert.assertEquals(1, cachingResolver.getHitCount());
+        Mockito.verify(dnsResolver, Mockito.times(2)).resolve("somehost");
+    }
+
+    @Test
+    public void testStaleEntryKeptOnRefreshFailure() throws Exception {
+        Mockito.when(dnsResolver.resolve("somehost"))
+                .thenReturn(new InetAddress[] { ip1 })
+                .thenThrow(new UnknownHostException("somehost"));
+
+        cachingResolver.resolve("somehost");
+        now += 120;
+        cachingResolver.resolve("somehost");
+        refreshes.get(0).run();
+
+        Assert.assertEquals(1, cachingResolver.getRefreshFailureCount());
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+        Assert.assertEquals(2, refreshes.size());
+    }
+
+    @Test
+    public void testRefreshRescheduledAfterUnexpectedFailure() throws Exception {
+        Mockito.when(dnsResolver.resolve("somehost"))
+                .thenReturn(new InetAddress[] { ip1 })
+                .thenThrow(new IllegalStateException("Oppsie"))
+                .thenReturn(new InetAddress[] { ip2 });
+
+        cachingResolver.resolve("somehost");
+        now += 120;
+        cachingResolver.resolve("somehost");
+        try {
+            refreshes.get(0).run();
+            Assert.fail("IllegalStateException expected");
+        } catch (final IllegalStateException expected) {
+        }
+
+        Assert.assertEquals(1, cachingResolver.getRefreshFailureCount());
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+        Assert.assertEquals(2, refreshes.size());
+        refreshes.get(1).run();
+        Assert.assertArrayEquals(new InetAddress[] { ip2 }, cachingResolver.resolve("somehost"));
+    }
+
+    @Test
+    public void testConcurrentMissesResolvedOnce() throws Exception {
+        final CountDownLatch resolving = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(dnsResolver.resolve("somehost")).thenAnswer(new Answer<InetAddress[]>() {
+
+            @Override
+            public InetAddress[] answer(final InvocationOnMock invocation) throws Throwable {
+                resolving.countDown();
+                release.await();
+                return new InetAddress[] { ip1 };
+            }
+
+        });
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<InetAddress[]>> results = new ArrayList<>();
+            final Callable<InetAddress[]> task = new Callable<InetAddress[]>() {
+
+                @Override
+                public InetAddress[] call() throws Exception {
+                    return cachingResolver.resolve("somehost");
+                }
+
+            };
+            results.add(executorService.submit(task));
+            Assert.assertTrue(resolving.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executorService.submit(task));
+            }
+            // give the followers a chance to join the lookup in progress
+            Thread.sleep(100);
+            release.countDown();
+            for (final Future<InetAddress[]> result: results) {
+                Assert.assertArrayEquals(new InetAddress[] { ip1 }, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Mockito.verify(dnsResolver, Mockito.times(1)).resolve("somehost");
+    }
+
+    @Test
+    public void testExpiredBeyondStaleWindow() throws Exception {
+        Mockito.when(dnsResolver.resolve("somehost"))
+                .thenReturn(new InetAddress[] { ip1 })
+                .thenReturn(new InetAddress[] { ip2 });
+
+        cachingResolver.resolve("somehost");
+        now += 200;
+        Assert.assertArrayEquals(new InetAddress[] { ip2 }, cachingResolver.resolve("somehost"));
+        Assert.assertEquals(2, cachingResolver.getMissCount());
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void testNegativeCaching() throws Exception {
+        Mockito.when(dnsResolver.resolve("nohost"))
+                .thenThrow(new UnknownHostException("nohost"))
+                .thenReturn(new InetAddress[] { ip1 });
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                cachingResolver.resolve("nohost");
+                Assert.fail("UnknownHostException expected");
+            } catch (final UnknownHostException expected) {
+            }
+        }
+        Mockito.verify(dnsResolver, Mockito.times(1)).resolve("nohost");
+
+        now += 11;
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("nohost"));
+        Assert.assertTrue(refreshes.isEmpty());
+    }
+
+    @Test
+    public void testBoundedSize() throws Exception {
+        cachingResolver = createResolver(2);
+        Mockito.when(dnsResolver.resolve(Mockito.anyString())).thenReturn(new InetAddress[] { ip1 });
+
+        cachingResolver.resolve("host1");
+        cachingResolver.resolve("host2");
+        cachingResolver.resolve("host1");
+        cachingResolver.resolve("host3");
+        Assert.assertEquals(2, cachingResolver.size());
+
+        cachingResolver.resolve("host1");
+        cachingResolver.resolve("host2");
+        Mockito.verify(dnsResolver, Mockito.times(1)).resolve("host1");
+        Mockito.verify(dnsResolver, Mockito.times(2)).resolve("host2");
+    }
+
+    @Test
+    public void testReturnedArrayIsACopy() throws Exception {
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1 });
+
+        cachingResolver.resolve("somehost")[0] = ip2;
+        Assert.assertArrayEquals(new InetAddress[] { ip1 }, cachingResolver.resolve("somehost"));
+    }
+
+}
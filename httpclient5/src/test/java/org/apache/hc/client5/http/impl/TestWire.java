@@ -0,0 +1,126 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.hc.client5.http.config.WireLogConfig;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+public class TestWire {
+
+    private Logger log;
+
+    @Before
+    public void setup() {
+        log = Mockito.mock(Logger.class);
+        Mockito.when(log.isDebugEnabled()).thenReturn(true);
+    }
+
+    private List<String> logged(final int times) {
+        final ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(log, Mockito.times(times)).debug(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    public void testEscapedFormat() throws Exception {
+        final Wire wire = new Wire(log, "http-outgoing-1");
+        wire.output("GET / HTTP/1.1\r\nHost: somehost\r\n\r\n");
+        wire.input(new byte[] {'x', 0x01, (byte) 0xc3, (byte) 0xa9, 'y'});
+
+        final List<String> lines = logged(4);
+        Assert.assertEquals("http-outgoing-1 >> \"GET / HTTP/1.1[\\r][\\n]\"", lines.get(0));
+        Assert.assertEquals("http-outgoing-1 >> \"Host: somehost[\\r][\\n]\"", lines.get(1));
+        Assert.assertEquals("http-outgoing-1 >> \"[\\r][\\n]\"", lines.get(2));
+        Assert.assertEquals("http-outgoing-1 << \"x[0x1][0xc3][0xa9]y\"", lines.get(3));
+    }
+
+    @Test
+    public void testSingleByte() throws Exception {
+        final Wire wire = new Wire(log, "id");
+        wire.input('a');
+        wire.output(10);
+
+        final List<String> lines = logged(2);
+        Assert.assertEquals("id << \"a\"", lines.get(0));
+        Assert.assertEquals("id >> \"[\\n]\"", lines.get(1));
+    }
+
+    @Test
+    public void testHexFormat() throws Exception {
+        final Wire wire = new Wire(log, "id", WireLogConfig.custom()
+                .setFormat(WireLogConfig.Format.HEX)
+                .build());
+        wire.input("HTTP/1.1 200 OK\r\nServer: test\r\n".getBytes(StandardCharsets.US_ASCII));
+
+        final List<String> lines = logged(2);
+        Assert.assertEquals(
+                "id << 0000  48 54 54 50 2f 31 2e 31 20 32 30 30 20 4f 4b 0d  HTTP/1.1 200 OK.",
+                lines.get(0));
+        Assert.assertEquals(
+                "id << 0010  0a 53 65 72 76 65 72 3a 20 74 65 73 74 0d 0a     .Server: test..",
+                lines.get(1));
+    }
+
+    @Test
+    public void testDirectBuffer() throws Exception {
+        final Wire wire = new Wire(log, "id");
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+        buffer.put("stuff".getBytes(StandardCharsets.US_ASCII));
+        buffer.flip();
+        wire.output(buffer);
+
+        Assert.assertEquals(0, buffer.position());
+        Assert.assertEquals("id >> \"stuff\"", logged(1).get(0));
+    }
+
+    @Test
+    public void testMaxBytes() throws Exception {
+        final Wire wire = new Wire(log, "id", WireLogConfig.custom()
+                .setMaxBytes(8)
+                .build());
+        wire.output("12345");
+        wire.output("67890");
+        wire.output("abcde");
+        wire.input("12345");
+
+        final List<String> lines = logged(4);
+        Assert.assertEquals("id >> \"12345\"", lines.get(0));
+        Assert.assertEquals("id >> \"678\"", lines.get(1));
+        Assert.assertEquals("id >> [wire log limit of 8 bytes reached]", lines.get(2));
+        Assert.assertEquals("id << \"12345\"", lines.get(3));
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.hc.client5.http.config.WireLogConfig;
+import org.slf4j.Logger;
+
+/**
+ * Simple comparison of the cost of wire logging a typical response with
+ * the original per-line string concatenation and insertion based formatting
+ * against the current {@link Wire} implementation in its escaped and hex
+ * formats, with and without a per-connection byte limit, as well as the cost
+ * of deciding not to log a connection at all. Log events are discarded by a
+ * debug enabled logger. This is not a unit test; run it manually with an
+ * optional {@code [iterations]} argument.
+ */
+public class WireLoggingBenchmark {
+
+    static long chars;
+
+    interface Task {
+
+        void run(byte[] data);
+
+    }
+
+    static Logger discardingLogger() {
+        return (Logger) Proxy.newProxyInstance(
+                Logger.class.getClassLoader(),
+                new Class<?>[] {Logger.class},
+                new InvocationHandler() {
+
+                    @Override
+                    public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                        if (method.getName().startsWith("is")) {
+                            return Boolean.TRUE;
+                        }
+                        if (args != null && args.length > 0 && args[0] instanceof String) {
+                            chars += ((String) args[0]).length();
+                        }
+                        return null;
+                    }
+
+                });
+    }
+
+    /**
+     * The original formatting algorithm.
+     */
+    static void legacyWire(final Logger log, final String id, final String header, final byte[] b, final int pos, final int off) {
+        final StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < off; i++) {
+            final int ch = b[pos + i];
+            if (ch == 13) {
+                buffer.append("[\\r]");
+            } else if (ch == 10) {
+                buffer.append("[\\n]\"");
+                buffer.insert(0, "\"");
+                buffer.insert(0, header);
+                log.debug(id + " " + buffer.toString());
+                buffer.setLength(0);
+            } else if ((ch < 32) || (ch >= 127)) {
+                buffer.append("[0x");
+                buffer.append(Integer.toHexString(ch));
+                buffer.append("]");
+            } else {
+                buffer.append((char) ch);
+            }
+        }
+        if (buffer.length() > 0) {
+            buffer.append('\"');
+            buffer.insert(0, '\"');
+            buffer.insert(0, header);
+            log.debug(id + " " + buffer.toString());
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        final StringBuilder buffer = new StringBuilder();
+        buffer.append("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: 16000\r\n\r\n");
+        while (buffer.length() < 16384) {
+            buffer.append("{\"id\":").append(buffer.length()).append(",\"name\":\"some item\"}\n");
+        }
+        final byte[] data = buffer.toString().getBytes(StandardCharsets.US_ASCII);
+        final Logger log = discardingLogger();
+        final String id = "http-outgoing-1";
+
+        final Task legacy = new Task() {
+
+            @Override
+            public void run(final byte[] data) {
+                legacyWire(log, id, "<< ", data, 0, data.length);
+            }
+
+        };
+        final Wire escapedWire = new Wire(log, id);
+        final Task escaped = new Task() {
+
+            @Override
+            public void run(final byte[] data) {
+                escapedWire.input(data);
+            }
+
+        };
+        final Wire hexWire = new Wire(log, id, WireLogConfig.custom().setFormat(WireLogConfig.Format.HEX).build());
+        final Task hex = new Task() {
+
+            @Override
+            public void run(final byte[] data) {
+                hexWire.input(data);
+            }
+
+        };
+        final Task limited = new Task() {
+
+            @Override
+            public void run(final byte[] data) {
+                // a new connection each time, logging its first 1 KB
+                new Wire(log, id, WireLogConfig.custom().setMaxBytes(1024).build()).input(data);
+            }
+
+        };
+        final WireLogConfig sampled = WireLogConfig.custom().setHosts("somehost").build();
+        final Task notSelected = new Task() {
+
+            @Override
+            public void run(final byte[] data) {
+                if (sampled.isSelected(id, "otherhost", "10.0.0.1")) {
+                    escapedWire.input(data);
+                }
+            }
+
+        };
+        for (int round = 0; round < 2; round++) {
+            run("Legacy", legacy, data, iterations);
+            run("Escaped", escaped, data, iterations);
+            run("Hex", hex, data, iterations);
+            run("Escaped 1 KB limit", limited, data, iterations);
+            run("Not selected", notSelected, data, iterations);
+        }
+    }
+
+    static void run(final String name, final Task task, final byte[] data, final int iterations) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run(data);
+        }
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %,10.1f us per 16 KB%n", name, (double) elapsed / iterations / 1000);
+    }
+
+}
@@ -0,0 +1,255 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.async;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncContentDecoderFactory;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecRuntime;
+import org.apache.hc.client5.http.async.methods.InflatingAsyncDataConsumer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.config.RegistryBuilder;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestContentCompressionAsyncExec {
+
+    @Mock
+    private AsyncExecRuntime execRuntime;
+    @Mock
+    private AsyncExecChain execChain;
+    @Mock
+    private CancellableDependency cancellableDependency;
+    @Mock
+    private AsyncExecCallback asyncExecCallback;
+    @Mock
+    private AsyncDataConsumer dataConsumer;
+
+    private HttpClientContext context;
+    private HttpHost host;
+    private HttpRequest request;
+    private AsyncExecChain.Scope scope;
+    private ContentCompressionAsyncExec impl;
+
+    @Before
+    public void setup() {
+        host = new HttpHost("somehost", 80);
+        request = new BasicHttpRequest(Methods.GET, host, "/");
+        context = HttpClientContext.create();
+        scope = new AsyncExecChain.Scope("test", new HttpRoute(host), request, cancellableDependency, context, execRuntime);
+        impl = new ContentCompressionAsyncExec();
+    }
+
+    private AsyncExecCallback execute() throws Exception {
+        impl.execute(request, null, scope, execChain, asyncExecCallback);
+        final ArgumentCaptor<AsyncExecCallback> callbackCaptor = ArgumentCaptor.forClass(AsyncExecCallback.class);
+        Mockito.verify(execChain).proceed(
+                Mockito.same(request),
+                Mockito.<AsyncEntityProducer>isNull(),
+                Mockito.same(scope),
+                callbackCaptor.capture());
+        return callbackCaptor.getValue();
+    }
+
+    private static EntityDetails entityDetails(final String contentEncoding) {
+        return new EntityDetails() {
+
+            @Override
+            public long getContentLength() {
+                return 3;
+            }
+
+            @Override
+            public String getContentType() {
+                return ContentType.APPLICATION_OCTET_STREAM.toString();
+            }
+
+            @Override
+            public String getContentEncoding() {
+                return contentEncoding;
+            }
+
+            @Override
+            public boolean isChunked() {
+                return false;
+            }
+
+            @Override
+            public Set<String> getTrailerNames() {
+                return null;
+            }
+
+        };
+    }
+
+    @Test
+    public void testAcceptEncodingAdded() throws Exception {
+        execute();
+        final String acceptEncoding = request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue();
+        Assert.assertTrue(acceptEncoding.contains("gzip"));
+        Assert.assertTrue(acceptEncoding.contains("x-gzip"));
+        Assert.assertTrue(acceptEncoding.contains("deflate"));
+    }
+
+    @Test
+    public void testAcceptEncodingPreserved() throws Exception {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        execute();
+        Assert.assertEquals(1, request.getHeaders(HttpHeaders.ACCEPT_ENCODING).length);
+        Assert.assertEquals("identity", request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue());
+    }
+
+    @Test
+    public void testContentCompressionDisabled() throws Exception {
+        context.setRequestConfig(RequestConfig.custom().setContentCompressionEnabled(false).build());
+        impl.execute(request, null, scope, execChain, asyncExecCallback);
+        Mockito.verify(execChain).proceed(request, null, scope, asyncExecCallback);
+        Assert.assertFalse(request.containsHeader(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void testNoEntity() throws Exception {
+        final AsyncExecCallback callback = execute();
+        final HttpResponse response = new BasicHttpResponse(204);
+        Mockito.when(asyncExecCallback.handleResponse(response, null)).thenReturn(null);
+        Assert.assertNull(callback.handleResponse(response, null));
+    }
+
+    @Test
+    public void testNoContentEncoding() throws Exception {
+        final AsyncExecCallback callback = execute();
+        final HttpResponse response = new BasicHttpResponse(200);
+        final EntityDetails entityDetails = entityDetails(null);
+        Mockito.when(asyncExecCallback.handleResponse(response, entityDetails)).thenReturn(dataConsumer);
+        Assert.assertSame(dataConsumer, callback.handleResponse(response, entityDetails));
+    }
+
+    @Test
+    public void testGzipContentEncoding() throws Exception {
+        final AsyncExecCallback callback = execute();
+        final HttpResponse response = new BasicHttpResponse(200);
+        response.addHeader(HttpHeaders.CONTENT_ENCODING, "GZip");
+        response.addHeader(HttpHeaders.CONTENT_LENGTH, "3");
+        Mockito.when(asyncExecCallback.handleResponse(
+                Mockito.same(response), Mockito.<EntityDetails>any())).thenReturn(dataConsumer);
+
+        final AsyncDataConsumer consumer = callback.handleResponse(response, entityDetails("GZip"));
+        Assert.assertTrue(consumer instanceof InflatingAsyncDataConsumer);
+        Assert.assertFalse(response.containsHeader(HttpHeaders.CONTENT_ENCODING));
+        Assert.assertFalse(response.containsHeader(HttpHeaders.CONTENT_LENGTH));
+
+        final ArgumentCaptor<EntityDetails> detailsCaptor = ArgumentCaptor.forClass(EntityDetails.class);
+        Mockito.verify(asyncExecCallback).handleResponse(Mockito.same(response), detailsCaptor.capture());
+        Assert.assertNull(detailsCaptor.getValue().getContentEncoding());
+        Assert.assertEquals(-1, detailsCaptor.getValue().getContentLength());
+    }
+
+    @Test
+    public void testMultipleContentEncodings() throws Exception {
+        final AsyncExecCallback callback = execute();
+        final HttpResponse response = new BasicHttpResponse(200);
+        Mockito.when(asyncExecCallback.handleResponse(
+                Mockito.same(response), Mockito.<EntityDetails>any())).thenReturn(dataConsumer);
+
+        final AsyncDataConsumer consumer = callback.handleResponse(response, entityDetails("deflate, identity, gzip"));
+        Assert.assertTrue(consumer instanceof InflatingAsyncDataConsumer);
+    }
+
+    @Test
+    public void testUnknownContentEncoding() throws Exception {
+        final AsyncExecCallback callback = execute();
+        final HttpResponse response = new BasicHttpResponse(200);
+        response.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip, whatever");
+        final EntityDetails entityDetails = entityDetails("gzip, whatever");
+        Mockito.when(asyncExecCallback.handleResponse(response, entityDetails)).thenReturn(dataConsumer);
+
+        Assert.assertSame(dataConsumer, callback.handleResponse(response, entityDetails));
+        Assert.assertTrue(response.containsHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test(expected = HttpException.class)
+    public void testUnknownContentEncodingStrict() throws Exception {
+        impl = new ContentCompressionAsyncExec(false);
+        final AsyncExecCallback callback = execute();
+        callback.handleResponse(new BasicHttpResponse(200), entityDetails("whatever"));
+    }
+
+    @Test
+    public void testCustomDecoderRegistry() throws Exception {
+        final LinkedHashSet<String> applied = new LinkedHashSet<>();
+        impl = new ContentCompressionAsyncExec(
+                Arrays.asList("x-test"),
+                RegistryBuilder.<AsyncContentDecoderFactory>create()
+                        .register("x-test", new AsyncContentDecoderFactory() {
+
+                            @Override
+                            public AsyncDataConsumer create(final AsyncDataConsumer dataConsumer) {
+                                applied.add("x-test");
+                                return dataConsumer;
+                            }
+
+                        })
+                        .build(),
+                true);
+        final AsyncExecCallback callback = execute();
+        Assert.assertEquals("x-test", request.getFirstHeader(HttpHeaders.ACCEPT_ENCODING).getValue());
+        final HttpResponse response = new BasicHttpResponse(200);
+        Mockito.when(asyncExecCallback.handleResponse(
+                Mockito.same(response), Mockito.<EntityDetails>any())).thenReturn(dataConsumer);
+        Assert.assertSame(dataConsumer, callback.handleResponse(response, entityDetails("x-test")));
+        Assert.assertTrue(applied.contains("x-test"));
+        Mockito.verify(dataConsumer, Mockito.never()).consume(Mockito.<ByteBuffer>any());
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.async;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecRuntime;
+import org.apache.hc.client5.http.async.methods.DeflatingAsyncEntityProducer;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.http.nio.entity.BasicAsyncEntityProducer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRequestCompressionAsyncExec {
+
+    @Mock
+    private AsyncExecRuntime execRuntime;
+    @Mock
+    private AsyncExecChain execChain;
+    @Mock
+    private CancellableDependency cancellableDependency;
+    @Mock
+    private AsyncExecCallback asyncExecCallback;
+
+    private HttpHost host;
+    private HttpRequest request;
+    private AsyncExecChain.Scope scope;
+    private RequestCompressionAsyncExec impl;
+
+    @Before
+    public void setup() {
+        host = new HttpHost("somehost", 80);
+        request = new BasicHttpRequest(Methods.POST, host, "/");
+        scope = new AsyncExecChain.Scope("test", new HttpRoute(host), request, cancellableDependency,
+                HttpClientContext.create(), execRuntime);
+        impl = new RequestCompressionAsyncExec(RequestCompressionConfig.custom()
+                .setMinimumSize(100)
+                .build());
+    }
+
+    private AsyncEntityProducer execute(final AsyncEntityProducer entityProducer) throws Exception {
+        impl.execute(request, entityProducer, scope, execChain, asyncExecCallback);
+
+        final ArgumentCaptor<AsyncEntityProducer> captor = ArgumentCaptor.forClass(AsyncEntityProducer.class);
+        Mockito.verify(execChain).proceed(
+                Mockito.same(request), captor.capture(), Mockito.same(scope), Mockito.same(asyncExecCallback));
+        return captor.getValue();
+    }
+
+    @Test
+    public void testNoEntity() throws Exception {
+        Assert.assertNull(execute(null));
+    }
+
+    @Test
+    public void testCompressMatchingEntity() throws Exception {
+        final AsyncEntityProducer entityProducer = execute(
+                new BasicAsyncEntityProducer(new byte[1000], ContentType.APPLICATION_JSON));
+        Assert.assertTrue(entityProducer instanceof DeflatingAsyncEntityProducer);
+        Assert.assertEquals("gzip", entityProducer.getContentEncoding());
+    }
+
+    @Test
+    public void testSmallEntityNotCompressed() throws Exception {
+        final AsyncEntityProducer original = new BasicAsyncEntityProducer(new byte[10], ContentType.APPLICATION_JSON);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test
+    public void testContentTypeNotCompressed() throws Exception {
+        final AsyncEntityProducer original = new BasicAsyncEntityProducer(new byte[1000], ContentType.IMAGE_PNG);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test
+    public void testContentEncodingHeaderNotCompressed() throws Exception {
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        final AsyncEntityProducer original = new BasicAsyncEntityProducer(new byte[1000], ContentType.TEXT_PLAIN);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test
+    public void testNoDoubleCompression() throws Exception {
+        final AsyncEntityProducer original = new DeflatingAsyncEntityProducer(
+                new BasicAsyncEntityProducer(new byte[1000], ContentType.TEXT_PLAIN), false);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedContentCoding() throws Exception {
+        new RequestCompressionAsyncExec(RequestCompressionConfig.custom()
+                .setContentCoding("br")
+                .build());
+    }
+
+}
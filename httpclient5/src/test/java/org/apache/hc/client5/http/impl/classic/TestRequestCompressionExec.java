@@ -0,0 +1,191 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.classic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecRuntime;
+import org.apache.hc.client5.http.config.RequestCompressionConfig;
+import org.apache.hc.client5.http.entity.DeflateCompressingEntity;
+import org.apache.hc.client5.http.entity.GzipCompressingEntity;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.Methods;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpRequest;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestRequestCompressionExec {
+
+    @Mock
+    private ExecRuntime execRuntime;
+    @Mock
+    private ExecChain execChain;
+    @Mock
+    private ClassicHttpRequest originaRequest;
+
+    private HttpClientContext context;
+    private HttpHost host;
+    private ExecChain.Scope scope;
+    private RequestCompressionExec impl;
+
+    @Before
+    public void setup() {
+        host = new HttpHost("somehost", 80);
+        context = HttpClientContext.create();
+        scope = new ExecChain.Scope("test", new HttpRoute(host), originaRequest, execRuntime, context);
+        impl = new RequestCompressionExec(RequestCompressionConfig.custom()
+                .setMinimumSize(100)
+                .build());
+    }
+
+    private static String createContent(final int len) {
+        final StringBuilder buffer = new StringBuilder();
+        while (buffer.length() < len) {
+            buffer.append("some kind of text ");
+        }
+        return buffer.toString();
+    }
+
+    private HttpEntity execute(final HttpEntity entity) throws Exception {
+        final ClassicHttpRequest request = new BasicClassicHttpRequest(Methods.POST, host, "/");
+        request.setEntity(entity);
+        final ClassicHttpResponse response = new BasicClassicHttpResponse(200, "OK");
+        Mockito.when(execChain.proceed(request, scope)).thenReturn(response);
+
+        Assert.assertSame(response, impl.execute(request, scope, execChain));
+        return request.getEntity();
+    }
+
+    @Test
+    public void testNoEntity() throws Exception {
+        Assert.assertNull(execute(null));
+    }
+
+    @Test
+    public void testCompressMatchingEntity() throws Exception {
+        final String content = createContent(1000);
+        final HttpEntity entity = execute(new StringEntity(content, ContentType.APPLICATION_JSON));
+        Assert.assertTrue(entity instanceof GzipCompressingEntity);
+        Assert.assertEquals("gzip", entity.getContentEncoding());
+        Assert.assertEquals(ContentType.APPLICATION_JSON.toString(), entity.getContentType());
+
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        entity.writeTo(buf);
+        Assert.assertEquals(content, EntityUtils.toString(new InputStreamEntity(
+                new GZIPInputStream(new ByteArrayInputStream(buf.toByteArray())), ContentType.APPLICATION_JSON)));
+    }
+
+    @Test
+    public void testCompressContentOfUnknownLength() throws Exception {
+        final HttpEntity entity = execute(new InputStreamEntity(
+                new ByteArrayInputStream(new byte[10]), ContentType.TEXT_PLAIN));
+        Assert.assertTrue(entity instanceof GzipCompressingEntity);
+    }
+
+    @Test
+    public void testSmallEntityNotCompressed() throws Exception {
+        final StringEntity original = new StringEntity(createContent(10), ContentType.APPLICATION_JSON);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test
+    public void testContentTypeNotCompressed() throws Exception {
+        final StringEntity original = new StringEntity(createContent(1000), ContentType.IMAGE_JPEG);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test
+    public void testContentTypeWildcard() throws Exception {
+        Assert.assertTrue(execute(new StringEntity(createContent(1000), ContentType.TEXT_XML))
+                instanceof GzipCompressingEntity);
+    }
+
+    @Test
+    public void testEncodedEntityNotCompressed() throws Exception {
+        final StringEntity original = new StringEntity(createContent(1000), ContentType.TEXT_PLAIN, "br", false);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test
+    public void testContentEncodingHeaderNotCompressed() throws Exception {
+        final ClassicHttpRequest request = new BasicClassicHttpRequest(Methods.POST, host, "/");
+        final StringEntity original = new StringEntity(createContent(1000), ContentType.TEXT_PLAIN);
+        request.setEntity(original);
+        request.addHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        impl.execute(request, scope, execChain);
+
+        Assert.assertSame(original, request.getEntity());
+    }
+
+    @Test
+    public void testNoDoubleCompression() throws Exception {
+        final HttpEntity entity = execute(new GzipCompressingEntity(
+                new StringEntity(createContent(1000), ContentType.TEXT_PLAIN)));
+        Assert.assertSame(entity, execute(entity));
+    }
+
+    @Test
+    public void testDeflateContentCoding() throws Exception {
+        impl = new RequestCompressionExec(RequestCompressionConfig.custom()
+                .setContentCoding("deflate")
+                .setContentTypes("text/plain")
+                .build());
+        Assert.assertTrue(execute(new StringEntity(createContent(2000), ContentType.TEXT_PLAIN))
+                instanceof DeflateCompressingEntity);
+        final StringEntity original = new StringEntity(createContent(2000), ContentType.TEXT_HTML);
+        Assert.assertSame(original, execute(original));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedContentCoding() throws Exception {
+        new RequestCompressionExec(RequestCompressionConfig.custom()
+                .setContentCoding("compress")
+                .build());
+    }
+
+}
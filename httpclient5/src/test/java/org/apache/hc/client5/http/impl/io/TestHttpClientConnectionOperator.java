@@ -31,26 +31,35 @@
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
 import java.net.SocketTimeoutException;
 import java.util.concurrent.TimeUnit;
 
+import javax.net.ssl.SSLSocket;
+
 import org.apache.hc.client5.http.ConnectTimeoutException;
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.HttpHostConnectException;
 import org.apache.hc.client5.http.SchemePortResolver;
 import org.apache.hc.client5.http.UnsupportedSchemeException;
+import org.apache.hc.client5.http.impl.AddressLoadBalancer;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.config.Lookup;
 import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.protocol.BasicHttpContext;
 import org.apache.hc.core5.http.protocol.HttpContext;
 import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 @SuppressWarnings({"boxing","static-access"}) // test code
 public class TestHttpClientConnectionOperator {
@@ -239,6 +248,223 @@ public void testConnectExplicitAddress() throws Exception {
         Mockito.verify(conn, Mockito.times(2)).bind(socket);
     }
 
+    @Test
+    public void testConnectRacing() throws Exception {
+        final HttpContext context = new BasicHttpContext();
+        final HttpHost host = new HttpHost("somehost");
+        final InetAddress ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        final InetAddress ip2 = InetAddress.getByAddress(new byte[] {127, 0, 0, 1});
+        final Socket socket1 = Mockito.mock(Socket.class);
+        final Socket socket2 = Mockito.mock(Socket.class);
+
+        connectionOperator = new DefaultHttpClientConnectionOperator(
+                socketFactoryRegistry, schemePortResolver, dnsResolver, TimeValue.ofMilliseconds(50));
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1, ip2 });
+        Mockito.when(socketFactoryRegistry.lookup("http")).thenReturn(plainSocketFactory);
+        Mockito.when(schemePortResolver.resolve(host)).thenReturn(80);
+        Mockito.when(plainSocketFactory.createSocket(Mockito.<HttpContext>any())).thenReturn(socket1, socket2);
+        // the first address is black-holed
+        Mockito.when(plainSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.eq(new InetSocketAddress(ip1, 80)),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenAnswer(new Answer<Socket>() {
+
+                    @Override
+                    public Socket answer(final InvocationOnMock invocation) throws Throwable {
+                        Thread.sleep(10000);
+                        throw new SocketTimeoutException();
+                    }
+
+                });
+        Mockito.when(plainSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.eq(new InetSocketAddress(ip2, 80)),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenReturn(socket2);
+
+        final long start = System.currentTimeMillis();
+        connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(10000), SocketConfig.DEFAULT, context);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+
+        Mockito.verify(conn).bind(socket2);
+        Mockito.verify(conn, Mockito.never()).bind(socket1);
+        Mockito.verify(socket1).close();
+        Mockito.verify(socket2, Mockito.never()).close();
+    }
+
+    @Test
+    public void testConnectRacingLayersWinner() throws Exception {
+        final HttpContext context = new BasicHttpContext();
+        final HttpHost host = new HttpHost("https", "somehost", -1);
+        final InetAddress ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        final InetAddress ip2 = InetAddress.getByAddress(new byte[] {127, 0, 0, 1});
+        final Socket socket1 = Mockito.mock(Socket.class);
+        final Socket socket2 = Mockito.mock(Socket.class);
+        final Socket upgradedSocket = Mockito.mock(SSLSocket.class);
+
+        connectionOperator = new DefaultHttpClientConnectionOperator(
+                socketFactoryRegistry, schemePortResolver, dnsResolver, TimeValue.ofMilliseconds(50));
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1, ip2 });
+        Mockito.when(socketFactoryRegistry.lookup("https")).thenReturn(sslSocketFactory);
+        Mockito.when(schemePortResolver.resolve(host)).thenReturn(443);
+        Mockito.when(sslSocketFactory.createSocket(Mockito.<HttpContext>any())).thenReturn(socket1, socket2);
+        // the first address is black-holed
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(10000);
+                throw new SocketTimeoutException();
+            }
+
+        }).when(socket1).connect(Mockito.<SocketAddress>any(), Mockito.anyInt());
+        Mockito.when(sslSocketFactory.createLayeredSocket(
+                Mockito.<Socket>any(),
+                Mockito.eq("somehost"),
+                Mockito.eq(443),
+                Mockito.<HttpContext>any())).thenReturn(upgradedSocket);
+
+        final long start = System.currentTimeMillis();
+        connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(10000), SocketConfig.DEFAULT, context);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+
+        Mockito.verify(socket2).connect(new InetSocketAddress(ip2, 443), 10000);
+        Mockito.verify(sslSocketFactory, Mockito.never()).connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any());
+        Mockito.verify(sslSocketFactory, Mockito.times(1)).createLayeredSocket(socket2, "somehost", 443, context);
+        Mockito.verify(conn).bind(upgradedSocket);
+        Mockito.verify(socket1).close();
+    }
+
+    @Test(expected=HttpHostConnectException.class)
+    public void testConnectRacingFailure() throws Exception {
+        final HttpContext context = new BasicHttpContext();
+        final HttpHost host = new HttpHost("somehost");
+        final InetAddress ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        final InetAddress ip2 = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+
+        connectionOperator = new DefaultHttpClientConnectionOperator(
+                socketFactoryRegistry, schemePortResolver, dnsResolver, TimeValue.ofMilliseconds(50));
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1, ip2 });
+        Mockito.when(socketFactoryRegistry.lookup("http")).thenReturn(plainSocketFactory);
+        Mockito.when(schemePortResolver.resolve(host)).thenReturn(80);
+        Mockito.when(plainSocketFactory.createSocket(Mockito.<HttpContext>any())).thenReturn(socket);
+        Mockito.when(plainSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenThrow(new ConnectException());
+
+        connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(1000), SocketConfig.DEFAULT, context);
+    }
+
+    @Test
+    public void testConnectLoadBalanced() throws Exception {
+        final HttpContext context = new BasicHttpContext();
+        final HttpHost host = new HttpHost("somehost");
+        final InetAddress ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        final InetAddress ip2 = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+        final AddressLoadBalancer balancer = new AddressLoadBalancer(AddressLoadBalancer.Policy.ROUND_ROBIN);
+        balancer.setMaxFailures(1);
+
+        connectionOperator = new DefaultHttpClientConnectionOperator(
+                socketFactoryRegistry, schemePortResolver, dnsResolver, null, balancer);
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1, ip2 });
+        Mockito.when(socketFactoryRegistry.lookup("http")).thenReturn(plainSocketFactory);
+        Mockito.when(schemePortResolver.resolve(host)).thenReturn(80);
+        Mockito.when(plainSocketFactory.createSocket(Mockito.<HttpContext>any())).thenReturn(socket);
+        Mockito.when(plainSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenReturn(socket);
+        Mockito.when(conn.isOpen()).thenReturn(true);
+
+        connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(1000), SocketConfig.DEFAULT, context);
+        connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(1000), SocketConfig.DEFAULT, context);
+
+        final InOrder inOrder = Mockito.inOrder(plainSocketFactory);
+        inOrder.verify(plainSocketFactory).connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.eq(new InetSocketAddress(ip1, 80)),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any());
+        inOrder.verify(plainSocketFactory).connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.eq(new InetSocketAddress(ip2, 80)),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any());
+        Assert.assertEquals(1, balancer.getOpenConnections(new InetSocketAddress(ip1, 80)));
+
+        Mockito.when(plainSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.eq(new InetSocketAddress(ip1, 80)),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenThrow(new ConnectException());
+        connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(1000), SocketConfig.DEFAULT, context);
+        Assert.assertTrue(balancer.isEjected(new InetSocketAddress(ip1, 80)));
+    }
+
+    @Test
+    public void testConnectHandshakePermitTimeout() throws Exception {
+        final HttpContext context = new BasicHttpContext();
+        final HttpHost host = new HttpHost("https", "somehost", -1);
+        final InetAddress ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        final InetAddress ip2 = InetAddress.getByAddress(new byte[] {10, 0, 0, 2});
+        final AddressLoadBalancer balancer = new AddressLoadBalancer(AddressLoadBalancer.Policy.ROUND_ROBIN);
+        balancer.setMaxFailures(1);
+
+        connectionOperator = new DefaultHttpClientConnectionOperator(
+                socketFactoryRegistry, schemePortResolver, dnsResolver, null, balancer);
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1, ip2 });
+        Mockito.when(socketFactoryRegistry.lookup("https")).thenReturn(sslSocketFactory);
+        Mockito.when(schemePortResolver.resolve(host)).thenReturn(443);
+        Mockito.when(sslSocketFactory.createSocket(Mockito.<HttpContext>any())).thenReturn(socket);
+        Mockito.when(sslSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenThrow(new ConnectionRequestTimeoutException());
+
+        try {
+            connectionOperator.connect(conn, host, null, TimeValue.ofMilliseconds(1000), SocketConfig.DEFAULT, context);
+            Assert.fail("ConnectionRequestTimeoutException expected");
+        } catch (final ConnectionRequestTimeoutException expected) {
+        }
+        // waiting for a handshake permit is neither retried with another address
+        // nor held against the address
+        Mockito.verify(sslSocketFactory, Mockito.times(1)).connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.<Socket>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any());
+        Assert.assertFalse(balancer.isEjected(new InetSocketAddress(ip1, 443)));
+    }
+
     @Test
     public void testUpgrade() throws Exception {
         final HttpContext context = new BasicHttpContext();
@@ -27,29 +27,48 @@
 
 package org.apache.hc.client5.http.impl.io;
 
+import java.net.ConnectException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
 import org.apache.hc.client5.http.DnsResolver;
 import org.apache.hc.client5.http.HttpRoute;
 import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.impl.BasicConnPoolMetrics;
 import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.HttpClientConnectionOperator;
 import org.apache.hc.client5.http.io.LeaseRequest;
 import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.socket.LayeredConnectionSocketFactory;
+import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Callback;
 import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.core5.http.config.Lookup;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
 import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
 import org.apache.hc.core5.pool.PoolEntry;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
 import org.apache.hc.core5.pool.StrictConnPool;
 import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
@@ -59,6 +78,8 @@
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /**
  * {@link PoolingHttpClientConnectionManager} tests.
@@ -307,6 +328,58 @@ public void testTargetConnect() throws Exception {
                 new InetSocketAddress(local, 0), context);
     }
 
+    @Test
+    public void testMetricsHandshakeTime() throws Exception {
+        final HttpHost target = new HttpHost("https", "somehost", 443);
+        final InetAddress remote = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        final HttpRoute route = new HttpRoute(target, null, true);
+
+        final PoolEntry<HttpRoute, ManagedHttpClientConnection> entry = new PoolEntry<>(route, TimeValue.NEG_ONE_MILLISECONDS);
+        entry.assignConnection(conn);
+
+        Mockito.when(conn.isOpen()).thenReturn(false);
+        Mockito.when(future.isCancelled()).thenReturn(false);
+        Mockito.when(future.get(1, TimeUnit.SECONDS)).thenReturn(entry);
+        Mockito.when(pool.lease(
+                Mockito.eq(route),
+                Mockito.eq(null),
+                Mockito.<Timeout>any(),
+                Mockito.<FutureCallback<PoolEntry<HttpRoute, ManagedHttpClientConnection>>>eq(null)))
+                .thenReturn(future);
+        final ConnPoolMetricsListener metrics = Mockito.mock(ConnPoolMetricsListener.class);
+        mgr.setMetricsListener(metrics);
+
+        final ConnectionEndpoint endpoint1 = mgr.lease("some-id", route, null).get(Timeout.ofSeconds(1));
+        final HttpClientContext context = HttpClientContext.create();
+
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[]{remote});
+        Mockito.when(schemePortResolver.resolve(target)).thenReturn(8443);
+        Mockito.when(socketFactoryRegistry.lookup("https")).thenReturn(sslSocketFactory);
+        Mockito.when(sslSocketFactory.createSocket(Mockito.<HttpContext>any())).thenReturn(socket);
+        Mockito.when(sslSocketFactory.connectSocket(
+                Mockito.<TimeValue>any(),
+                Mockito.eq(socket),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<HttpContext>any())).thenAnswer(new Answer<Socket>() {
+
+                    @Override
+                    public Socket answer(final InvocationOnMock invocation) throws Throwable {
+                        final HttpContext context = invocation.getArgument(5);
+                        context.setAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME, 5000000L);
+                        return socket;
+                    }
+
+                });
+
+        mgr.connect(endpoint1, TimeValue.ofMilliseconds(123), context);
+
+        Mockito.verify(metrics).connectionCreated(Mockito.eq(route), Mockito.anyLong());
+        Mockito.verify(metrics).handshakeCompleted(route, 5000000L);
+        Assert.assertNull(context.getAttribute(SSLConnectionSocketFactory.HANDSHAKE_TIME));
+    }
+
     @Test
     public void testProxyConnectAndUpgrade() throws Exception {
         final HttpHost target = new HttpHost("https", "somehost", 443);
@@ -374,4 +447,384 @@ public void testProxyConnectAndUpgrade() throws Exception {
                 mockSock, "somehost", 8443, context);
     }
 
+    private PoolingHttpClientConnectionManager createWarmUpManager(
+            final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool) throws Exception {
+        return createWarmUpManager(connPool, null, null);
+    }
+
+    private PoolingHttpClientConnectionManager createWarmUpManager(
+            final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool,
+            final Semaphore connecting,
+            final Semaphore proceed) throws Exception {
+        final Set<ManagedHttpClientConnection> connected = Collections.newSetFromMap(
+                new ConcurrentHashMap<ManagedHttpClientConnection, Boolean>());
+        final Answer<Boolean> isOpen = new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return connected.contains(invocation.getMock());
+            }
+
+        };
+        @SuppressWarnings("unchecked")
+        final HttpConnectionFactory<ManagedHttpClientConnection> connFactory = Mockito.mock(HttpConnectionFactory.class);
+        Mockito.when(connFactory.createConnection(Mockito.<Socket>any())).thenAnswer(new Answer<ManagedHttpClientConnection>() {
+
+            @Override
+            public ManagedHttpClientConnection answer(final InvocationOnMock invocation) {
+                final ManagedHttpClientConnection connection = Mockito.mock(ManagedHttpClientConnection.class);
+                Mockito.when(connection.isOpen()).thenAnswer(isOpen);
+                return connection;
+            }
+
+        });
+        final HttpClientConnectionOperator connectionOperator = Mockito.mock(HttpClientConnectionOperator.class);
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws InterruptedException {
+                if (connecting != null) {
+                    connecting.release();
+                    proceed.acquire();
+                }
+                connected.add((ManagedHttpClientConnection) invocation.getArguments()[0]);
+                return null;
+            }
+
+        }).when(connectionOperator).connect(
+                Mockito.<ManagedHttpClientConnection>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<TimeValue>any(),
+                Mockito.<SocketConfig>any(),
+                Mockito.<HttpContext>any());
+        return new PoolingHttpClientConnectionManager(connectionOperator, connPool, connFactory);
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool);
+        try {
+            final Future<Integer> future1 = warmUpMgr.warmUp(route, 2, Timeout.ofSeconds(1), null);
+            Assert.assertEquals(Integer.valueOf(2), future1.get(5, TimeUnit.SECONDS));
+            final PoolStats stats1 = warmUpMgr.getStats(route);
+            Assert.assertEquals(2, stats1.getAvailable());
+            Assert.assertEquals(0, stats1.getLeased());
+
+            // idle connections count towards the target and the per route limit is respected
+            final Future<Integer> future2 = warmUpMgr.warmUp(route, 5, Timeout.ofSeconds(1), null);
+            Assert.assertEquals(Integer.valueOf(1), future2.get(5, TimeUnit.SECONDS));
+            final PoolStats stats2 = warmUpMgr.getStats(route);
+            Assert.assertEquals(3, stats2.getAvailable());
+            Assert.assertEquals(0, stats2.getLeased());
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
+    @Test
+    public void testWarmUpLeavesIdleConnectionsAvailable() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final Semaphore connecting = new Semaphore(0);
+        final Semaphore proceed = new Semaphore(1);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool, connecting, proceed);
+        final ConnPoolMetricsListener metrics = Mockito.mock(ConnPoolMetricsListener.class);
+        warmUpMgr.setMetricsListener(metrics);
+        try {
+            Assert.assertEquals(Integer.valueOf(1), warmUpMgr.warmUp(route, 1, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+            connecting.acquire();
+
+            final Future<Integer> future = warmUpMgr.warmUp(route, 3, Timeout.ofSeconds(1), null);
+            Assert.assertTrue(connecting.tryAcquire(5, TimeUnit.SECONDS));
+            // the idle connection remains available while new ones are being opened
+            final PoolStats stats1 = warmUpMgr.getStats(route);
+            Assert.assertEquals(1, stats1.getAvailable());
+            Assert.assertEquals(2, stats1.getLeased());
+            final ConnectionEndpoint endpoint = warmUpMgr.lease("test", route, null).get(Timeout.ofMilliseconds(100));
+            Assert.assertTrue(endpoint.isConnected());
+            warmUpMgr.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+
+            proceed.release(2);
+            Assert.assertEquals(Integer.valueOf(2), future.get(5, TimeUnit.SECONDS));
+            final PoolStats stats2 = warmUpMgr.getStats(route);
+            Assert.assertEquals(3, stats2.getAvailable());
+            Assert.assertEquals(0, stats2.getLeased());
+
+            // warm-ups of a saturated route do not wait and are not reported as leases
+            Assert.assertEquals(Integer.valueOf(0), warmUpMgr.warmUp(route, 5, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(3, warmUpMgr.getStats(route).getAvailable());
+            Mockito.verify(metrics, Mockito.times(1)).leaseRequested(route);
+            Mockito.verify(metrics, Mockito.times(1)).leaseGranted(Mockito.eq(route), Mockito.anyLong());
+            Mockito.verify(metrics, Mockito.never()).leaseTimedOut(Mockito.<HttpRoute>any(), Mockito.anyLong());
+            Mockito.verify(metrics, Mockito.times(3)).connectionCreated(Mockito.eq(route), Mockito.anyLong());
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
+    @Test
+    public void testWarmUpTunnelledRoute() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("https", "somehost", 443), null,
+                new HttpHost("someproxy", 8080), true);
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool);
+        try {
+            Assert.assertEquals(Integer.valueOf(0), warmUpMgr.warmUp(route, 2, Timeout.ofSeconds(1), null).get());
+            Assert.assertEquals(0, warmUpMgr.getStats(route).getAvailable());
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
+    @Test
+    public void testMinIdleReplenishedAfterEviction() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool);
+        try {
+            warmUpMgr.setMinIdlePerRoute(route, 2);
+            Assert.assertEquals(2, warmUpMgr.getMinIdlePerRoute(route));
+            awaitAvailable(warmUpMgr, route, 2);
+
+            warmUpMgr.closeIdle(TimeValue.ZERO_MILLISECONDS);
+            awaitAvailable(warmUpMgr, route, 2);
+
+            warmUpMgr.setMinIdlePerRoute(route, 0);
+            Assert.assertEquals(0, warmUpMgr.getMinIdlePerRoute(route));
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
+    private static void awaitAvailable(
+            final PoolingHttpClientConnectionManager connManager,
+            final HttpRoute route,
+            final int available) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (connManager.getStats(route).getAvailable() < available && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(available, connManager.getStats(route).getAvailable());
+    }
+
+    @Test
+    public void testConnectExecutorHandsOverReleasedConnection() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final Semaphore connecting = new Semaphore(0);
+        final Semaphore proceed = new Semaphore(1);
+        final PoolingHttpClientConnectionManager connectMgr = createWarmUpManager(connPool, connecting, proceed);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final ExecutorService requester = Executors.newSingleThreadExecutor();
+        connectMgr.setConnectExecutor(executor);
+        try {
+            Assert.assertEquals(Integer.valueOf(1), connectMgr.warmUp(route, 1, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+            connecting.acquire();
+            final ConnectionEndpoint endpoint1 = connectMgr.lease("id1", route, null).get(Timeout.ofSeconds(1));
+            Assert.assertTrue(endpoint1.isConnected());
+            final ConnectionEndpoint endpoint2 = connectMgr.lease("id2", route, null).get(Timeout.ofSeconds(1));
+            Assert.assertFalse(endpoint2.isConnected());
+
+            final Future<?> future = requester.submit(new Callable<Void>() {
+
+                @Override
+                public Void call() throws Exception {
+                    connectMgr.connect(endpoint2, TimeValue.ofSeconds(1), HttpClientContext.create());
+                    return null;
+                }
+
+            });
+            // the connection is established in the background
+            Assert.assertTrue(connecting.tryAcquire(5, TimeUnit.SECONDS));
+            Assert.assertFalse(future.isDone());
+
+            // and the released connection is handed over to the waiting endpoint
+            connectMgr.release(endpoint1, null, TimeValue.NEG_ONE_MILLISECONDS);
+            future.get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(endpoint2.isConnected());
+            Assert.assertEquals(0, connectMgr.getStats(route).getAvailable());
+
+            // the new connection is returned to the pool once established
+            proceed.release();
+            awaitAvailable(connectMgr, route, 1);
+            Assert.assertEquals(1, connectMgr.getStats(route).getLeased());
+            connectMgr.release(endpoint2, null, TimeValue.NEG_ONE_MILLISECONDS);
+            Assert.assertEquals(2, connectMgr.getStats(route).getAvailable());
+            Assert.assertEquals(0, connectMgr.getStats(route).getLeased());
+        } finally {
+            requester.shutdownNow();
+            executor.shutdownNow();
+            connectMgr.close();
+        }
+    }
+
+    @Test
+    public void testConnectExecutorRejection() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager connectMgr = createWarmUpManager(connPool);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        connectMgr.setConnectExecutor(executor);
+        try {
+            final ConnectionEndpoint endpoint = connectMgr.lease("id1", route, null).get(Timeout.ofSeconds(1));
+            connectMgr.connect(endpoint, TimeValue.ofSeconds(1), HttpClientContext.create());
+            Assert.assertTrue(endpoint.isConnected());
+            connectMgr.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+            Assert.assertEquals(1, connectMgr.getStats(route).getAvailable());
+        } finally {
+            connectMgr.close();
+        }
+    }
+
+    @Test
+    public void testConnectExecutorFailure() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final HttpClientConnectionOperator connectionOperator = Mockito.mock(HttpClientConnectionOperator.class);
+        Mockito.doThrow(new ConnectException("Connection refused")).when(connectionOperator).connect(
+                Mockito.<ManagedHttpClientConnection>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<InetSocketAddress>any(),
+                Mockito.<TimeValue>any(),
+                Mockito.<SocketConfig>any(),
+                Mockito.<HttpContext>any());
+        final PoolingHttpClientConnectionManager connectMgr = new PoolingHttpClientConnectionManager(
+                connectionOperator, connPool, null);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        connectMgr.setConnectExecutor(executor);
+        try {
+            final ConnectionEndpoint endpoint = connectMgr.lease("id1", route, null).get(Timeout.ofSeconds(1));
+            try {
+                connectMgr.connect(endpoint, TimeValue.ofSeconds(1), HttpClientContext.create());
+                Assert.fail("ConnectException expected");
+            } catch (final ConnectException expected) {
+            }
+            Mockito.verify(connectionOperator, Mockito.times(1)).connect(
+                    Mockito.<ManagedHttpClientConnection>any(),
+                    Mockito.<HttpHost>any(),
+                    Mockito.<InetSocketAddress>any(),
+                    Mockito.<TimeValue>any(),
+                    Mockito.<SocketConfig>any(),
+                    Mockito.<HttpContext>any());
+            connectMgr.release(endpoint, null, null);
+            Assert.assertEquals(0, connectMgr.getStats(route).getLeased());
+        } finally {
+            executor.shutdownNow();
+            connectMgr.close();
+        }
+    }
+
+    @Test
+    public void testValidateIdleConnections() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool);
+        try {
+            Assert.assertEquals(Integer.valueOf(2), warmUpMgr.warmUp(route, 2, Timeout.ofSeconds(1), null).get());
+            final List<PoolEntry<HttpRoute, ManagedHttpClientConnection>> entries = new ArrayList<>();
+            connPool.enumAvailable(new Callback<PoolEntry<HttpRoute, ManagedHttpClientConnection>>() {
+
+                @Override
+                public void execute(final PoolEntry<HttpRoute, ManagedHttpClientConnection> entry) {
+                    entries.add(entry);
+                }
+
+            });
+            Assert.assertEquals(2, entries.size());
+            final ManagedHttpClientConnection staleConn = entries.get(0).getConnection();
+            final ManagedHttpClientConnection validConn = entries.get(1).getConnection();
+            Mockito.when(staleConn.isStale()).thenReturn(Boolean.TRUE);
+
+            warmUpMgr.setValidateAfterInactivity(TimeValue.NEG_ONE_MILLISECONDS);
+            warmUpMgr.validateIdleConnections();
+
+            Assert.assertEquals(2, warmUpMgr.getValidatedConnectionCount());
+            Assert.assertEquals(1, warmUpMgr.getStaleConnectionCount());
+            Assert.assertFalse(entries.get(0).hasConnection());
+            Assert.assertSame(validConn, entries.get(1).getConnection());
+            Mockito.verify(staleConn).close(CloseMode.IMMEDIATE);
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
+    @Test
+    public void testLeaseSkipsStaleCheckWithBackgroundValidation() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool);
+        try {
+            Assert.assertEquals(Integer.valueOf(1), warmUpMgr.warmUp(route, 1, Timeout.ofSeconds(1), null).get());
+            warmUpMgr.setValidateAfterInactivity(TimeValue.ZERO_MILLISECONDS);
+            warmUpMgr.setBackgroundValidationInterval(TimeValue.ofHours(1));
+
+            final ConnectionEndpoint endpoint = warmUpMgr.lease("some-id", route, null).get(Timeout.ofSeconds(1));
+            Assert.assertTrue(endpoint.isConnected());
+            final ManagedHttpClientConnection leasedConn = ((PoolingHttpClientConnectionManager.InternalConnectionEndpoint) endpoint).getPoolEntry().getConnection();
+            Mockito.verify(leasedConn, Mockito.never()).isStale();
+
+            // leased connections are never checked by the background task
+            warmUpMgr.validateIdleConnections();
+            Assert.assertEquals(0, warmUpMgr.getValidatedConnectionCount());
+
+            warmUpMgr.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+            warmUpMgr.validateIdleConnections();
+            Assert.assertEquals(1, warmUpMgr.getValidatedConnectionCount());
+            Assert.assertEquals(0, warmUpMgr.getStaleConnectionCount());
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        final HttpRoute route = new HttpRoute(new HttpHost("somehost", 80));
+        final StrictConnPool<HttpRoute, ManagedHttpClientConnection> connPool = new StrictConnPool<>(
+                1, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        final PoolingHttpClientConnectionManager warmUpMgr = createWarmUpManager(connPool);
+        final BasicConnPoolMetrics poolMetrics = new BasicConnPoolMetrics();
+        warmUpMgr.setMetricsListener(poolMetrics);
+        try {
+            final ConnectionEndpoint endpoint1 = warmUpMgr.lease("id1", route, null).get(Timeout.ofSeconds(1));
+            warmUpMgr.connect(endpoint1, TimeValue.ofSeconds(1), HttpClientContext.create());
+            warmUpMgr.release(endpoint1, null, TimeValue.NEG_ONE_MILLISECONDS);
+
+            final ConnectionEndpoint endpoint2 = warmUpMgr.lease("id2", route, null).get(Timeout.ofSeconds(1));
+            Assert.assertTrue(endpoint2.isConnected());
+            try {
+                warmUpMgr.lease("id3", route, null).get(Timeout.ofMilliseconds(10));
+                Assert.fail("TimeoutException expected");
+            } catch (final TimeoutException expected) {
+            }
+            endpoint2.close(CloseMode.IMMEDIATE);
+            warmUpMgr.release(endpoint2, null, TimeValue.ZERO_MILLISECONDS);
+
+            final BasicConnPoolMetrics.Metrics metrics = poolMetrics.getMetrics(route);
+            Assert.assertNotNull(metrics);
+            Assert.assertEquals(3, metrics.getLeaseRequestCount());
+            Assert.assertEquals(2, metrics.getLeaseGrantedCount());
+            Assert.assertEquals(1, metrics.getLeaseTimeoutCount());
+            Assert.assertEquals(1, metrics.getConnectionCreatedCount());
+            Assert.assertEquals(1, metrics.getConnectionReusedCount());
+            Assert.assertEquals(1, metrics.getConnectionClosedCount());
+            Assert.assertEquals(1, metrics.getConnectTime().getCount());
+            Assert.assertEquals(3, metrics.getLeaseWaitTime().getCount());
+        } finally {
+            warmUpMgr.close();
+        }
+    }
+
 }
@@ -0,0 +1,175 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.nio;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpHostConnectException;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestMultihomeIOSessionRequester {
+
+    private DnsResolver dnsResolver;
+    private InetAddress ip1;
+    private InetAddress ip2;
+    private HttpHost host;
+
+    @Before
+    public void setup() throws Exception {
+        dnsResolver = Mockito.mock(DnsResolver.class);
+        ip1 = InetAddress.getByAddress(new byte[] {10, 0, 0, 1});
+        ip2 = InetAddress.getByAddress(new byte[] {127, 0, 0, 1});
+        host = new HttpHost("somehost", 80);
+        Mockito.when(dnsResolver.resolve("somehost")).thenReturn(new InetAddress[] { ip1, ip2 });
+    }
+
+    /**
+     * Connection initiator that never completes connects to black-holed addresses
+     * and completes or fails all others immediately.
+     */
+    static class MockConnectionInitiator implements ConnectionInitiator {
+
+        final List<SocketAddress> blackHoled = new ArrayList<>();
+        final List<SocketAddress> refused = new ArrayList<>();
+        final List<BasicFuture<IOSession>> pending = new ArrayList<>();
+        final IOSession session = Mockito.mock(IOSession.class);
+
+        @Override
+        public synchronized Future<IOSession> connect(
+                final NamedEndpoint remoteEndpoint,
+                final SocketAddress remoteAddress,
+                final SocketAddress localAddress,
+                final Timeout timeout,
+                final Object attachment,
+                final FutureCallback<IOSession> callback) {
+            final BasicFuture<IOSession> future = new BasicFuture<>(callback);
+            if (blackHoled.contains(remoteAddress)) {
+                pending.add(future);
+            } else if (refused.contains(remoteAddress)) {
+                future.failed(new java.net.ConnectException("Connection refused"));
+            } else {
+                future.completed(session);
+            }
+            return future;
+        }
+
+    }
+
+    @Test
+    public void testConnectRacing() throws Exception {
+        final MockConnectionInitiator connectionInitiator = new MockConnectionInitiator();
+        connectionInitiator.blackHoled.add(new InetSocketAddress(ip1, 80));
+        final MultihomeIOSessionRequester sessionRequester = new MultihomeIOSessionRequester(
+                dnsResolver, TimeValue.ofMilliseconds(50));
+
+        final Future<IOSession> future = sessionRequester.connect(
+                connectionInitiator, host, null, Timeout.ofSeconds(30), null, null);
+        Assert.assertSame(connectionInitiator.session, future.get(5, TimeUnit.SECONDS));
+        synchronized (connectionInitiator) {
+            Assert.assertEquals(1, connectionInitiator.pending.size());
+            Assert.assertTrue(connectionInitiator.pending.get(0).isCancelled());
+        }
+    }
+
+    @Test
+    public void testConnectRacingNextAttemptOnFailure() throws Exception {
+        final MockConnectionInitiator connectionInitiator = new MockConnectionInitiator();
+        connectionInitiator.refused.add(new InetSocketAddress(ip1, 80));
+        // a long attempt delay must not hold up the next attempt once the first one failed
+        final MultihomeIOSessionRequester sessionRequester = new MultihomeIOSessionRequester(
+                dnsResolver, TimeValue.ofSeconds(30));
+
+        final Future<IOSession> future = sessionRequester.connect(
+                connectionInitiator, host, null, Timeout.ofSeconds(30), null, null);
+        Assert.assertSame(connectionInitiator.session, future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testConnectRacingFailure() throws Exception {
+        final MockConnectionInitiator connectionInitiator = new MockConnectionInitiator();
+        connectionInitiator.refused.add(new InetSocketAddress(ip1, 80));
+        connectionInitiator.refused.add(new InetSocketAddress(ip2, 80));
+        final MultihomeIOSessionRequester sessionRequester = new MultihomeIOSessionRequester(
+                dnsResolver, TimeValue.ofMilliseconds(50));
+
+        final Future<IOSession> future = sessionRequester.connect(
+                connectionInitiator, host, null, Timeout.ofSeconds(30), null, null);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("ExecutionException expected");
+        } catch (final ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof HttpHostConnectException);
+        }
+    }
+
+    @Test
+    public void testCancelRacing() throws Exception {
+        final MockConnectionInitiator connectionInitiator = new MockConnectionInitiator();
+        connectionInitiator.blackHoled.add(new InetSocketAddress(ip1, 80));
+        connectionInitiator.blackHoled.add(new InetSocketAddress(ip2, 80));
+        final MultihomeIOSessionRequester sessionRequester = new MultihomeIOSessionRequester(
+                dnsResolver, TimeValue.ofMilliseconds(10));
+
+        final Future<IOSession> future = sessionRequester.connect(
+                connectionInitiator, host, null, Timeout.ofSeconds(30), null, null);
+        for (int i = 0; i < 100; i++) {
+            synchronized (connectionInitiator) {
+                if (connectionInitiator.pending.size() == 2) {
+                    break;
+                }
+            }
+            Thread.sleep(10);
+        }
+        future.cancel(true);
+        synchronized (connectionInitiator) {
+            Assert.assertEquals(2, connectionInitiator.pending.size());
+            for (final BasicFuture<IOSession> attempt : connectionInitiator.pending) {
+                Assert.assertTrue(attempt.isCancelled());
+            }
+        }
+    }
+
+}
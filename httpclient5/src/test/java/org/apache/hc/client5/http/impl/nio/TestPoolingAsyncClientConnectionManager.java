@@ -0,0 +1,266 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.impl.nio;
+
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.ConnPoolMetricsListener;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionOperator;
+import org.apache.hc.client5.http.nio.AsyncConnectionEndpoint;
+import org.apache.hc.client5.http.nio.ManagedAsyncClientConnection;
+import org.apache.hc.core5.concurrent.BasicFuture;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.pool.StrictConnPool;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TestPoolingAsyncClientConnectionManager {
+
+    private HttpRoute route;
+    private ConnectionInitiator connectionInitiator;
+    private StrictConnPool<HttpRoute, ManagedAsyncClientConnection> connPool;
+    private BlockingQueue<FutureCallback<ManagedAsyncClientConnection>> pendingConnects;
+    private boolean connectImmediately;
+    private PoolingAsyncClientConnectionManager connManager;
+
+    @Before
+    public void setup() throws Exception {
+        route = new HttpRoute(new HttpHost("somehost", 80));
+        connectionInitiator = Mockito.mock(ConnectionInitiator.class);
+        connPool = new StrictConnPool<>(3, 10, TimeValue.NEG_ONE_MILLISECONDS, PoolReusePolicy.LIFO, null);
+        pendingConnects = new LinkedBlockingQueue<>();
+        connectImmediately = true;
+        final Set<ManagedAsyncClientConnection> open = Collections.newSetFromMap(
+                new ConcurrentHashMap<ManagedAsyncClientConnection, Boolean>());
+        final Answer<Boolean> isOpen = new Answer<Boolean>() {
+
+            @Override
+            public Boolean answer(final InvocationOnMock invocation) {
+                return open.contains(invocation.getMock());
+            }
+
+        };
+        final AsyncClientConnectionOperator connectionOperator = Mockito.mock(AsyncClientConnectionOperator.class);
+        Mockito.when(connectionOperator.connect(
+                Mockito.<ConnectionInitiator>any(),
+                Mockito.<HttpHost>any(),
+                Mockito.<SocketAddress>any(),
+                Mockito.<Timeout>any(),
+                Mockito.any(),
+                Mockito.<FutureCallback<ManagedAsyncClientConnection>>any())).thenAnswer(
+                        new Answer<Future<ManagedAsyncClientConnection>>() {
+
+            @Override
+            public Future<ManagedAsyncClientConnection> answer(final InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                final FutureCallback<ManagedAsyncClientConnection> callback =
+                        (FutureCallback<ManagedAsyncClientConnection>) invocation.getArguments()[5];
+                final ManagedAsyncClientConnection connection = Mockito.mock(ManagedAsyncClientConnection.class);
+                Mockito.when(connection.isOpen()).thenAnswer(isOpen);
+                open.add(connection);
+                if (connectImmediately) {
+                    callback.completed(connection);
+                } else {
+                    pendingConnects.add(new FutureCallback<ManagedAsyncClientConnection>() {
+
+                        @Override
+                        public void completed(final ManagedAsyncClientConnection result) {
+                            callback.completed(connection);
+                        }
+
+                        @Override
+                        public void failed(final Exception ex) {
+                            callback.failed(ex);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            callback.cancelled();
+                        }
+
+                    });
+                }
+                return new BasicFuture<>(null);
+            }
+
+        });
+        connManager = new PoolingAsyncClientConnectionManager(connPool, connectionOperator);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        connManager.close();
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        Assert.assertEquals(Integer.valueOf(2), connManager.warmUp(
+                route, 2, connectionInitiator, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+        final PoolStats stats1 = connManager.getStats(route);
+        Assert.assertEquals(2, stats1.getAvailable());
+        Assert.assertEquals(0, stats1.getLeased());
+
+        // existing connections count towards the target and the per route limit is respected
+        Assert.assertEquals(Integer.valueOf(1), connManager.warmUp(
+                route, 5, connectionInitiator, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+        final PoolStats stats2 = connManager.getStats(route);
+        Assert.assertEquals(3, stats2.getAvailable());
+        Assert.assertEquals(0, stats2.getLeased());
+
+        final AsyncConnectionEndpoint endpoint = connManager.lease(
+                "test", route, null, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(endpoint.isConnected());
+        connManager.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+    }
+
+    @Test
+    public void testWarmUpLeavesIdleConnectionsAvailable() throws Exception {
+        final ConnPoolMetricsListener metrics = Mockito.mock(ConnPoolMetricsListener.class);
+        connManager.setMetricsListener(metrics);
+        Assert.assertEquals(Integer.valueOf(1), connManager.warmUp(
+                route, 1, connectionInitiator, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+
+        connectImmediately = false;
+        final Future<Integer> future = connManager.warmUp(route, 3, connectionInitiator, Timeout.ofSeconds(1), null);
+        Assert.assertEquals(2, pendingConnects.size());
+        // the idle connection remains available while new ones are being opened
+        final PoolStats stats1 = connManager.getStats(route);
+        Assert.assertEquals(1, stats1.getAvailable());
+        Assert.assertEquals(2, stats1.getLeased());
+        final AsyncConnectionEndpoint endpoint = connManager.lease(
+                "test", route, null, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(endpoint.isConnected());
+        connManager.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+
+        // each connection is released as soon as it has been established
+        pendingConnects.take().completed(null);
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(2, connManager.getStats(route).getAvailable());
+        pendingConnects.take().completed(null);
+        Assert.assertEquals(Integer.valueOf(2), future.get(5, TimeUnit.SECONDS));
+        final PoolStats stats2 = connManager.getStats(route);
+        Assert.assertEquals(3, stats2.getAvailable());
+        Assert.assertEquals(0, stats2.getLeased());
+
+        // warm-ups of a saturated route do not wait and are not reported as leases
+        Assert.assertEquals(Integer.valueOf(0), connManager.warmUp(
+                route, 5, connectionInitiator, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(pendingConnects.isEmpty());
+        Assert.assertEquals(3, connManager.getStats(route).getAvailable());
+        Mockito.verify(metrics, Mockito.times(1)).leaseRequested(route);
+        Mockito.verify(metrics, Mockito.times(1)).leaseGranted(Mockito.eq(route), Mockito.anyLong());
+        Mockito.verify(metrics, Mockito.never()).leaseTimedOut(Mockito.<HttpRoute>any(), Mockito.anyLong());
+        Mockito.verify(metrics, Mockito.times(3)).connectionCreated(Mockito.eq(route), Mockito.anyLong());
+    }
+
+    @Test
+    public void testWarmUpDoesNotCompeteWithRequests() throws Exception {
+        connManager.setMaxPerRoute(route, 1);
+        final AsyncConnectionEndpoint endpoint = connManager.lease(
+                "test", route, null, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+        final Future<AsyncConnectionEndpoint> pending = connManager.lease(
+                "test", route, null, Timeout.ofSeconds(5), null);
+
+        Assert.assertEquals(Integer.valueOf(0), connManager.warmUp(
+                route, 1, connectionInitiator, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, connManager.getStats(route).getLeased());
+
+        // the released slot goes to the waiting request rather than to a warm-up
+        connManager.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+        final AsyncConnectionEndpoint endpoint2 = pending.get(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(endpoint2);
+        connManager.release(endpoint2, null, TimeValue.NEG_ONE_MILLISECONDS);
+    }
+
+    @Test
+    public void testWarmUpConnectFailure() throws Exception {
+        connectImmediately = false;
+        final Future<Integer> future = connManager.warmUp(route, 2, connectionInitiator, Timeout.ofSeconds(1), null);
+        Assert.assertEquals(2, pendingConnects.size());
+        pendingConnects.take().completed(null);
+        pendingConnects.take().failed(new ConnectException("refused"));
+        Assert.assertEquals(Integer.valueOf(1), future.get(5, TimeUnit.SECONDS));
+        final PoolStats stats = connManager.getStats(route);
+        Assert.assertEquals(1, stats.getAvailable());
+        Assert.assertEquals(0, stats.getLeased());
+    }
+
+    @Test
+    public void testWarmUpTunnelledRoute() throws Exception {
+        final HttpRoute tunnelled = new HttpRoute(
+                new HttpHost("https", "somehost", 443), null, new HttpHost("someproxy", 8080), true);
+        Assert.assertEquals(Integer.valueOf(0), connManager.warmUp(
+                tunnelled, 2, connectionInitiator, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, connManager.getStats(tunnelled).getAvailable());
+    }
+
+    @Test
+    public void testMinIdleReplenishedAfterEviction() throws Exception {
+        connManager.setMinIdlePerRoute(route, 2);
+        Assert.assertEquals(2, connManager.getMinIdlePerRoute(route));
+        // no connection initiator known yet
+        Assert.assertEquals(0, connManager.getStats(route).getAvailable());
+
+        connManager.ensureMinIdle(connectionInitiator);
+        Assert.assertEquals(2, connManager.getStats(route).getAvailable());
+
+        connManager.closeIdle(TimeValue.ZERO_MILLISECONDS);
+        Assert.assertEquals(2, connManager.getStats(route).getAvailable());
+
+        final AsyncConnectionEndpoint endpoint = connManager.lease(
+                "test", route, null, Timeout.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(endpoint.isConnected());
+        endpoint.close(CloseMode.IMMEDIATE);
+        connManager.release(endpoint, null, TimeValue.NEG_ONE_MILLISECONDS);
+        Assert.assertEquals(2, connManager.getStats(route).getAvailable());
+
+        connManager.setMinIdlePerRoute(route, 0);
+        Assert.assertEquals(0, connManager.getMinIdlePerRoute(route));
+    }
+
+}
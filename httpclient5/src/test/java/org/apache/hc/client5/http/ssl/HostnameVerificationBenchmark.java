@@ -0,0 +1,85 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.ssl;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.client5.http.psl.PublicSuffixMatcherLoader;
+
+/**
+ * Simple CPU cost comparison of host name verification with and without
+ * {@link CachingHostnameVerifier} for a small set of servers. This is not
+ * a unit test; run it manually with {@code [seconds]} argument.
+ */
+public class HostnameVerificationBenchmark {
+
+    public static void main(final String[] args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        final X509Certificate[] certs = new X509Certificate[] {
+                (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(CertificatesToPlayWith.X509_FOO)),
+                (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(CertificatesToPlayWith.X509_WILD_FOO)),
+                (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(CertificatesToPlayWith.X509_FOO_BAR))
+        };
+        final String[] hosts = new String[] { "foo.com", "www.foo.com", "bar.com" };
+        final DefaultHostnameVerifier defaultVerifier = new DefaultHostnameVerifier(PublicSuffixMatcherLoader.getDefault());
+        final CachingHostnameVerifier cachingVerifier = new CachingHostnameVerifier(defaultVerifier, 1000) {
+
+            @Override
+            long now() {
+                // The sample certificates may have expired
+                return certs[0].getNotBefore().getTime();
+            }
+
+        };
+        for (int round = 0; round < 2; round++) {
+            run("DefaultHostnameVerifier", defaultVerifier, hosts, certs, seconds);
+            run("CachingHostnameVerifier", cachingVerifier, hosts, certs, seconds);
+        }
+    }
+
+    static void run(
+            final String name,
+            final HttpClientHostnameVerifier verifier,
+            final String[] hosts,
+            final X509Certificate[] certs,
+            final int seconds) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long ops = 0;
+        while ((ops & 0xff) != 0 || System.nanoTime() < deadline) {
+            final int n = (int) (ops % hosts.length);
+            verifier.verify(hosts[n], certs[n]);
+            ops++;
+        }
+        System.out.printf("%-24s ops/s=%,d ns/op=%,d%n",
+                name, ops / seconds, TimeUnit.SECONDS.toNanos(seconds) / ops);
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.ssl;
+
+import java.io.ByteArrayInputStream;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link CachingHostnameVerifier}.
+ */
+public class TestCachingHostnameVerifier {
+
+    static class CountingHostnameVerifier implements HttpClientHostnameVerifier {
+
+        private final DefaultHostnameVerifier impl = new DefaultHostnameVerifier();
+
+        int count;
+
+        @Override
+        public boolean verify(final String host, final SSLSession session) {
+            count++;
+            return impl.verify(host, session);
+        }
+
+        @Override
+        public void verify(final String host, final X509Certificate cert) throws SSLException {
+            count++;
+            impl.verify(host, cert);
+        }
+
+    }
+
+    private X509Certificate x509;
+    private CountingHostnameVerifier delegate;
+    private long now;
+    private CachingHostnameVerifier impl;
+
+    @Before
+    public void setup() throws Exception {
+        final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        x509 = (X509Certificate) cf.generateCertificate(new ByteArrayInputStream(CertificatesToPlayWith.X509_FOO));
+        delegate = new CountingHostnameVerifier();
+        now = x509.getNotBefore().getTime();
+        impl = new CachingHostnameVerifier(delegate, 2) {
+
+            @Override
+            long now() {
+                return now;
+            }
+
+        };
+    }
+
+    @Test
+    public void testVerificationCached() throws Exception {
+        impl.verify("foo.com", x509);
+        impl.verify("FOO.com", x509);
+        impl.verify("foo.com", x509);
+        Assert.assertEquals(1, delegate.count);
+        Assert.assertEquals(2, impl.getHitCount());
+        Assert.assertEquals(1, impl.getMissCount());
+        Assert.assertEquals(1, impl.size());
+    }
+
+    @Test
+    public void testFailureNotCached() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            try {
+                impl.verify("bar.com", x509);
+                Assert.fail("SSLException expected");
+            } catch (final SSLException expected) {
+            }
+        }
+        Assert.assertEquals(2, delegate.count);
+        Assert.assertEquals(0, impl.size());
+    }
+
+    @Test
+    public void testExpiredCertificateNotCached() throws Exception {
+        impl.verify("foo.com", x509);
+        now = x509.getNotAfter().getTime() + 1;
+        impl.verify("foo.com", x509);
+        Assert.assertEquals(2, delegate.count);
+        Assert.assertEquals(0, impl.size());
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        final CertificateFactory cf = CertificateFactory.getInstance("X.509");
+        final X509Certificate wildcard = (X509Certificate) cf.generateCertificate(
+                new ByteArrayInputStream(CertificatesToPlayWith.X509_WILD_FOO));
+        now = Math.max(now, wildcard.getNotBefore().getTime());
+        impl.verify("foo.com", x509);
+        impl.verify("a.foo.com", wildcard);
+        impl.verify("b.foo.com", wildcard);
+        Assert.assertEquals(2, impl.size());
+        impl.verify("foo.com", x509);
+        Assert.assertEquals(4, delegate.count);
+        impl.clear();
+        Assert.assertEquals(0, impl.size());
+    }
+
+}
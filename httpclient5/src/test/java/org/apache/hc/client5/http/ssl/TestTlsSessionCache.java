@@ -0,0 +1,137 @@
+/*
+ * ====================================================================
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ * ====================================================================
+ *
+ * This software consists of voluntary contributions made by many
+ * individuals on behalf of the Apache Software Foundation.  For more
+ * information on the Apache Software Foundation, please see
+ * <http://www.apache.org/>.
+ *
+ */
+package org.apache.hc.client5.http.ssl;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+
+import org.apache.hc.core5.ssl.SSLContexts;
+import org.apache.hc.core5.util.TimeValue;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestTlsSessionCache {
+
+    private static SSLSession session(final byte[] id, final long creationTime) {
+        final SSLSession session = Mockito.mock(SSLSession.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        Mockito.when(session.getCreationTime()).thenReturn(creationTime);
+        Mockito.when(session.isValid()).thenReturn(true);
+        return session;
+    }
+
+    @Test
+    public void testFullHandshakeAndResumption() throws Exception {
+        final TlsSessionCache cache = new TlsSessionCache();
+        final long now = System.currentTimeMillis();
+        final SSLSession session1 = session(new byte[] {1, 2, 3}, now);
+        Assert.assertFalse(cache.sessionEstablished("somehost", 443, session1, now));
+        Assert.assertSame(session1, cache.getSession("SomeHost", 443));
+
+        final SSLSession session2 = session(new byte[] {1, 2, 3}, now);
+        Assert.assertTrue(cache.sessionEstablished("somehost", 443, session2, now));
+
+        final SSLSession session3 = session(new byte[] {4, 5, 6}, now - 1000);
+        Assert.assertTrue(cache.sessionEstablished("somehost", 443, session3, now));
+
+        final SSLSession session4 = session(new byte[] {7, 8, 9}, now);
+        Assert.assertFalse(cache.sessionEstablished("somehost", 8443, session4, now));
+
+        Assert.assertEquals(2, cache.getResumedCount());
+        Assert.assertEquals(2, cache.getFullHandshakeCount());
+        Assert.assertEquals(0.5, cache.getResumptionRatio(), 0.001);
+    }
+
+    @Test
+    public void testEmptySessionIdNotResumed() throws Exception {
+        final TlsSessionCache cache = new TlsSessionCache();
+        final long now = System.currentTimeMillis();
+        Assert.assertFalse(cache.sessionEstablished("somehost", 443, session(new byte[0], now), now));
+        Assert.assertFalse(cache.sessionEstablished("somehost", 443, session(new byte[0], now), now));
+        Assert.assertEquals(0.0, cache.getResumptionRatio(), 0.001);
+    }
+
+    @Test
+    public void testSizeBound() throws Exception {
+        final TlsSessionCache cache = new TlsSessionCache(2, TimeValue.ofHours(1));
+        final long now = System.currentTimeMillis();
+        cache.sessionEstablished("host1", 443, session(new byte[] {1}, now), now);
+        cache.sessionEstablished("host2", 443, session(new byte[] {2}, now), now);
+        Assert.assertNotNull(cache.getSession("host1", 443));
+        cache.sessionEstablished("host3", 443, session(new byte[] {3}, now), now);
+        Assert.assertNotNull(cache.getSession("host1", 443));
+        Assert.assertNull(cache.getSession("host2", 443));
+        Assert.assertNotNull(cache.getSession("host3", 443));
+    }
+
+    @Test
+    public void testExpiredAndInvalidSessions() throws Exception {
+        final TlsSessionCache cache = new TlsSessionCache(10, TimeValue.ofMinutes(1));
+        final long now = System.currentTimeMillis();
+        cache.sessionEstablished("host1", 443, session(new byte[] {1}, now - 120000), now);
+        Assert.assertNull(cache.getSession("host1", 443));
+
+        final SSLSession session = session(new byte[] {2}, now);
+        cache.sessionEstablished("host2", 443, session, now);
+        Mockito.when(session.isValid()).thenReturn(false);
+        Assert.assertNull(cache.getSession("host2", 443));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        final TlsSessionCache cache = new TlsSessionCache();
+        final long now = System.currentTimeMillis();
+        final SSLSession session1 = session(new byte[] {1}, now);
+        final SSLSession session2 = session(new byte[] {2}, now);
+        cache.sessionEstablished("host1", 443, session1, now);
+        cache.sessionEstablished("host2", 443, session2, now);
+
+        cache.invalidate("host1", 443);
+        Mockito.verify(session1).invalidate();
+        Assert.assertNull(cache.getSession("host1", 443));
+
+        cache.clear();
+        Mockito.verify(session2).invalidate();
+        Assert.assertNull(cache.getSession("host2", 443));
+    }
+
+    @Test
+    public void testConfigure() throws Exception {
+        final SSLContext sslContext = SSLContexts.createDefault();
+        final TlsSessionCache cache = new TlsSessionCache(50, TimeValue.ofMinutes(10));
+        cache.configure(sslContext);
+        Assert.assertEquals(50, sslContext.getClientSessionContext().getSessionCacheSize());
+        Assert.assertEquals(600, sslContext.getClientSessionContext().getSessionTimeout());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxSessions() throws Exception {
+        new TlsSessionCache(0, TimeValue.ofHours(1));
+    }
+
+}